@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import static io.guise.framework.platform.web.WebPlatform.*;
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.Charset;
+
+import com.globalmentor.net.ContentType;
+import com.globalmentor.text.Text;
+import com.globalmentor.xml.QualifiedName;
+
+import io.guise.framework.*;
+import io.guise.framework.platform.DepictBuffers;
+import io.guise.framework.platform.web.*;
+
+/**
+ * A web depict context collecting a depiction outside of any request, for measuring depiction itself. Hash attributes are generated, just as when depicting
+ * for an HTTP request.
+ * <p>
+ * The session, platform, application, and destination are stubs created as dynamic proxies, supporting only what a depict context needs when it is created.
+ * </p>
+ * @author Garret Wilson
+ */
+class BenchmarkWebDepictContext extends AbstractWebDepictContext {
+
+	/** The stub session of all benchmark depict contexts. */
+	private static final GuiseSession SESSION = createSession();
+
+	/** The stub destination of all benchmark depict contexts. */
+	private static final Destination DESTINATION = (Destination)Proxy.newProxyInstance(BenchmarkWebDepictContext.class.getClassLoader(),
+			new Class<?>[] {Destination.class}, (proxy, method, args) -> {
+				throw new UnsupportedOperationException(method.getName());
+			});
+
+	/** The depiction URI of all benchmark depict contexts. */
+	private static final URI DEPICTION_URI = URI.create("http://example.com/benchmark");
+
+	/** The current content type of the output. */
+	private ContentType outputContentType = ContentType.of(ContentType.TEXT_PRIMARY_TYPE, Text.PLAIN_SUBTYPE); //default to text/plain
+
+	/** The qualified name to use for the attribute hash attribute. */
+	private final QualifiedName attributeHashAttributeQualifiedName;
+
+	@Override
+	protected QualifiedName getAttributeHashAttributeQualifiedName() {
+		return attributeHashAttributeQualifiedName;
+	}
+
+	/** The qualified name to use for the content hash attribute. */
+	private final QualifiedName contentHashAttributeQualifiedName;
+
+	@Override
+	protected QualifiedName getContentHashAttributeQualifiedName() {
+		return contentHashAttributeQualifiedName;
+	}
+
+	/**
+	 * Depict buffers constructor.
+	 * @param depictBuffers The empty scratch buffers in which to collect the depiction, which may be reused once this context is no longer used.
+	 * @throws NullPointerException if the given depict buffers is null.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 */
+	public BenchmarkWebDepictContext(final DepictBuffers depictBuffers) throws IOException {
+		super(SESSION, DESTINATION, depictBuffers); //construct the parent class
+		attributeHashAttributeQualifiedName = new QualifiedName(GUISE_ML_NAMESPACE_URI, getQualifiedName(GUISE_ML_NAMESPACE_URI, ATTRIBUTE_ATTRIBUTE_HASH));
+		contentHashAttributeQualifiedName = new QualifiedName(GUISE_ML_NAMESPACE_URI, getQualifiedName(GUISE_ML_NAMESPACE_URI, ATTRIBUTE_CONTENT_HASH));
+		setHashAttributesGenerated(true); //generate hash attributes, as for HTTP requests
+	}
+
+	@Override
+	public URI getDepictionURI() {
+		return DEPICTION_URI;
+	}
+
+	@Override
+	public Charset getOutputCharset() {
+		return UTF_8;
+	}
+
+	@Override
+	public ContentType getOutputContentType() {
+		return outputContentType;
+	}
+
+	@Override
+	public void setOutputContentType(final ContentType contentType) {
+		this.outputContentType = ContentType.of(contentType.getPrimaryType(), contentType.getSubType(),
+				ContentType.Parameter.of(ContentType.CHARSET_PARAMETER, getOutputCharset().name()));
+	}
+
+	/**
+	 * Creates a stub session with a stub web platform and a stub application having no style.
+	 * @return A new stub session.
+	 */
+	private static GuiseSession createSession() {
+		final ClassLoader classLoader = BenchmarkWebDepictContext.class.getClassLoader();
+		final WebPlatform platform = (WebPlatform)Proxy.newProxyInstance(classLoader, new Class<?>[] {WebPlatform.class}, (proxy, method, args) -> {
+			throw new UnsupportedOperationException(method.getName());
+		});
+		final GuiseApplication application = (GuiseApplication)Proxy.newProxyInstance(classLoader, new Class<?>[] {GuiseApplication.class},
+				(proxy, method, args) -> {
+					if(method.getName().equals("getStyleURI")) {
+						return null;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+		return (GuiseSession)Proxy.newProxyInstance(classLoader, new Class<?>[] {GuiseSession.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "getPlatform":
+					return platform;
+				case "getApplication":
+					return application;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import static com.globalmentor.html.spec.HTML.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.guise.framework.platform.DepictBuffers;
+
+/**
+ * Compares depicting AJAX responses in depict buffers reused from the last depiction of the session, as the HTTP servlet web platform does, with depicting
+ * each response in newly allocated buffers, as Guise did before.
+ * <p>
+ * Pooled buffers are acquired and released just as the platform acquires and releases them, reusing the buffers of the last depiction unless they have grown
+ * beyond the maximum retained capacity. Each response patches a number of components, each depicted as an element with attributes containing a labeled
+ * child element.
+ * </p>
+ * <p>
+ * The allocation of each approach is the point of the comparison. Run with <code>java -jar target/benchmarks.jar DepictBuffersBenchmark -prof gc</code> and
+ * compare the <code>gc.alloc.rate</code> and <code>gc.alloc.rate.norm</code> results, which give the bytes allocated per second and per response.
+ * </p>
+ * @author Garret Wilson
+ * @see io.guise.framework.platform.web.HTTPServletWebPlatform
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepictBuffersBenchmark {
+
+	/** The source of the buffers for each depiction. */
+	public enum Buffers {
+		/** Buffers reused from the last depiction, if available. */
+		POOLED,
+		/** New buffers for each depiction. */
+		UNPOOLED
+	}
+
+	/** The source of the buffers being measured. */
+	@Param({"POOLED", "UNPOOLED"})
+	public Buffers buffers;
+
+	/** The number of components patched by each response. */
+	@Param({"10", "200"})
+	public int componentCount;
+
+	/** The depict buffers released by the last depiction, or <code>null</code> if there are none available for reuse. */
+	private final AtomicReference<DepictBuffers> releasedDepictBuffers = new AtomicReference<DepictBuffers>();
+
+	/** Discards any buffers released by an earlier trial. */
+	@Setup(Level.Trial)
+	public void setup() {
+		releasedDepictBuffers.set(null);
+	}
+
+	/**
+	 * Depicts an AJAX response.
+	 * @return The length of the depicted text.
+	 * @throws IOException if there is an error depicting the response.
+	 */
+	@Benchmark
+	public int depict() throws IOException {
+		final DepictBuffers depictBuffers = acquireDepictBuffers();
+		final BenchmarkWebDepictContext depictContext = new BenchmarkWebDepictContext(depictBuffers);
+		depictContext.writeElementBegin(null, "patch"); //<patch>
+		depictContext.writeAttribute(null, "base", "41");
+		depictContext.writeAttribute(null, "sequence", "42");
+		for(int i = 0; i < componentCount; ++i) {
+			final String id = "id" + i;
+			depictContext.writeElementBegin(XHTML_NAMESPACE_URI, ELEMENT_DIV); //<xhtml:div>
+			depictContext.writeAttribute(null, ATTRIBUTE_ID, id);
+			depictContext.writeAttribute(null, ATTRIBUTE_CLASS, "layoutPanel-body");
+			depictContext.writeAttribute(null, ATTRIBUTE_STYLE, "display:block;");
+			depictContext.writeElementBegin(XHTML_NAMESPACE_URI, ELEMENT_SPAN); //<xhtml:span>
+			depictContext.writeAttribute(null, ATTRIBUTE_ID, id + "-label");
+			depictContext.writeAttribute(null, ATTRIBUTE_CLASS, "label");
+			depictContext.write("Label " + i + " été");
+			depictContext.writeElementEnd(XHTML_NAMESPACE_URI, ELEMENT_SPAN); //</xhtml:span>
+			depictContext.writeElementEnd(XHTML_NAMESPACE_URI, ELEMENT_DIV); //</xhtml:div>
+		}
+		depictContext.writeElementEnd(null, "patch"); //</patch>
+		final int length = depictContext.getDepictStringBuilder().length();
+		releaseDepictBuffers(depictBuffers);
+		return length;
+	}
+
+	/**
+	 * Acquires empty buffers for a depiction, reusing the buffers of the last depiction if pooling and if they are available.
+	 * @return Empty depict buffers.
+	 */
+	private DepictBuffers acquireDepictBuffers() {
+		if(buffers == Buffers.POOLED) {
+			final DepictBuffers depictBuffers = releasedDepictBuffers.getAndSet(null);
+			if(depictBuffers != null) {
+				return depictBuffers;
+			}
+		}
+		return new DepictBuffers();
+	}
+
+	/**
+	 * Releases the buffers of a depiction for reuse if pooling and if they have not grown too large to be worth retaining.
+	 * @param depictBuffers The buffers of the finished depiction.
+	 */
+	private void releaseDepictBuffers(final DepictBuffers depictBuffers) {
+		if(buffers == Buffers.POOLED && depictBuffers.reset()) {
+			releasedDepictBuffers.set(depictBuffers);
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.globalmentor.collections.*;
+
+import io.guise.framework.GuiseSession;
+import io.guise.framework.component.transfer.Transferable;
+import io.guise.framework.platform.*;
+
+/**
+ * Compares the {@link DepictedObjectRegistry} a platform uses to look up depicted objects by ID with the read/write-locked weak value map it replaced, under a
+ * mixed load of lookups and registrations.
+ * <p>
+ * A fixed number of depicted objects are kept alive. The registering thread repeatedly replaces a random live object with a newly registered one, leaving the
+ * replaced object to be garbage collected and its entry purged, while the other threads look up live objects by ID as is done for each platform event.
+ * </p>
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar DepictedObjectRegistryBenchmark</code>.
+ * </p>
+ * @author Garret Wilson
+ * @see AbstractPlatform#getDepictedObject(long)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class DepictedObjectRegistryBenchmark {
+
+	/** The implementation of the registry. */
+	public enum Registry {
+		/** A {@link DecoratorReadWriteLockMap} around a {@link PurgeOnWriteWeakValueHashMap}, as the platform used to use. */
+		LOCKED_WEAK_VALUE_MAP,
+		/** A {@link DepictedObjectRegistry}. */
+		DEPICTED_OBJECT_REGISTRY
+	}
+
+	/** The registry implementation being measured. */
+	@Param({"LOCKED_WEAK_VALUE_MAP", "DEPICTED_OBJECT_REGISTRY"})
+	public Registry registry;
+
+	/** The number of depicted objects kept alive. */
+	@Param({"1000", "100000"})
+	public int liveCount;
+
+	/** The source of depicted object IDs. */
+	private final AtomicLong nextDepictID = new AtomicLong();
+
+	/** The depicted objects being kept alive; replaced entries become eligible for garbage collection. */
+	private AtomicReferenceArray<DepictedObject> liveDepictedObjects;
+
+	/** The map of IDs to depicted objects, if the old map is being measured. */
+	private Map<Long, DepictedObject> depictedObjectMap;
+
+	/** The depicted object registry, if the registry is being measured. */
+	private DepictedObjectRegistry depictedObjectRegistry;
+
+	/** Creates and registers the live depicted objects. */
+	@Setup(Level.Trial)
+	public void setup() {
+		switch(registry) {
+			case LOCKED_WEAK_VALUE_MAP:
+				depictedObjectMap = new DecoratorReadWriteLockMap<Long, DepictedObject>(new PurgeOnWriteWeakValueHashMap<Long, DepictedObject>());
+				break;
+			case DEPICTED_OBJECT_REGISTRY:
+				depictedObjectRegistry = new DepictedObjectRegistry();
+				break;
+			default:
+				throw new AssertionError(registry);
+		}
+		liveDepictedObjects = new AtomicReferenceArray<DepictedObject>(liveCount);
+		for(int i = 0; i < liveCount; ++i) {
+			liveDepictedObjects.set(i, register());
+		}
+	}
+
+	/**
+	 * Creates a new depicted object and registers it.
+	 * @return The registered depicted object.
+	 */
+	private DepictedObject register() {
+		final DepictedObject depictedObject = new StubDepictedObject(nextDepictID.getAndIncrement());
+		if(depictedObjectRegistry != null) {
+			depictedObjectRegistry.register(depictedObject);
+		} else {
+			depictedObjectMap.put(depictedObject.getDepictID(), depictedObject);
+		}
+		return depictedObject;
+	}
+
+	/**
+	 * Looks up a random live depicted object by its ID.
+	 * @return The depicted object found, which may be <code>null</code> if it was replaced after being chosen.
+	 */
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(3)
+	public DepictedObject lookup() {
+		final long depictID = liveDepictedObjects.get(ThreadLocalRandom.current().nextInt(liveCount)).getDepictID();
+		return depictedObjectRegistry != null ? depictedObjectRegistry.get(depictID) : depictedObjectMap.get(depictID);
+	}
+
+	/** Replaces a random live depicted object with a newly registered one, as happens when components are created and discarded. */
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(1)
+	public void replace() {
+		liveDepictedObjects.set(ThreadLocalRandom.current().nextInt(liveCount), register());
+	}
+
+	/**
+	 * A depicted object that has nothing but an ID.
+	 * @author Garret Wilson
+	 */
+	private static class StubDepictedObject implements DepictedObject {
+
+		/** The depict ID. */
+		private final long depictID;
+
+		/**
+		 * Depict ID constructor.
+		 * @param depictID The depict ID.
+		 */
+		public StubDepictedObject(final long depictID) {
+			this.depictID = depictID;
+		}
+
+		@Override
+		public long getDepictID() {
+			return depictID;
+		}
+
+		@Override
+		public GuiseSession getSession() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Depictor<? extends DepictedObject> getDepictor() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Transferable<?> exportTransfer() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void processEvent(final PlatformEvent event) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void depict() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
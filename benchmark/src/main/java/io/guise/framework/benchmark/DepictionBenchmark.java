@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import static com.globalmentor.html.spec.HTML.*;
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.IOException;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.guise.framework.platform.*;
+
+/**
+ * Compares depicting a large component tree into the single buffer of an {@link AbstractXMLDepictContext}, which fills in the content hash of each element in
+ * place, with the way elements were depicted before: each open element collecting its content in its own string builder, the content being hashed and then
+ * copied into the builder of the parent element when the element ends.
+ * <p>
+ * The earlier approach is reproduced by {@link ElementBuilderDepiction}, which serializes and hashes elements just as the depict context did before, without
+ * the rest of the depict context. Each component of the tree is depicted as an element with attributes; leaf components contain a labeled child element.
+ * </p>
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar DepictionBenchmark -prof gc</code> and compare both the time of each depiction and the
+ * <code>gc.alloc.rate.norm</code> results, which give the bytes allocated per depiction.
+ * </p>
+ * @author Garret Wilson
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepictionBenchmark {
+
+	/** The number of components in the tree. */
+	@Param({"1000", "10000"})
+	public int componentCount;
+
+	/** The number of children of each component that is not a leaf. */
+	@Param({"8"})
+	public int childCount;
+
+	/**
+	 * Depicts the tree into the single buffer of a depict context.
+	 * @return The length of the depicted text.
+	 * @throws IOException if there is an error depicting the tree.
+	 */
+	@Benchmark
+	public int singleBuffer() throws IOException {
+		final BenchmarkWebDepictContext depictContext = new BenchmarkWebDepictContext(new DepictBuffers());
+		depictComponent(depictContext, 0);
+		return depictContext.getDepictStringBuilder().length();
+	}
+
+	/**
+	 * Depicts the tree with a string builder for each element.
+	 * @return The length of the depicted text.
+	 */
+	@Benchmark
+	public int elementBuilders() {
+		final ElementBuilderDepiction depiction = new ElementBuilderDepiction();
+		depictComponent(depiction, 0);
+		return depiction.getStringBuilder().length();
+	}
+
+	/**
+	 * Depicts a component and its descendants into a depict context. The children of component <var>n</var> are the components beginning at
+	 * <var>n</var>&times;<var>childCount</var>+1, in the manner of a heap.
+	 * @param depictContext The depict context into which the component should be depicted.
+	 * @param index The index of the component to depict.
+	 * @throws IOException if there is an error depicting the component.
+	 */
+	private void depictComponent(final XMLDepictContext depictContext, final int index) throws IOException {
+		final String id = "id" + index;
+		depictContext.writeElementBegin(XHTML_NAMESPACE_URI, ELEMENT_DIV); //<xhtml:div>
+		depictContext.writeAttribute(null, ATTRIBUTE_ID, id);
+		depictContext.writeAttribute(null, ATTRIBUTE_CLASS, "layoutPanel-body");
+		final int firstChildIndex = index * childCount + 1;
+		if(firstChildIndex < componentCount) {
+			for(int childIndex = firstChildIndex; childIndex < Math.min(firstChildIndex + childCount, componentCount); ++childIndex) {
+				depictComponent(depictContext, childIndex);
+			}
+		} else {
+			depictContext.writeElementBegin(XHTML_NAMESPACE_URI, ELEMENT_SPAN); //<xhtml:span>
+			depictContext.writeAttribute(null, ATTRIBUTE_ID, id + "-label");
+			depictContext.writeAttribute(null, ATTRIBUTE_CLASS, "label");
+			depictContext.write("Label " + index + " été");
+			depictContext.writeElementEnd(XHTML_NAMESPACE_URI, ELEMENT_SPAN); //</xhtml:span>
+		}
+		depictContext.writeElementEnd(XHTML_NAMESPACE_URI, ELEMENT_DIV); //</xhtml:div>
+	}
+
+	/**
+	 * Depicts a component and its descendants with a string builder for each element, producing the same elements as
+	 * {@link #depictComponent(XMLDepictContext, int)}.
+	 * @param depiction The depiction into which the component should be depicted.
+	 * @param index The index of the component to depict.
+	 */
+	private void depictComponent(final ElementBuilderDepiction depiction, final int index) {
+		final String id = "id" + index;
+		depiction.writeElementBegin(ELEMENT_DIV);
+		depiction.writeAttribute(ATTRIBUTE_ID, id);
+		depiction.writeAttribute(ATTRIBUTE_CLASS, "layoutPanel-body");
+		final int firstChildIndex = index * childCount + 1;
+		if(firstChildIndex < componentCount) {
+			for(int childIndex = firstChildIndex; childIndex < Math.min(firstChildIndex + childCount, componentCount); ++childIndex) {
+				depictComponent(depiction, childIndex);
+			}
+		} else {
+			depiction.writeElementBegin(ELEMENT_SPAN);
+			depiction.writeAttribute(ATTRIBUTE_ID, id + "-label");
+			depiction.writeAttribute(ATTRIBUTE_CLASS, "label");
+			depiction.write("Label " + index + " été");
+			depiction.writeElementEnd();
+		}
+		depiction.writeElementEnd();
+	}
+
+	/**
+	 * Depicts XML elements the way {@link AbstractXMLDepictContext} did before it used a single buffer. Each open element has its own string builder for its
+	 * content. When an element ends its attributes are hashed, its content is converted to a string and hashed, and its serialization, including the content, is
+	 * appended to the string builder of its parent.
+	 * @author Garret Wilson
+	 */
+	private static class ElementBuilderDepiction {
+
+		/** The qualified name of the attribute hash attribute. */
+		private static final String ATTRIBUTE_HASH_QNAME = "guise:a";
+
+		/** The qualified name of the content hash attribute. */
+		private static final String CONTENT_HASH_QNAME = "guise:c";
+
+		/** The string builder collecting the depiction outside any element. */
+		private final StringBuilder stringBuilder = new StringBuilder();
+
+		/** @return The string builder collecting the depiction outside any element. */
+		public StringBuilder getStringBuilder() {
+			return stringBuilder;
+		}
+
+		/** The stack of open elements. */
+		private final LinkedList<Element> elementStack = new LinkedList<Element>();
+
+		/** The message digest for hashing attributes and content. */
+		private final MessageDigest messageDigest;
+
+		/** Default constructor. */
+		public ElementBuilderDepiction() {
+			try {
+				messageDigest = MessageDigest.getInstance("SHA-1");
+			} catch(final NoSuchAlgorithmException noSuchAlgorithmException) {
+				throw new AssertionError(noSuchAlgorithmException);
+			}
+		}
+
+		/** @return The string builder of the current element, or the string builder outside any element if there is no open element. */
+		private StringBuilder getDepictStringBuilder() {
+			return elementStack.isEmpty() ? stringBuilder : elementStack.getLast().stringBuilder;
+		}
+
+		/**
+		 * Begins an element.
+		 * @param qname The qualified name of the element.
+		 */
+		public void writeElementBegin(final String qname) {
+			elementStack.addLast(new Element(qname));
+		}
+
+		/**
+		 * Writes an attribute of the current element.
+		 * @param qname The qualified name of the attribute.
+		 * @param value The value of the attribute.
+		 */
+		public void writeAttribute(final String qname, final String value) {
+			elementStack.getLast().attributeMap.put(qname, value);
+		}
+
+		/**
+		 * Writes text content of the current element.
+		 * @param text The text to write.
+		 */
+		public void write(final String text) {
+			getDepictStringBuilder().append(encode(text));
+		}
+
+		/** Ends the current element, appending its serialization to the string builder of its parent. */
+		public void writeElementEnd() {
+			final Element element = elementStack.removeLast();
+			final String elementContent = element.stringBuilder.toString();
+			final StringBuilder stringBuilder = getDepictStringBuilder();
+			stringBuilder.append('<').append(element.qname);
+			if(!element.attributeMap.isEmpty()) {
+				messageDigest.reset();
+				for(final Map.Entry<String, String> attribute : element.attributeMap.entrySet()) {
+					final String attributeQName = attribute.getKey();
+					final String attributeValue = attribute.getValue();
+					appendAttribute(stringBuilder, attributeQName, attributeValue);
+					messageDigest.update(attributeQName.getBytes(UTF_8));
+					messageDigest.update(attributeValue.getBytes(UTF_8));
+				}
+				appendAttribute(stringBuilder, ATTRIBUTE_HASH_QNAME, Base64.getEncoder().withoutPadding().encodeToString(messageDigest.digest()));
+			}
+			if(elementContent.length() > 0) {
+				messageDigest.reset();
+				final byte[] digestBytes = messageDigest.digest(elementContent.getBytes(UTF_8)); //hash a byte copy of a string copy of the content
+				appendAttribute(stringBuilder, CONTENT_HASH_QNAME, Base64.getEncoder().withoutPadding().encodeToString(digestBytes));
+				stringBuilder.append('>').append(elementContent).append("</").append(element.qname).append('>');
+			} else {
+				stringBuilder.append("/>");
+			}
+		}
+
+		/**
+		 * Appends an attribute, preceded by a space, to a string builder.
+		 * @param stringBuilder The string builder to which to append the attribute.
+		 * @param qname The qualified name of the attribute.
+		 * @param value The value of the attribute.
+		 */
+		private static void appendAttribute(final StringBuilder stringBuilder, final String qname, final String value) {
+			stringBuilder.append(' ').append(qname).append("=\"").append(encode(value)).append('"');
+		}
+
+		/**
+		 * Encodes the special XML characters of text.
+		 * @param text The text to encode.
+		 * @return The encoded text.
+		 */
+		private static String encode(final String text) {
+			return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+		}
+
+		/**
+		 * An open element.
+		 * @author Garret Wilson
+		 */
+		private static class Element {
+
+			/** The qualified name of the element. */
+			private final String qname;
+
+			/** The attributes of the element, in the order written. */
+			private final Map<String, String> attributeMap = new LinkedHashMap<String, String>();
+
+			/** The string builder collecting the content of the element. */
+			private final StringBuilder stringBuilder = new StringBuilder();
+
+			/**
+			 * Qualified name constructor.
+			 * @param qname The qualified name of the element.
+			 */
+			public Element(final String qname) {
+				this.qname = qname;
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.guise.framework.component.*;
+import io.guise.framework.platform.*;
+import io.guise.framework.platform.web.*;
+
+/**
+ * Measures the cost of providing the depictors for the components of a typical page to a new session, comparing a platform that makes its own depictor
+ * registrations with one that shares a sealed registry, and with one that shares a sealed registry but makes a registration of its own on top of it.
+ * <p>
+ * Each invocation models a new session: the platform's registry is obtained as the platform would obtain it, and a depictor is then created for each
+ * component of the page.
+ * </p>
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar DepictorRegistryBenchmark</code>.
+ * </p>
+ * @author Garret Wilson
+ * @see HTTPServletWebPlatform
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepictorRegistryBenchmark {
+
+	/** How a platform obtains its depictor registry. */
+	public enum Registrations {
+		/** Each platform creates a registry and makes all the registrations itself. */
+		PER_PLATFORM,
+		/** All platforms share a single sealed registry. */
+		SHARED,
+		/** Each platform creates a registry based upon a shared sealed registry, and makes a single registration of its own. */
+		SHARED_WITH_OVERLAY
+	}
+
+	/** The way the platform obtains its registry. */
+	@Param({"PER_PLATFORM", "SHARED", "SHARED_WITH_OVERLAY"})
+	public Registrations registrations;
+
+	/** The number of components on the page. */
+	@Param({"50"})
+	public int componentCount;
+
+	/** The registrations of depictors for the components used, a subset of those made by the HTTP servlet web platform. */
+	private static final Map<Class<? extends DepictedObject>, Class<?>> DEPICTOR_CLASSES = Map.of(ApplicationFrame.class, WebApplicationFrameDepictor.class,
+			ButtonControl.class, WebButtonDepictor.class, CheckControl.class, WebCheckControlDepictor.class, Heading.class, WebHeadingDepictor.class,
+			LabelComponent.class, WebLabelDepictor.class, LayoutComponent.class, WebLayoutComponentDepictor.class, LinkControl.class, WebLinkDepictor.class,
+			ListControl.class, WebSelectDepictor.class, Panel.class, WebPanelDepictor.class, TextControl.class, WebTextControlDepictor.class);
+
+	/** The classes of the components on a typical page, most of which inherit their depictor registrations. */
+	private static final List<Class<? extends DepictedObject>> COMPONENT_CLASSES = List.of(LayoutPanel.class, Label.class, Heading.class, Button.class,
+			Link.class, TextControl.class, CheckControl.class, ListControl.class, Label.class, Link.class);
+
+	/** The classes of the components on the page, in order. */
+	private List<Class<? extends DepictedObject>> pageComponentClasses;
+
+	/** The sealed registry shared among platforms. */
+	private DepictorRegistry sharedRegistry;
+
+	/** Creates the shared registry and determines the page components. */
+	@Setup(Level.Trial)
+	public void setup() {
+		sharedRegistry = register(new DepictorRegistry()).seal();
+		pageComponentClasses = new ArrayList<Class<? extends DepictedObject>>(componentCount);
+		for(int i = 0; i < componentCount; ++i) {
+			pageComponentClasses.add(COMPONENT_CLASSES.get(i % COMPONENT_CLASSES.size()));
+		}
+	}
+
+	/**
+	 * Makes the benchmark depictor registrations in the given registry.
+	 * @param registry The registry in which to make the registrations.
+	 * @return The given registry.
+	 */
+	private static DepictorRegistry register(final DepictorRegistry registry) {
+		DEPICTOR_CLASSES.forEach(registry::register);
+		return registry;
+	}
+
+	/**
+	 * Obtains a registry as a new platform would and creates the depictors of the page.
+	 * @param blackhole The blackhole consuming the depictors.
+	 */
+	@Benchmark
+	public void depictPage(final Blackhole blackhole) {
+		final DepictorRegistry registry;
+		switch(registrations) {
+			case PER_PLATFORM:
+				registry = register(new DepictorRegistry());
+				break;
+			case SHARED:
+				registry = sharedRegistry;
+				break;
+			case SHARED_WITH_OVERLAY:
+				registry = new DepictorRegistry(sharedRegistry);
+				registry.register(Message.class, WebMessageDepictor.class);
+				break;
+			default:
+				throw new AssertionError(registrations);
+		}
+		for(final Class<? extends DepictedObject> componentClass : pageComponentClasses) {
+			blackhole.consume(registry.createDepictor(componentClass));
+		}
+	}
+
+}
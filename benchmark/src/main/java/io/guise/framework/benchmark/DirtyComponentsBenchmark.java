@@ -0,0 +1,221 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.guise.framework.component.*;
+import io.guise.framework.platform.*;
+
+/**
+ * Compares finding the dirty components of a frame by scanning the entire component hierarchy with finding them through the dirty depicted objects registered
+ * with the platform, as is done for every AJAX request.
+ * <p>
+ * The frame is a balanced hierarchy of stub components, a few of which are dirty. In addition, a number of dirty components are detached from the frame, as
+ * are dialogs not yet opened and removed subtrees; these are never depicted, and the index forgets them the first time they are found to be unreachable.
+ * </p>
+ * <p>
+ * Stub components are created as dynamic proxies, as real components can only be created in the context of a Guise session. The proxies add the same overhead
+ * to both approaches for each component visited.
+ * </p>
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar DirtyComponentsBenchmark</code>.
+ * </p>
+ * @author Garret Wilson
+ * @see AbstractComponent#getDirtyComponents(Component)
+ * @see AbstractComponent#getDirtyComponents(Component, Platform)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirtyComponentsBenchmark {
+
+	/** The number of components in the frame. */
+	@Param({"10000"})
+	public int componentCount;
+
+	/** The number of children of each composite component in the frame. */
+	@Param({"8"})
+	public int childCount;
+
+	/** The number of dirty components in the frame. */
+	@Param({"1", "10"})
+	public int dirtyCount;
+
+	/** The number of dirty components detached from the frame. */
+	@Param({"0", "1000"})
+	public int detachedCount;
+
+	/** The source of depict IDs. */
+	private long nextDepictID = 0;
+
+	/** The application frame at the root of the hierarchy. */
+	private ApplicationFrame applicationFrame;
+
+	/** The platform with which dirty components have been registered. */
+	private Platform platform;
+
+	/** Creates the component hierarchy, marks random components dirty, and registers the dirty components with the platform. */
+	@Setup(Level.Trial)
+	public void setup() {
+		final Random random = new Random(0);
+		final List<Component> components = new ArrayList<Component>(componentCount);
+		applicationFrame = (ApplicationFrame)createComponent(null, ApplicationFrame.class);
+		components.add(applicationFrame);
+		for(int i = 1; i < componentCount; ++i) { //fill the hierarchy breadth first
+			components.add(createComponent((CompositeComponent)components.get((i - 1) / childCount), CompositeComponent.class));
+		}
+		final Set<DepictedObject> dirtyDepictedObjects = new LinkedHashSet<DepictedObject>();
+		while(dirtyDepictedObjects.size() < dirtyCount) {
+			final Component component = components.get(1 + random.nextInt(componentCount - 1)); //the frame itself being dirty would reload the page
+			getHandler(component).depicted = false;
+			dirtyDepictedObjects.add(component);
+		}
+		for(int i = 0; i < detachedCount; ++i) {
+			final Component component = createComponent(null, CompositeComponent.class);
+			getHandler(component).depicted = false;
+			dirtyDepictedObjects.add(component);
+		}
+		platform = (Platform)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Platform.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "getDirtyDepictedObjects":
+					final List<DepictedObject> result = new ArrayList<DepictedObject>(dirtyDepictedObjects.size());
+					for(final DepictedObject depictedObject : dirtyDepictedObjects) {
+						if(!depictedObject.getDepictor().isDepicted()) {
+							result.add(depictedObject);
+						}
+					}
+					return result;
+				case "unregisterDirtyDepictedObject":
+					dirtyDepictedObjects.remove(args[0]);
+					return null;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	/**
+	 * Finds the dirty components by scanning the whole hierarchy.
+	 * @return The dirty components.
+	 */
+	@Benchmark
+	public List<Component> scan() {
+		return AbstractComponent.getDirtyComponents(applicationFrame);
+	}
+
+	/**
+	 * Finds the dirty components through the dirty depicted objects registered with the platform.
+	 * @return The dirty components.
+	 */
+	@Benchmark
+	public List<Component> index() {
+		return AbstractComponent.getDirtyComponents(applicationFrame, platform);
+	}
+
+	/**
+	 * Creates a stub component that is up to date.
+	 * @param parent The parent of the component, or <code>null</code> if the component has no parent.
+	 * @param componentInterface The interface the component implements.
+	 * @return The new component, which has been added to its parent.
+	 */
+	private Component createComponent(final CompositeComponent parent, final Class<? extends Component> componentInterface) {
+		final StubComponentHandler handler = new StubComponentHandler(nextDepictID++, parent);
+		final Component component = (Component)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {componentInterface}, handler);
+		if(parent != null) {
+			getHandler(parent).childComponents.add(component);
+		}
+		return component;
+	}
+
+	/**
+	 * Returns the handler of a stub component.
+	 * @param component The stub component.
+	 * @return The handler of the component.
+	 */
+	private static StubComponentHandler getHandler(final Component component) {
+		return (StubComponentHandler)Proxy.getInvocationHandler(component);
+	}
+
+	/**
+	 * The invocation handler of a stub component, supporting only what is needed to find dirty components.
+	 * @author Garret Wilson
+	 */
+	private static class StubComponentHandler implements InvocationHandler {
+
+		/** The depict ID. */
+		private final long depictID;
+
+		/** The parent, or <code>null</code> if the component has no parent. */
+		private final CompositeComponent parent;
+
+		/** The child components. */
+		private final List<Component> childComponents = new ArrayList<Component>();
+
+		/** Whether the component is up to date. */
+		private boolean depicted = true;
+
+		/** The depictor, which only reports whether the component is up to date. */
+		private final Depictor<?> depictor = (Depictor<?>)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Depictor.class}, (proxy, method, args) -> {
+			if(method.getName().equals("isDepicted")) {
+				return depicted;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		});
+
+		/**
+		 * Constructor.
+		 * @param depictID The depict ID.
+		 * @param parent The parent, or <code>null</code> if the component has no parent.
+		 */
+		public StubComponentHandler(final long depictID, final CompositeComponent parent) {
+			this.depictID = depictID;
+			this.parent = parent;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) {
+			switch(method.getName()) {
+				case "getDepictID":
+					return depictID;
+				case "getParent":
+					return parent;
+				case "getChildComponents":
+					return childComponents;
+				case "getDepictor":
+					return depictor;
+				case "hashCode":
+					return Long.hashCode(depictID);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return "Stub component " + depictID;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.guise.framework.benchmark;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.guise.framework.platform.web.ResponseEncoder;
+
+/**
+ * Compares writing a compressed AJAX response through a {@link ResponseEncoder} with the ways responses were written before: encoding the text into a byte
+ * array and compressing it with a new {@link GZIPOutputStream}, and streaming the text through an {@link OutputStreamWriter} into a new
+ * {@link GZIPOutputStream}.
+ * <p>
+ * The allocation of each approach is the point of the comparison. Run with <code>java -jar target/benchmarks.jar ResponseEncoderBenchmark -prof gc</code> and
+ * compare the <code>gc.alloc.rate.norm</code> results, which give the bytes allocated per response.
+ * </p>
+ * @author Garret Wilson
+ * @see io.guise.framework.platform.web.GuiseHTTPServlet#getResponseEncoder()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseEncoderBenchmark {
+
+	/** The approximate number of characters of depicted text in the response. */
+	@Param({"2048", "65536"})
+	public int responseLength;
+
+	/** The depicted text of an AJAX response, as collected by a depict context. */
+	private StringBuilder depictStringBuilder;
+
+	/** The encoder being measured. */
+	private ResponseEncoder responseEncoder;
+
+	/** A request that accepts gzip. */
+	private HttpServletRequest request;
+
+	/** A response that discards its content. */
+	private HttpServletResponse response;
+
+	/** Creates the depicted text and the encoder. */
+	@Setup(Level.Trial)
+	public void setup() {
+		depictStringBuilder = new StringBuilder(responseLength + 256);
+		depictStringBuilder.append("<patch base=\"41\" sequence=\"42\">");
+		for(int i = 0; depictStringBuilder.length() < responseLength; ++i) { //patch the attributes and contents of elements, as an AJAX response typically does
+			depictStringBuilder.append("<xhtml:div xmlns:xhtml=\"http://www.w3.org/1999/xhtml\" id=\"id").append(i)
+					.append("\" class=\"layoutPanel-body\" style=\"display:block;\"><xhtml:span id=\"id").append(i).append("-label\" class=\"label\">Label ")
+					.append(i).append(" &#xE9;t&#xE9;</xhtml:span></xhtml:div>");
+		}
+		depictStringBuilder.append("</patch>");
+		responseEncoder = new ResponseEncoder();
+		request = (HttpServletRequest)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+			if(method.getName().equals("getHeader")) {
+				return "Accept-Encoding".equalsIgnoreCase((String)args[0]) ? "gzip, deflate" : null;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		});
+		final ServletOutputStream outputStream = new NullServletOutputStream();
+		response = (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "addHeader":
+				case "setHeader":
+					return null;
+				case "getOutputStream":
+					return outputStream;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	/**
+	 * Writes the response through the pooled response encoder.
+	 * @throws IOException if there is an error writing the response.
+	 */
+	@Benchmark
+	public void responseEncoder() throws IOException {
+		responseEncoder.write(request, response, "<response>", depictStringBuilder, "</response>");
+	}
+
+	/**
+	 * Writes the response by creating a string and encoding it into a byte array, and compressing the bytes using a new gzip output stream.
+	 * @throws IOException if there is an error writing the response.
+	 */
+	@Benchmark
+	public void getBytesGZIP() throws IOException {
+		final byte[] bytes = ("<response>" + depictStringBuilder + "</response>").getBytes(UTF_8);
+		final OutputStream outputStream = new GZIPOutputStream(response.getOutputStream());
+		outputStream.write(bytes);
+		outputStream.close();
+	}
+
+	/**
+	 * Writes the response by streaming the text through a writer into a new gzip output stream, as the servlet did before using the response encoder.
+	 * @throws IOException if there is an error writing the response.
+	 */
+	@Benchmark
+	public void writerGZIP() throws IOException {
+		final Writer writer = new OutputStreamWriter(new GZIPOutputStream(response.getOutputStream()), UTF_8);
+		writer.write("<response>");
+		final int length = depictStringBuilder.length();
+		final char[] buffer = new char[Math.min(length, 8 * 1024)];
+		for(int index = 0; index < length; index += buffer.length) { //copy the text a chunk at a time, as the depict context did
+			final int count = Math.min(buffer.length, length - index);
+			depictStringBuilder.getChars(index, index + count, buffer, 0);
+			writer.write(buffer, 0, count);
+		}
+		writer.write("</response>");
+		writer.close();
+	}
+
+	/**
+	 * A servlet output stream that discards everything written to it and can be closed any number of times.
+	 * @author Garret Wilson
+	 */
+	private static class NullServletOutputStream extends ServletOutputStream {
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(final WriteListener writeListener) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void write(final int b) {
+		}
+
+		@Override
+		public void write(final byte[] bytes, final int offset, final int length) {
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
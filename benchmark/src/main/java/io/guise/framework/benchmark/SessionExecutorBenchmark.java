@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.guise.framework.benchmark;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.guise.framework.*;
+import io.guise.framework.platform.Platform;
+
+/**
+ * Compares creating a thread for each call in the context of a session, as Guise has always done, with running calls on a pool of worker threads, as requests
+ * from many sessions arrive concurrently.
+ * <p>
+ * Each benchmark thread plays the part of a servlet container thread servicing the requests of one of the sessions, several benchmark threads sharing each
+ * session. Each call performs a small fixed amount of work, and exclusive calls also hold the depict lock of the session while doing so.
+ * </p>
+ * <p>
+ * Stub sessions are created as dynamic proxies, supporting only what session executors need, and are added to Guise through a minimal container.
+ * </p>
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar SessionExecutorBenchmark</code>.
+ * </p>
+ * @author Garret Wilson
+ * @see ThreadGroupGuiseSessionExecutor
+ * @see PooledGuiseSessionExecutor
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class SessionExecutorBenchmark {
+
+	/** The implementation of the session executor. */
+	public enum Executor {
+		/** A {@link ThreadGroupGuiseSessionExecutor}. */
+		THREAD_GROUP,
+		/** A {@link PooledGuiseSessionExecutor}. */
+		POOLED
+	}
+
+	/** The session executor implementation being measured. */
+	@Param({"THREAD_GROUP", "POOLED"})
+	public Executor executor;
+
+	/** The number of concurrent sessions, each shared by one or more benchmark threads. */
+	@Param({"4", "16"})
+	public int sessionCount;
+
+	/** The number of worker threads of the pooled executor. */
+	@Param({"8"})
+	public int poolSize;
+
+	/** The amount of work done by each call, in JMH CPU tokens. */
+	@Param({"1000"})
+	public int workTokens;
+
+	/** The session executor being measured. */
+	private GuiseSessionExecutor sessionExecutor;
+
+	/** The container to which the sessions have been added. */
+	private BenchmarkGuiseContainer guiseContainer;
+
+	/** The sessions, each added to Guise. */
+	private List<GuiseSession> guiseSessions;
+
+	/** The source of the indexes of the sessions assigned to benchmark threads. */
+	private final AtomicInteger nextSessionIndex = new AtomicInteger();
+
+	/** The work done by each call. */
+	private Runnable work;
+
+	/** Creates the session executor and adds the sessions. */
+	@Setup(Level.Trial)
+	public void setup() {
+		switch(executor) {
+			case THREAD_GROUP:
+				sessionExecutor = new ThreadGroupGuiseSessionExecutor();
+				break;
+			case POOLED:
+				sessionExecutor = new PooledGuiseSessionExecutor(poolSize);
+				break;
+			default:
+				throw new AssertionError(executor);
+		}
+		final GuiseApplication guiseApplication = (GuiseApplication)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {GuiseApplication.class},
+				(proxy, method, args) -> {
+					switch(method.getName()) {
+						case "getSessionExecutor":
+							return sessionExecutor;
+						case "registerSession":
+						case "unregisterSession":
+							return null;
+						default:
+							throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		guiseContainer = new BenchmarkGuiseContainer();
+		guiseSessions = new ArrayList<GuiseSession>(sessionCount);
+		for(int i = 0; i < sessionCount; ++i) {
+			final GuiseSession guiseSession = createGuiseSession(guiseApplication);
+			guiseContainer.addGuiseSession(guiseSession);
+			guiseSessions.add(guiseSession);
+		}
+		final int tokens = workTokens;
+		work = () -> Blackhole.consumeCPU(tokens);
+	}
+
+	/** Removes the sessions and shuts down the session executor. */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for(final GuiseSession guiseSession : guiseSessions) {
+			guiseContainer.removeGuiseSession(guiseSession);
+		}
+		sessionExecutor.shutdown();
+	}
+
+	/**
+	 * The session assigned to a benchmark thread.
+	 * @author Garret Wilson
+	 */
+	@State(Scope.Thread)
+	public static class SessionState {
+
+		/** The session whose requests the benchmark thread services. */
+		private GuiseSession guiseSession;
+
+		/**
+		 * Assigns a session to the benchmark thread, spreading the benchmark threads evenly among the sessions.
+		 * @param benchmark The benchmark state.
+		 */
+		@Setup(Level.Trial)
+		public void setup(final SessionExecutorBenchmark benchmark) {
+			guiseSession = benchmark.guiseSessions.get(benchmark.nextSessionIndex.getAndIncrement() % benchmark.sessionCount);
+		}
+	}
+
+	/**
+	 * Calls work in the context of a session, as is done for requests that only read session state.
+	 * @param sessionState The session of the benchmark thread.
+	 */
+	@Benchmark
+	public void call(final SessionState sessionState) {
+		sessionExecutor.call(sessionState.guiseSession, work);
+	}
+
+	/**
+	 * Calls work in the context of a session exclusively of other work for the session, as is done for event dispatch and depiction.
+	 * @param sessionState The session of the benchmark thread.
+	 */
+	@Benchmark
+	public void callExclusive(final SessionState sessionState) {
+		sessionExecutor.callExclusive(sessionState.guiseSession, work);
+	}
+
+	/**
+	 * Creates a stub session supporting only what session executors need.
+	 * @param guiseApplication The application of the session.
+	 * @return A new stub session.
+	 */
+	private GuiseSession createGuiseSession(final GuiseApplication guiseApplication) {
+		final Lock depictLock = new ReentrantLock();
+		final Platform platform = (Platform)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Platform.class}, (proxy, method, args) -> {
+			if(method.getName().equals("getDepictLock")) {
+				return depictLock;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		});
+		return (GuiseSession)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {GuiseSession.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "getApplication":
+					return guiseApplication;
+				case "getPlatform":
+					return platform;
+				case "initialize":
+				case "destroy":
+					return null;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return "Stub Guise session " + System.identityHashCode(proxy);
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	/**
+	 * A container that only allows sessions to be added and removed.
+	 * @author Garret Wilson
+	 */
+	private static class BenchmarkGuiseContainer extends AbstractGuiseContainer {
+
+		/** Default constructor. */
+		public BenchmarkGuiseContainer() {
+			super(URI.create("http://localhost/"));
+		}
+
+		@Override
+		protected void addGuiseSession(final GuiseSession guiseSession) {
+			super.addGuiseSession(guiseSession);
+		}
+
+		@Override
+		protected void removeGuiseSession(final GuiseSession guiseSession) {
+			super.removeGuiseSession(guiseSession);
+		}
+
+		@Override
+		protected boolean hasResource(final String resourcePath) {
+			return false;
+		}
+
+		@Override
+		protected InputStream getResourceInputStream(final String resourcePath) {
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures contention between session lookups and session expiration with thousands of concurrent sessions, comparing the way the servlet session manager and
+ * container used to keep track of sessions with the way they do now.
+ * <p>
+ * The session manager used to look up the container of a session in a synchronized map, and destroyed an expired session while holding the lock of that map,
+ * so that every request of every other session waited on the teardown. The container now keeps its sessions in concurrent maps and hands teardown to a
+ * separate thread. Because the real maps are private to a container that needs a servlet environment, this benchmark models the two designs with the same
+ * data structures and the same locking; teardown is modeled by consuming a configurable amount of CPU.
+ * </p>
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar SessionRegistryBenchmark</code>. The score of interest is the throughput of the <code>lookup</code> threads.
+ * </p>
+ * @author Garret Wilson
+ * @see io.guise.framework.platform.web.HTTPServletGuiseContainer
+ * @see io.guise.framework.platform.web.HTTPServletGuiseSessionManager
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class SessionRegistryBenchmark {
+
+	/** The way sessions are registered. */
+	public enum Registry {
+		/** A synchronized map, with teardown performed while holding the lock of the map. */
+		SYNCHRONIZED,
+		/** A concurrent map, with teardown handed to a separate thread. */
+		CONCURRENT
+	}
+
+	/** The registry design being measured. */
+	@Param({"SYNCHRONIZED", "CONCURRENT"})
+	public Registry registry;
+
+	/** The number of live sessions. */
+	@Param({"1000", "10000"})
+	public int sessionCount;
+
+	/** The amount of CPU, in JMH tokens, consumed tearing down a single session. */
+	@Param({"10000"})
+	public long teardownTokens;
+
+	/** The stand-ins for the servlet sessions; these are used as map keys. */
+	private Object[] sessions;
+
+	/** The map of sessions to the objects associated with them. */
+	private Map<Object, Object> sessionMap;
+
+	/** The single thread that tears down sessions for the concurrent design. */
+	private ExecutorService teardownExecutor;
+
+	/**
+	 * Limits the sessions waiting to be torn down to the number of live sessions, as no more sessions than that can ever have expired at once; otherwise the
+	 * queue of the teardown executor would grow without bound.
+	 */
+	private Semaphore pendingTeardowns;
+
+	/** Creates the sessions and registers them. */
+	@Setup(Level.Trial)
+	public void setup() {
+		sessions = new Object[sessionCount];
+		switch(registry) {
+			case SYNCHRONIZED:
+				sessionMap = Collections.synchronizedMap(new HashMap<Object, Object>());
+				break;
+			case CONCURRENT:
+				sessionMap = new ConcurrentHashMap<Object, Object>();
+				teardownExecutor = Executors.newSingleThreadExecutor();
+				pendingTeardowns = new Semaphore(sessionCount);
+				break;
+			default:
+				throw new AssertionError(registry);
+		}
+		for(int i = 0; i < sessionCount; ++i) {
+			sessions[i] = new Object();
+			sessionMap.put(sessions[i], new Object());
+		}
+	}
+
+	/**
+	 * Waits for any outstanding teardowns.
+	 * @throws InterruptedException if interrupted while waiting for teardown to finish.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		if(teardownExecutor != null) {
+			teardownExecutor.shutdown();
+			teardownExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	/** @return A session chosen at random. */
+	private Object randomSession() {
+		return sessions[ThreadLocalRandom.current().nextInt(sessions.length)];
+	}
+
+	/**
+	 * Looks up the object associated with a random session, as is done for each request.
+	 * @return The object associated with the session, if it is still registered.
+	 */
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(7)
+	public Object lookup() {
+		return sessionMap.get(randomSession());
+	}
+
+	/**
+	 * Expires a random session and registers it again, as happens when a session times out and a new one is created in its place.
+	 * @throws InterruptedException if interrupted while waiting for the teardown of earlier sessions to catch up.
+	 */
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(1)
+	public void expire() throws InterruptedException {
+		final Object session = randomSession();
+		switch(registry) {
+			case SYNCHRONIZED:
+				synchronized(sessionMap) { //tear down the session while holding the map lock, as the session manager used to do
+					sessionMap.remove(session);
+					Blackhole.consumeCPU(teardownTokens);
+				}
+				break;
+			case CONCURRENT:
+				sessionMap.remove(session);
+				pendingTeardowns.acquire();
+				teardownExecutor.execute(() -> {
+					try {
+						Blackhole.consumeCPU(teardownTokens);
+					} finally {
+						pendingTeardowns.release();
+					}
+				});
+				break;
+			default:
+				throw new AssertionError(registry);
+		}
+		sessionMap.put(session, new Object());
+	}
+
+}
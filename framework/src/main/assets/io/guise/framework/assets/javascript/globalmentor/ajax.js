@@ -121,6 +121,19 @@ com.globalmentor.ajax.HTTPCommunicator = function()
 		}
 		;
 
+		/**
+		 * Aborts the current communication, if any. The response of an aborted request will not be processed.
+		 */
+		proto.abort = function()
+		{
+			var xmlHTTP = this.xmlHTTP; //make a local copy of the XML HTTP request object
+			if(xmlHTTP) //if we are communicating
+			{
+				this.xmlHTTP = null; //remove the XML HTTP request object so that the ready state callback will ignore the request
+				xmlHTTP.abort(); //abort the request
+			}
+		};
+
 		/**
 		 * Performs an HTTP GET request.
 		 * 
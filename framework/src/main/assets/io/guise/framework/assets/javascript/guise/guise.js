@@ -35,7 +35,10 @@
 */
 
 /*Guise AJAX Request Format, content type application/x-guise-ajax-request+xml
-<request>
+<request
+	page=""	<!--the token identifying the page instance-->
+	sequence=""	<!--the sequence number of the last sequenced patch applied, or -1 if the page has lost track-->
+>
 	<events>	<!--the list of events (zero or more)-->
 		<action	<!--an action on a component-->
 			objectID=""	<!--the ID of the depicted object-->
@@ -101,7 +104,9 @@
 
 /*Guise AJAX Response Format, content type application/x-guise-ajax-response+xml
 <response>
-	<patch></patch>	<!--XML element trees to be patched into the existing DOM tree.-->
+	<patch sequence="" base=""></patch>	<!--XML element trees to be patched into the existing DOM tree, along with any of the following operations; a sequenced patch is applied only after the patch identified by its base sequence number, if any-->
+		<insert after="" before="" parent="">nodes</insert>	<!--nodes to be inserted after or before (along with its preceding whitespace) the element with the given ID, or appended to it-->
+		<remove id=""/>	<!--ID of the XML element to be removed, along with its preceding whitespace-->
 	<attribute id="" name="" value=""></attribute>	<!--the new name and value of an attribute of an element with the given ID to be set (or removed if the value is null)-->
 	<remove id=""/>	<!--ID of the XML element to be removed from the existing DOM tree-->
 	<navigate>uri</navigate>	<!--URI of another page to which to navigate-->
@@ -759,6 +764,58 @@ io.guise.framework.Guise = function()
 	/** The current poll interval, in milliseconds, or -1 if polling is not enabled. */
 	this._pollInterval = -1;
 
+	/** The HTTP communicator of the open push channel, or null if there is no push channel. */
+	this._pushCommunicator = null;
+
+	/** The WebSocket carrying requests and responses, or null if there is no WebSocket. */
+	this._webSocket = null;
+
+	/** Whether the push channel should be reopened if the WebSocket closes. */
+	this._pushOnWebSocketClose = false;
+
+	/**
+	 * The initialization request held back because the page was depicted anonymously, to be sent along with the first
+	 * request made on behalf of the user; or null if there is no initialization request being held back.
+	 */
+	this._deferredInitAJAXEvent = null;
+
+	/**
+	 * The minimum interval, in milliseconds, between sending change requests, so that typing in a text control or dragging
+	 * a slider results in a bounded number of requests; changes made within the interval are queued and coalesced. A value
+	 * of zero sends change requests immediately.
+	 */
+	this.changeRequestInterval = 100;
+
+	/** The time, in milliseconds, at which change requests were last sent. */
+	this._lastChangeRequestTime = 0;
+
+	/** The timer ID for sending delayed change requests, or null if no change requests are waiting to be sent. */
+	this._changeRequestTimeoutID = null;
+
+	/** The request last sent over HTTP, with its text and whether it is a background request, or null if no request has been sent. */
+	this._sentRequest = null;
+
+	/**
+	 * The text of a request the server was too busy to service, waiting to be sent again, or null if no request is waiting
+	 * to be retried. Other requests are queued until the request has been retried.
+	 */
+	this._retryRequestText = null;
+
+	/**
+	 * The token identifying this page instance, sent with each request so that the server can keep track of what each page,
+	 * such as each browser tab, has been sent.
+	 */
+	this._pageToken = Date.now().toString(36) + "-" + Math.random().toString(36).substring(2);
+
+	/** The sequence number of the last sequenced patch applied, or -1 if the page has lost track of the patches it applied. */
+	this._patchSequence = 0;
+
+	/** The sequenced patches that arrived before the patches they are based on, keyed to the sequence numbers of their base patches. */
+	this._waitingPatches = {};
+
+	/** The timer ID for giving up on the patches waiting for their base patches, or null if no patches are waiting. */
+	this._waitingPatchesTimeoutID = null;
+
 	/**
 	 * The array of drop targets, determined when the document is loaded. The drop targets are stored in increasing order
 	 * of hierarchical depth.
@@ -816,10 +873,21 @@ io.guise.framework.Guise = function()
 		/** The content type of a Guise AJAX request. */
 		proto.REQUEST_CONTENT_TYPE = "application/x-guise-ajax-request+xml";
 
+		/** The request header indicating that the server should not respond until there are updates. */
+		proto.PUSH_REQUEST_HEADER = "X-Guise-Push";
+
+		/** The request header indicating that a request was made by the page on its own rather than on behalf of the user. */
+		proto.BACKGROUND_REQUEST_HEADER = "X-Guise-Background";
+
+		/** The HTTP status indicating that the server was too busy to service a request. */
+		proto.SERVICE_UNAVAILABLE_STATUS = 503;
+
 		/** The enumeration of the names of the request elements. */
 		proto.RequestElement =
 		{
 			REQUEST : "request",
+			PAGE : "page",
+			SEQUENCE : "sequence",
 			EVENTS : "events",
 			OBJECT_ID : "objectID",
 			FORM : "form",
@@ -864,15 +932,21 @@ io.guise.framework.Guise = function()
 		/** The enumeration of the names of the response elements. */
 		proto.ResponseElement =
 		{
+			AFTER : "after",
 			ATTRIBUTE : "attribute",
+			BASE : "base",
+			BEFORE : "before",
 			COMMAND : "command",
+			INSERT : "insert",
 			NAME : "name",
 			NAVIGATE : "navigate",
 			OBJECT_ID : "objectID",
+			PARENT : "parent",
 			PATCH : "patch",
 			RELOAD : "reload",
 			REMOVE : "remove",
 			RESPONSE : "response",
+			SEQUENCE : "sequence",
 			VALUE : "value",
 			VIEWPORT_ID : "viewportID"
 		};
@@ -940,6 +1014,8 @@ io.guise.framework.Guise = function()
 				this._enabled = enabled; //update the enabled status
 				if(!enabled) //if AJAX has been disabled
 				{
+					this.stopWebSocket(); //close the WebSocket
+					this.stopPush(); //close the push channel
 					this.setPollInterval(-1); //turn off polling
 				}
 			}
@@ -947,7 +1023,7 @@ io.guise.framework.Guise = function()
 
 		/**
 		 * Sets the interval for polling the server. If polling is already occurring at the given interval, no action
-		 * occurs.
+		 * occurs. While a push channel or WebSocket is open, the interval is recorded but no polling occurs.
 		 * @param pollInterval The new poll interval, in milliseconds, or -1 if polling should not be enabled.
 		 */
 		proto.setPollInterval = function(pollInterval)
@@ -960,19 +1036,236 @@ io.guise.framework.Guise = function()
 					window.clearInterval(this._pollIntervalID); //clear the timer
 					this._pollIntervalID = null; //remove the timer ID 
 				}
-				if(pollInterval >= 0) //if poll should be enabled
+				if(pollInterval >= 0 && this._pushCommunicator == null && !this._isWebSocketOpen()) //if poll should be enabled and the server isn't pushing updates
 				{
 					this._pollIntervalID = window.setInterval(this.poll.bind(this), pollInterval); //send a poll event at the correct interval
 				}
 			}
 		};
 
+		/** @return The attributes of a request, identifying the page and the last sequenced patch it applied. */
+		proto._getRequestAttributes = function()
+		{
+			return new Map(this.RequestElement.PAGE, this._pageToken, //page="pageToken"
+			this.RequestElement.SEQUENCE, this._patchSequence); //sequence="patchSequence"
+		};
+
 		/** Sends a poll request to the server. */
 		proto.poll = function()
 		{
 			this.sendAJAXRequest(new PollAJAXEvent()); //create and queue a new poll event
 		};
 
+		/**
+		 * Opens a push channel to the server: a poll request that the server holds open until there are updates, reopened
+		 * as soon as it is answered. Polling is suspended while the push channel is open. If the push channel is already
+		 * open, no action occurs.
+		 * @see #stopPush()
+		 */
+		proto.startPush = function()
+		{
+			if(this._isWebSocketOpen()) //if updates are already arriving over a WebSocket, push only if the WebSocket closes
+			{
+				this._pushOnWebSocketClose = true;
+				return;
+			}
+			if(this._pushCommunicator == null && this.isEnabled()) //if there is no push channel and we can communicate
+			{
+				if(this._pollIntervalID != null) //if polling is occurring, suspend it
+				{
+					window.clearInterval(this._pollIntervalID); //clear the timer
+					this._pollIntervalID = null; //remove the timer ID
+				}
+				this._pushCommunicator = new com.globalmentor.ajax.HTTPCommunicator(); //the push channel needs its own communicator so as not to block other requests
+				this._pushCommunicator.setProcessHTTPResponse(this._processPushHTTPResponse.bind(this));
+				this._push(); //send the first push request
+			}
+		};
+
+		/**
+		 * Closes the push channel, if one is open, and resumes polling at the current poll interval.
+		 * @see #startPush()
+		 */
+		proto.stopPush = function()
+		{
+			if(this._pushCommunicator != null) //if there is a push channel
+			{
+				var pushCommunicator = this._pushCommunicator;
+				this._pushCommunicator = null; //indicate that there is no longer a push channel
+				pushCommunicator.abort(); //abandon any waiting push request
+				var pollInterval = this._pollInterval; //resume polling at the interval last requested
+				this._pollInterval = -1;
+				this.setPollInterval(pollInterval);
+			}
+		};
+
+		/** Sends a push request to the server over the push channel. */
+		proto._push = function()
+		{
+			var requestStringBuilder = new StringBuilder(); //create a string builder to hold the request string
+			DOM.appendXMLStartTag(requestStringBuilder, this.RequestElement.REQUEST, this._getRequestAttributes()); //<request>
+			DOM.appendXMLStartTag(requestStringBuilder, this.RequestElement.EVENTS); //<events>
+			this._appendPollAJAXEvent(requestStringBuilder, new PollAJAXEvent()); //<poll/>
+			DOM.appendXMLEndTag(requestStringBuilder, this.RequestElement.EVENTS); //</events>
+			DOM.appendXMLEndTag(requestStringBuilder, this.RequestElement.REQUEST); //</request>
+			var requestHeaders = {};
+			requestHeaders[this.PUSH_REQUEST_HEADER] = "true";
+			this._pushCommunicator.post(window.location.href, requestStringBuilder.toString(), this.REQUEST_CONTENT_TYPE, requestHeaders); //post the push request back to the same URI
+		};
+
+		/** Sends a push request again if the push channel is still open. */
+		proto._retryPush = function()
+		{
+			if(this._pushCommunicator != null && !this._pushCommunicator.isCommunicating() && this.isEnabled())
+			{
+				this._push();
+			}
+		};
+
+		/**
+		 * The callback method for processing responses over the push channel. A successful response is processed normally
+		 * and the push request is sent again; if the server is too busy, the push request is sent again later; otherwise the
+		 * push channel is closed and polling resumes.
+		 * @param xmlHTTP The XML HTTP object.
+		 */
+		proto._processPushHTTPResponse = function(xmlHTTP)
+		{
+			if(this._pushCommunicator == null) //if the push channel has been closed in the meantime, ignore the response
+			{
+				return;
+			}
+			var status = 0;
+			try
+			{
+				status = xmlHTTP.status; //get the status
+			}
+			catch(e) //if we can't get the status, the connection was probably lost
+			{
+			}
+			if(status == 200) //if everything went OK
+			{
+				this._processHTTPResponse(xmlHTTP); //process the updates just as for any other response
+				if(this._pushCommunicator != null && this.isEnabled()) //if the channel is still open, wait for more updates
+				{
+					window.setTimeout(this._push.bind(this), 0); //send the next push request after this callback has finished
+				}
+			}
+			else if(status == this.SERVICE_UNAVAILABLE_STATUS) //if the server was too busy, try again later
+			{
+				window.setTimeout(this._retryPush.bind(this), this._getRetryDelay(xmlHTTP));
+			}
+			else
+			//if the push channel failed, fall back to polling
+			{
+				console.warn("Guise push channel closed with status ", status, "; falling back to polling.");
+				this.stopPush();
+			}
+		};
+
+		/**
+		 * Opens a WebSocket to the server, over which requests are sent and responses and updates are received. HTTP
+		 * communication continues until the WebSocket is open; once it is open, polling and any push channel are suspended.
+		 * If the WebSocket closes, communication falls back to HTTP. If WebSockets are not supported or a WebSocket is
+		 * already open, no action occurs.
+		 * @param uri The URI of the WebSocket.
+		 * @see #stopWebSocket()
+		 */
+		proto.startWebSocket = function(uri)
+		{
+			if(this._webSocket == null && this.isEnabled() && typeof WebSocket != "undefined") //if there is no WebSocket and we can communicate
+			{
+				var webSocket = new WebSocket(uri + (uri.indexOf("?") < 0 ? "?" : "&") + this.RequestElement.PAGE + "=" + encodeURIComponent(this._pageToken)); //identify the page so that pushed changes can be patched
+				webSocket.onopen = this._onWebSocketOpen.bind(this, webSocket);
+				webSocket.onmessage = this._onWebSocketMessage.bind(this, webSocket);
+				webSocket.onclose = this._onWebSocketClose.bind(this, webSocket);
+				this._webSocket = webSocket;
+			}
+		};
+
+		/**
+		 * Closes the WebSocket, if one is open, and falls back to HTTP communication.
+		 * @see #startWebSocket(uri)
+		 */
+		proto.stopWebSocket = function()
+		{
+			if(this._webSocket != null) //if there is a WebSocket
+			{
+				var webSocket = this._webSocket;
+				this._onWebSocketClose(webSocket); //fall back to HTTP immediately rather than waiting for the close event
+				webSocket.close();
+			}
+		};
+
+		/** @return Whether a WebSocket is open for communication. */
+		proto._isWebSocketOpen = function()
+		{
+			return this._webSocket != null && this._webSocket.readyState == WebSocket.OPEN;
+		};
+
+		/**
+		 * Called when a WebSocket opens. Polling and any push channel are suspended, and queued requests are sent over the
+		 * WebSocket.
+		 * @param webSocket The WebSocket that opened.
+		 */
+		proto._onWebSocketOpen = function(webSocket)
+		{
+			if(this._webSocket != webSocket) //if the WebSocket has been abandoned in the meantime, ignore it
+			{
+				return;
+			}
+			this._pushOnWebSocketClose = this._pushCommunicator != null; //remember whether we were pushing
+			this.stopPush(); //stop the push channel; this resumes polling, which is suspended below
+			if(this._pollIntervalID != null) //if polling is occurring, suspend it
+			{
+				window.clearInterval(this._pollIntervalID); //clear the timer
+				this._pollIntervalID = null; //remove the timer ID
+			}
+			this.processAJAXRequests(); //send any waiting requests over the WebSocket
+		};
+
+		/**
+		 * Called when a message arrives over a WebSocket. The message is processed as an AJAX response.
+		 * @param webSocket The WebSocket over which the message arrived.
+		 * @param event The message event.
+		 */
+		proto._onWebSocketMessage = function(webSocket, event)
+		{
+			if(this._webSocket != webSocket || (typeof AJAXResponse) == "undefined") //if the WebSocket has been abandoned or the page scope has disappeared, ignore the message
+			{
+				return;
+			}
+			var responseText = event.data;
+			var responseDocument = new DOMParser().parseFromString(responseText, "text/xml"); //parse the response just as XMLHttpRequest would
+			this.ajaxResponses.enqueue(new AJAXResponse(responseDocument, responseText.length)); //enqueue the response
+			this.processAJAXResponses(); //process enqueued AJAX responses
+		};
+
+		/**
+		 * Called when a WebSocket closes. Communication falls back to HTTP, reopening the push channel if it was open and
+		 * otherwise resuming polling.
+		 * @param webSocket The WebSocket that closed.
+		 */
+		proto._onWebSocketClose = function(webSocket)
+		{
+			if(this._webSocket != webSocket) //if the WebSocket was already abandoned, there's nothing to do
+			{
+				return;
+			}
+			this._webSocket = null; //indicate that there is no longer a WebSocket
+			if(this._pushOnWebSocketClose) //if we were pushing before the WebSocket opened, push again
+			{
+				this._pushOnWebSocketClose = false;
+				this.startPush();
+			}
+			else
+			//otherwise resume polling at the interval last requested
+			{
+				var pollInterval = this._pollInterval;
+				this._pollInterval = -1;
+				this.setPollInterval(pollInterval);
+			}
+		};
+
 		/**
 		 * Sends a trace request to the server.
 		 * @param objects The objects to trace; the string versions of these objects will be combined into a single string
@@ -984,18 +1277,79 @@ io.guise.framework.Guise = function()
 		};
 
 		/**
-		 * Immediately sends or queues an AJAX request.
+		 * Immediately sends or queues an AJAX request. A change request made within the change request interval of the last
+		 * change requests sent is queued and sent when the interval expires, unless some other request sends it first.
 		 * @param ajaxRequest The AJAX request to send.
+		 * @see #changeRequestInterval
 		 */
 		proto.sendAJAXRequest = function(ajaxRequest)
 		{
 			if(this.isEnabled()) //if AJAX is enabled
 			{
-				this.ajaxRequests.enqueue(ajaxRequest); //enqueue the request info
+				if(this._deferredInitAJAXEvent != null && !(ajaxRequest instanceof PollAJAXEvent)) //if the user is interacting with an anonymous page for the first time
+				{
+					this._enqueueAJAXRequest(this._deferredInitAJAXEvent); //initialize the session the server is about to create, before anything else
+					this._deferredInitAJAXEvent = null;
+				}
+				this._enqueueAJAXRequest(ajaxRequest); //enqueue the request info
+				if(ajaxRequest instanceof ChangeAJAXEvent && this.changeRequestInterval > 0) //if change requests are throttled
+				{
+					var now = Date.now();
+					var delay = this._lastChangeRequestTime + this.changeRequestInterval - now; //see how long until we can send more changes
+					if(delay > 0) //if we sent changes too recently
+					{
+						if(this._changeRequestTimeoutID == null) //if we haven't already scheduled the changes to be sent
+						{
+							this._changeRequestTimeoutID = window.setTimeout(this._sendDelayedChangeRequests.bind(this), delay);
+						}
+						return; //leave the change in the queue for now
+					}
+					this._lastChangeRequestTime = now;
+				}
 				this.processAJAXRequests(); //process any waiting requests now if we can
 			}
 		};
 
+		/**
+		 * Queues an AJAX request. If the request is a change request that changes the same properties of the same object as
+		 * the last request in the queue and more, the queued request is replaced, as it would be immediately overridden.
+		 * @param ajaxRequest The AJAX request to queue.
+		 */
+		proto._enqueueAJAXRequest = function(ajaxRequest)
+		{
+			var lastIndex = this.ajaxRequests.length - 1;
+			if(ajaxRequest instanceof ChangeAJAXEvent && lastIndex >= 0) //if this is a change request and there are queued requests
+			{
+				var lastAJAXRequest = this.ajaxRequests[lastIndex];
+				if(lastAJAXRequest instanceof ChangeAJAXEvent && lastAJAXRequest.objectID == ajaxRequest.objectID) //if the last request changes the same object
+				{
+					var superseded = true; //see if the new request changes all the same properties
+					for( var propertyName in lastAJAXRequest.properties)
+					{
+						if(!(propertyName in ajaxRequest.properties))
+						{
+							superseded = false;
+							break;
+						}
+					}
+					if(superseded) //if the last request would be overridden
+					{
+						this.ajaxRequests[lastIndex] = ajaxRequest; //replace it with the new request
+						return;
+					}
+				}
+			}
+			this.ajaxRequests.enqueue(ajaxRequest); //enqueue the request info
+		};
+
+		/** Sends change requests that were delayed by the change request interval. */
+		proto._sendDelayedChangeRequests = function()
+		{
+			this._changeRequestTimeoutID = null;
+			this._lastChangeRequestTime = Date.now();
+			this.processAJAXRequests(); //send the queued changes, along with anything else queued
+		};
+
 		/**
 		 * Processes AJAX requests.
 		 * @see #ajaxRequests
@@ -1003,17 +1357,22 @@ io.guise.framework.Guise = function()
 		proto.processAJAXRequests = function()
 		{
 			//see if the communicator is not busy (if it is busy, we're in asynchronous mode and the end of the processing this method will be called again to check for new requests)
-			if(!this.httpCommunicator.isCommunicating() && !this.processingAJAXRequests && this.ajaxRequests.length > 0) //if we aren't processing AJAX requests or communicating with the server, and there are requests queued TODO fix small race condition in determining whether processing is occurring
+			if(!this.httpCommunicator.isCommunicating() && !this.processingAJAXRequests && this._retryRequestText == null && this.ajaxRequests.length > 0) //if we aren't processing AJAX requests, communicating with the server, or waiting to retry a request, and there are requests queued TODO fix small race condition in determining whether processing is occurring
 			{
 				this.processingAJAXRequests = true; //we are processing AJAX requests now
 				try
 				{
 					var requestStringBuilder = new StringBuilder(); //create a string builder to hold the request string					
-					DOM.appendXMLStartTag(requestStringBuilder, this.RequestElement.REQUEST); //<request>
+					DOM.appendXMLStartTag(requestStringBuilder, this.RequestElement.REQUEST, this._getRequestAttributes()); //<request>
 					DOM.appendXMLStartTag(requestStringBuilder, this.RequestElement.EVENTS); //<event>
+					var background = true; //a request containing nothing but polls is a background request
 					while(this.ajaxRequests.length > 0) //there are more AJAX requests
 					{
 						var ajaxRequest = this.ajaxRequests.dequeue(); //get the next AJAX request to process
+						if(!(ajaxRequest instanceof PollAJAXEvent))
+						{
+							background = false;
+						}
 						if(ajaxRequest instanceof ActionAJAXEvent) //if this is an action event
 						{
 							this._appendActionAJAXEvent(requestStringBuilder, ajaxRequest); //append the action event
@@ -1056,7 +1415,14 @@ io.guise.framework.Guise = function()
 					try
 					{
 						//TODO del alert("ready to post: "+requestStringBuilder.toString());
-						this.httpCommunicator.post(window.location.href, requestStringBuilder.toString(), this.REQUEST_CONTENT_TYPE); //post the HTTP request information back to the same URI
+						if(this._isWebSocketOpen()) //if there is an open WebSocket, send the request over it; the response will arrive as a message
+						{
+							this._webSocket.send(requestStringBuilder.toString());
+						}
+						else
+						{
+							this._postAJAXRequest(requestStringBuilder.toString(), background); //post the HTTP request information back to the same URI
+						}
 					}
 					catch(exception) //if a problem occurred
 					{
@@ -1072,6 +1438,45 @@ io.guise.framework.Guise = function()
 			}
 		};
 
+		/**
+		 * Posts the text of an AJAX request over HTTP, remembering it in case the server is too busy to service it.
+		 * @param requestText The text of the AJAX request.
+		 * @param background Whether the request was made by the page on its own rather than on behalf of the user.
+		 */
+		proto._postAJAXRequest = function(requestText, background)
+		{
+			this._sentRequest = {text: requestText, background: background};
+			var requestHeaders = {};
+			if(background) //let the server know it can turn away the request if it is busy
+			{
+				requestHeaders[this.BACKGROUND_REQUEST_HEADER] = "true";
+			}
+			this.httpCommunicator.post(window.location.href, requestText, this.REQUEST_CONTENT_TYPE, requestHeaders);
+		};
+
+		/**
+		 * Determines how long to wait before retrying a request the server was too busy to service.
+		 * @param xmlHTTP The XML HTTP object of the response.
+		 * @return The delay in milliseconds, from the <code>Retry-After</code> header, or one second if the header is missing.
+		 */
+		proto._getRetryDelay = function(xmlHTTP)
+		{
+			var retryAfter = parseInt(xmlHTTP.getResponseHeader("Retry-After"), 10); //the delay in seconds
+			return (isNaN(retryAfter) ? 1 : Math.max(retryAfter, 0)) * 1000;
+		};
+
+		/** Sends the request that the server was too busy to service, and then any requests queued in the meantime. */
+		proto._sendRetryRequest = function()
+		{
+			var requestText = this._retryRequestText;
+			this._retryRequestText = null;
+			if(requestText != null && this.isEnabled())
+			{
+				this._postAJAXRequest(requestText, false);
+			}
+			this.processAJAXRequests(); //if the request couldn't be sent, at least send what was queued
+		};
+
 		/**
 		 * Appends an AJAX action event to a string builder.
 		 * @param stringBuilder The string builder collecting the request data.
@@ -1280,6 +1685,15 @@ io.guise.framework.Guise = function()
 						//TODO del						this.processAJAXRequests();	//make sure there are no waiting AJAX requests
 					}
 				}
+				else if(status == this.SERVICE_UNAVAILABLE_STATUS) //if the server was too busy
+				{
+					var sentRequest = this._sentRequest;
+					if(sentRequest != null && !sentRequest.background) //polls will be sent again anyway; other requests must be sent again later, before anything else
+					{
+						this._retryRequestText = sentRequest.text;
+						window.setTimeout(this._sendRetryRequest.bind(this), this._getRetryDelay(xmlHTTP));
+					}
+				}
 				else
 				//if there was an HTTP error
 				{
@@ -1342,7 +1756,7 @@ io.guise.framework.Guise = function()
 									//see which type of response this is
 									{
 										case this.ResponseElement.PATCH: //patch
-											this._processPatch(childNode); //patch the document with this patch information
+											this._processSequencedPatch(childNode); //patch the document with this patch information, in sequence
 											break;
 										/*TODO del when works
 																			case this.ResponseElement.ATTRIBUTE:	//attribute
@@ -1660,6 +2074,12 @@ io.guise.framework.Guise = function()
 					//console.log("received poll interval request:", parameters["interval"]);
 					this.setPollInterval(parameters["interval"]); //poll at the requested interval
 					break;
+				case "push":
+					this.startPush(); //open a push channel to receive updates as they occur
+					break;
+				case "web-socket":
+					this.startWebSocket(parameters["uri"]); //move communication to a WebSocket
+					break;
 				case "resource-collect-receive":
 					var element = document.getElementById(objectID); //get the component element
 					if(element) //if the component element currently exists in the document
@@ -1735,6 +2155,85 @@ io.guise.framework.Guise = function()
 			}
 		};
 
+		/** The time, in milliseconds, to wait for the patches a sequenced patch is based on before giving up on them. */
+		proto.PATCH_WAIT_TIMEOUT = 5000;
+
+		/**
+		 * Processes the AJAX patch response in the order in which the server depicted it. Responses may arrive out of order
+		 * when they are sent over different channels, such as HTTP and a WebSocket. A patch with a sequence number is
+		 * applied only after the patch identified by its base sequence number, and is held until then; a sequenced patch
+		 * with no base replaces what it contains and is applied immediately. Patches older than the last one applied are
+		 * ignored. If the patches a held patch is waiting for never arrive, the page reports having lost track so that the
+		 * server stops patching against what it sent.
+		 * @param element The element representing patch response.
+		 */
+		proto._processSequencedPatch = function(element)
+		{
+			var sequenceString = element.getAttribute(this.ResponseElement.SEQUENCE); //get the sequence number, if any
+			if(!sequenceString) //if this patch is not sequenced, apply it immediately
+			{
+				this._processPatch(element);
+				return;
+			}
+			var sequence = parseInt(sequenceString, 10);
+			if(sequence <= this._patchSequence) //if a later patch has already been applied, this patch is obsolete
+			{
+				return;
+			}
+			var baseString = element.getAttribute(this.ResponseElement.BASE); //get the sequence number this patch is based on, if any
+			if(baseString && parseInt(baseString, 10) != this._patchSequence) //if the patches this patch is based on haven't been applied yet, wait for them
+			{
+				this._waitingPatches[baseString] = element;
+				if(this._waitingPatchesTimeoutID == null)
+				{
+					this._waitingPatchesTimeoutID = window.setTimeout(this._abandonWaitingPatches.bind(this), this.PATCH_WAIT_TIMEOUT);
+				}
+				return;
+			}
+			this._processPatch(element);
+			this._patchSequence = sequence;
+			var waitingPatch;
+			while((waitingPatch = this._waitingPatches[this._patchSequence]) != null) //apply any patches that were waiting for this one
+			{
+				delete this._waitingPatches[this._patchSequence];
+				this._processPatch(waitingPatch);
+				this._patchSequence = parseInt(waitingPatch.getAttribute(this.ResponseElement.SEQUENCE), 10);
+			}
+			var patchesWaiting = false; //see if any patches are still waiting
+			for( var waitingBase in this._waitingPatches)
+			{
+				if(parseInt(waitingBase, 10) < this._patchSequence) //if a patch is based on patches that have been replaced since, it is obsolete
+				{
+					delete this._waitingPatches[waitingBase];
+				}
+				else
+				{
+					patchesWaiting = true;
+				}
+			}
+			if(patchesWaiting) //if patches are still waiting, leave the timer running
+			{
+				return;
+			}
+			if(this._waitingPatchesTimeoutID != null)
+			{
+				window.clearTimeout(this._waitingPatchesTimeoutID);
+				this._waitingPatchesTimeoutID = null;
+			}
+		};
+
+		/**
+		 * Discards the patches waiting for patches that never arrived, and asks the server for changes while reporting that
+		 * the page has lost track of the patches it applied, so that the server starts over.
+		 */
+		proto._abandonWaitingPatches = function()
+		{
+			this._waitingPatchesTimeoutID = null;
+			this._waitingPatches = {};
+			this._patchSequence = -1;
+			this.poll();
+		};
+
 		/**
 		 * Processes the AJAX patch response. Only child elements with IDs will be processed.
 		 * @param element The element representing patch response.
@@ -1749,6 +2248,19 @@ io.guise.framework.Guise = function()
 				var childNode = childNodes[i]; //get this child node
 				if(childNode.nodeType == Node.ELEMENT_NODE) //if this is an element
 				{
+					switch(childNode.nodeName)
+					//see if this is a patch operation rather than an element to synchronize
+					{
+						case this.ResponseElement.ATTRIBUTE: //attribute
+							this._processAttribute(childNode); //patch the attribute in place
+							continue;
+						case this.ResponseElement.INSERT: //insert
+							this._processInsert(childNode); //insert the new nodes in place
+							continue;
+						case this.ResponseElement.REMOVE: //remove
+							this._processRemove(childNode); //remove the element in place
+							continue;
+					}
 					var id = childNode.getAttribute("id"); //get the child node's ID, if there is one
 					if(id) //if the element has an ID
 					{
@@ -1786,6 +2298,113 @@ io.guise.framework.Guise = function()
 			}
 		};
 
+		/**
+		 * Processes an AJAX attribute patch operation, setting or removing a single attribute of an existing element. Because
+		 * the attribute hash of the element no longer reflects its attributes, the attribute hash is removed and the content of
+		 * the ancestor elements is invalidated, so that a later synchronization will not skip the element.
+		 * @param element The element representing the attribute patch operation.
+		 */
+		proto._processAttribute = function(element)
+		{
+			var id = element.getAttribute("id"); //get the ID of the element to patch
+			var attributeName = element.getAttribute(this.ResponseElement.NAME); //get the name of the attribute to patch
+			if(id && attributeName) //if we know which attribute of which element to patch
+			{
+				var oldElement = document.getElementById(id); //get the element to patch
+				if(oldElement) //if the element currently exists in the document
+				{
+					var attributeValue = element.getAttribute(this.ResponseElement.VALUE); //get the new attribute value, if any
+					if(attributeName == "class" && attributeValue != null) //keep any classes controlled by JavaScript
+					{
+						attributeValue = this._retainNonRemovableClasses(oldElement.getAttribute("class"), attributeValue);
+					}
+					if(attributeName == "style") //the style attribute must be updated through the CSS text property
+					{
+						if(!dragState || !dragState.dragging || dragState.dragSource != oldElement) //don't update the style of an element being dragged
+						{
+							oldElement.style.cssText = attributeValue || ""; //set the CSS text property, making sure we use an empty string rather than null
+						}
+					}
+					else if(attributeValue != null) //if there is a new value
+					{
+						oldElement.setAttribute(attributeName, attributeValue); //update the attribute
+					}
+					else
+					//if there is no new value
+					{
+						oldElement.removeAttribute(attributeName); //remove the attribute
+					}
+					oldElement.removeAttribute("data-guise-a"); //the attribute hash still indicates the old value, so remove the attribute hash to indicate that the attributes have changed
+					this.invalidateAncestorContent(oldElement); //indicate that the ancestors now have different content
+					this._updateComponents(oldElement, true); //update any components that rely on the patched element, as they may have just been displayed
+				}
+			}
+		};
+
+		/**
+		 * Processes an AJAX insert patch operation, inserting the nodes it contains after or before an existing element, or at
+		 * the end of an existing element. Insertion before an element takes place before any whitespace text node immediately
+		 * preceding it, which is considered part of the element.
+		 * @param element The element representing the insert patch operation.
+		 */
+		proto._processInsert = function(element)
+		{
+			var parentNode = null; //we'll determine the node in which to insert the content
+			var nextSibling = null; //and the node before which to insert it, if any
+			var afterID = element.getAttribute(this.ResponseElement.AFTER); //get the ID of the element after which to insert, if any
+			var beforeID = element.getAttribute(this.ResponseElement.BEFORE); //get the ID of the element before which to insert, if any
+			var parentID = element.getAttribute(this.ResponseElement.PARENT); //get the ID of the element to append to, if any
+			if(afterID)
+			{
+				var afterElement = document.getElementById(afterID);
+				if(afterElement)
+				{
+					parentNode = afterElement.parentNode;
+					nextSibling = afterElement.nextSibling;
+				}
+			}
+			else if(beforeID)
+			{
+				var beforeElement = document.getElementById(beforeID);
+				if(beforeElement)
+				{
+					parentNode = beforeElement.parentNode;
+					nextSibling = this._getWhitespaceBefore(beforeElement) || beforeElement; //insert before the whitespace that goes with the element
+				}
+			}
+			else if(parentID)
+			{
+				parentNode = document.getElementById(parentID);
+			}
+			if(parentNode) //if we found where to insert the nodes
+			{
+				var childNodes = element.childNodes; //get all the nodes to insert
+				var childNodeCount = childNodes.length; //find out how many nodes there are
+				for( var i = 0; i < childNodeCount; ++i) //for each node to insert
+				{
+					var importedNode = document.importNode(childNodes[i], true); //create an import clone of the node
+					parentNode.insertBefore(importedNode, nextSibling); //insert the node, appending it if there is no next sibling
+					if(importedNode.nodeType == Node.ELEMENT_NODE) //if we inserted an element
+					{
+						this._initializeNode(importedNode, true); //initialize the new imported node, installing the correct event handlers
+					}
+				}
+				parentNode.removeAttribute("data-guise-c"); //indicate that the children have changed
+				this.invalidateAncestorContent(parentNode); //indicate that the ancestors now have different content
+			}
+		};
+
+		/**
+		 * Determines the whitespace text node, if any, immediately preceding an element.
+		 * @param element The element the preceding whitespace of which should be returned.
+		 * @return The whitespace-only text node immediately before the element, or null if there is none.
+		 */
+		proto._getWhitespaceBefore = function(element)
+		{
+			var previousSibling = element.previousSibling; //get the node before the element
+			return previousSibling && previousSibling.nodeType == Node.TEXT_NODE && /^[ \t\r\n]*$/.test(previousSibling.nodeValue) ? previousSibling : null;
+		};
+
 		/**
 		 * Processes the AJAX remove response.
 		 * @param element The element representing removal response.
@@ -1809,6 +2428,12 @@ io.guise.framework.Guise = function()
 					//if we're removing any other node
 					{
 						this._uninitializeNode(oldElement, true); //uninitialize the element
+						this.invalidateAncestorContent(oldElement); //indicate that the ancestors now have different content
+						var whitespace = this._getWhitespaceBefore(oldElement); //get any whitespace that goes with the element
+						if(whitespace)
+						{
+							whitespace.parentNode.removeChild(whitespace); //remove the whitespace along with the element
+						}
 						oldElement.parentNode.removeChild(oldElement); //remove the old element from the document
 					}
 				}
@@ -1848,6 +2473,40 @@ io.guise.framework.Guise = function()
 		/** The regular expression matching any non-removable class. */
 		proto.NON_REMOVABLE_CLASSES_REGEX = new RegExp(nonRemovableClassArray.join("|")); //create a regular expression of all non-removable classes, separated by a regular expression union symbol
 
+		/**
+		 * Determines a new class attribute value that keeps any non-removable classes of the old value.
+		 * @param oldAttributeValue The old class attribute value, or null if there is none.
+		 * @param attributeValue The new class attribute value.
+		 * @return The new class attribute value along with any non-removable classes from the old value.
+		 */
+		proto._retainNonRemovableClasses = function(oldAttributeValue, attributeValue)
+		{
+			if(oldAttributeValue && oldAttributeValue.match(this.NON_REMOVABLE_CLASSES_REGEX)) //if the original class name had one of the non-removable classes (this is only to eliminate most cases in which there are no non-removable classes; because the regular expression has word boundary checking, this test may give some false positives because of substring matching)
+			{
+				var newAttributeValues = attributeValue.split(/\s/); //we'll add back any of the missing non-removable attributes to this array; start with the attributes we already have
+				var existingNonRemovableClasses = new Object(); //create a set of the already-existing non-removable classes
+				for( var newAttributeValueIndex = newAttributeValues.length - 1; newAttributeValueIndex >= 0; --newAttributeValueIndex) //for each new class
+				{
+					var newClass = newAttributeValues[newAttributeValueIndex]; //get the new class
+					if(this.NON_REMOVABLE_CLASS_SET[newClass]) //if this is a non-removable class
+					{
+						existingNonRemovableClasses[newClass] = true; //show that we already have this non-removable class
+					}
+				}
+				var oldAttributeValues = oldAttributeValue.split(/\s/); //split out all the old classes
+				for( var oldAttributeValueIndex = oldAttributeValues.length - 1; oldAttributeValueIndex >= 0; --oldAttributeValueIndex) //for each old class
+				{
+					var oldClass = oldAttributeValues[oldAttributeValueIndex]; //get the old class
+					if(this.NON_REMOVABLE_CLASS_SET[oldClass] && !existingNonRemovableClasses[oldClass]) //if this is a non-removable class that was removed in the new value
+					{
+						newAttributeValues.add(oldClass); //add the old class back to the array that will form the new class name
+					}
+				}
+				attributeValue = newAttributeValues.join(" "); //join the attributes back together to create the new class name
+			}
+			return attributeValue;
+		};
+
 		/**
 		 * Invalidates the content of all ancestor elements by removing the "data-guise-c" attribute up the hierarchy.
 		 * @param element The element the ancestors of which will have their ancestors invalidated.
@@ -1955,30 +2614,8 @@ io.guise.framework.Guise = function()
 							//perform special patching operations on certain attributes
 							{
 								case "class": //if the class name value is changing, add back any non-removable classes as needed
-									if(oldAttributeValue.match(this.NON_REMOVABLE_CLASSES_REGEX)) //if the original class name had one of the non-removable classes (this is only to eliminate most cases in which there are no non-removable classes; because the regular expression has word boundary checking, this test may give some false positives because of substring matching)
-									{
-										var newAttributeValues = attributeValue.split(/\s/); //we'll add back any of the missing non-removable attributes to this array; start with the attributes we already have
-										var existingNonRemovableClasses = new Object(); //create a set of the already-existing non-removable classes
-										for( var newAttributeValueIndex = newAttributeValues.length - 1; newAttributeValueIndex >= 0; --newAttributeValueIndex) //for each new class
-										{
-											var newClass = newAttributeValues[newAttributeValueIndex]; //get the new class
-											if(this.NON_REMOVABLE_CLASS_SET[newClass]) //if this is a non-removable class
-											{
-												existingNonRemovableClasses[newClass] = true; //show that we already have this non-removable class
-											}
-										}
-										var oldAttributeValues = oldAttributeValue.split(/\s/); //split out all the old classes
-										for( var oldAttributeValueIndex = oldAttributeValues.length - 1; oldAttributeValueIndex >= 0; --oldAttributeValueIndex) //for each old class
-										{
-											var oldClass = oldAttributeValues[oldAttributeValueIndex]; //get the old class
-											if(this.NON_REMOVABLE_CLASS_SET[oldClass] && !existingNonRemovableClasses[oldClass]) //if this is a non-removable class that was removed in the new value
-											{
-												newAttributeValues.add(oldClass); //add the old class back to the array that will form the new class name
-											}
-										}
-										attributeValue = newAttributeValues.join(" "); //join the attributes back together to create the new class name
-										valueChanged = oldAttributeValue != attributeValue; //check again to see if the value is really changing
-									}
+									attributeValue = this._retainNonRemovableClasses(oldAttributeValue, attributeValue); //add back any non-removable classes
+									valueChanged = oldAttributeValue != attributeValue; //check again to see if the value is really changing
 									break;
 								case "style": //ignore the style attribute for now (if it even shows up here during enumeration); we'll update it separately later
 									valueChanged = false;
@@ -2378,7 +3015,14 @@ io.guise.framework.Guise = function()
 			com.globalmentor.dom.EventManager.addEvent(document.documentElement, "keydown", onKey, false); //listen for key down anywhere in the document so that we can send key events back to the server (IE doesn't work correctly with key events registered on the window or document)
 			com.globalmentor.dom.EventManager.addEvent(document.documentElement, "keyup", onKey, false); //listen for key up anywhere in the document so that we can send key events back to the server (IE doesn't work correctly with key events registered on the window or document)
 			com.globalmentor.dom.EventManager.addEvent(document.documentElement, "click", onClick, false); //listen for mouse clicks bubbling up from anywhere (that we haven't dealt with specifically and canceled) in the document so that we can report clicks back to the server
-			this.sendAJAXRequest(new InitAJAXEvent()); //send an initialization AJAX request	
+			if(document.documentElement.getAttribute("data-guise-anonymous") == "true") //if the page was depicted anonymously, don't create a session until the user interacts with the page
+			{
+				this._deferredInitAJAXEvent = new InitAJAXEvent(); //send the initialization along with the first request made on behalf of the user
+			}
+			else
+			{
+				this.sendAJAXRequest(new InitAJAXEvent()); //send an initialization AJAX request
+			}
 			//TODO del	alert("compatibility mode: "+document.compatMode);
 			this.setBusyVisible(false); //turn off the busy indicator	
 			//remove the init IFrame shield
@@ -36,7 +36,6 @@
 
 import static com.globalmentor.io.Filenames.*;
 import static com.globalmentor.io.Files.*;
-import static com.globalmentor.java.Threads.*;
 import static com.globalmentor.model.Locales.*;
 import static com.globalmentor.net.URIs.*;
 import static com.globalmentor.time.Calendars.*;
@@ -84,6 +83,32 @@ public void setDebug(final boolean debug) {
 		this.debug = debug;
 	}
 
+	/** The strategy for executing work in the context of the application's sessions. */
+	private GuiseSessionExecutor sessionExecutor = new ThreadGroupGuiseSessionExecutor();
+
+	@Override
+	public GuiseSessionExecutor getSessionExecutor() {
+		return sessionExecutor;
+	}
+
+	@Override
+	public void setSessionExecutor(final GuiseSessionExecutor sessionExecutor) {
+		this.sessionExecutor = requireNonNull(sessionExecutor, "Session executor cannot be null.");
+	}
+
+	/** The controller limiting how much work the application performs concurrently across its sessions; by default no limit is imposed. */
+	private GuiseAdmissionController admissionController = new GuiseAdmissionController();
+
+	@Override
+	public GuiseAdmissionController getAdmissionController() {
+		return admissionController;
+	}
+
+	@Override
+	public void setAdmissionController(final GuiseAdmissionController admissionController) {
+		this.admissionController = requireNonNull(admissionController, "Admission controller cannot be null.");
+	}
+
 	/**
 	 * I/O for loading resources.
 	 * @implSpec This temporary implementation loads a map stored as the root resource in a TURF file.
@@ -325,15 +350,14 @@ public GuiseSession createSession(final Platform platform) {
 	private final Map<GuiseSession, GuiseSessionInfo> guiseSessionInfoMap = new ConcurrentHashMap<GuiseSession, GuiseSessionInfo>();
 
 	/** The concurrent map of Guise sessions keyed to UUIDs. */
-	private final Map<UUID, GuiseSession> uuidGuiseSessionMap = new ConcurrentHashMap<UUID, GuiseSession>(new HashMap<UUID, GuiseSession>());
+	private final Map<UUID, GuiseSession> uuidGuiseSessionMap = new ConcurrentHashMap<UUID, GuiseSession>();
 
 	@Override
 	public void registerSession(final GuiseSession guiseSession) {
-		if(guiseSessionInfoMap.containsKey(guiseSession)) { //if we already have info for this session (there is a race condition here that would allow a session to be registered twice, but that would only prevent error-checking for conditions that logically shouldn't happen anyway, so it's not worth the synchronization overhead to prevent)
+		if(guiseSessionInfoMap.putIfAbsent(guiseSession, new GuiseSessionInfo(guiseSession)) != null) { //add new Guise session information atomically, without locking; if we already had info for this session
 			throw new IllegalStateException("Guise session " + guiseSession + " already registered with Guise application " + this);
 		}
 		uuidGuiseSessionMap.put(guiseSession.getUUID(), guiseSession); //associate the Guise session with its UUID
-		guiseSessionInfoMap.put(guiseSession, new GuiseSessionInfo(guiseSession)); //add new Guise session information
 	}
 
 	@Override
@@ -471,10 +495,11 @@ public Writer getLogWriter(final String baseFilename, /*TODO fix final CalendarR
 				//TODO add a way to let the initializer know if this is a new log file or just a new writer				final boolean isNewLogFile=!logFile.exists();	//see if this is a new log file
 				try {
 					final Writer writer = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(logFile, true)), UTF_8); //create a buffered UTF-8 log writer, appending if the file already exists
-					final ThreadGroup guiseSessionThreadGroup = Guise.getInstance().getGuiseSessionThreadGroup(Thread.currentThread()); //get the Guise session thread group
-					assert guiseSessionThreadGroup != null : "Expected to be inside a Guise session thread group when application log writer was requested.";
+					final Guise guise = Guise.getInstance();
+					final ThreadGroup guiseSessionThreadGroup = guise.getGuiseSessionThreadGroup(Thread.currentThread()); //get the Guise session thread group
+					assert guiseSessionThreadGroup != null : "Expected to be inside a Guise session context when application log writer was requested.";
 					final AsynchronousWriterRunnable asynchronousWriterRunnable = new AsynchronousWriterRunnable(writer); //create a runnable for creating the new asynchronous writer
-					call(guiseSessionThreadGroup.getParent(), asynchronousWriterRunnable); //create an asynchronous writer in the thread group above the Guise session thread group, because the asynchronous writer's thread will live past this session's thread group
+					guise.callOutsideSessionContext(guiseSessionThreadGroup.getParent(), asynchronousWriterRunnable); //create an asynchronous writer in the thread group above the Guise session thread group and outside the session context, because the asynchronous writer's thread will live past this session
 					final Writer logWriter = asynchronousWriterRunnable.getWriter(); //get the asynchronous writer that was created
 					assert logWriter != null : "Asynchronous writer runnable did not create asynchronous writer as expected.";
 					//TODO del when works					final Writer logWriter=new AsynchronousWriter(new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(logFile, true)), UTF_8));	//create an asynchronous, buffered UTF-8 log writer, appending if the file already exists
@@ -610,6 +635,7 @@ public void uninstall(final GuiseContainer container) {
 			}
 			baseNameLogWriterInfoMap.clear(); //remove all log writer information
 		}
+		sessionExecutor.shutdown(); //release any threads used for executing session work
 		logConfiguration.dispose(); //dispose of our main application log configuration, closing files as necessary
 		this.container = null; //release the container
 		this.basePath = null; //remove the base path
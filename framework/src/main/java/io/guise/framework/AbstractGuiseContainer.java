@@ -29,7 +29,6 @@
 import com.globalmentor.net.http.HTTPResource;
 
 import static com.globalmentor.io.Files.*;
-import static com.globalmentor.java.Threads.*;
 import static com.globalmentor.net.URIs.*;
 
 /**
@@ -64,7 +63,7 @@ public Collection<GuiseApplication> getApplications() {
 
 	/**
 	 * Adds and initializes a Guise session. This version creates a thread group for the session. The Guise session will be registered with the Guise application
-	 * before it is initialized. Initialization will occur inside the appropriate session thread group.
+	 * before it is initialized. Initialization will occur in the context of the session using the application's session executor.
 	 * @param guiseSession The Guise session to add.
 	 * @see GuiseApplication#registerSession(GuiseSession)
 	 * @see GuiseSession#initialize()
@@ -73,8 +72,7 @@ protected void addGuiseSession(final GuiseSession guiseSession) {
 		final Guise guise = Guise.getInstance(); //get the Guise instance
 		guise.addGuiseSession(guiseSession); //add the Guise session to Guise
 		guiseSession.getApplication().registerSession(guiseSession); //register the session from the application
-		final GuiseSessionThreadGroup guiseSessionThreadGroup = guise.getThreadGroup(guiseSession); //get the thread group for this session
-		call(guiseSessionThreadGroup, new Runnable() { //initialize the Guise session in its own thread group
+		guiseSession.getApplication().getSessionExecutor().call(guiseSession, new Runnable() { //initialize the Guise session in the context of the session
 
 			@Override
 			public void run() {
@@ -86,15 +84,14 @@ public void run() {
 
 	/**
 	 * Removes and destroys a Guise session. The Guise session will be unregistered from the Guise application after it is uninitialized. Destruction will occur
-	 * inside the appropriate session thread group.
+	 * in the context of the session using the application's session executor.
 	 * @param guiseSession The Guise session to remove.
 	 * @see GuiseSession#destroy()
 	 * @see GuiseApplication#unregisterSession(GuiseSession)
 	 */
 	protected void removeGuiseSession(final GuiseSession guiseSession) {
 		final Guise guise = Guise.getInstance(); //get the Guise instance
-		final GuiseSessionThreadGroup guiseSessionThreadGroup = guise.getThreadGroup(guiseSession); //get the thread group for this session
-		call(guiseSessionThreadGroup, new Runnable() { //destroy the Guise session in its own thread group
+		guiseSession.getApplication().getSessionExecutor().call(guiseSession, new Runnable() { //destroy the Guise session in the context of the session
 
 			@Override
 			public void run() {
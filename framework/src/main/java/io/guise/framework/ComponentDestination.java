@@ -36,6 +36,8 @@ public class ComponentDestination extends AbstractDestination {
 
 	/** The style bound property. */
 	public static final String STYLE_PROPERTY = getPropertyName(ComponentDestination.class, "style");
+	/** The anonymous bound property. */
+	public static final String ANONYMOUS_PROPERTY = getPropertyName(ComponentDestination.class, "anonymous");
 
 	/** The class of the component to represent this destination. */
 	private final Class<? extends Component> componentClass;
@@ -66,6 +68,30 @@ public void setStyle(final URI newStyle) {
 		}
 	}
 
+	/** Whether the destination may be depicted anonymously, independent of any session. */
+	private boolean anonymous = false;
+
+	/** @return Whether the destination may be depicted anonymously, independent of any session. */
+	public boolean isAnonymous() {
+		return anonymous;
+	}
+
+	/**
+	 * Sets whether the destination may be depicted anonymously, independent of any session. An anonymous destination is depicted once for each combination of
+	 * requested location, language, and user agent, and the depiction is shared among all visitors that do not yet have a session; a session is only created
+	 * once a visitor interacts with the page. The component of an anonymous destination must therefore depict the same way for every new session, without
+	 * depending on the principal, cookies, or other per-visitor information. This is a bound property of type <code>Boolean</code>.
+	 * @param newAnonymous Whether the destination may be depicted anonymously, independent of any session.
+	 * @see #ANONYMOUS_PROPERTY
+	 */
+	public void setAnonymous(final boolean newAnonymous) {
+		if(anonymous != newAnonymous) { //if the value is really changing
+			final boolean oldAnonymous = anonymous; //get the old value
+			anonymous = newAnonymous; //actually change the value
+			firePropertyChange(ANONYMOUS_PROPERTY, Boolean.valueOf(oldAnonymous), Boolean.valueOf(newAnonymous)); //indicate that the value changed
+		}
+	}
+
 	/**
 	 * Path and component constructor with no style specified.
 	 * @param path The application context-relative path within the Guise container context, which does not begin with '/'.
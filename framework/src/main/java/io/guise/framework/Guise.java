@@ -17,9 +17,9 @@
 package io.guise.framework;
 
 import java.io.*;
-import java.lang.ref.*;
 import java.net.*;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -110,30 +110,53 @@ public boolean isLicensed() {
 		return licensed;
 	}
 
-	/** The cache of asset references keyed to asset strings. */
-	private Map<String, Reference<byte[]>> assetMap = new ConcurrentHashMap<String, Reference<byte[]>>();
+	/** The bounded cache of loaded assets, with their precompressed variants. */
+	private final GuiseAssetCache assetCache = new GuiseAssetCache();
+
+	/** @return The bounded cache of loaded assets, with their precompressed variants. */
+	public GuiseAssetCache getAssetCache() {
+		return assetCache;
+	}
 
 	/**
 	 * Retrieves a Guise asset keyed to its location. Assets are cached for quick future retrieval. Due to race conditions, an asset may initially be loaded more
 	 * than once in this implementation before its final value is placed in the cache.
 	 * @param guiseAssetKey The location of the asset.
-	 * @return The asset, or <code>null</code> if there is no such asset.
+	 * @return The asset, or <code>null</code> if there is no such asset. The returned array is shared and must not be modified.
 	 * @throws IllegalArgumentException if the asset key does not begin with {@value #GUISE_ASSETS_BASE_KEY}.
 	 * @throws IOException if there is an error loading the asset.
 	 * @see #GUISE_ASSETS_BASE_KEY
 	 */
 	public byte[] getGuiseAsset(final String guiseAssetKey) throws IOException {
+		final GuiseAssetCache.Asset asset = getCachedAsset(guiseAssetKey);
+		return asset != null ? asset.getBytes() : null;
+	}
+
+	/**
+	 * Retrieves a Guise asset keyed to its location, along with its precompressed variants and entity tag. Assets are cached for quick future retrieval. Due to
+	 * race conditions, an asset may initially be loaded more than once in this implementation before its final value is placed in the cache.
+	 * @param guiseAssetKey The location of the asset.
+	 * @return The asset, or <code>null</code> if there is no such asset.
+	 * @throws IllegalArgumentException if the asset key does not begin with {@value #GUISE_ASSETS_BASE_KEY}.
+	 * @throws IOException if there is an error loading the asset.
+	 * @see #GUISE_ASSETS_BASE_KEY
+	 * @see #getAssetCache()
+	 */
+	public GuiseAssetCache.Asset getCachedAsset(final String guiseAssetKey) throws IOException {
 		final String key = normalizePath(guiseAssetKey); //normalize the asset key
 		if(!key.startsWith(GUISE_ASSETS_BASE_KEY)) { //if this isn't an asset key
 			throw new IllegalArgumentException("String " + guiseAssetKey + " is not a Guise asset key.");
 		}
-		final Reference<byte[]> reference = assetMap.get(key); //get a reference to the asset
-		byte[] asset = reference != null ? reference.get() : null; //dereference the reference, if there is a reference
-		if(asset == null) { //if we haven't yet loaded the asset, or it has been dereferenced
+		GuiseAssetCache.Asset asset = assetCache.get(key); //get the cached asset
+		if(asset == null) { //if we haven't yet loaded the asset, or it has been discarded
 			final InputStream assetInputStream = getClass().getResourceAsStream(key); //get an input stream to the asset
 			if(assetInputStream != null) { //if we got an input stream to the asset
-				asset = getBytes(assetInputStream); //load the asset
-				assetMap.put(key, new SoftReference<byte[]>(asset)); //cache the asset
+				try {
+					asset = new GuiseAssetCache.Asset(getBytes(assetInputStream)); //load and compress the asset
+				} finally {
+					assetInputStream.close();
+				}
+				assetCache.put(key, asset); //cache the asset
 			}
 		}
 		return asset; //return whatever asset we found
@@ -181,11 +204,10 @@ public InputStream getAssetInputStream(final String guiseAssetKey) throws IOExce
 		if(!key.startsWith(GUISE_ASSETS_BASE_KEY)) { //if this isn't an asset key
 			throw new IllegalArgumentException("String " + guiseAssetKey + " is not a Guise asset key.");
 		}
-		final Reference<byte[]> reference = assetMap.get(key); //get a reference to the asset
-		byte[] asset = reference != null ? reference.get() : null; //dereference the reference, if there is a reference
+		final GuiseAssetCache.Asset asset = assetCache.get(key); //get the cached asset, if any
 		if(asset != null) { //if the asset is already loaded
-			return new ByteArrayInputStream(asset); //return an input stream to the cached asset
-		} else { //if we haven't yet loaded the asset, or it has been dereferenced
+			return new ByteArrayInputStream(asset.getBytes()); //return an input stream to the cached asset
+		} else { //if we haven't yet loaded the asset, or it has been discarded
 			return getClass().getResourceAsStream(key); //get an input stream to the asset
 		}
 	}
@@ -241,6 +263,61 @@ public final GuiseSessionThreadGroup getThreadGroup(final GuiseSession guiseSess
 		return threadGroup; //return the thread group
 	}
 
+	/**
+	 * The thread group of the Guise session in the context of which the current thread is running. This value is inherited by threads created from a thread
+	 * running in a session context, and allows the session to be determined without walking the thread group hierarchy, even for pooled threads that are not
+	 * members of the session's thread group.
+	 */
+	private final ThreadLocal<GuiseSessionThreadGroup> sessionContextThreadGroup = new InheritableThreadLocal<GuiseSessionThreadGroup>();
+
+	/**
+	 * Runs the given runnable in the current thread in the context of the session of the given thread group. The previous session context, if any, is restored
+	 * when the runnable completes.
+	 * @param guiseSessionThreadGroup The thread group of the session in the context of which the runnable should run.
+	 * @param runnable The runnable to run.
+	 * @see GuiseSessionExecutor
+	 */
+	void runInSessionContext(final GuiseSessionThreadGroup guiseSessionThreadGroup, final Runnable runnable) {
+		final GuiseSessionThreadGroup oldSessionContextThreadGroup = sessionContextThreadGroup.get();
+		sessionContextThreadGroup.set(guiseSessionThreadGroup);
+		try {
+			runnable.run();
+		} finally {
+			if(oldSessionContextThreadGroup != null) {
+				sessionContextThreadGroup.set(oldSessionContextThreadGroup);
+			} else {
+				sessionContextThreadGroup.remove(); //don't leave a reference to the session in the thread
+			}
+		}
+	}
+
+	/**
+	 * Removes any session context from the current thread, such as a context inherited from the thread that created it. Pooled threads should call this method
+	 * before performing work so that they don't hold a reference to some unrelated session.
+	 */
+	void clearSessionContext() {
+		sessionContextThreadGroup.remove();
+	}
+
+	/**
+	 * Calls the given runnable in a new thread in the given thread group, without the new thread inheriting the session context of the current thread. This is
+	 * useful for starting threads that will outlive the current session.
+	 * @param threadGroup The thread group in which the new thread should be created.
+	 * @param runnable The runnable to call.
+	 * @see Threads#call(ThreadGroup, Runnable)
+	 */
+	void callOutsideSessionContext(final ThreadGroup threadGroup, final Runnable runnable) {
+		final GuiseSessionThreadGroup oldSessionContextThreadGroup = sessionContextThreadGroup.get();
+		sessionContextThreadGroup.remove(); //the new thread will inherit no session
+		try {
+			Threads.call(threadGroup, runnable);
+		} finally {
+			if(oldSessionContextThreadGroup != null) {
+				sessionContextThreadGroup.set(oldSessionContextThreadGroup);
+			}
+		}
+	}
+
 	/**
 	 * Retrieves the Guise session information for the current thread. This method calls {@link #getGuiseSession(Thread)} with the current thread.
 	 * @return The Guise session for the current thread.
@@ -256,9 +333,16 @@ public final GuiseSession getGuiseSession() {
 	}
 
 	/**
-	 * Retrieves the Guise session information for the given thread. All thread groups up the hierarchy are searched for an instance of
-	 * {@link GuiseSessionThreadGroup}.
-	 * @return The Guise session for the given thread, or <code>null</code> if the given thread is not in a Guise session thread group.
+	 * Finds the Guise session information for the current thread, if any. This method calls {@link #getGuiseSession(Thread)} with the current thread.
+	 * @return The Guise session for the current thread, which will not be present if the current thread is not associated with any Guise session.
+	 */
+	public final Optional<GuiseSession> findGuiseSession() {
+		return Optional.ofNullable(getGuiseSession(Thread.currentThread()));
+	}
+
+	/**
+	 * Retrieves the Guise session information for the given thread.
+	 * @return The Guise session for the given thread, or <code>null</code> if the given thread is not associated with a Guise session.
 	 * @see #getGuiseSessionThreadGroup(Thread)
 	 */
 	final GuiseSession getGuiseSession(final Thread thread) {
@@ -267,11 +351,19 @@ final GuiseSession getGuiseSession(final Thread thread) {
 	}
 
 	/**
-	 * Retrieves the Guise session thread group. All thread groups up the hierarchy are searched for an instance of {@link GuiseSessionThreadGroup}.
-	 * @return The Guise session thread group for the given thread, or <code>null</code> if the given thread is not in a Guise session thread group.
+	 * Retrieves the Guise session thread group. If the given thread is the current thread and it is running in a session context, the thread group of that
+	 * session is returned immediately; otherwise all thread groups up the hierarchy are searched for an instance of {@link GuiseSessionThreadGroup}.
+	 * @return The Guise session thread group for the given thread, or <code>null</code> if the given thread is not associated with a Guise session.
+	 * @see #runInSessionContext(GuiseSessionThreadGroup, Runnable)
 	 */
 	final GuiseSessionThreadGroup getGuiseSessionThreadGroup(final Thread thread) {
-		return Threads.getThreadGroup(thread, GuiseSessionThreadGroup.class); //return the Guise session thread group for this class
+		if(thread == Thread.currentThread()) {
+			final GuiseSessionThreadGroup guiseSessionThreadGroup = sessionContextThreadGroup.get(); //see if the thread is running in a session context
+			if(guiseSessionThreadGroup != null) {
+				return guiseSessionThreadGroup;
+			}
+		}
+		return Threads.getThreadGroup(thread, GuiseSessionThreadGroup.class); //fall back to searching the thread group hierarchy
 	}
 
 	/**
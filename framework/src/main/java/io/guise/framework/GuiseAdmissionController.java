@@ -0,0 +1,285 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework;
+
+import static com.globalmentor.java.Conditions.*;
+import static java.util.Objects.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Limits the number of operations, such as event dispatch and depiction, that an application performs concurrently across all its sessions. Once the limit is
+ * reached, interactive requests wait in a short first-in, first-out queue for a turn, and are rejected if the queue is full or if they wait too long. Background
+ * requests, such as polls, are never queued; they are only admitted if they can be admitted immediately. Rejected requests should be told to retry after
+ * {@link #getRetryAfter()}.
+ * <p>
+ * The counts of admitted and rejected requests, along with the current number of active and waiting requests, are available for monitoring.
+ * </p>
+ * @author Garret Wilson
+ * @see GuiseApplication#getAdmissionController()
+ */
+public class GuiseAdmissionController {
+
+	/**
+	 * The priority of a request for admission.
+	 * @author Garret Wilson
+	 */
+	public enum Priority {
+		/** A request made on behalf of the user, such as a page load or an action; it may wait in the queue. */
+		INTERACTIVE,
+		/** A request made by the page on its own, such as a poll; it is rejected rather than queued. */
+		BACKGROUND
+	}
+
+	/** The default maximum time an interactive request waits in the queue before being rejected. */
+	public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(2);
+
+	/** The default time after which rejected requests should be retried. */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+	/** The maximum number of requests admitted concurrently. */
+	private final int maxConcurrency;
+
+	/** @return The maximum number of requests admitted concurrently. */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/** The maximum number of interactive requests waiting for admission. */
+	private final int maxQueueLength;
+
+	/** @return The maximum number of interactive requests waiting for admission. */
+	public int getMaxQueueLength() {
+		return maxQueueLength;
+	}
+
+	/** The maximum time an interactive request waits in the queue before being rejected. */
+	private final Duration maxWait;
+
+	/** @return The maximum time an interactive request waits in the queue before being rejected. */
+	public Duration getMaxWait() {
+		return maxWait;
+	}
+
+	/** The time after which rejected requests should be retried. */
+	private final Duration retryAfter;
+
+	/** @return The time after which rejected requests should be retried. */
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	/** The number of requests currently admitted; guarded by this controller. */
+	private int activeCount = 0;
+
+	/** The requests waiting for admission, in the order they arrived; guarded by this controller. May contain requests that have since given up waiting. */
+	private final Queue<CompletableFuture<Admission>> waiters = new ArrayDeque<CompletableFuture<Admission>>();
+
+	/** The total number of requests admitted. */
+	private final LongAdder admittedCount = new LongAdder();
+
+	/** The total number of requests rejected. */
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/** Default constructor; no limit is placed on concurrent requests. */
+	public GuiseAdmissionController() {
+		this(Integer.MAX_VALUE, 0, DEFAULT_MAX_WAIT, DEFAULT_RETRY_AFTER);
+	}
+
+	/**
+	 * Concurrency constructor. Up to the same number of interactive requests may wait for admission, for up to {@link #DEFAULT_MAX_WAIT}.
+	 * @param maxConcurrency The maximum number of requests admitted concurrently.
+	 * @throws IllegalArgumentException if the given maximum concurrency is not positive.
+	 */
+	public GuiseAdmissionController(final int maxConcurrency) {
+		this(maxConcurrency, maxConcurrency, DEFAULT_MAX_WAIT, DEFAULT_RETRY_AFTER);
+	}
+
+	/**
+	 * Full constructor.
+	 * @param maxConcurrency The maximum number of requests admitted concurrently.
+	 * @param maxQueueLength The maximum number of interactive requests waiting for admission.
+	 * @param maxWait The maximum time an interactive request waits in the queue before being rejected.
+	 * @param retryAfter The time after which rejected requests should be retried.
+	 * @throws NullPointerException if the given maximum wait and/or retry time is <code>null</code>.
+	 * @throws IllegalArgumentException if the given maximum concurrency is not positive, or the given queue length or either of the given times is negative.
+	 */
+	public GuiseAdmissionController(final int maxConcurrency, final int maxQueueLength, final Duration maxWait, final Duration retryAfter) {
+		checkArgument(maxConcurrency > 0, "Maximum concurrency %d is not positive.", maxConcurrency);
+		checkArgument(maxQueueLength >= 0, "Maximum queue length %d is negative.", maxQueueLength);
+		checkArgument(!maxWait.isNegative(), "Maximum wait %s is negative.", maxWait);
+		checkArgument(!retryAfter.isNegative(), "Retry time %s is negative.", retryAfter);
+		this.maxConcurrency = maxConcurrency;
+		this.maxQueueLength = maxQueueLength;
+		this.maxWait = maxWait;
+		this.retryAfter = retryAfter;
+	}
+
+	/** @return The number of requests currently admitted. */
+	public synchronized int getActiveCount() {
+		return activeCount;
+	}
+
+	/** @return The number of interactive requests currently waiting for admission. */
+	public synchronized int getQueueLength() {
+		return waiters.size();
+	}
+
+	/** @return The total number of requests admitted. */
+	public long getAdmittedCount() {
+		return admittedCount.sum();
+	}
+
+	/** @return The total number of requests rejected, whether immediately or after waiting. */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * Requests admission without waiting. The returned future completes when the request is admitted, or completes exceptionally with a
+	 * {@link RejectedAdmissionException} if the request is rejected. Once admitted, the admission must be released when the work is finished. If the returned
+	 * future is cancelled before the request is admitted, the request gives up its place in the queue.
+	 * @param priority The priority of the request.
+	 * @return A future admission.
+	 * @throws NullPointerException if the given priority is <code>null</code>.
+	 */
+	public CompletableFuture<Admission> admit(final Priority priority) {
+		requireNonNull(priority, "Priority cannot be null.");
+		final CompletableFuture<Admission> waiter;
+		synchronized(this) {
+			if(activeCount < maxConcurrency) { //if there is room, admit the request immediately
+				activeCount++;
+				admittedCount.increment();
+				return CompletableFuture.completedFuture(new Admission());
+			}
+			if(priority == Priority.BACKGROUND || waiters.size() >= maxQueueLength) { //background requests don't wait, and neither do requests that won't fit in the queue
+				rejectedCount.increment();
+				return CompletableFuture.failedFuture(new RejectedAdmissionException(retryAfter));
+			}
+			waiter = new CompletableFuture<Admission>();
+			waiters.add(waiter);
+		}
+		CompletableFuture.delayedExecutor(maxWait.toMillis(), MILLISECONDS).execute(() -> {
+			if(waiter.completeExceptionally(new RejectedAdmissionException(retryAfter))) { //if the request is still waiting, give up
+				synchronized(this) {
+					waiters.remove(waiter);
+				}
+				rejectedCount.increment();
+			}
+		});
+		return waiter;
+	}
+
+	/**
+	 * Requests admission, blocking until the request is admitted or rejected.
+	 * @param priority The priority of the request.
+	 * @return The admission, which must be released when the work is finished.
+	 * @throws NullPointerException if the given priority is <code>null</code>.
+	 * @throws RejectedAdmissionException if the request was rejected.
+	 * @throws IllegalStateException if the calling thread was interrupted while waiting for admission.
+	 * @see #admit(Priority)
+	 */
+	public Admission acquire(final Priority priority) {
+		final CompletableFuture<Admission> future = admit(priority);
+		try {
+			return future.get();
+		} catch(final ExecutionException executionException) {
+			final Throwable cause = executionException.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if(cause instanceof Error) {
+				throw (Error)cause;
+			} else { //admission only fails with a rejection
+				throw new AssertionError(cause);
+			}
+		} catch(final InterruptedException interruptedException) {
+			future.cancel(false); //give up our place in the queue
+			future.thenAccept(Admission::release); //if we were admitted anyway, give the admission back
+			Thread.currentThread().interrupt(); //restore the interrupted status
+			throw new IllegalStateException("Interrupted while waiting for admission.", interruptedException);
+		}
+	}
+
+	/** Gives the admission of a finished request to the next waiting request, or frees it if there are no waiting requests. */
+	protected void release() {
+		while(true) {
+			final CompletableFuture<Admission> waiter;
+			synchronized(this) {
+				waiter = waiters.poll();
+				if(waiter == null) { //if nobody is waiting, there is one less request active
+					activeCount--;
+					return;
+				}
+			}
+			if(waiter.complete(new Admission())) { //complete the waiter outside the lock, as it will continue with its own work; if it has already given up, try the next one
+				admittedCount.increment();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The admission of a single request.
+	 * @author Garret Wilson
+	 */
+	public class Admission {
+
+		/** Whether this admission has been released. */
+		private final AtomicBoolean released = new AtomicBoolean(false);
+
+		/** Releases this admission so that another request may be admitted. Releasing an admission more than once has no effect. */
+		public void release() {
+			if(released.compareAndSet(false, true)) {
+				GuiseAdmissionController.this.release();
+			}
+		}
+
+	}
+
+	/**
+	 * Indicates that a request was not admitted because the application is saturated.
+	 * @author Garret Wilson
+	 */
+	public static class RejectedAdmissionException extends IllegalStateException {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The time after which the request should be retried. */
+		private final Duration retryAfter;
+
+		/** @return The time after which the request should be retried. */
+		public Duration getRetryAfter() {
+			return retryAfter;
+		}
+
+		/**
+		 * Retry constructor.
+		 * @param retryAfter The time after which the request should be retried.
+		 * @throws NullPointerException if the given retry time is <code>null</code>.
+		 */
+		public RejectedAdmissionException(final Duration retryAfter) {
+			super("Request not admitted; retry after " + retryAfter + ".");
+			this.retryAfter = requireNonNull(retryAfter);
+		}
+
+	}
+
+}
@@ -98,6 +98,27 @@ public interface GuiseApplication extends Resource, PropertyBindable, Concerned
 	 */
 	public void setDebug(final boolean debug);
 
+	/** @return The strategy for executing work in the context of the application's sessions. */
+	public GuiseSessionExecutor getSessionExecutor();
+
+	/**
+	 * Sets the strategy for executing work in the context of the application's sessions. This should be set before the application is installed.
+	 * @param sessionExecutor The new session executor.
+	 * @throws NullPointerException if the given session executor is <code>null</code>.
+	 */
+	public void setSessionExecutor(final GuiseSessionExecutor sessionExecutor);
+
+	/** @return The controller limiting how much work the application performs concurrently across its sessions. */
+	public GuiseAdmissionController getAdmissionController();
+
+	/**
+	 * Sets the controller limiting how much work the application performs concurrently across its sessions. This should be set before the application is
+	 * installed.
+	 * @param admissionController The new admission controller.
+	 * @throws NullPointerException if the given admission controller is <code>null</code>.
+	 */
+	public void setAdmissionController(final GuiseAdmissionController admissionController);
+
 	/**
 	 * @return The read-only non-empty list of locales supported by the application, with the first locale the default used if a new session cannot determine the
 	 *         users's preferred locale.
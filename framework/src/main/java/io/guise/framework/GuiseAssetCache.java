@@ -0,0 +1,258 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework;
+
+import static com.globalmentor.java.Conditions.*;
+import static java.util.Objects.*;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.*;
+
+/**
+ * A cache of Guise assets bounded by the number of bytes held, keeping for each asset its content along with variants precompressed using the gzip and
+ * deflate content codings, and an entity tag derived from a hash of the content.
+ * <p>
+ * Assets are compressed once, when they are loaded; a compressed variant is only kept if it is smaller than the content itself. Once the cache holds its
+ * maximum number of bytes, the least recently used assets are discarded to make room for another. An asset larger than the entire cache is returned but not
+ * cached.
+ * </p>
+ * <p>
+ * Two threads missing the same asset at the same time will both load the asset; the last asset loaded is the one cached.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ * @author Garret Wilson
+ * @see Guise#getCachedAsset(String)
+ */
+public class GuiseAssetCache {
+
+	/** The default maximum number of bytes cached, including compressed variants. */
+	public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+	/** The name of the gzip content coding. */
+	public static final String GZIP_CONTENT_CODING = "gzip";
+
+	/** The name of the deflate content coding. */
+	public static final String DEFLATE_CONTENT_CODING = "deflate";
+
+	/** The maximum number of bytes cached, including compressed variants. */
+	private final long maxBytes;
+
+	/** @return The maximum number of bytes cached, including compressed variants. */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/** The cached assets, keyed to their asset keys, in order of access; guarded by the map itself. */
+	private final LinkedHashMap<String, Asset> assets = new LinkedHashMap<String, Asset>(16, 0.75f, true); //keep the assets in access order
+
+	/** The number of bytes cached, including compressed variants; guarded by the asset map. */
+	private long byteCount = 0;
+
+	/** The number of requests satisfied by a cached asset. */
+	private final LongAdder hitCount = new LongAdder();
+
+	/** @return The number of requests satisfied by a cached asset. */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/** The number of requests for which no asset was cached. */
+	private final LongAdder missCount = new LongAdder();
+
+	/** @return The number of requests for which no asset was cached. */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/** Default constructor using the default maximum number of bytes. */
+	public GuiseAssetCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Maximum bytes constructor.
+	 * @param maxBytes The maximum number of bytes cached, including compressed variants.
+	 * @throws IllegalArgumentException if the given maximum number of bytes is negative.
+	 */
+	public GuiseAssetCache(final long maxBytes) {
+		checkArgument(maxBytes >= 0, "Maximum bytes %d is negative.", maxBytes);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Retrieves the asset cached under the given key.
+	 * @param key The normalized asset key.
+	 * @return The cached asset, or <code>null</code> if no asset is cached under the given key.
+	 */
+	public Asset get(final String key) {
+		final Asset asset;
+		synchronized(assets) {
+			asset = assets.get(key);
+		}
+		(asset != null ? hitCount : missCount).increment();
+		return asset;
+	}
+
+	/**
+	 * Caches an asset under the given key, replacing any asset already cached under the key, and discarding the least recently used assets if needed to stay
+	 * within the maximum number of bytes. An asset larger than the entire cache is not cached.
+	 * @param key The normalized asset key.
+	 * @param asset The asset to cache.
+	 * @throws NullPointerException if the given key and/or asset is <code>null</code>.
+	 */
+	public void put(final String key, final Asset asset) {
+		requireNonNull(key, "Key cannot be null.");
+		final long assetByteCount = requireNonNull(asset, "Asset cannot be null.").getByteCount();
+		synchronized(assets) {
+			final Asset oldAsset = assets.remove(key);
+			if(oldAsset != null) {
+				byteCount -= oldAsset.getByteCount();
+			}
+			if(assetByteCount > maxBytes) { //don't let a single asset flush the entire cache
+				return;
+			}
+			final Iterator<Asset> assetIterator = assets.values().iterator(); //iterate from the least recently used asset
+			while(byteCount + assetByteCount > maxBytes && assetIterator.hasNext()) {
+				byteCount -= assetIterator.next().getByteCount();
+				assetIterator.remove();
+			}
+			assets.put(key, asset);
+			byteCount += assetByteCount;
+		}
+	}
+
+	/** Discards all cached assets. */
+	public void clear() {
+		synchronized(assets) {
+			assets.clear();
+			byteCount = 0;
+		}
+	}
+
+	/**
+	 * A loaded asset with its precompressed variants.
+	 * <p>
+	 * This class is immutable, although for efficiency the arrays it returns are not copied and must not be modified.
+	 * </p>
+	 * @author Garret Wilson
+	 */
+	public static final class Asset {
+
+		/** The content of the asset. */
+		private final byte[] bytes;
+
+		/** @return The content of the asset; must not be modified. */
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+		/** The content compressed using the gzip content coding, or <code>null</code> if compression would not make the content smaller. */
+		private final byte[] gzipBytes;
+
+		/** The content compressed using the deflate content coding, or <code>null</code> if compression would not make the content smaller. */
+		private final byte[] deflateBytes;
+
+		/** The opaque part of the strong entity tag of the content, without quotes, derived from a hash of the content. */
+		private final String entityTagValue;
+
+		/**
+		 * Content constructor. The content is hashed and compressed.
+		 * @param bytes The content of the asset, which must not be modified after the asset is created.
+		 * @throws NullPointerException if the given content is <code>null</code>.
+		 */
+		public Asset(final byte[] bytes) {
+			this.bytes = requireNonNull(bytes);
+			final MessageDigest messageDigest;
+			try {
+				messageDigest = MessageDigest.getInstance("SHA-256");
+			} catch(final NoSuchAlgorithmException noSuchAlgorithmException) { //every Java platform is required to support SHA-256
+				throw new AssertionError(noSuchAlgorithmException);
+			}
+			entityTagValue = Base64.getUrlEncoder().withoutPadding().encodeToString(messageDigest.digest(bytes));
+			gzipBytes = compress(bytes, true);
+			deflateBytes = compress(bytes, false);
+		}
+
+		/**
+		 * Compresses the given bytes.
+		 * @param bytes The bytes to compress.
+		 * @param gzip <code>true</code> if the gzip format should be used, or <code>false</code> if the zlib format of the deflate content coding should be used.
+		 * @return The compressed bytes, or <code>null</code> if compression would not make the content smaller.
+		 */
+		private static byte[] compress(final byte[] bytes, final boolean gzip) {
+			final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length / 2);
+			try {
+				if(gzip) {
+					try (final OutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream) {
+						{
+							def.setLevel(Deflater.BEST_COMPRESSION); //assets are compressed only once, so use the best compression
+						}
+					}) {
+						gzipOutputStream.write(bytes);
+					}
+				} else {
+					final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+					try (final OutputStream deflaterOutputStream = new DeflaterOutputStream(byteArrayOutputStream, deflater)) {
+						deflaterOutputStream.write(bytes);
+					} finally {
+						deflater.end(); //a compressor we provide is not released by the stream
+					}
+				}
+			} catch(final IOException ioException) { //a byte array output stream never throws an I/O exception
+				throw new AssertionError(ioException);
+			}
+			return byteArrayOutputStream.size() < bytes.length ? byteArrayOutputStream.toByteArray() : null;
+		}
+
+		/**
+		 * Retrieves the content of the asset encoded using the given content coding.
+		 * @param contentCoding The content coding, one of {@link GuiseAssetCache#GZIP_CONTENT_CODING} or {@link GuiseAssetCache#DEFLATE_CONTENT_CODING}.
+		 * @return The encoded content, or <code>null</code> if the content is not available using the given content coding.
+		 */
+		public byte[] getBytes(final String contentCoding) {
+			switch(contentCoding) {
+				case GZIP_CONTENT_CODING:
+					return gzipBytes;
+				case DEFLATE_CONTENT_CODING:
+					return deflateBytes;
+				default:
+					return null;
+			}
+		}
+
+		/**
+		 * Returns the strong entity tag, including quotes, of the asset content encoded using the given content coding. Each encoding of the content has a
+		 * different entity tag.
+		 * @param contentCoding The content coding, or <code>null</code> if the content is not encoded.
+		 * @return The entity tag of the encoded content.
+		 */
+		public String getEntityTag(final String contentCoding) {
+			return contentCoding != null ? '"' + entityTagValue + '-' + contentCoding + '"' : '"' + entityTagValue + '"';
+		}
+
+		/** @return The number of bytes held by the asset, including compressed variants. */
+		public long getByteCount() {
+			return (long)bytes.length + (gzipBytes != null ? gzipBytes.length : 0) + (deflateBytes != null ? deflateBytes.length : 0);
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework;
+
+import static java.util.Objects.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A strategy for executing work in the context of a Guise session. Whatever thread performs the work, {@link Guise#getGuiseSession()} and concern lookup
+ * through {@link GuiseSessionThreadGroup#findConcern(Class)} will resolve to the given session while the work is running, without needing to search the
+ * thread group hierarchy.
+ * @author Garret Wilson
+ * @see GuiseApplication#getSessionExecutor()
+ */
+public interface GuiseSessionExecutor {
+
+	/**
+	 * Calls the given runnable in the context of the given Guise session, blocking until the runnable has completed. Any runtime exception or error thrown by the
+	 * runnable will be rethrown in the calling thread.
+	 * @param guiseSession The Guise session in the context of which the runnable should be called.
+	 * @param runnable The runnable to call.
+	 * @throws NullPointerException if the given session and/or runnable is <code>null</code>.
+	 * @throws IllegalStateException if the given session has not yet been added to Guise.
+	 * @throws IllegalStateException if the executor has been shut down, or if the calling thread was interrupted while waiting for the runnable to complete.
+	 */
+	public void call(final GuiseSession guiseSession, final Runnable runnable);
+
+	/**
+	 * Submits the given runnable to be called in the context of the given Guise session, without waiting for the runnable to complete.
+	 * @implSpec The default implementation delegates to {@link #call(GuiseSession, Runnable)}, and so completes synchronously; any failure to call the runnable
+	 *           is reported by completing the future exceptionally rather than by throwing an exception.
+	 * @param guiseSession The Guise session in the context of which the runnable should be called.
+	 * @param runnable The runnable to call.
+	 * @return A future that will be completed when the runnable has been called, or completed exceptionally with any runtime exception or error thrown by the
+	 *         runnable.
+	 * @throws NullPointerException if the given session and/or runnable is <code>null</code>.
+	 * @throws IllegalStateException if the given session has not yet been added to Guise.
+	 * @throws IllegalStateException if the executor has been shut down.
+	 */
+	public default CompletableFuture<Void> submit(final GuiseSession guiseSession, final Runnable runnable) {
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+		try {
+			call(guiseSession, runnable);
+			future.complete(null);
+		} catch(final RuntimeException | Error throwable) {
+			future.completeExceptionally(throwable);
+		}
+		return future;
+	}
+
+	/**
+	 * Calls the given runnable in the context of the given Guise session exclusively of all other exclusive work for the same session, blocking until the
+	 * runnable has completed. Event dispatch and depiction, which modify the session's component state, should be performed using this method; work that only
+	 * reads session state may use {@link #call(GuiseSession, Runnable)} and proceed concurrently. This method may be called whether or not the current thread is
+	 * already in the context of the session, and may be called reentrantly.
+	 * @implSpec The default implementation holds the {@link io.guise.framework.platform.Platform#getDepictLock()} of the session platform while the runnable is
+	 *           called. If the current thread is already in the context of the given session, the runnable is called in the current thread; otherwise the
+	 *           runnable is delegated to {@link #call(GuiseSession, Runnable)}.
+	 * @param guiseSession The Guise session in the context of which the runnable should be called.
+	 * @param runnable The runnable to call.
+	 * @throws NullPointerException if the given session and/or runnable is <code>null</code>.
+	 * @throws IllegalStateException if the given session has not yet been added to Guise.
+	 * @throws IllegalStateException if the executor has been shut down, or if the calling thread was interrupted while waiting for the runnable to complete.
+	 */
+	public default void callExclusive(final GuiseSession guiseSession, final Runnable runnable) {
+		final Runnable exclusiveRunnable = toDepictLocked(guiseSession, runnable);
+		if(Guise.getInstance().findGuiseSession().orElse(null) == guiseSession) { //if we're already in the context of this session
+			exclusiveRunnable.run(); //there's no need to switch threads
+		} else {
+			call(guiseSession, exclusiveRunnable);
+		}
+	}
+
+	/**
+	 * Submits the given runnable to be called in the context of the given Guise session exclusively of all other exclusive work for the same session, without
+	 * waiting for the runnable to complete.
+	 * @implSpec The default implementation holds the {@link io.guise.framework.platform.Platform#getDepictLock()} of the session platform while the runnable is
+	 *           called, delegating to {@link #submit(GuiseSession, Runnable)}.
+	 * @param guiseSession The Guise session in the context of which the runnable should be called.
+	 * @param runnable The runnable to call.
+	 * @return A future that will be completed when the runnable has been called, or completed exceptionally with any runtime exception or error thrown by the
+	 *         runnable.
+	 * @throws NullPointerException if the given session and/or runnable is <code>null</code>.
+	 * @throws IllegalStateException if the given session has not yet been added to Guise.
+	 * @throws IllegalStateException if the executor has been shut down.
+	 * @see #callExclusive(GuiseSession, Runnable)
+	 */
+	public default CompletableFuture<Void> submitExclusive(final GuiseSession guiseSession, final Runnable runnable) {
+		return submit(guiseSession, toDepictLocked(guiseSession, runnable));
+	}
+
+	/**
+	 * Wraps a runnable so that it will be called while holding the depict lock of the session platform.
+	 * @param guiseSession The Guise session the depict lock of which should be held.
+	 * @param runnable The runnable to call.
+	 * @return A runnable that calls the given runnable while holding the depict lock.
+	 * @throws NullPointerException if the given session and/or runnable is <code>null</code>.
+	 */
+	private static Runnable toDepictLocked(final GuiseSession guiseSession, final Runnable runnable) {
+		requireNonNull(runnable, "Runnable cannot be null.");
+		final Lock depictLock = guiseSession.getPlatform().getDepictLock(); //the depict lock doubles as the lock for exclusive access to the session
+		return () -> {
+			depictLock.lock();
+			try {
+				runnable.run();
+			} finally {
+				depictLock.unlock();
+			}
+		};
+	}
+
+	/**
+	 * Releases any resources held by the executor. Work already submitted will be allowed to finish, but no new work will be accepted.
+	 * @implSpec The default implementation does nothing.
+	 */
+	public default void shutdown() {
+	}
+
+}
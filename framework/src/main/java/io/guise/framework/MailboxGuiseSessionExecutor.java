@@ -0,0 +1,309 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework;
+
+import static java.util.Objects.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A pooled session executor that serializes exclusive work for each session through a per-session mailbox rather than by locking. Exclusive work submitted
+ * for a session is queued in the session's mailbox, and the mailbox is drained one task at a time by a single thread; no thread is held by a session that has
+ * no queued work, and no lock is held while waiting for a turn. Non-exclusive work submitted using {@link #call(GuiseSession, Runnable)} is not queued, and
+ * runs concurrently with the session's mailbox.
+ * <p>
+ * A thread blocking in {@link #callExclusive(GuiseSession, Runnable)} that finds the mailbox idle calls its own runnable itself rather than waiting for a
+ * pooled worker, so that exclusive calls made from pooled workers cannot exhaust the pool. The calling thread calls only its own runnable; any work queued for
+ * the session in the meantime is handed to a pooled worker, so that a thread servicing a request is never held up by the work of other requests. Work
+ * submitted asynchronously using {@link #submitExclusive(GuiseSession, Runnable)} is drained by a pooled worker.
+ * </p>
+ * <p>
+ * Because exclusive work for a session is never run concurrently, the platform depict lock is not acquired for exclusive work.
+ * </p>
+ * @author Garret Wilson
+ */
+public class MailboxGuiseSessionExecutor extends PooledGuiseSessionExecutor {
+
+	/** The mailboxes of sessions with queued or running exclusive work, keyed to their sessions. */
+	private final Map<GuiseSession, Mailbox> mailboxMap = new ConcurrentHashMap<GuiseSession, Mailbox>();
+
+	/** The mailbox being drained by the current thread, if any. */
+	private final ThreadLocal<Mailbox> currentMailbox = new ThreadLocal<Mailbox>();
+
+	/**
+	 * Pool size constructor. A fixed pool of daemon threads is created lazily as work is submitted.
+	 * @param poolSize The maximum number of threads performing work concurrently.
+	 * @throws IllegalArgumentException if the given pool size is not positive.
+	 */
+	public MailboxGuiseSessionExecutor(final int poolSize) {
+		super(poolSize);
+	}
+
+	/**
+	 * Executor service constructor.
+	 * @param executorService The executor service to perform the work.
+	 * @throws NullPointerException if the given executor service is <code>null</code>.
+	 */
+	public MailboxGuiseSessionExecutor(final ExecutorService executorService) {
+		super(executorService);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The runnable is queued in the session's mailbox and the calling thread waits for it to complete. If the mailbox is idle, the calling thread calls the
+	 * runnable itself, leaving any work queued in the meantime to a pooled worker. If the current thread is already draining the session's mailbox, the runnable
+	 * is called directly in the current thread.
+	 * </p>
+	 */
+	@Override
+	public void callExclusive(final GuiseSession guiseSession, final Runnable runnable) {
+		final Mailbox mailbox = currentMailbox.get();
+		if(mailbox != null && mailbox.getGuiseSession() == requireNonNull(guiseSession, "Guise session cannot be null.")) { //if we're already draining this session's mailbox
+			requireNonNull(runnable, "Runnable cannot be null.").run(); //we already have exclusive access
+			return;
+		}
+		final CompletableFuture<Void> future = submitExclusive(guiseSession, runnable, true);
+		try {
+			future.get(); //wait for the runnable to finish
+		} catch(final ExecutionException executionException) { //pass back any problems to the calling thread
+			final Throwable cause = executionException.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if(cause instanceof Error) {
+				throw (Error)cause;
+			} else { //a runnable cannot throw checked exceptions
+				throw new AssertionError(cause);
+			}
+		} catch(final InterruptedException interruptedException) {
+			future.cancel(false); //we won't be waiting for the result; if the runnable hasn't started, it will be skipped
+			Thread.currentThread().interrupt(); //restore the interrupted status
+			throw new IllegalStateException("Interrupted while waiting for Guise session work to complete.", interruptedException);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The runnable is queued in the session's mailbox, and runnables are called in the order in which they were submitted for a session. If the mailbox is idle,
+	 * it is drained by a pooled worker. If the returned future is cancelled before the runnable starts, the runnable will not be called.
+	 * </p>
+	 */
+	@Override
+	public CompletableFuture<Void> submitExclusive(final GuiseSession guiseSession, final Runnable runnable) {
+		return submitExclusive(guiseSession, runnable, false);
+	}
+
+	/**
+	 * Queues the given runnable in the mailbox of the given session to be called in the context of the session, exclusively of all other exclusive work for the
+	 * session.
+	 * @param guiseSession The Guise session in the context of which the runnable should be called.
+	 * @param runnable The runnable to call.
+	 * @param drainInCaller <code>true</code> if the current thread should call the runnable before returning if the mailbox is idle, handing any work queued in
+	 *          the meantime to a pooled worker; or <code>false</code> if an idle mailbox should be drained by a pooled worker.
+	 * @return A future that will be completed when the runnable has been called, or completed exceptionally with any runtime exception or error thrown by the
+	 *         runnable.
+	 * @throws NullPointerException if the given session and/or runnable is <code>null</code>.
+	 * @throws IllegalStateException if the given session has not yet been added to Guise.
+	 * @throws IllegalStateException if the executor has been shut down.
+	 */
+	protected CompletableFuture<Void> submitExclusive(final GuiseSession guiseSession, final Runnable runnable, final boolean drainInCaller) {
+		requireNonNull(runnable, "Runnable cannot be null.");
+		final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getThreadGroup(requireNonNull(guiseSession, "Guise session cannot be null.")); //make sure the session has been added
+		final ExclusiveTask task = new ExclusiveTask(runnable);
+		while(!mailboxMap.computeIfAbsent(guiseSession, session -> new Mailbox(session, guiseSessionThreadGroup)).offer(task, drainInCaller)) { //if we got a mailbox just as it retired, try again with a new one
+			Thread.onSpinWait();
+		}
+		return task;
+	}
+
+	/**
+	 * Exclusive work queued in a mailbox, which serves as its own future.
+	 * @author Garret Wilson
+	 */
+	protected static class ExclusiveTask extends CompletableFuture<Void> implements Runnable {
+
+		/** The runnable to call. */
+		private final Runnable runnable;
+
+		/**
+		 * Runnable constructor.
+		 * @param runnable The runnable to call.
+		 */
+		public ExclusiveTask(final Runnable runnable) {
+			this.runnable = requireNonNull(runnable);
+		}
+
+		/** Calls the runnable, completing the future with its result. If the future was already completed or cancelled, the runnable is skipped. */
+		@Override
+		public void run() {
+			if(isDone()) {
+				return;
+			}
+			try {
+				runnable.run();
+				complete(null);
+			} catch(final RuntimeException | Error throwable) {
+				completeExceptionally(throwable);
+			}
+		}
+
+	}
+
+	/**
+	 * The queue of exclusive work for a single session. A mailbox is scheduled on the executor service when work arrives and it is idle; once scheduled it drains
+	 * its queue, and when the queue is empty it retires and removes itself from the mailbox map so that idle sessions hold no resources. A retired mailbox
+	 * accepts no more work.
+	 * @author Garret Wilson
+	 */
+	protected class Mailbox implements Runnable {
+
+		/** The session the work of which is queued in this mailbox. */
+		private final GuiseSession guiseSession;
+
+		/** @return The session the work of which is queued in this mailbox. */
+		public GuiseSession getGuiseSession() {
+			return guiseSession;
+		}
+
+		/** The thread group of the session, providing the session context. */
+		private final GuiseSessionThreadGroup guiseSessionThreadGroup;
+
+		/** The queued tasks; guarded by this mailbox. */
+		private final Queue<ExclusiveTask> tasks = new ArrayDeque<ExclusiveTask>();
+
+		/** Whether this mailbox is currently scheduled or being drained; guarded by this mailbox. */
+		private boolean scheduled = false;
+
+		/** Whether this mailbox has been removed from the mailbox map and no longer accepts work; guarded by this mailbox. */
+		private boolean retired = false;
+
+		/**
+		 * Session constructor.
+		 * @param guiseSession The session the work of which is queued in this mailbox.
+		 * @param guiseSessionThreadGroup The thread group of the session, providing the session context.
+		 */
+		public Mailbox(final GuiseSession guiseSession, final GuiseSessionThreadGroup guiseSessionThreadGroup) {
+			this.guiseSession = requireNonNull(guiseSession);
+			this.guiseSessionThreadGroup = requireNonNull(guiseSessionThreadGroup);
+		}
+
+		/**
+		 * Queues a task, calling it or scheduling the mailbox to be drained if the mailbox is not already scheduled.
+		 * @param task The task to queue.
+		 * @param drainInCaller <code>true</code> if the current thread should call the task before returning if the mailbox is idle, handing any work queued in
+		 *          the meantime to a pooled worker; or <code>false</code> if an idle mailbox should be drained by a pooled worker.
+		 * @return <code>true</code> if the task was queued, or <code>false</code> if this mailbox has retired and a new mailbox must be used.
+		 * @throws IllegalStateException if the executor service is not accepting work.
+		 */
+		public boolean offer(final ExclusiveTask task, final boolean drainInCaller) {
+			final boolean schedule;
+			synchronized(this) {
+				if(retired) {
+					return false;
+				}
+				tasks.add(task);
+				schedule = !scheduled;
+				scheduled = true;
+			}
+			if(schedule) {
+				if(drainInCaller) {
+					drain(1); //the mailbox was idle, so the only task queued is the caller's own
+				} else {
+					execute();
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Schedules this mailbox to be drained by a pooled worker. If the executor service does not accept the mailbox, all queued tasks are failed and the mailbox
+		 * is retired.
+		 * @throws IllegalStateException if the executor service is not accepting work.
+		 */
+		private void execute() {
+			try {
+				getExecutorService().execute(this);
+			} catch(final RejectedExecutionException rejectedExecutionException) {
+				final IllegalStateException illegalStateException = new IllegalStateException("Guise session executor is not accepting work.", rejectedExecutionException);
+				synchronized(this) { //nobody will drain the mailbox, so fail any work queued since and retire it
+					ExclusiveTask queuedTask;
+					while((queuedTask = tasks.poll()) != null) {
+						queuedTask.completeExceptionally(illegalStateException);
+					}
+					retire();
+				}
+				throw illegalStateException;
+			}
+		}
+
+		/** Retires this mailbox, removing it from the mailbox map. This method must be called while synchronized on the mailbox. */
+		private void retire() {
+			assert Thread.holdsLock(this);
+			scheduled = false;
+			retired = true;
+			mailboxMap.remove(guiseSession, this);
+		}
+
+		/** Drains the queued tasks in turn in the context of the session, retiring the mailbox when no tasks remain. */
+		@Override
+		public void run() {
+			drain(Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Calls queued tasks in turn in the context of the session, up to the given number of tasks. The mailbox is retired when no tasks remain; if tasks remain
+		 * once the given number of tasks have been called, the mailbox is handed to a pooled worker to drain the rest.
+		 * @param maxTaskCount The maximum number of tasks to call in the current thread.
+		 */
+		protected void drain(final int maxTaskCount) {
+			final Mailbox oldMailbox = currentMailbox.get(); //we might be draining this mailbox from within another session's exclusive work
+			currentMailbox.set(this);
+			try {
+				Guise.getInstance().runInSessionContext(guiseSessionThreadGroup, () -> {
+					for(int taskCount = 0;; ++taskCount) {
+						final ExclusiveTask task;
+						synchronized(this) {
+							if(taskCount == maxTaskCount && !tasks.isEmpty()) { //if we've done our share, leave the rest to a pooled worker; the mailbox remains scheduled
+								try {
+									execute();
+								} catch(final IllegalStateException illegalStateException) { //the remaining tasks have been failed; the tasks already called were unaffected
+								}
+								return;
+							}
+							task = tasks.poll();
+							if(task == null) {
+								retire();
+								return;
+							}
+						}
+						task.run(); //tasks complete themselves, so they will not throw exceptions
+					}
+				});
+			} finally {
+				if(oldMailbox != null) {
+					currentMailbox.set(oldMailbox);
+				} else {
+					currentMailbox.remove();
+				}
+			}
+		}
+
+	}
+
+}
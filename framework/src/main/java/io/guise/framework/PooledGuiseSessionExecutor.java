@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework;
+
+import static java.util.Objects.*;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.csar.*;
+
+/**
+ * A session executor that runs work on threads from an executor service rather than creating a new thread for each call. While a task is running, its worker
+ * thread runs in the context of the session's {@link GuiseSessionThreadGroup}, so that {@link Guise#getGuiseSession()} resolves to the correct session.
+ * <p>
+ * When the executor creates its own bounded pool, worker threads are placed in a thread group that delegates concern lookup to the session currently bound to
+ * the worker, so that {@link Concern}s continue to be resolved per session. An arbitrary executor service may be provided instead, such as a
+ * virtual-thread-per-task executor on newer JVMs; in that case the executor service's threads will still be bound to the session, but concerns will only be
+ * found if the threads belong to a thread group implementing {@link Concerned}.
+ * </p>
+ * <p>
+ * Threads started by session code from a worker thread inherit the session context, but are not members of the session thread group.
+ * </p>
+ * @author Garret Wilson
+ */
+public class PooledGuiseSessionExecutor implements GuiseSessionExecutor {
+
+	/** The executor service performing the work. */
+	private final ExecutorService executorService;
+
+	/** @return The executor service performing the work. */
+	protected ExecutorService getExecutorService() {
+		return executorService;
+	}
+
+	/**
+	 * Pool size constructor. A fixed pool of daemon threads is created lazily as work is submitted.
+	 * @param poolSize The maximum number of threads performing work concurrently.
+	 * @throws IllegalArgumentException if the given pool size is not positive.
+	 */
+	public PooledGuiseSessionExecutor(final int poolSize) {
+		this(Executors.newFixedThreadPool(poolSize, new WorkerThreadFactory()));
+	}
+
+	/**
+	 * Executor service constructor.
+	 * @param executorService The executor service to perform the work.
+	 * @throws NullPointerException if the given executor service is <code>null</code>.
+	 */
+	public PooledGuiseSessionExecutor(final ExecutorService executorService) {
+		this.executorService = requireNonNull(executorService, "Executor service cannot be null.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the current thread is already bound to the given session, the runnable is called directly in the current thread so that nested calls cannot exhaust the
+	 * pool.
+	 * </p>
+	 */
+	@Override
+	public void call(final GuiseSession guiseSession, final Runnable runnable) {
+		requireNonNull(runnable, "Runnable cannot be null.");
+		final Guise guise = Guise.getInstance();
+		final GuiseSessionThreadGroup guiseSessionThreadGroup = guise.getThreadGroup(requireNonNull(guiseSession, "Guise session cannot be null.")); //get the thread group for this session
+		if(guise.getGuiseSessionThreadGroup(Thread.currentThread()) == guiseSessionThreadGroup) { //if we're already in the context of this session
+			runnable.run(); //there's no need to switch threads
+			return;
+		}
+		final Future<?> future;
+		try {
+			future = executorService.submit(() -> guise.runInSessionContext(guiseSessionThreadGroup, runnable)); //associate the worker with the session only while the runnable is being called
+		} catch(final RejectedExecutionException rejectedExecutionException) {
+			throw new IllegalStateException("Guise session executor is not accepting work.", rejectedExecutionException);
+		}
+		try {
+			future.get(); //wait for the runnable to finish
+		} catch(final ExecutionException executionException) { //pass back any problems to the calling thread
+			final Throwable cause = executionException.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if(cause instanceof Error) {
+				throw (Error)cause;
+			} else { //a runnable cannot throw checked exceptions
+				throw new AssertionError(cause);
+			}
+		} catch(final InterruptedException interruptedException) {
+			future.cancel(true); //we won't be waiting for the result
+			Thread.currentThread().interrupt(); //restore the interrupted status
+			throw new IllegalStateException("Interrupted while waiting for Guise session work to complete.", interruptedException);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> submit(final GuiseSession guiseSession, final Runnable runnable) {
+		requireNonNull(runnable, "Runnable cannot be null.");
+		final Guise guise = Guise.getInstance();
+		final GuiseSessionThreadGroup guiseSessionThreadGroup = guise.getThreadGroup(requireNonNull(guiseSession, "Guise session cannot be null.")); //get the thread group for this session
+		try {
+			return CompletableFuture.runAsync(() -> guise.runInSessionContext(guiseSessionThreadGroup, runnable), executorService); //associate the worker with the session only while the runnable is being called
+		} catch(final RejectedExecutionException rejectedExecutionException) {
+			throw new IllegalStateException("Guise session executor is not accepting work.", rejectedExecutionException);
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		executorService.shutdown();
+	}
+
+	/**
+	 * A thread factory that creates daemon worker threads in a {@link WorkerThreadGroup}.
+	 * @author Garret Wilson
+	 */
+	protected static class WorkerThreadFactory implements ThreadFactory {
+
+		/** The thread group of all threads created by this factory. */
+		private final ThreadGroup threadGroup = new WorkerThreadGroup();
+
+		/** The source of thread numbers. */
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(threadGroup, () -> {
+				Guise.getInstance().clearSessionContext(); //don't hold on to any session context inherited from the thread that happened to create the worker
+				runnable.run();
+			}, threadGroup.getName() + " " + threadNumber.getAndIncrement());
+			thread.setDaemon(true); //don't keep the JVM running for idle workers
+			return thread;
+		}
+	}
+
+	/**
+	 * The thread group for pooled worker threads. Concerns are looked up in the context of whatever Guise session the current worker thread is bound to.
+	 * @author Garret Wilson
+	 */
+	protected static class WorkerThreadGroup extends ThreadGroup implements Concerned {
+
+		/** Default constructor. */
+		public WorkerThreadGroup() {
+			super("Guise Session Executor");
+		}
+
+		@Override
+		public <C extends Concern> Optional<C> findConcern(final Class<C> concernClass) {
+			final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getGuiseSessionThreadGroup(Thread.currentThread());
+			return guiseSessionThreadGroup != null ? guiseSessionThreadGroup.findConcern(concernClass) : Optional.empty();
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework;
+
+import static java.util.Objects.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.globalmentor.java.Threads;
+
+/**
+ * A session executor that creates, starts, and joins a new thread inside the session's {@link GuiseSessionThreadGroup} for each call. This is the legacy
+ * Guise execution strategy; it requires no configuration, but incurs the cost of thread creation on every request.
+ * @author Garret Wilson
+ */
+public class ThreadGroupGuiseSessionExecutor implements GuiseSessionExecutor {
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the current thread is already in the context of the given session, the runnable is called directly in the current thread.
+	 * </p>
+	 */
+	@Override
+	public void call(final GuiseSession guiseSession, final Runnable runnable) {
+		requireNonNull(runnable, "Runnable cannot be null.");
+		final Guise guise = Guise.getInstance();
+		final GuiseSessionThreadGroup guiseSessionThreadGroup = guise.getThreadGroup(requireNonNull(guiseSession, "Guise session cannot be null.")); //get the thread group for this session
+		if(guise.getGuiseSessionThreadGroup(Thread.currentThread()) == guiseSessionThreadGroup) { //if we're already in the context of this session
+			runnable.run(); //there's no need to create another thread
+			return;
+		}
+		Threads.call(guiseSessionThreadGroup, () -> guise.runInSessionContext(guiseSessionThreadGroup, runnable)); //call the runnable in a new thread inside the thread group, also establishing the session context for quick lookup
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation starts a new thread inside the session's thread group and returns without joining it. The thread is named for the session, so that
+	 * it can be identified in thread dumps.
+	 * </p>
+	 */
+	@Override
+	public CompletableFuture<Void> submit(final GuiseSession guiseSession, final Runnable runnable) {
+		requireNonNull(runnable, "Runnable cannot be null.");
+		final Guise guise = Guise.getInstance();
+		final GuiseSessionThreadGroup guiseSessionThreadGroup = guise.getThreadGroup(requireNonNull(guiseSession, "Guise session cannot be null.")); //get the thread group for this session
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+		new Thread(guiseSessionThreadGroup, () -> guise.runInSessionContext(guiseSessionThreadGroup, () -> {
+			try {
+				runnable.run();
+				future.complete(null);
+			} catch(final RuntimeException | Error throwable) {
+				future.completeExceptionally(throwable);
+			}
+		}), "Guise Session Task " + guiseSession.getUUID()).start();
+		return future;
+	}
+
+}
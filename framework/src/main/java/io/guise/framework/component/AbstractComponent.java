@@ -448,6 +448,29 @@ public void setParent(final CompositeComponent newParent) {
 				}
 			}
 			parent = newParent; //this is really our parent; make a note of it
+			if(newParent != null) { //dirty components in a detached hierarchy may have been forgotten by the platform
+				final Platform platform = getSession().getPlatform();
+				for(final Component dirtyComponent : getDirtyComponents(this)) { //a newly created hierarchy is dirty at the top, so this seldom goes deep
+					platform.registerDirtyDepictedObject(dirtyComponent);
+				}
+			}
+		}
+	}
+
+	/** Whether the depiction of the component and its descendants may be cached and reused while they are unmodified. */
+	private boolean depictionCacheEnabled = false;
+
+	@Override
+	public boolean isDepictionCacheEnabled() {
+		return depictionCacheEnabled;
+	}
+
+	@Override
+	public void setDepictionCacheEnabled(final boolean newDepictionCacheEnabled) {
+		if(depictionCacheEnabled != newDepictionCacheEnabled) { //if the value is really changing
+			final boolean oldDepictionCacheEnabled = depictionCacheEnabled; //get the current value
+			depictionCacheEnabled = newDepictionCacheEnabled; //update the value
+			firePropertyChange(DEPICTION_CACHE_ENABLED_PROPERTY, Boolean.valueOf(oldDepictionCacheEnabled), Boolean.valueOf(newDepictionCacheEnabled));
 		}
 	}
 
@@ -1078,6 +1101,49 @@ public static List<Component> getDirtyComponents(final Component component, fina
 		return dirtyComponents;
 	}
 
+	/**
+	 * Retrieves the top-most components that have views needing updated within the hierarchy of the given component, using the dirty depicted objects
+	 * registered with the given platform. Rather than checking every component in the hierarchy, only the dirty objects and their ancestors are checked, so that
+	 * the cost scales with the number of changed components rather than with the size of the hierarchy. If a dirty component has a dirty ancestor, only the
+	 * top-most dirty ancestor is included, as it will depict its descendants. The result is the same as that of {@link #getDirtyComponents(Component)}, except
+	 * that the components are ordered by depict ID rather than by their position in the hierarchy.
+	 * <p>
+	 * A dirty component that is not attached to any application frame, such as a dialog not yet opened or a removed subtree, cannot be depicted; it is
+	 * unregistered as dirty so that it is not checked again on every request. Such a component is registered again when it is attached to a parent.
+	 * </p>
+	 * @param component The component that should be checked, along with its descendants, for out-of-date views.
+	 * @param platform The platform with which dirty depicted objects have been registered.
+	 * @return The components with views needing to be updated.
+	 * @see Platform#getDirtyDepictedObjects()
+	 * @see Platform#unregisterDirtyDepictedObject(DepictedObject)
+	 */
+	public static List<Component> getDirtyComponents(final Component component, final Platform platform) {
+		final Set<Component> dirtyComponents = new HashSet<Component>();
+		for(final DepictedObject dirtyDepictedObject : platform.getDirtyDepictedObjects()) {
+			if(!(dirtyDepictedObject instanceof Component)) {
+				continue;
+			}
+			Component dirtyComponent = (Component)dirtyDepictedObject;
+			Component root = dirtyComponent;
+			Component ancestor = dirtyComponent;
+			while(ancestor != component && ancestor != null) { //find the top-most dirty component on the way up to the given component
+				root = ancestor;
+				ancestor = ancestor.getParent();
+				if(ancestor != null && !ancestor.getDepictor().isDepicted()) {
+					dirtyComponent = ancestor;
+				}
+			}
+			if(ancestor == component) { //only include components within the hierarchy
+				dirtyComponents.add(dirtyComponent);
+			} else if(!(root instanceof ApplicationFrame)) { //if the component is detached, it can't be depicted until it is attached again
+				platform.unregisterDirtyDepictedObject(dirtyDepictedObject);
+			}
+		}
+		final List<Component> dirtyComponentList = new ArrayList<Component>(dirtyComponents);
+		dirtyComponentList.sort((component1, component2) -> Long.compare(component1.getDepictID(), component2.getDepictID())); //depict components in a consistent order, most likely parents before children
+		return dirtyComponentList;
+	}
+
 	/**
 	 * Changes the updated status of the views of an entire component descendant hierarchy.
 	 * @param component The component from which, along with its descendants, notifications should be retrieved.
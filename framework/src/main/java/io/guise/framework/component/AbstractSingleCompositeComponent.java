@@ -47,9 +47,9 @@ public void setComponent(final Component newComponent) {
 			final Component oldComponent = component; //get the old value
 			component = newComponent; //actually change the value
 			if(oldComponent != null) { //if there was an old component
-				super.uninitializeChildComponent(component); //uninitialize the old component as needed
+				super.uninitializeChildComponent(oldComponent); //uninitialize the old component as needed
 				oldComponent.setParent(null); //tell the old component it no longer has a parent
-				fireChildComponentRemoved(component); //inform listeners that the child component was removed
+				fireChildComponentRemoved(oldComponent); //inform listeners that the child component was removed
 			}
 			if(newComponent != null) { //if there is a new component
 				super.initializeChildComponent(component); //initialize the new component as needed
@@ -16,6 +16,7 @@
 
 package io.guise.framework.component;
 
+import java.beans.PropertyChangeListener;
 import java.net.URI;
 
 import io.guise.framework.model.*;
@@ -32,6 +33,9 @@
  * check type will be used.
  * </p>
  * <p>
+ * A check control reports joining or leaving a mutual exclusion group by firing a change of the read-only {@link #MUTUAL_EXCLUSION_GROUP_PROPERTY}.
+ * </p>
+ * <p>
  * The default model used by a check control defaults to a value of {@link Boolean#FALSE}, as a check control does not have the capability of indicating
  * <code>null</code>.
  * </p>
@@ -44,6 +48,8 @@ public class CheckControl extends AbstractEditValueControl<Boolean> {
 
 	/** The check type bound property. */
 	public static final String CHECK_TYPE_PROPERTY = getPropertyName(CheckControl.class, "checkType");
+	/** The read-only mutual exclusion group bound property. */
+	public static final String MUTUAL_EXCLUSION_GROUP_PROPERTY = getPropertyName(CheckControl.class, "mutualExclusionGroup");
 
 	/** The type of check area to present to the user. */
 	public enum CheckType {
@@ -75,6 +81,55 @@ public void setCheckType(final CheckType newCheckType) {
 		}
 	}
 
+	/**
+	 * Returns the mutual exclusion group of which this control is a part, as indicated by a {@link MutualExclusionPolicyModelGroup} value listener.
+	 * @return The mutual exclusion group of this control, or <code>null</code> if this control is not part of a mutual exclusion group.
+	 * @see #MUTUAL_EXCLUSION_GROUP_PROPERTY
+	 */
+	public MutualExclusionPolicyModelGroup getMutualExclusionGroup() {
+		//TODO important: change to a method of mutual exclusion determination that works for nested value models, such as are used with value prototypes
+		for(final PropertyChangeListener valueChangeListener : getPropertyChangeListeners(VALUE_PROPERTY)) { //examine all objects listening for value changes
+			if(valueChangeListener instanceof MutualExclusionPolicyModelGroup) { //if this control is part of a mutual exclusion group i.e. radio button-style functionality)
+				return (MutualExclusionPolicyModelGroup)valueChangeListener;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version fires a {@link #MUTUAL_EXCLUSION_GROUP_PROPERTY} change if the listener is a mutual exclusion group that this control is joining.
+	 * </p>
+	 */
+	@Override
+	public void addPropertyChangeListener(final String propertyName, final PropertyChangeListener listener) {
+		if(VALUE_PROPERTY.equals(propertyName) && listener instanceof MutualExclusionPolicyModelGroup) { //if this control is joining a mutual exclusion group
+			final MutualExclusionPolicyModelGroup oldMutualExclusionGroup = getMutualExclusionGroup();
+			super.addPropertyChangeListener(propertyName, listener);
+			firePropertyChange(MUTUAL_EXCLUSION_GROUP_PROPERTY, oldMutualExclusionGroup, getMutualExclusionGroup()); //no event is fired if the group is unchanged
+		} else {
+			super.addPropertyChangeListener(propertyName, listener);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version fires a {@link #MUTUAL_EXCLUSION_GROUP_PROPERTY} change if the listener is a mutual exclusion group that this control is leaving.
+	 * </p>
+	 */
+	@Override
+	public void removePropertyChangeListener(final String propertyName, final PropertyChangeListener listener) {
+		if(VALUE_PROPERTY.equals(propertyName) && listener instanceof MutualExclusionPolicyModelGroup) { //if this control is leaving a mutual exclusion group
+			final MutualExclusionPolicyModelGroup oldMutualExclusionGroup = getMutualExclusionGroup();
+			super.removePropertyChangeListener(propertyName, listener);
+			firePropertyChange(MUTUAL_EXCLUSION_GROUP_PROPERTY, oldMutualExclusionGroup, getMutualExclusionGroup()); //no event is fired if the group is unchanged
+		} else {
+			super.removePropertyChangeListener(propertyName, listener);
+		}
+	}
+
 	/** Default constructor with a default info model and a default value model. */
 	public CheckControl() {
 		this(new DefaultValueModel<Boolean>(Boolean.class, Boolean.FALSE)); //construct the class with a value model
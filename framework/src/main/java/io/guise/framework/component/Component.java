@@ -57,6 +57,8 @@ public interface Component extends DepictedObject, PresentationModel, InfoModel
 	public static final String BOOKMARK_ENABLED_PROPERTY = getPropertyName(Component.class, "bookmarkEnabled");
 	/** The bound property of the layout constraints. */
 	public static final String CONSTRAINTS_PROPERTY = getPropertyName(Component.class, "constraints");
+	/** The bound property of whether the depiction of the component and its descendants may be cached and reused while they are unmodified. */
+	public static final String DEPICTION_CACHE_ENABLED_PROPERTY = getPropertyName(Component.class, "depictionCacheEnabled");
 	/** The bound property of whether the component has dragging enabled. */
 	public static final String DRAG_ENABLED_PROPERTY = getPropertyName(Component.class, "dragEnabled");
 	/** The bound property of whether the component has dropping enabled. */
@@ -213,6 +215,18 @@ public interface Component extends DepictedObject, PresentationModel, InfoModel
 	 */
 	public void setParent(final CompositeComponent newParent);
 
+	/** @return Whether the depiction of the component and its descendants may be cached and reused while they are unmodified. */
+	public boolean isDepictionCacheEnabled();
+
+	/**
+	 * Sets whether the depiction of the component and its descendants may be cached and reused while they are unmodified. This should only be enabled for
+	 * components, such as headers, menus, and footers, the depictions of which depend only on their own properties and those of their descendants, and
+	 * not for example on the current navigation path. This is a bound property of type {@link Boolean}.
+	 * @param newDepictionCacheEnabled <code>true</code> if the depiction of the component may be cached, else <code>false</code>.
+	 * @see #DEPICTION_CACHE_ENABLED_PROPERTY
+	 */
+	public void setDepictionCacheEnabled(final boolean newDepictionCacheEnabled);
+
 	/** @return Whether the component has dragging enabled. */
 	public boolean isDragEnabled();
 
@@ -18,6 +18,7 @@
 
 import java.beans.*;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.globalmentor.beans.PropertyBindable;
 
@@ -44,6 +45,11 @@
  * <p>
  * This implementation only dirties the depictors of containers, not composite components in general, when child components are added or removed.
  * </p>
+ * <p>
+ * This implementation keeps a count of the modifications to the depicted component and its descendants, which serves as a version of the depiction of the
+ * component subtree. The count of the depictor of each ancestor component is incremented as well. Marking a child depiction as out of date merely because it is
+ * about to be depicted again as part of its parent is not counted as a modification.
+ * </p>
  * @param <C> The type of component being depicted.
  * @author Garret Wilson
  */
@@ -74,6 +80,67 @@ public void propertyChange(final PropertyChangeEvent propertyChangeEvent) { //if
 
 	};
 
+	/**
+	 * The listener that counts a modification if direct children are added or removed, for composite components that are not containers and therefore are not
+	 * dirtied when their children change; or <code>null</code> if the depicted component is not such a composite component or is not installed.
+	 */
+	private CompositeComponentListener modifiedCompositeComponentListener = null;
+
+	/** The number of modifications to the depicted component and its descendants. */
+	private final AtomicLong modificationCount = new AtomicLong();
+
+	/**
+	 * Returns the number of modifications that have been made to the depicted component and its descendants. The count serves as a version stamp of the
+	 * depiction of the component subtree: if the count has not changed, neither has the depiction.
+	 * @return The number of modifications to the depicted component and its descendants.
+	 */
+	public long getModificationCount() {
+		return modificationCount.get();
+	}
+
+	/**
+	 * Counts a modification to the depicted component, for this depictor and for the depictors of all ancestor components.
+	 * @see #getModificationCount()
+	 */
+	protected void modified() {
+		for(Component component = getDepictedObject(); component != null; component = component.getParent()) { //for the component and each ancestor
+			final Depictor<?> depictor = component.getDepictor();
+			if(depictor instanceof AbstractComponentDepictor) {
+				((AbstractComponentDepictor<?>)depictor).modificationCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version counts a modification if the property is modified.
+	 * </p>
+	 * @see #modified()
+	 */
+	@Override
+	protected void setPropertyModified(final String property, final boolean modified) {
+		super.setPropertyModified(property, modified);
+		if(modified) {
+			modified();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version counts a modification if the depiction is marked as out of date.
+	 * </p>
+	 * @see #modified()
+	 */
+	@Override
+	public void setDepicted(final boolean newDepicted) {
+		super.setDepicted(newDepicted);
+		if(!newDepicted) {
+			modified();
+		}
+	}
+
 	/** Default constructor. */
 	public AbstractComponentDepictor() {
 		getIgnoredProperties().add(Component.INPUT_STRATEGY_PROPERTY); //ignore Component.inputStrategy, because changes to the input strategy does not affect the component's view
@@ -94,6 +161,25 @@ public void installed(final C component) {
 			depictedCompositeComponentListener = new DepictedCompositeComponentListener(); //create a change listener to listen for composite components changing
 			final CompositeComponent compositeComponent = (CompositeComponent)component; //cast the component to a composite component
 			compositeComponent.addCompositeComponentListener(depictedCompositeComponentListener); //listen for composite component events
+		} else if(component instanceof CompositeComponent) { //if the component is some other composite component, the depiction still changes with the children
+			modifiedCompositeComponentListener = new CompositeComponentListener() {
+
+				@Override
+				public void childComponentAdded(final ComponentEvent childComponentEvent) {
+					if(childComponentEvent.getTarget() == getDepictedObject()) { //if the component as added as a direct child of this component
+						modified();
+					}
+				}
+
+				@Override
+				public void childComponentRemoved(final ComponentEvent childComponentEvent) {
+					if(childComponentEvent.getTarget() == getDepictedObject()) { //if the component as removed as a direct child of this component
+						modified();
+					}
+				}
+
+			};
+			((CompositeComponent)component).addCompositeComponentListener(modifiedCompositeComponentListener);
 		}
 		if(component instanceof LayoutComponent) { //if the component is a layout component
 			final LayoutComponent layoutComponent = (LayoutComponent)component; //cast the component to a layout component
@@ -121,6 +207,9 @@ public void uninstalled(final C component) {
 			final CompositeComponent compositeComponent = (CompositeComponent)component; //cast the component to a composite component
 			compositeComponent.removeCompositeComponentListener(getDepictedCompositeComponentListener()); //stop listening for composite component events
 			depictedCompositeComponentListener = null; //release the comopsite component listener
+		} else if(modifiedCompositeComponentListener != null) {
+			((CompositeComponent)component).removeCompositeComponentListener(modifiedCompositeComponentListener);
+			modifiedCompositeComponentListener = null;
 		}
 		if(component instanceof LayoutComponent) { //if the component is a layout component
 			final LayoutComponent layoutComponent = (LayoutComponent)component; //cast the component to a layout component
@@ -216,7 +305,13 @@ protected void depictChildren() throws IOException {
 	 * @see DepictedObject#depict()
 	 */
 	protected void depictChild(final Component childComponent) throws IOException {
-		childComponent.getDepictor().setDepicted(false); //mark the child component's view as generally not updated to prevent partial updates TODO improve this---in the future we may want child views to partially update, too, but not when the whole page is being rendered from scratch
+		final Depictor<?> childDepictor = childComponent.getDepictor();
+		//mark the child component's view as generally not updated to prevent partial updates TODO improve this---in the future we may want child views to partially update, too, but not when the whole page is being rendered from scratch
+		if(childDepictor instanceof AbstractDepictor) { //the child component hasn't been modified, so don't count this as a modification or report a change
+			((AbstractDepictor<?>)childDepictor).setRedepicting();
+		} else {
+			childDepictor.setDepicted(false);
+		}
 		//TODO decide whether to mark the child view as not updated before updating; there is a slight chance it will be partially dirty and therefore only partially update 
 		childComponent.depict(); //update the child view
 	}
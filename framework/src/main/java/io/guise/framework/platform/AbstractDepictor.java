@@ -90,6 +90,8 @@ protected void setPropertyModified(final String property, final boolean modified
 		if(modified) { //if the property is modified
 			modifiedProperties.add(property); //add this property to the list of modified properties
 			depicted = false; //note that the depiction is not updated
+			registerDirty(); //make sure the depicted object can be found for updating
+			getPlatform().notifyChange(); //let any waiting client know there is something to update
 		} else { //if the property is not modified
 			if(modifiedProperties.remove(property)) { //remove the property from the set of modified properties; if the property was in the set
 				if(modifiedProperties.isEmpty()) { //if there are no modified properties
@@ -116,7 +118,7 @@ public O getDepictedObject() {
 	}
 
 	/** Whether this depictor's representation of the depicted object is up to date. */
-	private boolean depicted = false;
+	private volatile boolean depicted = false;
 
 	@Override
 	public boolean isDepicted() {
@@ -131,6 +133,33 @@ public void setDepicted(final boolean newDepicted) {
 			modifiedProperties.add(GENERAL_PROPERTY); //add the general property to the list of modified properties				
 		}
 		depicted = newDepicted; //update the depicted status
+		if(!newDepicted) {
+			registerDirty(); //make sure the depicted object can be found for updating
+			getPlatform().notifyChange(); //let any waiting client know there is something to update
+		}
+	}
+
+	/**
+	 * Marks the depiction as out of date because the depicted object is about to be depicted again as part of a depiction already under way. Unlike
+	 * {@link #setDepicted(boolean)}, no change is reported to the platform, as the change will be depicted along with the rest of the depiction; otherwise a
+	 * waiting client would be told of a change that it had already received.
+	 * @see Platform#notifyChange()
+	 */
+	protected void setRedepicting() {
+		modifiedProperties.add(GENERAL_PROPERTY); //add the general property to the list of modified properties
+		depicted = false;
+		registerDirty(); //make sure the depicted object can be found for updating
+	}
+
+	/**
+	 * Registers the depicted object, if any, as dirty with the platform. This method must be called after the depiction has been marked as out of date.
+	 * @see Platform#registerDirtyDepictedObject(DepictedObject)
+	 */
+	protected void registerDirty() {
+		final O depictedObject = getDepictedObject();
+		if(depictedObject != null) { //an object will be registered when it is installed if it is dirty
+			getPlatform().registerDirtyDepictedObject(depictedObject);
+		}
 	}
 
 	/** Default constructor. */
@@ -155,6 +184,9 @@ public void installed(final O depictedObject) {
 			throw new IllegalStateException("Depictor is already installed in a depicted object.");
 		}
 		this.depictedObject = depictedObject; //change depicted objects
+		if(!depicted) { //if the depiction is out of date, as it will be for a new depictor, register the object as dirty
+			registerDirty();
+		}
 		if(depictedObject instanceof PropertyBindable) { //if the depicted object allows bound properties
 			((PropertyBindable)depictedObject).addPropertyChangeListener(getDepictedPropertyChangeListener()); //listen for property changes
 		}
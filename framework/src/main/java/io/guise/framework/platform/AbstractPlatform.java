@@ -18,16 +18,11 @@
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.*;
 import java.util.concurrent.locks.*;
 
 import static java.util.Objects.*;
 
-import static com.globalmentor.java.Classes.*;
-
-import com.globalmentor.collections.DecoratorReadWriteLockMap;
-import com.globalmentor.collections.PurgeOnWriteWeakValueHashMap;
-import com.globalmentor.collections.ReadWriteLockMap;
 import com.globalmentor.util.*;
 
 import io.guise.framework.GuiseApplication;
@@ -54,21 +49,35 @@ public Lock getDepictLock() {
 		return depictLock;
 	}
 
-	/** The map of depictors for depicted object types. */
-	private final Map<Class<? extends DepictedObject>, Class<? extends Depictor<?>>> depictorMap = new ConcurrentHashMap<Class<? extends DepictedObject>, Class<? extends Depictor<?>>>();
+	/**
+	 * The registrations of depictors for depicted object types, which may be shared with other platforms if sealed; replaced with a registry of this platform's
+	 * own the first time this platform registers a depictor in a sealed registry.
+	 */
+	private volatile DepictorRegistry depictorRegistry;
+
+	/** @return The registrations of depictors for depicted object types, which may be shared with other platforms if sealed. */
+	protected DepictorRegistry getDepictorRegistry() {
+		return depictorRegistry;
+	}
 
 	/**
-	 * Registers the class of a depictor to depict an object of the given class (and by default subclasses).
+	 * Registers the class of a depictor to depict an object of the given class (and by default subclasses). If the depictor registry is sealed because it is
+	 * shared with other platforms, this platform first switches to a registry of its own based upon the shared registry, so that the registration applies to this
+	 * platform alone.
 	 * @param <O> The type of registered depicted object class.
 	 * @param depictedObjectClass The class of the depicted object for which the depictor should be registered.
 	 * @param depictorClass The class of depictor to use for depicting the objects.
 	 * @return The depictor class previously registered with the given depicted object class, or <code>null</code> if there was no previous registration.
+	 * @see #getDepictorRegistry()
 	 */
 	@SuppressWarnings("unchecked")
 	//it would be nice to guarantee Class<? extends Depictor<? super O>> access here, but Java classes do not support more than one level of generics
 	protected <O extends DepictedObject> Class<? extends Depictor<? super O>> registerDepictorClass(final Class<O> depictedObjectClass,
 			final Class<?> depictorClass) {
-		return (Class<? extends Depictor<? super O>>)depictorMap.put(depictedObjectClass, (Class<? extends Depictor<?>>)depictorClass); //register the depictor and return the old registration, if any
+		if(depictorRegistry.isSealed()) { //if we are sharing the registrations, make our own registrations on top of them
+			depictorRegistry = new DepictorRegistry(depictorRegistry);
+		}
+		return (Class<? extends Depictor<? super O>>)depictorRegistry.register(depictedObjectClass, depictorClass); //register the depictor and return the old registration, if any
 	}
 
 	/**
@@ -80,7 +89,7 @@ protected <O extends DepictedObject> Class<? extends Depictor<? super O>> regist
 	@SuppressWarnings("unchecked")
 	//all access classes to the map guarantee the type
 	protected <O extends DepictedObject> Class<? extends Depictor<? super O>> getRegisteredDepictorClass(final Class<? extends DepictedObject> depictedObjectClass) {
-		return (Class<? extends Depictor<? super O>>)depictorMap.get(depictedObjectClass); //return any registration
+		return (Class<? extends Depictor<? super O>>)depictorRegistry.getRegisteredDepictorClass(depictedObjectClass); //return any registration
 	}
 
 	/**
@@ -90,52 +99,80 @@ protected <O extends DepictedObject> Class<? extends Depictor<? super O>> getReg
 	 * @param depictedObjectClass The class of depicted object for which a depictor should be returned.
 	 * @return A class of depictor for the given depicted object class, or <code>null</code> if no depictor is registered.
 	 */
+	@SuppressWarnings("unchecked")
 	protected <O extends DepictedObject> Class<? extends Depictor<? super O>> getDepictorClass(final Class<O> depictedObjectClass) {
-		final List<Class<? extends DepictedObject>> depictedObjectAncestorClasses = getAncestorClasses(depictedObjectClass, DepictedObject.class); //get all the classes up to and including the depicted object class, in increasing order of distance and abstractness
-		for(final Class<? extends DepictedObject> depictedObjectAncestorClass : depictedObjectAncestorClasses) { //for each ancestor class
-			final Class<? extends Depictor<? super O>> depictorClass = getRegisteredDepictorClass(depictedObjectAncestorClass); //see if there is a depictor class registered for this depicted object type
-			if(depictorClass != null) { //if we found a depictor class
-				return depictorClass; //return the depictor class
-			}
-		}
-		return null;
+		return (Class<? extends Depictor<? super O>>)depictorRegistry.getDepictorClass(depictedObjectClass);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation creates a new depictor using the factory the depictor registry has resolved for the class of the depicted object.
+	 * </p>
+	 * @throws IllegalStateException if the registered depictor class could not be instantiated.
+	 * @see DepictorRegistry#createDepictor(Class)
+	 */
 	@SuppressWarnings("unchecked")
 	@Override
 	//casting is needed because Object.getClass() doesn't return a class for THIS type
 	public <O extends DepictedObject> Depictor<? super O> getDepictor(final O depictedObject) {
-		final Class<O> depictedObjectClass = (Class<O>)depictedObject.getClass(); //get the depicted object class
-		final Class<? extends Depictor<? super O>> depictorClass = getDepictorClass(depictedObjectClass); //walk the hierarchy to see if there is a depictor class registered for this component type
-		if(depictorClass != null) { //if we found a depictor class
-			try {
-				return depictorClass.newInstance(); //return a new instance of the class
-			} catch(final InstantiationException instantiationException) {
-				throw new IllegalStateException(instantiationException);
-			} catch(final IllegalAccessException illegalAccessException) {
-				throw new IllegalStateException(illegalAccessException);
-			}
-		}
-		return null; //show that we could not find a registered depictor
+		return (Depictor<? super O>)depictorRegistry.createDepictor(depictedObject.getClass());
 	}
 
-	/** The weakly-referenced thread-safe map of depicted objects, keyed to their IDs. */
-	private final ReadWriteLockMap<Long, DepictedObject> idDepictedObjectMap = new DecoratorReadWriteLockMap<Long, DepictedObject>(
-			new PurgeOnWriteWeakValueHashMap<Long, DepictedObject>());
+	/** The weakly-referenced thread-safe registry of depicted objects, keyed to their IDs. */
+	private final DepictedObjectRegistry idDepictedObjectRegistry = new DepictedObjectRegistry();
 
 	@Override
 	public void registerDepictedObject(final DepictedObject depictedObject) {
-		idDepictedObjectMap.put(Long.valueOf(requireNonNull(depictedObject, "Depicted object cannot be null.").getDepictID()), depictedObject);
+		idDepictedObjectRegistry.register(depictedObject);
 	}
 
 	@Override
 	public void unregisterDepictedObject(final DepictedObject depictedObject) {
-		idDepictedObjectMap.remove(Long.valueOf(requireNonNull(depictedObject, "Depicted object cannot be null.").getDepictID()));
+		idDepictedObjectRegistry.unregister(depictedObject);
 	}
 
 	@Override
 	public DepictedObject getDepictedObject(final long depictedObjectID) {
-		return idDepictedObjectMap.get(Long.valueOf(depictedObjectID)); //return the depicted object, if any, with the given ID
+		return idDepictedObjectRegistry.get(depictedObjectID); //return the depicted object, if any, with the given ID
+	}
+
+	/**
+	 * The thread-safe set of the IDs of depicted objects registered as dirty. IDs rather than objects are kept so that dirty objects that are discarded without
+	 * being depicted may still be garbage-collected.
+	 */
+	private final Set<Long> dirtyDepictIDs = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public void registerDirtyDepictedObject(final DepictedObject depictedObject) {
+		dirtyDepictIDs.add(Long.valueOf(requireNonNull(depictedObject, "Depicted object cannot be null.").getDepictID()));
+	}
+
+	@Override
+	public void unregisterDirtyDepictedObject(final DepictedObject depictedObject) {
+		dirtyDepictIDs.remove(Long.valueOf(requireNonNull(depictedObject, "Depicted object cannot be null.").getDepictID()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Each ID is removed before its depicted object is checked, and added back if the object is still dirty, so that an object that becomes dirty during the
+	 * check is never forgotten.
+	 * </p>
+	 */
+	@Override
+	public Collection<DepictedObject> getDirtyDepictedObjects() {
+		final Long[] depictIDs = dirtyDepictIDs.toArray(new Long[0]); //take a snapshot so that IDs we add back won't be visited again
+		final List<DepictedObject> dirtyDepictedObjects = new ArrayList<DepictedObject>(depictIDs.length);
+		for(final Long depictID : depictIDs) {
+			dirtyDepictIDs.remove(depictID);
+			final DepictedObject depictedObject = getDepictedObject(depictID.longValue());
+			if(depictedObject != null && !depictedObject.getDepictor().isDepicted()) { //if the object is still around and still dirty, keep it registered
+				dirtyDepictIDs.add(depictID);
+				dirtyDepictedObjects.add(depictedObject);
+			}
+		}
+		return dirtyDepictedObjects;
 	}
 
 	/** The variable used to generate unique depict IDs. */
@@ -146,20 +183,72 @@ public long generateDepictID() {
 		return depictIDCounter.incrementAndGet(); //atomically get the next counter value
 	}
 
-	/** The thread-safe queue of messages to be delivered to the platform. */
-	private final Queue<? extends PlatformMessage> sendMessageQueue = new ConcurrentLinkedQueue<PlatformMessage>();
+	/** The thread-safe queue of messages to be delivered to the platform, noting a change whenever a message is queued. */
+	private final Queue<? extends PlatformMessage> sendMessageQueue = new ConcurrentLinkedQueue<PlatformMessage>() {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean offer(final PlatformMessage message) {
+			final boolean result = super.offer(message);
+			notifyChange(); //let any waiting client know there is a message
+			return result;
+		}
+
+	};
 
 	@Override
 	public Queue<? extends PlatformMessage> getSendMessageQueue() {
 		return sendMessageQueue;
 	}
 
+	/** Whether there has been a change since the last time changes were cleared. */
+	private volatile boolean changed = false;
+
+	/** The future to complete on the next change, or <code>null</code> if nobody is waiting for a change. */
+	private final AtomicReference<CompletableFuture<Void>> changeFutureReference = new AtomicReference<CompletableFuture<Void>>();
+
+	@Override
+	public void notifyChange() {
+		changed = true;
+		final CompletableFuture<Void> changeFuture = changeFutureReference.getAndSet(null); //only create a new future when someone asks for one
+		if(changeFuture != null) {
+			changeFuture.complete(null);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> awaitChange() {
+		final CompletableFuture<Void> changeFuture = changeFutureReference.updateAndGet(future -> future != null ? future : new CompletableFuture<Void>());
+		if(changed) { //check after registering the future so that no intervening change can be missed
+			changeFuture.complete(null);
+		}
+		return changeFuture;
+	}
+
+	@Override
+	public void clearChange() {
+		changed = false;
+	}
+
 	/**
-	 * Application constructor.
+	 * Application constructor. The platform will have its own depictor registry.
 	 * @param application The Guise application running on this platform.
 	 * @throws NullPointerException if the given application and/or environment is <code>null</code>.
 	 */
 	public AbstractPlatform(final GuiseApplication application) {
+		this(application, new DepictorRegistry());
+	}
+
+	/**
+	 * Application and depictor registry constructor.
+	 * @param application The Guise application running on this platform.
+	 * @param depictorRegistry The registrations of depictors for depicted object types, which should be sealed if shared with other platforms.
+	 * @throws NullPointerException if the given application and/or depictor registry is <code>null</code>.
+	 * @see DepictorRegistry#seal()
+	 */
+	public AbstractPlatform(final GuiseApplication application, final DepictorRegistry depictorRegistry) {
 		this.application = requireNonNull(application, "Application cannot be null."); //save the application		
+		this.depictorRegistry = requireNonNull(depictorRegistry, "Depictor registry cannot be null.");
 	}
 }
@@ -16,11 +16,13 @@
 
 package io.guise.framework.platform;
 
-import java.io.IOException;
+import java.io.*;
 
 import io.guise.framework.Destination;
 import io.guise.framework.GuiseSession;
 
+import static java.util.Objects.*;
+
 import static com.globalmentor.java.Characters.*;
 import static com.globalmentor.java.StringBuilders.*;
 
@@ -30,8 +32,16 @@
  */
 public abstract class AbstractTextDepictContext extends AbstractDepictContext implements TextDepictContext {
 
+	/** The scratch buffers in which the depiction is collected. */
+	private final DepictBuffers depictBuffers;
+
+	/** @return The scratch buffers in which the depiction is collected. */
+	protected DepictBuffers getDepictBuffers() {
+		return depictBuffers;
+	}
+
 	/** The string builder that holds the current content being collected for depiction, though not necessarily all the content collected. */
-	private final StringBuilder depictStringBuilder = new StringBuilder();
+	private final StringBuilder depictStringBuilder;
 
 	@Override
 	public StringBuilder getDepictStringBuilder() {
@@ -48,6 +58,21 @@ public String getDepictText() {
 		return depictStringBuilder.toString(); //return a string version of the text collected so far
 	}
 
+	/** The number of characters transferred at a time from the depiction text to a writer. */
+	private static final int TRANSFER_BUFFER_LENGTH = 8 * 1024;
+
+	@Override
+	public void transferDepictText(final Writer writer) throws IOException {
+		final StringBuilder stringBuilder = depictStringBuilder;
+		final int length = stringBuilder.length();
+		final char[] buffer = new char[Math.min(length, TRANSFER_BUFFER_LENGTH)];
+		for(int index = 0; index < length; index += buffer.length) { //copy the text a chunk at a time, so that the entire text is never copied at once
+			final int count = Math.min(buffer.length, length - index);
+			stringBuilder.getChars(index, index + count, buffer, 0);
+			writer.write(buffer, 0, count);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -95,7 +120,21 @@ public void unindent() {
 	 * @throws IOException If there was an I/O error loading a needed resource.
 	 */
 	public AbstractTextDepictContext(final GuiseSession session, final Destination destination) throws IOException {
+		this(session, destination, new DepictBuffers()); //construct the class with new buffers
+	}
+
+	/**
+	 * Guise session and depict buffers constructor.
+	 * @param session The Guise user session of which this context is a part.
+	 * @param destination The destination with which this context is associated.
+	 * @param depictBuffers The empty scratch buffers in which to collect the depiction, which may be reused once this context is no longer used.
+	 * @throws NullPointerException if the given session, destination, and/or depict buffers is null.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 */
+	public AbstractTextDepictContext(final GuiseSession session, final Destination destination, final DepictBuffers depictBuffers) throws IOException {
 		super(session, destination); //construct the parent class
+		this.depictBuffers = requireNonNull(depictBuffers, "Depict buffers cannot be null.");
+		this.depictStringBuilder = depictBuffers.getDepictStringBuilder();
 	}
 
 	@Override
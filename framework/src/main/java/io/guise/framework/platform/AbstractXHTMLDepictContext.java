@@ -77,7 +77,19 @@ public void setAllDataAttributes(final boolean dataAttributesEnabled) {
 	 * @throws IOException If there was an I/O error loading a needed resource.
 	 */
 	public AbstractXHTMLDepictContext(final GuiseSession session, final Destination destination) throws IOException {
-		super(session, destination); //construct the parent class
+		this(session, destination, new DepictBuffers()); //construct the class with new buffers
+	}
+
+	/**
+	 * Guise session and depict buffers constructor.
+	 * @param session The Guise user session of which this context is a part.
+	 * @param destination The destination with which this context is associated.
+	 * @param depictBuffers The empty scratch buffers in which to collect the depiction, which may be reused once this context is no longer used.
+	 * @throws NullPointerException if the given session, destination, and/or depict buffers is null.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 */
+	public AbstractXHTMLDepictContext(final GuiseSession session, final Destination destination, final DepictBuffers depictBuffers) throws IOException {
+		super(session, destination, depictBuffers); //construct the parent class
 		getXMLNamespacePrefixManager().registerNamespacePrefix(XHTML_NAMESPACE_URI_STRING, null); //don't use any prefix with the XHTML namespace
 	}
 
@@ -18,7 +18,6 @@
 
 import java.io.IOException;
 import java.net.URI;
-import java.security.*;
 import java.util.*;
 
 import static java.util.Objects.*;
@@ -37,26 +36,52 @@
 import static com.globalmentor.java.Characters.*;
 import static com.globalmentor.java.Conditions.*;
 import static com.globalmentor.java.Strings.*;
-import static com.globalmentor.security.MessageDigests.*;
 import static com.globalmentor.xml.spec.XML.*;
 import static com.globalmentor.xml.XmlDom.*;
 
 /**
  * Abstract encapsulation of <code>text/xml</code> information related to the current depiction.
+ * <p>
+ * All elements are written into the single depiction string builder, so that element content is never copied into its parent element. The start tag of an
+ * element is written when its first content is written, or when the element ends if it has no content. The value of the content hash attribute, which cannot
+ * be known until the element ends, is written as a placeholder of fixed length and filled in when the element ends. Should an attribute be written after the
+ * start tag has been written, the start tag is written again in place.
+ * </p>
+ * <p>
+ * Content hashes are computed incrementally using the {@link DepictHasher}. The text an element directly contains is hashed as each nested element begins or
+ * the element ends, and the finished hash of each nested element is combined into the content hash of its parent, so that each character is hashed only
+ * once however deeply elements are nested.
+ * </p>
+ * <p>
+ * While a fragment is being recorded, the position and hash of each element at the top level of the fragment are noted as the element ends, so that the
+ * fragment can later be written again and combined into the content hash of its new parent element without being hashed again.
+ * </p>
  * @author Garret Wilson
  */
 public abstract class AbstractXMLDepictContext extends AbstractTextDepictContext implements XMLDepictContext {
 
-	/** The message digest for creating hashes on the platform. */
-	private final MessageDigest messageDigest;
+	/** The strategy for creating hashes of element attributes and content. */
+	private DepictHasher depictHasher = DefaultDepictHasher.INSTANCE;
 
-	/** @return The message digest for creating hashes on the platform. */
-	protected MessageDigest getMessageDigest() {
-		return messageDigest;
+	/** @return The strategy for creating hashes of element attributes and content. */
+	protected DepictHasher getDepictHasher() {
+		return depictHasher;
+	}
+
+	/**
+	 * Sets the strategy for creating hashes of element attributes and content. The strategy should not be changed while elements are being written.
+	 * @param depictHasher The strategy for creating hashes of element attributes and content.
+	 * @throws NullPointerException if the given hasher is <code>null</code>.
+	 */
+	protected void setDepictHasher(final DepictHasher depictHasher) {
+		this.depictHasher = requireNonNull(depictHasher, "Depict hasher cannot be null.");
 	}
 
 	/** The stack of elements states. */
-	private final LinkedList<ElementState> elementStateStack = new LinkedList<ElementState>();
+	private final Deque<ElementState> elementStateStack = new ArrayDeque<ElementState>();
+
+	/** The stack of fragments being recorded. */
+	private final Deque<FragmentRecorder> fragmentRecorderStack = new ArrayDeque<FragmentRecorder>();
 
 	/** The manager of prefixes paired with XML namespaces. */
 	private final XMLNamespacePrefixManager xmlNamespacePrefixManager;
@@ -96,26 +121,68 @@ protected void setHashAttributesGenerated(final boolean generateHashAttributes)
 	 * @throws IOException If there was an I/O error loading a needed resource.
 	 */
 	public AbstractXMLDepictContext(final GuiseSession session, final Destination destination) throws IOException {
-		super(session, destination); //construct the parent class
+		this(session, destination, new DepictBuffers()); //construct the class with new buffers
+	}
+
+	/**
+	 * Guise session and depict buffers constructor.
+	 * @param session The Guise user session of which this context is a part.
+	 * @param destination The destination with which this context is associated.
+	 * @param depictBuffers The empty scratch buffers in which to collect the depiction, which may be reused once this context is no longer used.
+	 * @throws NullPointerException if the given session, destination, and/or depict buffers is null.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 */
+	public AbstractXMLDepictContext(final GuiseSession session, final Destination destination, final DepictBuffers depictBuffers) throws IOException {
+		super(session, destination, depictBuffers); //construct the parent class
 		xmlNamespacePrefixManager = new XMLNamespacePrefixManager(); //create a new XML namespace prefix manager
-		messageDigest = SHA_1.getInstance(); //get a message digest instance using SHA-1 for creating hashes of element attributes and content
 	}
 
 	@Override
 	public void clearDepictText() {
 		elementStateStack.clear(); //clear the element states
+		fragmentRecorderStack.clear(); //any fragments being recorded are abandoned
 		super.clearDepictText(); //do the default clearing, which will clear the root string buffer
 	}
 
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * This version returns the string builder of the current element state, if there is an element state available.
+	 * This version first writes the start tag of the current element, if there is an element state available and its start tag has not yet been written, as
+	 * anything appended to the string builder will be the content of that element.
 	 * </p>
 	 */
 	@Override
 	public StringBuilder getDepictStringBuilder() {
-		return hasElementState() ? getElementState().getDepictStringBuilder() : super.getDepictStringBuilder(); //if there is an element state, return its string builder; otherwise, return the default string builder
+		final StringBuilder stringBuilder = super.getDepictStringBuilder();
+		if(hasElementState()) { //if there is an open element
+			final ElementState elementState = getElementState();
+			if(elementState.startTagIndex < 0) { //if the start tag hasn't been written, write it now, before its content
+				writeStartTag(stringBuilder, elementState);
+			}
+		}
+		return stringBuilder;
+	}
+
+	/**
+	 * Replaces the text depicted since the given index with other text, such as a more compact form of the same depiction. The replaced text must lie within the
+	 * content of the current element, and any elements begun since the given index must have ended. The content hash of the current element, if any, will
+	 * include the new text but will not necessarily exclude the replaced text.
+	 * @param beginIndex The index in the depicted text of the text to replace.
+	 * @param text The text to replace the text depicted since the given index; should already be encoded as appropriate.
+	 * @throws IllegalStateException if there is no current element.
+	 * @throws IllegalArgumentException if the given index is not within the depicted content of the current element.
+	 */
+	public void replaceDepictText(final int beginIndex, final CharSequence text) {
+		if(!hasElementState()) {
+			throw new IllegalStateException("No element is being depicted.");
+		}
+		final StringBuilder stringBuilder = getDepictStringBuilder(); //make sure the start tag of the current element has been written
+		final ElementState elementState = getElementState();
+		checkArgument(beginIndex >= elementState.contentIndex && beginIndex <= stringBuilder.length(), "Index %d is not within the depicted element content.",
+				beginIndex);
+		stringBuilder.setLength(beginIndex);
+		stringBuilder.append(text);
+		elementState.hashedIndex = Math.min(elementState.hashedIndex, beginIndex); //make sure the new text gets hashed
 	}
 
 	/**
@@ -148,63 +215,235 @@ private void pushElementState(final ElementState elementState) {
 	}
 
 	/**
-	 * Ends an element by popping the element state from the stack. The serialization of the element is added to the next string builder.
+	 * Ends an element by popping the element state from the stack. If the element has content, the end tag is written and the content hash attribute value, if
+	 * any, is filled in; otherwise the entire element is written, as an empty element if allowed.
 	 * @return The state of the element that has ended.
 	 * @throws NoSuchElementException if the element state stack is empty.
 	 */
 	private ElementState popElementState() {
 		final ElementState elementState = elementStateStack.removeLast(); //remove the top element state from the stack, as we finished the element
 		elementState.open = false; //show that this element is no longer open TODO maybe remove this entire facility, because no views seem to close the elements early in order to write other content
-		final boolean generateHashAttributes = isHashAttributesGenerated(); //see if we should generate hash attributes
+		final StringBuilder stringBuilder = super.getDepictStringBuilder(); //get the single string builder holding all the depicted text
 		final String qname = elementState.getQName(); //get the element qname in prefix:localName form
-		final String elementContent = elementState.getDepictStringBuilder().toString(); //get the content of the element
-		final StringBuilder stringBuilder = getDepictStringBuilder(); //get the remaining string builder, which is either the string builder from the next open element or the root string builder
+		if(elementState.startTagIndex >= 0 && elementState.contentIndex == stringBuilder.length()) { //if the start tag was written but no content followed, discard the start tag
+			stringBuilder.setLength(elementState.startTagIndex); //the start tag is at the end of the text, so it can be removed without moving anything
+			elementState.startTagIndex = -1;
+			elementState.contentHashIndex = -1;
+		}
+		if(elementState.startTagIndex < 0) { //if there is no content, write the entire element now
+			elementState.startTagIndex = stringBuilder.length();
+			appendStartTagBegin(stringBuilder, elementState, false); //there is no content to hash
+			if(elementState.isEmptyElementAllowed()) { //if we're allowed to make an empty element
+				stringBuilder.append(END_TAG_IDENTIFIER_CHAR); //write the ending tag identifier
+			} else { //if we're not allowed to create an empty element serialization
+				stringBuilder.append(TAG_END); //>
+				stringBuilder.append(TAG_START); //<
+				stringBuilder.append(END_TAG_IDENTIFIER_CHAR); //write the ending tag identifier
+				stringBuilder.append(qname); //prefix:localName
+			}
+		} else { //if there is content, finish the element
+			final int contentHashIndex = elementState.contentHashIndex;
+			if(contentHashIndex >= 0) { //if we reserved a place for the content hash, fill it in
+				hashContent(stringBuilder, elementState); //hash any text following the last nested element
+				final String contentHash = getDepictHasher().encode(elementState.contentHash);
+				stringBuilder.replace(contentHashIndex, contentHashIndex + contentHash.length(), contentHash); //the hash is the same length as its placeholder, so nothing moves
+			}
+			stringBuilder.append(TAG_START); //<
+			stringBuilder.append(END_TAG_IDENTIFIER_CHAR); //write the ending tag identifier
+			stringBuilder.append(qname); //prefix:localName
+		}
+		stringBuilder.append(TAG_END); //>
+		long elementHash = 0;
+		if(isHashAttributesGenerated()) { //if we're generating hashes, determine the hash of the element as a whole
+			final DepictHasher depictHasher = getDepictHasher();
+			elementHash = depictHasher.hash(depictHasher.newHash(), qname);
+			elementHash = depictHasher.hash(elementHash, elementState.attributeHash);
+			elementHash = depictHasher.hash(elementHash, elementState.contentHashIndex >= 0 ? elementState.contentHash : 0);
+			if(hasElementState()) { //combine the hash of this element into the content hash of its parent
+				final ElementState parentElementState = getElementState();
+				parentElementState.contentHash = depictHasher.hash(parentElementState.contentHash, elementHash);
+				parentElementState.hashedIndex = stringBuilder.length(); //the serialization of this element won't be hashed again as part of the parent content
+			}
+		}
+		if(!fragmentRecorderStack.isEmpty()) { //if fragments are being recorded, this element may be at the top level of one of them
+			final int depth = elementStateStack.size();
+			for(final FragmentRecorder fragmentRecorder : fragmentRecorderStack) {
+				if(fragmentRecorder.depth == depth) {
+					fragmentRecorder.endElement(stringBuilder.length(), elementHash);
+				}
+			}
+		}
+		return elementState; //return the element state
+	}
+
+	@Override
+	public void beginFragment() {
+		fragmentRecorderStack.addLast(new FragmentRecorder(getDepictStringBuilder().length(), elementStateStack.size())); //the start tag of the current element, if any, will not be part of the fragment
+	}
+
+	@Override
+	public DepictFragment endFragment() {
+		final FragmentRecorder fragmentRecorder = fragmentRecorderStack.peekLast();
+		if(fragmentRecorder == null) {
+			throw new IllegalStateException("No fragment has been begun.");
+		}
+		if(fragmentRecorder.depth != elementStateStack.size()) {
+			throw new IllegalStateException("Element " + getElementState().getQName() + " begun within the fragment has not ended.");
+		}
+		fragmentRecorderStack.removeLast();
+		final StringBuilder stringBuilder = super.getDepictStringBuilder();
+		final int beginIndex = fragmentRecorder.beginIndex;
+		final int elementCount = fragmentRecorder.elementCount;
+		final int[] elementOffsets = new int[elementCount * 2];
+		for(int i = elementOffsets.length - 1; i >= 0; i--) { //make the offsets relative to the fragment
+			elementOffsets[i] = fragmentRecorder.elementIndexes[i] - beginIndex;
+		}
+		final boolean hashAttributesGenerated = isHashAttributesGenerated();
+		return new DepictFragment(stringBuilder.substring(beginIndex), elementOffsets,
+				hashAttributesGenerated ? Arrays.copyOf(fragmentRecorder.elementHashes, elementCount) : null, hashAttributesGenerated ? getDepictHasher() : null,
+				isFormatted(), getIndentLevel());
+	}
+
+	@Override
+	public boolean writeFragment(final DepictFragment fragment) {
+		final boolean hashAttributesGenerated = isHashAttributesGenerated();
+		if(fragment.formatted != isFormatted() || fragment.indentLevel != getIndentLevel() || (fragment.elementHashes != null) != hashAttributesGenerated
+				|| (hashAttributesGenerated && fragment.depictHasher != getDepictHasher())) { //if the fragment would not have been depicted the same way in this context
+			return false;
+		}
+		final StringBuilder stringBuilder = getDepictStringBuilder(); //make sure the start tag of the current element has been written
+		final int offset = stringBuilder.length();
+		stringBuilder.append(fragment.getText());
+		final int[] elementOffsets = fragment.elementOffsets;
+		final ElementState parentElementState = hasElementState() ? getElementState() : null;
+		final int depth = elementStateStack.size();
+		for(int i = 0, elementCount = elementOffsets.length / 2; i < elementCount; i++) { //account for each top-level element as if it had just been depicted
+			final int beginIndex = offset + elementOffsets[i * 2];
+			final int endIndex = offset + elementOffsets[i * 2 + 1];
+			final long elementHash = hashAttributesGenerated ? fragment.elementHashes[i] : 0;
+			if(hashAttributesGenerated && parentElementState != null) { //hash the parent content up to the element, and then the element as a whole
+				final DepictHasher depictHasher = getDepictHasher();
+				parentElementState.contentHash = depictHasher.hash(parentElementState.contentHash, stringBuilder, parentElementState.hashedIndex, beginIndex);
+				parentElementState.contentHash = depictHasher.hash(parentElementState.contentHash, elementHash);
+				parentElementState.hashedIndex = endIndex;
+			}
+			for(final FragmentRecorder fragmentRecorder : fragmentRecorderStack) { //the element may be at the top level of an enclosing fragment being recorded
+				if(fragmentRecorder.depth == depth) {
+					fragmentRecorder.beginElement(beginIndex);
+					fragmentRecorder.endElement(endIndex, elementHash);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds to the content hash of an element any of its content that has not yet been hashed, up to the end of the depicted text. The element must be the
+	 * current element, and its start tag must have been written.
+	 * @param stringBuilder The string builder holding the depicted text.
+	 * @param elementState The state of the element the content of which should be hashed.
+	 */
+	private void hashContent(final StringBuilder stringBuilder, final ElementState elementState) {
+		final int length = stringBuilder.length();
+		elementState.contentHash = getDepictHasher().hash(elementState.contentHash, stringBuilder, elementState.hashedIndex, length);
+		elementState.hashedIndex = length;
+	}
+
+	/**
+	 * Writes the start tag of an element at the end of the given string builder, reserving a place for the content hash attribute if needed. The content of the
+	 * element will follow.
+	 * @param stringBuilder The string builder holding the depicted text.
+	 * @param elementState The state of the element the start tag of which should be written.
+	 */
+	private void writeStartTag(final StringBuilder stringBuilder, final ElementState elementState) {
+		final int startTagIndex = stringBuilder.length();
+		final int contentHashOffset = appendStartTagBegin(stringBuilder, elementState, true);
+		stringBuilder.append(TAG_END); //>
+		elementState.startTagIndex = startTagIndex;
+		elementState.contentIndex = stringBuilder.length();
+		elementState.contentHashIndex = contentHashOffset >= 0 ? startTagIndex + contentHashOffset : -1;
+		elementState.contentHash = getDepictHasher().newHash();
+		elementState.hashedIndex = elementState.contentIndex;
+	}
+
+	/**
+	 * Writes the start tag of an element again in place, after its attributes have changed. Only the content of the element follows the start tag, as the
+	 * element is the current element, so only the indexes of the element itself change.
+	 * @param stringBuilder The string builder holding the depicted text.
+	 * @param elementState The state of the element the start tag of which should be written again.
+	 */
+	private void rewriteStartTag(final StringBuilder stringBuilder, final ElementState elementState) {
+		final StringBuilder startTagStringBuilder = getDepictBuffers().getStartTagStringBuilder(); //assemble the start tag in a scratch buffer
+		startTagStringBuilder.setLength(0);
+		final int contentHashOffset = appendStartTagBegin(startTagStringBuilder, elementState, true);
+		startTagStringBuilder.append(TAG_END); //>
+		final int startTagIndex = elementState.startTagIndex;
+		stringBuilder.replace(startTagIndex, elementState.contentIndex, startTagStringBuilder.toString());
+		final int newContentIndex = startTagIndex + startTagStringBuilder.length();
+		final int shift = newContentIndex - elementState.contentIndex;
+		elementState.hashedIndex += shift; //the content has moved, but its hash so far has not changed
+		for(final FragmentRecorder fragmentRecorder : fragmentRecorderStack) { //fragments within the content have moved as well
+			fragmentRecorder.shift(elementState.contentIndex, shift);
+		}
+		elementState.contentIndex = newContentIndex;
+		elementState.contentHashIndex = contentHashOffset >= 0 ? startTagIndex + contentHashOffset : -1;
+	}
+
+	/**
+	 * Appends the beginning of the start tag of an element, including its attributes, without the ending of the tag.
+	 * @param stringBuilder The string builder to which the tag should be appended.
+	 * @param elementState The state of the element the start tag of which should be appended.
+	 * @param hasContent Whether the element may have content, requiring a place to be reserved for the content hash attribute if hash attributes are generated.
+	 * @return The offset from the start of the tag at which the placeholder for the content hash attribute value begins, or <code>-1</code> if no content hash
+	 *         attribute was appended.
+	 */
+	private int appendStartTagBegin(final StringBuilder stringBuilder, final ElementState elementState, final boolean hasContent) {
+		final int startTagIndex = stringBuilder.length();
+		int contentHashOffset = -1;
+		final boolean generateHashAttributes = isHashAttributesGenerated(); //see if we should generate hash attributes
 		stringBuilder.append(TAG_START); //<
-		stringBuilder.append(qname); //prefix:localName
-		final QualifiedName guiseAttributeHashQualifiedName = getAttributeHashAttributeQualifiedName(); //determine the qualified name to be used for the attribute hash attribute
-		final QualifiedName guiseContentHashQualifiedName = getContentHashAttributeQualifiedName(); //determine the qualified name to be used for the content hash attribute
-		final MessageDigest messageDigest = getMessageDigest(); //get the message digest
+		stringBuilder.append(elementState.getQName()); //prefix:localName
+		final DepictHasher depictHasher = getDepictHasher();
 		final Map<QualifiedName, String> attributeMap = elementState.getAttributeMap(); //get the element attributes
+		elementState.attributeHash = 0;
 		try {
 			if(!attributeMap.isEmpty()) { //if there are attributes, write them and generate a hash for them
-				if(generateHashAttributes) { //if we're generating hashes
-					messageDigest.reset(); //reset the message digest so that we can use it for hashing the attributes
-				}
+				long attributeHash = depictHasher.newHash();
 				for(final Map.Entry<QualifiedName, String> attribute : attributeMap.entrySet()) { //for each attribute
 					final QualifiedName attributeQualifiedName = attribute.getKey(); //get the attribute qualified name
 					final String attributeValue = getAttributeValue(elementState, attributeQualifiedName, attribute.getValue()); //get the attribute value, modifying it if needed
 					stringBuilder.append(' '); //separate attributes
 					appendAttribute(stringBuilder, attributeQualifiedName, attributeValue); //append this attribute
 					if(generateHashAttributes) { //if we're generating hashes
-						update(messageDigest, denull(attributeQualifiedName.getPrefix()), attributeQualifiedName.getLocalName(), attributeValue); //update our message digest with the attribute prefix, local name and value
+						attributeHash = depictHasher.hash(attributeHash, denull(attributeQualifiedName.getPrefix())); //update our hash with the attribute prefix, local name and value, each followed by a separator
+						attributeHash = depictHasher.hash(attributeHash, ':');
+						attributeHash = depictHasher.hash(attributeHash, attributeQualifiedName.getLocalName());
+						attributeHash = depictHasher.hash(attributeHash, '=');
+						attributeHash = depictHasher.hash(attributeHash, attributeValue);
+						attributeHash = depictHasher.hash(attributeHash, ' ');
 					}
 				}
 				if(generateHashAttributes) { //if we're generating hashes
-					final byte[] digestBytes = messageDigest.digest(); //get the final digest of the attributes
+					elementState.attributeHash = attributeHash;
 					stringBuilder.append(' '); //separate attributes
-					appendAttribute(stringBuilder, guiseAttributeHashQualifiedName, Base64.getEncoder().withoutPadding().encodeToString(digestBytes)); //guise:contentHash="base64Hex"
+					appendAttribute(stringBuilder, getAttributeHashAttributeQualifiedName(), depictHasher.encode(attributeHash)); //guise:attributeHash="base64"
 				}
 			}
-			if(generateHashAttributes && elementContent.length() > 0) { //if there is content and we're generating hashes, add a guise:contentHash attribute
-				messageDigest.reset(); //reset the message digest so that we can use it for hashing the content
-				final byte[] digestBytes = digest(messageDigest, elementContent); //create a digest of the element content
+			if(generateHashAttributes && hasContent) { //if there may be content and we're generating hashes, reserve a place for the guise:contentHash attribute
 				stringBuilder.append(' '); //separate attributes
-				appendAttribute(stringBuilder, guiseContentHashQualifiedName, Base64.getEncoder().withoutPadding().encodeToString(digestBytes)); //guise:contentHash="base64Hex"
+				appendAttributeName(stringBuilder, getContentHashAttributeQualifiedName()); //guise:contentHash
+				stringBuilder.append(EQUAL_CHAR); //=
+				stringBuilder.append(DOUBLE_QUOTE_CHAR); //"
+				contentHashOffset = stringBuilder.length() - startTagIndex;
+				for(int i = depictHasher.getEncodedLength(); i > 0; --i) { //the hash is filled in when the element ends
+					stringBuilder.append(' ');
+				}
+				stringBuilder.append(DOUBLE_QUOTE_CHAR); //"
 			}
 		} catch(final IOException ioException) { //we don't expect I/O exceptions appending to a string builder
 			throw unexpected(ioException);
 		}
-		if(elementContent.length() == 0 && elementState.isEmptyElementAllowed()) { //if there is no content and we're allowed to make an empty element
-			stringBuilder.append(END_TAG_IDENTIFIER_CHAR); //write the ending tag identifier
-		} else { //if the element is not empty, or we're not allowed to create an empty element serialization
-			stringBuilder.append(TAG_END); //>
-			stringBuilder.append(elementContent); //append the content collected for this element, if any
-			stringBuilder.append(TAG_START); //<
-			stringBuilder.append(END_TAG_IDENTIFIER_CHAR); //write the ending tag identifier
-			stringBuilder.append(qname); //prefix:localName		
-		}
-		stringBuilder.append(TAG_END); //>
-		return elementState; //return the element state
+		return contentHashOffset;
 	}
 
 	/**
@@ -289,6 +528,77 @@ private ElementState getElementState() {
 		return elementStateStack.getLast(); //return the top element state from the stack		
 	}
 
+	/**
+	 * The record of a fragment being depicted.
+	 * @author Garret Wilson
+	 */
+	private static class FragmentRecorder {
+
+		/** The index in the depiction text at which the fragment begins. */
+		private int beginIndex;
+
+		/** The number of element states on the stack when the fragment began; elements begun at this depth are at the top level of the fragment. */
+		private final int depth;
+
+		/** The begin and end indexes in the depiction text of each element at the top level of the fragment, in pairs. */
+		private int[] elementIndexes = new int[8];
+
+		/** The hash of each element at the top level of the fragment. */
+		private long[] elementHashes = new long[4];
+
+		/** The number of top-level elements ended. */
+		private int elementCount = 0;
+
+		/**
+		 * Constructor.
+		 * @param beginIndex The index in the depiction text at which the fragment begins.
+		 * @param depth The number of element states on the stack when the fragment began.
+		 */
+		public FragmentRecorder(final int beginIndex, final int depth) {
+			this.beginIndex = beginIndex;
+			this.depth = depth;
+		}
+
+		/**
+		 * Updates the recorded indexes after text preceding them has changed length.
+		 * @param index The index in the depiction text at or after which indexes have moved.
+		 * @param shift The distance the indexes have moved.
+		 */
+		public void shift(final int index, final int shift) {
+			if(beginIndex >= index) {
+				beginIndex += shift;
+			}
+			for(int i = elementCount * 2 - 1; i >= 0; i--) {
+				if(elementIndexes[i] >= index) {
+					elementIndexes[i] += shift;
+				}
+			}
+		}
+
+		/**
+		 * Records the beginning of an element at the top level of the fragment.
+		 * @param index The index in the depiction text at which the element begins.
+		 */
+		public void beginElement(final int index) {
+			if(elementCount == elementHashes.length) { //make room for another element
+				elementIndexes = Arrays.copyOf(elementIndexes, elementIndexes.length * 2);
+				elementHashes = Arrays.copyOf(elementHashes, elementHashes.length * 2);
+			}
+			elementIndexes[elementCount * 2] = index;
+		}
+
+		/**
+		 * Records the end of the element at the top level of the fragment most recently begun.
+		 * @param index The index in the depiction text after the end of the element.
+		 * @param elementHash The hash of the element as a whole, or <code>0</code> if hashes are not being generated.
+		 */
+		public void endElement(final int index, final long elementHash) {
+			elementIndexes[elementCount * 2 + 1] = index;
+			elementHashes[elementCount] = elementHash;
+			elementCount++;
+		}
+	}
+
 	/** Whether a comment has been opened but not closed. */
 	private boolean isCommentOpen = false;
 
@@ -395,6 +705,25 @@ public ElementState writeElementBegin(final URI namespaceURI, final String local
 	public ElementState writeElementBegin(final URI namespaceURI, final String localName, final boolean isEmptyElementAllowed) throws IOException {
 		final String qname = getQualifiedName(namespaceURI, localName); //get the qualified name for this namespace and local name
 		final ElementState elementState = new ElementState(namespaceURI, qname, isEmptyElementAllowed); //create a new element state
+		if(hasElementState()) { //if there is a parent element
+			final ElementState parentElementState = getElementState();
+			final StringBuilder stringBuilder = super.getDepictStringBuilder();
+			if(parentElementState.startTagIndex < 0) { //if the parent element start tag hasn't been written, this element is its first content
+				writeStartTag(stringBuilder, parentElementState);
+			}
+			if(isHashAttributesGenerated()) { //hash the parent content up to this element, as this element will be added to the parent hash as a whole
+				hashContent(stringBuilder, parentElementState);
+			}
+		}
+		if(!fragmentRecorderStack.isEmpty()) { //if fragments are being recorded, this element may be at the top level of one of them
+			final int depth = elementStateStack.size();
+			final int beginIndex = super.getDepictStringBuilder().length();
+			for(final FragmentRecorder fragmentRecorder : fragmentRecorderStack) {
+				if(fragmentRecorder.depth == depth) {
+					fragmentRecorder.beginElement(beginIndex);
+				}
+			}
+		}
 		pushElementState(elementState); //push the element state onto the top of the stack
 		return elementState; //return the state of the element we just started
 	}
@@ -418,7 +747,11 @@ public ElementState writeElementEnd(final URI namespaceURI, final String localNa
 	@Override
 	public void writeAttribute(final URI namespaceURI, final String localName, final String value) throws IOException {
 		final String qname = getQualifiedName(namespaceURI, localName); //get the qualified name for this namespace and local name
-		getElementState().getAttributeMap().put(new QualifiedName(namespaceURI, qname), value); //store this attribute, keyed to the qualified name
+		final ElementState elementState = getElementState();
+		elementState.getAttributeMap().put(new QualifiedName(namespaceURI, qname), value); //store this attribute, keyed to the qualified name
+		if(elementState.startTagIndex >= 0) { //if the start tag has already been written, write it again with the new attribute
+			rewriteStartTag(super.getDepictStringBuilder(), elementState);
+		}
 	}
 
 	@Override
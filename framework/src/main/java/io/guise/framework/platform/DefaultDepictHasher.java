@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform;
+
+import java.util.Base64;
+
+/**
+ * The default depict hasher, producing 64-bit FNV-1a hashes of the UTF-16 code units of depicted text. Combined values and encoded hashes are first mixed
+ * using the MurmurHash3 finalizer, so that similar hashes do not produce similar results. Hashes are encoded as unpadded Base64.
+ * @author Garret Wilson
+ * @see <a href="http://www.isthe.com/chongo/tech/comp/fnv/">FNV Hash</a>
+ */
+public class DefaultDepictHasher implements DepictHasher {
+
+	/** The shared default depict hasher instance. */
+	public static final DefaultDepictHasher INSTANCE = new DefaultDepictHasher();
+
+	/** The 64-bit FNV offset basis. */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/** The 64-bit FNV prime. */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** The length of an encoded 64-bit hash in unpadded Base64. */
+	private static final int ENCODED_LENGTH = 11;
+
+	/** This class is stateless, so the shared {@link #INSTANCE} should normally be used. */
+	protected DefaultDepictHasher() {
+	}
+
+	@Override
+	public long newHash() {
+		return FNV_OFFSET_BASIS;
+	}
+
+	@Override
+	public long hash(long hash, final CharSequence charSequence, final int start, final int end) {
+		for(int i = start; i < end; ++i) {
+			hash = (hash ^ charSequence.charAt(i)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	@Override
+	public long hash(final long hash, final long value) {
+		return (hash ^ mix(value)) * FNV_PRIME;
+	}
+
+	@Override
+	public int getEncodedLength() {
+		return ENCODED_LENGTH;
+	}
+
+	@Override
+	public String encode(final long hash) {
+		long value = mix(hash);
+		final byte[] bytes = new byte[Long.BYTES];
+		for(int i = bytes.length - 1; i >= 0; --i) {
+			bytes[i] = (byte)value;
+			value >>>= Byte.SIZE;
+		}
+		return Base64.getEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	/**
+	 * Mixes the bits of a value using the MurmurHash3 64-bit finalizer.
+	 * @param value The value to mix.
+	 * @return The mixed value.
+	 */
+	protected static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform;
+
+import static com.globalmentor.java.Conditions.*;
+
+/**
+ * The scratch buffers in which a text depict context collects its depiction. Once a depict context is no longer used, its buffers may be reset and given to
+ * the next depict context, so that the buffers need not be allocated and grown again for each depiction.
+ * <p>
+ * Buffers that have grown beyond the maximum retained capacity, as when depicting an entire page, are not worth holding onto between depictions and are not
+ * reset for reuse.
+ * </p>
+ * <p>
+ * This class is not thread safe; the buffers may only be used by one depict context at a time.
+ * </p>
+ * @author Garret Wilson
+ * @see AbstractTextDepictContext#getDepictBuffers()
+ */
+public class DepictBuffers {
+
+	/** The default maximum capacity, in characters, of a depiction buffer that will be reset for reuse. */
+	public static final int DEFAULT_MAX_RETAINED_CAPACITY = 64 * 1024;
+
+	/** The maximum capacity, in characters, of a depiction buffer that will be reset for reuse. */
+	private final int maxRetainedCapacity;
+
+	/** @return The maximum capacity, in characters, of a depiction buffer that will be reset for reuse. */
+	public int getMaxRetainedCapacity() {
+		return maxRetainedCapacity;
+	}
+
+	/** The string builder that holds the content being collected for depiction. */
+	private final StringBuilder depictStringBuilder = new StringBuilder();
+
+	/** @return The string builder that holds the content being collected for depiction. */
+	public StringBuilder getDepictStringBuilder() {
+		return depictStringBuilder;
+	}
+
+	/** The string builder for assembling a start tag before it replaces one already depicted. */
+	private final StringBuilder startTagStringBuilder = new StringBuilder();
+
+	/** @return The string builder for assembling a start tag before it replaces one already depicted. */
+	public StringBuilder getStartTagStringBuilder() {
+		return startTagStringBuilder;
+	}
+
+	/** The string builder for assembling a style string. */
+	private final StringBuilder styleStringBuilder = new StringBuilder();
+
+	/** @return The string builder for assembling a style string. */
+	public StringBuilder getStyleStringBuilder() {
+		return styleStringBuilder;
+	}
+
+	/** Default constructor using the default maximum retained capacity. */
+	public DepictBuffers() {
+		this(DEFAULT_MAX_RETAINED_CAPACITY);
+	}
+
+	/**
+	 * Maximum retained capacity constructor.
+	 * @param maxRetainedCapacity The maximum capacity, in characters, of a depiction buffer that will be reset for reuse.
+	 * @throws IllegalArgumentException if the given maximum retained capacity is negative.
+	 */
+	public DepictBuffers(final int maxRetainedCapacity) {
+		checkArgument(maxRetainedCapacity >= 0, "Maximum retained capacity %d is negative.", maxRetainedCapacity);
+		this.maxRetainedCapacity = maxRetainedCapacity;
+	}
+
+	/**
+	 * Empties the buffers so that they may be used by another depict context, unless the depiction buffer has grown beyond the maximum retained capacity. The
+	 * depict context that was using the buffers must no longer be used.
+	 * @return <code>true</code> if the buffers were reset and may be reused, or <code>false</code> if the buffers have grown too large to be worth reusing.
+	 * @see #getMaxRetainedCapacity()
+	 */
+	public boolean reset() {
+		if(depictStringBuilder.capacity() > maxRetainedCapacity) {
+			return false;
+		}
+		depictStringBuilder.setLength(0);
+		startTagStringBuilder.setLength(0);
+		styleStringBuilder.setLength(0);
+		return true;
+	}
+
+}
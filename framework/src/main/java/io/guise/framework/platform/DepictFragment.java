@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform;
+
+import static java.util.Objects.*;
+
+/**
+ * A finished part of a depiction, such as the depiction of a component and its descendants, that can be written again to a later depiction without being
+ * depicted again.
+ * <p>
+ * Besides the depicted text, a fragment records the position and hash of each element at the top level of the fragment, so that writing the fragment again
+ * contributes to the content hash of the enclosing element exactly as depicting it again would have. A fragment also records the settings of the context in
+ * which it was depicted, as a fragment can only be written to a context that would have depicted the same text.
+ * </p>
+ * <p>
+ * This class is immutable.
+ * </p>
+ * @author Garret Wilson
+ * @see XMLDepictContext#beginFragment()
+ * @see XMLDepictContext#endFragment()
+ * @see XMLDepictContext#writeFragment(DepictFragment)
+ */
+public final class DepictFragment {
+
+	/** The depicted text of the fragment. */
+	private final String text;
+
+	/** @return The depicted text of the fragment. */
+	public String getText() {
+		return text;
+	}
+
+	/** The begin and end offsets within the text of each element at the top level of the fragment, in pairs. */
+	final int[] elementOffsets;
+
+	/** The hash of each element at the top level of the fragment, or <code>null</code> if hashes were not generated. */
+	final long[] elementHashes;
+
+	/** The hasher used to produce the element hashes, or <code>null</code> if hashes were not generated. */
+	final DepictHasher depictHasher;
+
+	/** Whether the fragment text was formatted. */
+	final boolean formatted;
+
+	/** The indent level at which the fragment was depicted. */
+	final int indentLevel;
+
+	/**
+	 * Constructor.
+	 * @param text The depicted text of the fragment.
+	 * @param elementOffsets The begin and end offsets within the text of each element at the top level of the fragment, in pairs.
+	 * @param elementHashes The hash of each element at the top level of the fragment, or <code>null</code> if hashes were not generated.
+	 * @param depictHasher The hasher used to produce the element hashes, or <code>null</code> if hashes were not generated.
+	 * @param formatted Whether the fragment text was formatted.
+	 * @param indentLevel The indent level at which the fragment was depicted.
+	 * @throws NullPointerException if the given text and/or element offsets is <code>null</code>.
+	 */
+	DepictFragment(final String text, final int[] elementOffsets, final long[] elementHashes, final DepictHasher depictHasher, final boolean formatted,
+			final int indentLevel) {
+		this.text = requireNonNull(text);
+		this.elementOffsets = requireNonNull(elementOffsets);
+		this.elementHashes = elementHashes;
+		this.depictHasher = depictHasher;
+		this.formatted = formatted;
+		this.indentLevel = indentLevel;
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform;
+
+/**
+ * A strategy for producing the hashes of depicted content and attributes, which allow a client to determine which parts of a depiction have changed. Hashes
+ * are built up incrementally: text is added to a hash as it is depicted, and the finished hash of a nested element is combined into the hash of its parent, so
+ * that no depicted text need be hashed more than once.
+ * <p>
+ * Hashes are only used to detect changes between depictions, so they need not be cryptographically secure. Hashers must be thread-safe, as a single hasher may
+ * be shared among depict contexts.
+ * </p>
+ * @author Garret Wilson
+ * @see DefaultDepictHasher
+ */
+public interface DepictHasher {
+
+	/** @return The initial value of a hash to which nothing has yet been added. */
+	public long newHash();
+
+	/**
+	 * Adds a range of characters to a hash.
+	 * @param hash The current value of the hash.
+	 * @param charSequence The characters to add.
+	 * @param start The index of the first character to add.
+	 * @param end The index after the last character to add.
+	 * @return The new value of the hash.
+	 */
+	public long hash(final long hash, final CharSequence charSequence, final int start, final int end);
+
+	/**
+	 * Adds characters to a hash.
+	 * @param hash The current value of the hash.
+	 * @param charSequence The characters to add.
+	 * @return The new value of the hash.
+	 */
+	public default long hash(final long hash, final CharSequence charSequence) {
+		return hash(hash, charSequence, 0, charSequence.length());
+	}
+
+	/**
+	 * Combines a value, such as the finished hash of a nested element, into a hash.
+	 * @param hash The current value of the hash.
+	 * @param value The value to add.
+	 * @return The new value of the hash.
+	 */
+	public long hash(final long hash, final long value);
+
+	/** @return The length of every encoded hash. */
+	public int getEncodedLength();
+
+	/**
+	 * Encodes a hash for use as the value of a hash attribute.
+	 * @param hash The hash to encode.
+	 * @return The encoded hash, which will be of length {@link #getEncodedLength()}.
+	 */
+	public String encode(final long hash);
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform;
+
+import static com.globalmentor.java.Conditions.*;
+import static java.util.Objects.*;
+
+import java.lang.ref.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A weakly-referenced registry of depicted objects keyed to their depict IDs.
+ * <p>
+ * Depicted objects are kept in an open-addressed table keyed directly by the primitive depict ID, so that neither registration nor lookup creates objects
+ * other than the weak reference to each registered depicted object. Lookups take no lock, and may proceed while registrations take place. Registrations are
+ * serialized among themselves; the entries of depicted objects that have been garbage-collected are removed during registration, but only those reported by
+ * a reference queue, so that registration never traverses the entire table.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ * @author Garret Wilson
+ */
+public class DepictedObjectRegistry {
+
+	/** The default initial capacity of the table. */
+	private static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+	/** The entry indicating a slot from which an entry was removed; it never matches any ID, but does not end a probe sequence. */
+	private static final Entry REMOVED = new Entry(0, null, null);
+
+	/** The table of entries, the length of which is always a power of two; replaced when the table is resized. */
+	private volatile AtomicReferenceArray<Entry> table;
+
+	/** The number of entries in the table that are not <code>null</code>, including removed entries. Only accessed while synchronized. */
+	private int usedSlotCount = 0;
+
+	/** The queue to which the entries of garbage-collected depicted objects are added. */
+	private final ReferenceQueue<DepictedObject> referenceQueue = new ReferenceQueue<DepictedObject>();
+
+	/** Default constructor with a default initial capacity. */
+	public DepictedObjectRegistry() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Initial capacity constructor.
+	 * @param initialCapacity The number of depicted objects the registry should be able to hold before growing.
+	 * @throws IllegalArgumentException if the given initial capacity is not positive.
+	 */
+	public DepictedObjectRegistry(final int initialCapacity) {
+		checkArgument(initialCapacity > 0, "Initial capacity %d is not positive.", initialCapacity);
+		table = new AtomicReferenceArray<Entry>(Integer.highestOneBit(initialCapacity * 2 - 1) * 2); //allow for the maximum load
+	}
+
+	/**
+	 * Registers a depicted object under its depict ID, replacing any depicted object registered under the same ID.
+	 * @param depictedObject The depicted object to register.
+	 * @throws NullPointerException if the given depicted object is <code>null</code>.
+	 */
+	public synchronized void register(final DepictedObject depictedObject) {
+		final long id = requireNonNull(depictedObject, "Depicted object cannot be null.").getDepictID();
+		expungeCollectedEntries();
+		final Entry entry = new Entry(id, depictedObject, referenceQueue);
+		final AtomicReferenceArray<Entry> table = this.table;
+		final int mask = table.length() - 1;
+		int removedIndex = -1; //we'll reuse the first removed slot, if any
+		for(int index = indexOf(id, mask);; index = (index + 1) & mask) { //probe until we find the entry or an empty slot; the load factor guarantees an empty slot
+			final Entry existingEntry = table.get(index);
+			if(existingEntry == null) { //if the ID is not registered
+				if(removedIndex >= 0) { //if we passed a removed slot, use that one
+					table.set(removedIndex, entry);
+				} else {
+					table.set(index, entry);
+					if(++usedSlotCount * 2 > table.length()) { //keep the table at most half full so that probe sequences stay short
+						resize();
+					}
+				}
+				return;
+			}
+			if(existingEntry == REMOVED) {
+				if(removedIndex < 0) {
+					removedIndex = index;
+				}
+			} else if(existingEntry.id == id) { //if the ID is already registered, replace the registration
+				table.set(index, entry);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Unregisters the depicted object registered under the depict ID of the given depicted object.
+	 * @param depictedObject The depicted object to unregister.
+	 * @throws NullPointerException if the given depicted object is <code>null</code>.
+	 */
+	public synchronized void unregister(final DepictedObject depictedObject) {
+		final long id = requireNonNull(depictedObject, "Depicted object cannot be null.").getDepictID();
+		final AtomicReferenceArray<Entry> table = this.table;
+		final int mask = table.length() - 1;
+		for(int index = indexOf(id, mask);; index = (index + 1) & mask) {
+			final Entry entry = table.get(index);
+			if(entry == null) { //if the ID is not registered
+				return;
+			}
+			if(entry != REMOVED && entry.id == id) {
+				table.set(index, REMOVED); //leave a marker so that the probe sequences of other entries are not broken
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the depicted object registered under the given depict ID. This method takes no lock.
+	 * @param id The depict ID of the depicted object.
+	 * @return The depicted object registered under the given ID, or <code>null</code> if no depicted object with the given ID is registered or the depicted
+	 *         object has been garbage-collected.
+	 */
+	public DepictedObject get(final long id) {
+		final AtomicReferenceArray<Entry> table = this.table;
+		final int mask = table.length() - 1;
+		for(int index = indexOf(id, mask);; index = (index + 1) & mask) { //the load factor guarantees that the probe will reach an empty slot
+			final Entry entry = table.get(index);
+			if(entry == null) { //if the ID is not registered
+				return null;
+			}
+			if(entry != REMOVED && entry.id == id) {
+				return entry.get();
+			}
+		}
+	}
+
+	/**
+	 * Removes the entries of depicted objects that have been garbage-collected, as reported by the reference queue. Must be called while synchronized.
+	 */
+	private void expungeCollectedEntries() {
+		Reference<? extends DepictedObject> reference;
+		while((reference = referenceQueue.poll()) != null) {
+			final Entry collectedEntry = (Entry)reference;
+			final AtomicReferenceArray<Entry> table = this.table;
+			final int mask = table.length() - 1;
+			for(int index = indexOf(collectedEntry.id, mask);; index = (index + 1) & mask) {
+				final Entry entry = table.get(index);
+				if(entry == null) { //if the entry was already replaced or removed
+					break;
+				}
+				if(entry == collectedEntry) {
+					table.set(index, REMOVED);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the table with one holding only the entries of depicted objects not yet garbage-collected, twice as large if warranted. Lookups in progress
+	 * continue to use the old table, which is never modified once replaced. Must be called while synchronized.
+	 */
+	private void resize() {
+		final AtomicReferenceArray<Entry> oldTable = this.table;
+		int liveEntryCount = 0;
+		for(int i = oldTable.length() - 1; i >= 0; i--) {
+			final Entry entry = oldTable.get(i);
+			if(entry != null && entry != REMOVED && entry.get() != null) {
+				liveEntryCount++;
+			}
+		}
+		final int newLength = liveEntryCount * 4 > oldTable.length() ? oldTable.length() * 2 : oldTable.length(); //only grow if removing entries wouldn't leave enough room
+		final AtomicReferenceArray<Entry> newTable = new AtomicReferenceArray<Entry>(newLength);
+		final int mask = newLength - 1;
+		int newUsedSlotCount = 0;
+		for(int i = oldTable.length() - 1; i >= 0; i--) {
+			final Entry entry = oldTable.get(i);
+			if(entry != null && entry != REMOVED && entry.get() != null) {
+				int index = indexOf(entry.id, mask);
+				while(newTable.get(index) != null) {
+					index = (index + 1) & mask;
+				}
+				newTable.set(index, entry);
+				newUsedSlotCount++;
+			}
+		}
+		usedSlotCount = newUsedSlotCount;
+		this.table = newTable;
+	}
+
+	/**
+	 * Determines the starting index in a table for the given ID. The IDs of depicted objects are usually sequential, so the bits are spread to keep clusters of
+	 * IDs from forming long probe sequences.
+	 * @param id The depict ID.
+	 * @param mask The mask of the table length.
+	 * @return The index at which probing for the ID should begin.
+	 */
+	private static int indexOf(final long id, final int mask) {
+		final int hash = (int)(id ^ (id >>> 32)) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/**
+	 * An entry in the table, weakly referring to a depicted object and holding its ID.
+	 * @author Garret Wilson
+	 */
+	private static class Entry extends WeakReference<DepictedObject> {
+
+		/** The depict ID of the depicted object. */
+		private final long id;
+
+		/**
+		 * Constructor.
+		 * @param id The depict ID of the depicted object.
+		 * @param depictedObject The depicted object.
+		 * @param referenceQueue The queue to which the entry should be added when the depicted object is garbage-collected, or <code>null</code> if the entry
+		 *          should not be queued.
+		 */
+		public Entry(final long id, final DepictedObject depictedObject, final ReferenceQueue<DepictedObject> referenceQueue) {
+			super(depictedObject, referenceQueue);
+			this.id = id;
+		}
+	}
+
+}
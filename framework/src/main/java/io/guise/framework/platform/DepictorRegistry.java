@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform;
+
+import static com.globalmentor.java.Classes.*;
+import static com.globalmentor.java.Conditions.*;
+import static java.lang.invoke.MethodType.*;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The registrations of depictor classes for depicted object classes, along with the resolution of the depictor to create for each depicted object class.
+ * <p>
+ * The depictor class for a depicted object class is located by looking up the depicted object class hierarchy for registered depictors. The result is
+ * remembered for each depicted object class, along with a handle to the constructor of the depictor class, so that creating a depictor neither walks the
+ * class hierarchy nor uses reflection once the class has been seen. Any registration discards the remembered resolutions, so registrations are best made
+ * before depictors are created.
+ * </p>
+ * <p>
+ * A registry holds no state related to any depicted object, so a single registry may be shared by all platforms of the same type. A shared registry should be
+ * {@link #seal() sealed} so that no platform can change the registrations of the others; a platform that needs registrations of its own creates a registry
+ * based upon the sealed one, which consults its own registrations before those of its base. This class is thread safe.
+ * </p>
+ * @author Garret Wilson
+ */
+public class DepictorRegistry {
+
+	/** The sealed registry the registrations of which are consulted after those of this registry, or <code>null</code> if this registry has no base. */
+	private final DepictorRegistry base;
+
+	/** Whether registrations may no longer be made. */
+	private volatile boolean sealed = false;
+
+	/** @return Whether registrations may no longer be made, so that the registry may be safely shared. */
+	public boolean isSealed() {
+		return sealed;
+	}
+
+	/**
+	 * Prevents further registrations, so that the registry may be safely shared.
+	 * @return This registry.
+	 */
+	public DepictorRegistry seal() {
+		sealed = true;
+		return this;
+	}
+
+	/** The registered depictor classes, keyed to depicted object classes. */
+	private final Map<Class<? extends DepictedObject>, Class<? extends Depictor<?>>> depictorClasses = new ConcurrentHashMap<Class<? extends DepictedObject>, Class<? extends Depictor<?>>>();
+
+	/** The factory producing nothing, for depicted object classes for which no depictor is registered. */
+	private static final Supplier<Depictor<?>> NO_DEPICTOR_FACTORY = () -> null;
+
+	/** The resolved depictor factories for depicted object classes; replaced whenever a depictor is registered. */
+	private volatile ClassValue<Supplier<Depictor<?>>> depictorFactories = createDepictorFactories();
+
+	/** Default constructor of a registry with no registrations. */
+	public DepictorRegistry() {
+		this.base = null;
+	}
+
+	/**
+	 * Base registry constructor. Registrations made in this registry override those of the base registry, which is not changed.
+	 * @param base The sealed registry the registrations of which are consulted after those of this registry.
+	 * @throws NullPointerException if the given base registry is <code>null</code>.
+	 * @throws IllegalArgumentException if the given base registry is not sealed.
+	 */
+	public DepictorRegistry(final DepictorRegistry base) {
+		checkArgument(base.isSealed(), "Base depictor registry must be sealed.");
+		this.base = base;
+	}
+
+	/**
+	 * Registers the class of a depictor to depict an object of the given class (and by default subclasses).
+	 * @param depictedObjectClass The class of the depicted object for which the depictor should be registered.
+	 * @param depictorClass The class of depictor to use for depicting the objects.
+	 * @return The depictor class previously registered with the given depicted object class, or <code>null</code> if there was no previous registration.
+	 * @throws IllegalStateException if the registry has been sealed.
+	 * @see #seal()
+	 */
+	@SuppressWarnings("unchecked")
+	public Class<? extends Depictor<?>> register(final Class<? extends DepictedObject> depictedObjectClass, final Class<?> depictorClass) {
+		if(sealed) {
+			throw new IllegalStateException("Depictor registry has been sealed.");
+		}
+		final Class<? extends Depictor<?>> oldDepictorClass = depictorClasses.put(depictedObjectClass, (Class<? extends Depictor<?>>)depictorClass);
+		depictorFactories = createDepictorFactories(); //previous resolutions may no longer be correct
+		return oldDepictorClass;
+	}
+
+	/**
+	 * Determines the depictor class registered for the given depicted object class, in this registry or in its base registry.
+	 * @param depictedObjectClass The class of depicted object that may be registered.
+	 * @return The class of depictor registered to depict object of the specific class, or <code>null</code> if no depictor is registered.
+	 */
+	public Class<? extends Depictor<?>> getRegisteredDepictorClass(final Class<? extends DepictedObject> depictedObjectClass) {
+		final Class<? extends Depictor<?>> depictorClass = depictorClasses.get(depictedObjectClass);
+		return depictorClass == null && base != null ? base.getRegisteredDepictorClass(depictedObjectClass) : depictorClass;
+	}
+
+	/**
+	 * Determines the depictor class appropriate for the given depicted object class by individually looking up the depicted object class hierarchy for
+	 * registered depictors.
+	 * @param depictedObjectClass The class of depicted object for which a depictor should be returned.
+	 * @return A class of depictor for the given depicted object class, or <code>null</code> if no depictor is registered.
+	 */
+	public Class<? extends Depictor<?>> getDepictorClass(final Class<? extends DepictedObject> depictedObjectClass) {
+		for(final Class<? extends DepictedObject> depictedObjectAncestorClass : getAncestorClasses(depictedObjectClass, DepictedObject.class)) { //look at the classes in increasing order of distance and abstractness
+			final Class<? extends Depictor<?>> depictorClass = getRegisteredDepictorClass(depictedObjectAncestorClass);
+			if(depictorClass != null) {
+				return depictorClass;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a new depictor for an object of the given class.
+	 * @param depictedObjectClass The class of depicted object for which a depictor should be created.
+	 * @return A new depictor for the given depicted object class, or <code>null</code> if no depictor is registered.
+	 * @throws IllegalStateException if the registered depictor class could not be instantiated.
+	 */
+	public Depictor<?> createDepictor(final Class<? extends DepictedObject> depictedObjectClass) {
+		return depictorFactories.get(depictedObjectClass).get();
+	}
+
+	/** @return A new lazily-populated map of depictor factories for depicted object classes, based upon the current registrations. */
+	private ClassValue<Supplier<Depictor<?>>> createDepictorFactories() {
+		return new ClassValue<Supplier<Depictor<?>>>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			protected Supplier<Depictor<?>> computeValue(final Class<?> depictedObjectClass) {
+				final Class<? extends Depictor<?>> depictorClass = getDepictorClass((Class<? extends DepictedObject>)depictedObjectClass);
+				return depictorClass != null ? createDepictorFactory(depictorClass) : NO_DEPICTOR_FACTORY;
+			}
+		};
+	}
+
+	/**
+	 * Creates a factory that creates depictors of the given class using its default constructor. Failure to find the constructor is only reported when a
+	 * depictor is requested, as it would be if the depictor class were instantiated directly.
+	 * @param depictorClass The class of depictor to create.
+	 * @return A factory of depictors of the given class.
+	 */
+	private static Supplier<Depictor<?>> createDepictorFactory(final Class<? extends Depictor<?>> depictorClass) {
+		final MethodHandle constructor;
+		try {
+			constructor = MethodHandles.lookup().findConstructor(depictorClass, methodType(void.class)).asType(methodType(Depictor.class));
+		} catch(final NoSuchMethodException | IllegalAccessException exception) {
+			return () -> {
+				throw new IllegalStateException(exception);
+			};
+		}
+		return () -> {
+			try {
+				return (Depictor<?>)constructor.invokeExact();
+			} catch(final RuntimeException | Error unchecked) {
+				throw unchecked;
+			} catch(final Throwable throwable) {
+				throw new IllegalStateException(throwable);
+			}
+		};
+	}
+
+}
@@ -19,6 +19,7 @@
 import java.net.URI;
 import java.util.Collection;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.Lock;
 
 import com.globalmentor.net.URIPath;
@@ -77,12 +78,59 @@ public interface Platform {
 	 */
 	public DepictedObject getDepictedObject(final long depictedObjectID);
 
+	/**
+	 * Registers a depicted object the depiction of which has become out of date, so that it can be found without searching all depicted objects. Registering
+	 * the same object more than once has no effect.
+	 * @param depictedObject The depicted object the depiction of which is out of date.
+	 * @throws NullPointerException if the given depicted object is <code>null</code>.
+	 * @see Depictor#isDepicted()
+	 */
+	public void registerDirtyDepictedObject(final DepictedObject depictedObject);
+
+	/**
+	 * Forgets a depicted object registered as dirty that cannot currently be depicted, such as a component that is not attached to any application frame. The
+	 * object must be registered again if it later becomes depictable while its depiction is still out of date. Unregistering an object that is not registered
+	 * has no effect.
+	 * @param depictedObject The depicted object to forget.
+	 * @throws NullPointerException if the given depicted object is <code>null</code>.
+	 * @see #registerDirtyDepictedObject(DepictedObject)
+	 */
+	public void unregisterDirtyDepictedObject(final DepictedObject depictedObject);
+
+	/**
+	 * Retrieves the registered depicted objects the depictions of which are still out of date. Objects registered as dirty that have since been depicted or are
+	 * no longer registered with the platform are forgotten.
+	 * @return The depicted objects registered as dirty that have not since been depicted.
+	 * @see #registerDirtyDepictedObject(DepictedObject)
+	 * @see #unregisterDirtyDepictedObject(DepictedObject)
+	 */
+	public Collection<DepictedObject> getDirtyDepictedObjects();
+
 	/** @return The client software being used to access Guise on this platform. */
 	public ClientProduct getClientProduct();
 
 	/** @return The thread-safe queue of messages to be delivered to the platform. */
 	public Queue<? extends PlatformMessage> getSendMessageQueue();
 
+	/**
+	 * Indicates that the depiction of some depicted object has become out of date, or that a message has been queued for delivery to the platform. Any pending
+	 * {@link #awaitChange()} future will be completed, allowing a waiting client to be updated.
+	 */
+	public void notifyChange();
+
+	/**
+	 * Returns a future that will be completed the next time {@link #notifyChange()} is called. If there has been a change since {@link #clearChange()} was last
+	 * called, the returned future will already be completed.
+	 * @return A future that will be completed when depicted objects change or messages are queued for the platform.
+	 */
+	public CompletableFuture<Void> awaitChange();
+
+	/**
+	 * Indicates that all changes so far will be depicted, so that {@link #awaitChange()} will wait for new changes. This method should be called before
+	 * determining what needs to be depicted.
+	 */
+	public void clearChange();
+
 	/** @return The lock used for exclusive depiction on the platform. */
 	public Lock getDepictLock();
 
@@ -41,6 +41,13 @@ public interface TextDepictContext extends DepictContext {
 	/** @return The string that holds the current content being collected for depiction. */
 	public String getDepictText();
 
+	/**
+	 * Writes the content collected for depiction to the given writer, without first creating a string of the content as {@link #getDepictText()} does.
+	 * @param writer The writer to which the content should be written.
+	 * @throws IOException if there is an error writing the content.
+	 */
+	public void transferDepictText(final Writer writer) throws IOException;
+
 	/**
 	 * @return Whether output should be formatted. This version returns <code>true</code>.
 	 */
@@ -152,6 +152,29 @@ public void writeDocType(final boolean writeXMLDeclaration, final URI namespaceU
 	 */
 	public void writeComment(final String comment) throws IOException;
 
+	/**
+	 * Begins recording a fragment of the depiction, which will include everything depicted until the fragment is ended. Fragments may be nested.
+	 * @see #endFragment()
+	 */
+	public void beginFragment();
+
+	/**
+	 * Ends recording the most recently begun fragment of the depiction. Any elements begun since the fragment began must have ended.
+	 * @return The fragment of the depiction since the fragment began.
+	 * @throws IllegalStateException if no fragment has been begun, or if an element begun within the fragment has not ended.
+	 * @see #beginFragment()
+	 */
+	public DepictFragment endFragment();
+
+	/**
+	 * Writes a fragment recorded earlier, if the fragment would be depicted the same way in this context, contributing to the content hash of the current
+	 * element as if the fragment were depicted again.
+	 * @param fragment The fragment to write.
+	 * @return <code>true</code> if the fragment was written, or <code>false</code> if the fragment was depicted with different settings and was not written.
+	 * @throws NullPointerException if the given fragment is <code>null</code>.
+	 */
+	public boolean writeFragment(final DepictFragment fragment);
+
 	/**
 	 * The state of rendering for a particular element.
 	 * @author Garret Wilson
@@ -166,14 +189,6 @@ public Map<QualifiedName, String> getAttributeMap() {
 			return attributeMap;
 		}
 
-		/** The string builder that holds the element content being collected for depiction. */
-		private final StringBuilder depictStringBuilder = new StringBuilder();
-
-		/** @return The string builder that holds the element content being collected for depiction. */
-		public StringBuilder getDepictStringBuilder() {
-			return depictStringBuilder;
-		}
-
 		/** Whether an empty element can be created if there is no content. */
 		private final boolean emptyElementAllowed;
 
@@ -190,6 +205,24 @@ public boolean isOpen() {
 			return open;
 		}
 
+		/** The index in the depiction text at which the start tag of the element begins, or <code>-1</code> if the start tag has not yet been written. */
+		protected int startTagIndex = -1;
+
+		/** The index in the depiction text at which the content of the element begins, or <code>-1</code> if the start tag has not yet been written. */
+		protected int contentIndex = -1;
+
+		/** The index in the depiction text of the value of the content hash attribute to be filled in, or <code>-1</code> if there is no such attribute. */
+		protected int contentHashIndex = -1;
+
+		/** The hash of the attributes, or <code>0</code> if there are no attributes or hashes are not being generated. */
+		protected long attributeHash = 0;
+
+		/** The hash of the content so far, if hashes are being generated. */
+		protected long contentHash = 0;
+
+		/** The index in the depiction text up to which the content has been hashed. */
+		protected int hashedIndex = -1;
+
 		/**
 		 * Constructor.
 		 * @param namespaceURI The namespace URI, or <code>null</code> if there is no namespace URI..
@@ -18,6 +18,7 @@
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.Map;
 
 import io.guise.framework.component.Component;
@@ -61,7 +62,7 @@ public AbstractSimpleWebComponentDepictor(final URI namespaceURI, final String l
 	 */
 	@Override
 	protected Map<String, Object> getOuterStyles() {
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		outerStyles.putAll(getBodyStyles()); //add the styles for the body
 		return outerStyles; //return the combined styles		
 	}
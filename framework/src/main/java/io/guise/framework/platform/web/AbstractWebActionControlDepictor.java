@@ -114,7 +114,7 @@ protected Set<String> getBaseStyleIDs(final String prefix, final String suffix)
 	 */
 	@Override
 	protected Map<String, Object> getBodyStyles() {
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		final C component = getDepictedObject(); //get the component
 		if(!component.isEnabled()) { //if this component is disabled
 			final double opacity = component.getOpacity(); //get the component's opacity
@@ -18,8 +18,10 @@
 
 import java.io.IOException;
 import java.net.URI;
+import java.security.Principal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.*;
 
 import static java.util.Collections.*;
@@ -27,6 +29,7 @@
 
 import com.globalmentor.model.NameValuePair;
 import com.globalmentor.net.ContentType;
+import com.globalmentor.xml.QualifiedName;
 import com.globalmentor.xml.XmlDom;
 
 import io.guise.framework.GuiseSession;
@@ -36,6 +39,9 @@
 import io.guise.framework.model.*;
 import io.guise.framework.model.ui.PresentationModel;
 import io.guise.framework.platform.AbstractComponentDepictor;
+import io.guise.framework.platform.DepictFragment;
+import io.guise.framework.platform.DepictedObject;
+import io.guise.framework.platform.Platform;
 import io.guise.framework.style.Color;
 import io.guise.framework.style.FontStyle;
 
@@ -47,12 +53,23 @@
 import static io.guise.framework.model.ui.PresentationModel.*;
 import static io.guise.framework.platform.XHTMLDepictContext.*;
 import static io.guise.framework.platform.web.GuiseCSSStyleConstants.*;
+import static io.guise.framework.platform.web.WebPlatform.*;
 
 /**
  * The abstract base class for all <code>application/xhtml+xml</code> depictions.
  * <p>
  * This implementation knows how to return specialized style IDs for components that are {@link Selectable}.
  * </p>
+ * <p>
+ * If depiction caching is enabled for a component, the depiction of the component and its descendants is kept as a fragment and written again in place of
+ * depicting the component, as long as neither the component nor any descendant has been modified and the session locale, theme, and principal are the same.
+ * </p>
+ * <p>
+ * The styles and the decorated base style IDs computed by this class are memoized until a property of the component is modified, the depiction is marked as
+ * out of date, or the component orientation or session theme changes. The style maps returned by {@link #getOuterStyles()} and {@link #getBodyStyles()} are
+ * therefore shared and may not be modified; an overriding version that adds styles must add them to a copy. A subclass that determines styles from state other
+ * than the properties of the component must call {@link #invalidateStyles()} when that state changes.
+ * </p>
  * @param <C> The type of component being controlled.
  * @author Garret Wilson
  */
@@ -109,9 +126,87 @@ public boolean isEmptyElementAllowed(final C component) {
 		return emptyElementAllowed;
 	}
 
+	/** The number of times a cached depiction has been written in place of depicting a component, across all sessions. */
+	private static final LongAdder depictionCacheHitCount = new LongAdder();
+
+	/** @return The number of times a cached depiction has been written in place of depicting a component, across all sessions. */
+	public static long getDepictionCacheHitCount() {
+		return depictionCacheHitCount.sum();
+	}
+
+	/** The number of times a component with depiction caching enabled had to be depicted because no current depiction was cached, across all sessions. */
+	private static final LongAdder depictionCacheMissCount = new LongAdder();
+
+	/** @return The number of times a component with depiction caching enabled had to be depicted because no current depiction was cached, across all sessions. */
+	public static long getDepictionCacheMissCount() {
+		return depictionCacheMissCount.sum();
+	}
+
+	/** The cached depiction of the component and its descendants, or <code>null</code> if no depiction has been cached. */
+	private volatile CachedDepiction cachedDepiction = null;
+
 	/** The state of this controller's XML element, if there is one. */
 	private WebDepictContext.ElementState elementState = null;
 
+	/** The memoized styles and style IDs, or <code>null</code> if none have been computed since they were last invalidated. */
+	private volatile MemoizedStyles memoizedStyles = null;
+
+	/**
+	 * Returns the memoized styles and style IDs, discarding them if the component orientation or session theme has changed since they were computed.
+	 * @return The current memoized styles and style IDs, some of which may not yet have been computed.
+	 */
+	private MemoizedStyles getMemoizedStyles() {
+		final Orientation orientation = getDepictedObject().getComponentOrientation(); //the orientation may come from the session locale, which fires no component property change
+		final URI themeURI = getSession().getThemeURI();
+		MemoizedStyles memoizedStyles = this.memoizedStyles;
+		if(memoizedStyles == null || !memoizedStyles.orientation.equals(orientation) || !Objects.equals(memoizedStyles.themeURI, themeURI)) {
+			memoizedStyles = new MemoizedStyles(orientation, themeURI);
+			this.memoizedStyles = memoizedStyles;
+		}
+		return memoizedStyles;
+	}
+
+	/**
+	 * Discards the memoized styles and style IDs so that they will be computed again. This method is called whenever a property of the component is modified or
+	 * the depiction is marked as out of date.
+	 * @see #getOuterStyles()
+	 * @see #getBodyStyles()
+	 * @see #getBaseStyleIDs(String, String)
+	 */
+	protected void invalidateStyles() {
+		memoizedStyles = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version invalidates the memoized styles if the property is modified.
+	 * </p>
+	 * @see #invalidateStyles()
+	 */
+	@Override
+	protected void setPropertyModified(final String property, final boolean modified) {
+		super.setPropertyModified(property, modified);
+		if(modified) {
+			invalidateStyles();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version invalidates the memoized styles if the depiction is marked as out of date.
+	 * </p>
+	 * @see #invalidateStyles()
+	 */
+	@Override
+	public void setDepicted(final boolean newDepicted) {
+		super.setDepicted(newDepicted);
+		if(!newDepicted) {
+			invalidateStyles();
+		}
+	}
+
 	/** Default constructor with no element representation. */
 	public AbstractWebComponentDepictor() {
 		this(null, null); //construct the depictor with no element representation
@@ -161,12 +256,138 @@ public String getDepictName() {
 	 */
 	@Override
 	public void depict() throws IOException {
-		depictBegin(); //begin the rendering process
-		depictBody(); //renders the main part of the component
-		depictEnd(); //end the rendering process
+		if(getDepictedObject().isDepictionCacheEnabled()) { //if the depiction may be cached, see if the cached depiction can be used
+			final GuiseSession session = getSession();
+			final long modificationCount = getModificationCount(); //any modification made while depicting will prevent the depiction from being reused
+			final WebDepictContext depictContext = getDepictContext();
+			final CachedDepiction cachedDepiction = this.cachedDepiction;
+			if(cachedDepiction != null && cachedDepiction.isCurrent(modificationCount, session) && depictContext.writeFragment(cachedDepiction.fragment)) {
+				depictionCacheHitCount.increment();
+			} else {
+				depictionCacheMissCount.increment();
+				depictContext.beginFragment();
+				depictBegin(); //begin the rendering process
+				depictBody(); //renders the main part of the component
+				depictEnd(); //end the rendering process
+				this.cachedDepiction = new CachedDepiction(depictContext.endFragment(), modificationCount, session);
+			}
+		} else {
+			depictBegin(); //begin the rendering process
+			depictBody(); //renders the main part of the component
+			depictEnd(); //end the rendering process
+		}
 		setDepicted(true); //show that the depiction has been updated
 	}
 
+	/** The properties that by default can be depicted by patching the style of the outer element in place. */
+	private static final Set<String> PARTIALLY_DEPICTABLE_PROPERTIES = Set.of(Displayable.DISPLAYED_PROPERTY, VISIBLE_PROPERTY, TEXT_COLOR_PROPERTY,
+			OPACITY_PROPERTY);
+
+	/** Whether the outer element of the last full depiction was identified by the component's depict ID, so that it can later be patched in place. */
+	private boolean outerElementIdentified = false;
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version depicts the component partially using {@link #depictPartial()} if the component is partially depictable; otherwise the component is depicted
+	 * using {@link #depict()}.
+	 * </p>
+	 * @see #isPartiallyDepictable()
+	 */
+	@Override
+	public void depictChanges() throws IOException {
+		if(isPartiallyDepictable()) { //if only properties that can be patched in place have changed
+			depictPartial(); //patch the existing depiction
+			setDepicted(true); //show that the depiction has been updated
+		} else { //if the component must be depicted in its entirety
+			depict();
+		}
+	}
+
+	/**
+	 * Returns the properties that, if they are the only properties modified, allow the component to be depicted partially by patching its existing depiction
+	 * in place.
+	 * <p>
+	 * This version returns the properties that only affect the outer styles of the component: {@link Displayable#DISPLAYED_PROPERTY},
+	 * {@link PresentationModel#VISIBLE_PROPERTY}, {@link PresentationModel#TEXT_COLOR_PROPERTY}, and {@link PresentationModel#OPACITY_PROPERTY}. A subclass
+	 * that adds properties must also override {@link #depictPartial()} to depict them.
+	 * </p>
+	 * @return The properties that can be depicted partially.
+	 * @see #getOuterStyles()
+	 */
+	protected Set<String> getPartiallyDepictableProperties() {
+		return PARTIALLY_DEPICTABLE_PROPERTIES;
+	}
+
+	/**
+	 * Determines whether the component can be depicted partially by patching its existing depiction in place.
+	 * <p>
+	 * This version returns <code>true</code> only if the last full depiction had an outer element identified by the component's depict ID, if all the modified
+	 * properties are partially depictable, and if no descendant component needs to be depicted. A general modification is never partially depictable.
+	 * Descendants needing to be depicted are found using the dirty depicted objects registered with the platform, so the cost scales with the number of
+	 * changed objects rather than with the size of the component hierarchy.
+	 * </p>
+	 * @return <code>true</code> if the component can be depicted partially.
+	 * @see #getPartiallyDepictableProperties()
+	 * @see Platform#getDirtyDepictedObjects()
+	 */
+	protected boolean isPartiallyDepictable() {
+		if(!outerElementIdentified) { //if we can't find the existing depiction, we can't patch it
+			return false;
+		}
+		final Set<String> modifiedProperties = getModifiedProperties(); //get the modified properties
+		if(modifiedProperties.isEmpty() || !getPartiallyDepictableProperties().containsAll(modifiedProperties)) { //the general property is never partially depictable
+			return false;
+		}
+		final C component = getDepictedObject(); //get the depicted component
+		if(component instanceof CompositeComponent) { //dirty descendants are only depicted along with their top-most dirty ancestor, so they would be missed
+			for(final DepictedObject dirtyDepictedObject : getPlatform().getDirtyDepictedObjects()) { //only the dirty objects need checking, not the whole hierarchy
+				if(dirtyDepictedObject != component && dirtyDepictedObject instanceof Component) {
+					for(Component ancestor = ((Component)dirtyDepictedObject).getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+						if(ancestor == component) { //if a descendant needs to be depicted
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Depicts the modified properties of the component by writing patch operations to update its existing depiction in place.
+	 * <p>
+	 * This version patches the style attribute of the outer element with the current outer styles.
+	 * </p>
+	 * @throws IOException if there is an error updating the depiction.
+	 * @see #isPartiallyDepictable()
+	 * @see #getOuterStyles()
+	 */
+	protected void depictPartial() throws IOException {
+		final Map<String, Object> styles = getOuterStyles(); //get the component's outer styles
+		writePatchAttribute(null, null, ATTRIBUTE_STYLE, !styles.isEmpty() ? getCSSStyleString(styles) : null); //if there are no styles, the style attribute will be removed
+	}
+
+	/**
+	 * Writes a patch operation that sets or removes an attribute of an element in the component's existing depiction.
+	 * @param prefix The prefix of the ID of the element to patch, or <code>null</code> if there is no prefix.
+	 * @param suffix The suffix of the ID of the element to patch, or <code>null</code> if there is no suffix.
+	 * @param name The name of the attribute to set or remove.
+	 * @param value The new value of the attribute, or <code>null</code> if the attribute should be removed.
+	 * @throws IOException if there is an error writing the patch operation.
+	 * @see WebPlatform#PATCH_OPERATION_ATTRIBUTE
+	 */
+	protected void writePatchAttribute(final String prefix, final String suffix, final String name, final String value) throws IOException {
+		final WebDepictContext depictContext = getDepictContext(); //get the depict context
+		depictContext.writeElementBegin(XHTML_NAMESPACE_URI, PATCH_OPERATION_ATTRIBUTE); //<xhtml:attribute>
+		writeIDAttribute(prefix, suffix); //id="id"
+		depictContext.writeAttribute(null, PATCH_OPERATION_ATTRIBUTE_NAME, name); //name="name"
+		if(value != null) { //if there is a value
+			depictContext.writeAttribute(null, PATCH_OPERATION_ATTRIBUTE_VALUE, value); //value="value"
+		}
+		depictContext.writeElementEnd(XHTML_NAMESPACE_URI, PATCH_OPERATION_ATTRIBUTE); //</xhtml:attribute>
+	}
+
 	/**
 	 * Begins the depiction process.
 	 * <p>
@@ -227,9 +448,24 @@ protected void depictBody() throws IOException {
 	 * <p>
 	 * This version renders the ending XML element information, if there is any.
 	 * </p>
+	 * <p>
+	 * This version notes whether the element is identified by the component's depict ID, so that the element can later be patched in place.
+	 * </p>
 	 * @throws IOException if there is an error updating the depiction.
+	 * @see #isPartiallyDepictable()
 	 */
 	protected void depictEnd() throws IOException {
+		outerElementIdentified = false; //see if the outer element can be found later for patching
+		if(elementState != null) {
+			final String depictID = getPlatform().getDepictIDString(getDepictedObject().getDepictID()); //get the ID of the component itself, with no prefix or suffix
+			for(final Map.Entry<QualifiedName, String> attribute : elementState.getAttributeMap().entrySet()) { //look for the ID among the element attributes
+				final QualifiedName attributeQualifiedName = attribute.getKey();
+				if(attributeQualifiedName.getNamespaceURI() == null && ATTRIBUTE_ID.equals(attributeQualifiedName.getLocalName())) { //if this is the ID attribute
+					outerElementIdentified = depictID.equals(attribute.getValue()); //some components identify an inner element instead
+					break;
+				}
+			}
+		}
 		if(elementState != null && elementState.isOpen()) { //if the element is open
 			getDepictContext().writeElementEnd(elementState.getNamespaceURI(), elementState.getLocalName()); //end the element
 		}
@@ -270,29 +506,37 @@ protected boolean isMouseListener() {
 	 */
 	protected Set<String> getBaseStyleIDs(final String prefix, final String suffix) {
 		final C component = getDepictedObject(); //get the depicted component
-		final Set<String> baseStyleIDs = new HashSet<String>(); //create a new set of base style IDs
-		//TODO del don't do away with this just yet; it's needed for menus, real-time text validation display, etc.:		if(!component.getSession().getApplication().isThemed())	//if this application isn't themed, provide enough style class information for stylesheet application
-		{
-			final Class<? extends Component> componentClass = (Class<? extends Component>)component.getClass(); //get the component class
-			final String componentClassName = componentClass.getName(); //get the name of the component class
-			String[] classBaseStyleIDs = cachedClassBaseStyleIDs.get(componentClassName); //get the cached base style IDs for this class, if we have them
-			if(classBaseStyleIDs == null) { //if we haven't cached the base style IDs for the class (the race condition here is benign and not worth the synchronization overhead)
-				final List<Class<? extends Component>> componentClasses = getAncestorClasses(componentClass, Component.class, true, true, false, true, null); //add all the super classes and implemented interface (ignoring abstract classes); include the component's class
-				classBaseStyleIDs = new String[componentClasses.size()]; //create a new array of base IDs for component class
-				int i = 0; //keep track of our index
-				for(final Class<?> baseStyleIDClass : componentClasses) { //for each component class
-					classBaseStyleIDs[i++] = getVariableName(baseStyleIDClass); //store the base style ID for this class, incrementing the array index
+		final MemoizedStyles memoizedStyles = getMemoizedStyles();
+		String[] decoratedStyleIDs = memoizedStyles.getDecoratedStyleIDs(prefix, suffix); //see if we've already decorated the class and component style IDs this way
+		if(decoratedStyleIDs == null) {
+			final List<String> styleIDs = new ArrayList<String>();
+			//TODO del don't do away with this just yet; it's needed for menus, real-time text validation display, etc.:		if(!component.getSession().getApplication().isThemed())	//if this application isn't themed, provide enough style class information for stylesheet application
+			{
+				final Class<? extends Component> componentClass = (Class<? extends Component>)component.getClass(); //get the component class
+				final String componentClassName = componentClass.getName(); //get the name of the component class
+				String[] classBaseStyleIDs = cachedClassBaseStyleIDs.get(componentClassName); //get the cached base style IDs for this class, if we have them
+				if(classBaseStyleIDs == null) { //if we haven't cached the base style IDs for the class (the race condition here is benign and not worth the synchronization overhead)
+					final List<Class<? extends Component>> componentClasses = getAncestorClasses(componentClass, Component.class, true, true, false, true, null); //add all the super classes and implemented interface (ignoring abstract classes); include the component's class
+					classBaseStyleIDs = new String[componentClasses.size()]; //create a new array of base IDs for component class
+					int i = 0; //keep track of our index
+					for(final Class<?> baseStyleIDClass : componentClasses) { //for each component class
+						classBaseStyleIDs[i++] = getVariableName(baseStyleIDClass); //store the base style ID for this class, incrementing the array index
+					}
+					cachedClassBaseStyleIDs.put(componentClassName, classBaseStyleIDs); //cache these base style IDs
+				}
+				for(final String classBaseStyleID : classBaseStyleIDs) { //for each relevant component class base ID
+					styleIDs.add(decorateID(classBaseStyleID, prefix, suffix)); //decorate and add the base style ID
 				}
-				cachedClassBaseStyleIDs.put(componentClassName, classBaseStyleIDs); //cache these base style IDs
 			}
-			for(final String classBaseStyleID : classBaseStyleIDs) { //for each relevant component class base ID
-				baseStyleIDs.add(decorateID(classBaseStyleID, prefix, suffix)); //decorate and add the base style ID
+			final String styleID = component.getStyleID(); //get the component's style ID
+			if(styleID != null) { //if the component has a style ID explicitly set
+				styleIDs.add(decorateID(styleID, prefix, suffix)); //add the component's explicit style ID
 			}
+			decoratedStyleIDs = styleIDs.toArray(new String[styleIDs.size()]);
+			memoizedStyles.putDecoratedStyleIDs(prefix, suffix, decoratedStyleIDs);
 		}
-		final String styleID = component.getStyleID(); //get the component's style ID
-		if(styleID != null) { //if the component has a style ID explicitly set
-			baseStyleIDs.add(decorateID(styleID, prefix, suffix)); //add the component's explicit style ID
-		}
+		final Set<String> baseStyleIDs = new HashSet<String>(); //create a new set of base style IDs, which the caller may modify
+		addAll(baseStyleIDs, decoratedStyleIDs);
 		if(!component.isValid()) { //if component is not valid
 			baseStyleIDs.add(INVALID_CLASS); //add the "invalid" class to the component
 		}
@@ -398,11 +642,24 @@ protected Set<String> addFlowStyleIDs(final Set<String> styleIDs, final Flow flo
 	/**
 	 * Retrieves the styles for the outer element of the component.
 	 * <p>
-	 * This version returns the style for color.
+	 * This version returns the style for color. The styles are memoized, and the returned map is shared and may not be modified.
 	 * </p>
 	 * @return The styles for the outer element of the component, mapped to CSS property names.
+	 * @see #invalidateStyles()
 	 */
 	protected Map<String, Object> getOuterStyles() {
+		final MemoizedStyles memoizedStyles = getMemoizedStyles();
+		if(memoizedStyles.outerStyles == null) {
+			memoizedStyles.outerStyles = unmodifiableMap(createOuterStyles());
+		}
+		return memoizedStyles.outerStyles;
+	}
+
+	/**
+	 * Computes the styles for the outer element of the component as returned by {@link #getOuterStyles()}.
+	 * @return A new map of the styles for the outer element of the component, mapped to CSS property names.
+	 */
+	private Map<String, Object> createOuterStyles() {
 		final C component = getDepictedObject(); //get the depicted component
 		final Map<String, Object> styles = new HashMap<String, Object>(); //create a new map of styles
 		if(!component.isDisplayed()) { //if the component is not displayed
@@ -466,11 +723,24 @@ protected Color getBackgroundColor() {
 	/**
 	 * Retrieves the styles for the body element of the component.
 	 * <p>
-	 * This version returns the style for background color.
+	 * This version returns the style for background color. The styles are memoized, and the returned map is shared and may not be modified.
 	 * </p>
 	 * @return The styles for the body element of the component, mapped to CSS property names.
+	 * @see #invalidateStyles()
 	 */
 	protected Map<String, Object> getBodyStyles() {
+		final MemoizedStyles memoizedStyles = getMemoizedStyles();
+		if(memoizedStyles.bodyStyles == null) {
+			memoizedStyles.bodyStyles = unmodifiableMap(createBodyStyles());
+		}
+		return memoizedStyles.bodyStyles;
+	}
+
+	/**
+	 * Computes the styles for the body element of the component as returned by {@link #getBodyStyles()}.
+	 * @return A new map of the styles for the body element of the component, mapped to CSS property names.
+	 */
+	private Map<String, Object> createBodyStyles() {
 		final C component = getDepictedObject(); //get the depicted component
 		final GuiseSession session = getSession(); //get the Guise session
 		final Map<String, Object> styles = new HashMap<String, Object>(); //create a new map of styles
@@ -644,8 +914,35 @@ protected void writeClassAttribute(final Set<String> styleIDs) throws IOExceptio
 	 */
 	protected void writeStyleAttribute(final Map<String, Object> styles) throws IOException {
 		if(!styles.isEmpty()) { //if there is at least one style
-			getDepictContext().writeAttribute(null, ATTRIBUTE_STYLE, getDepictContext().getCSSStyleString(styles, getDepictedObject().getComponentOrientation())); //construct the style and write the style attribute
+			getDepictContext().writeAttribute(null, ATTRIBUTE_STYLE, getCSSStyleString(styles)); //construct the style and write the style attribute
+		}
+	}
+
+	/**
+	 * Returns the CSS style string for the given styles in the orientation of the component. If the styles are the memoized outer or body styles, the memoized
+	 * string for those styles is returned.
+	 * @param styles The map of styles, each keyed to a CSS style property.
+	 * @return The CSS style string.
+	 * @see #getOuterStyles()
+	 * @see #getBodyStyles()
+	 */
+	protected String getCSSStyleString(final Map<String, Object> styles) {
+		final MemoizedStyles memoizedStyles = this.memoizedStyles;
+		if(memoizedStyles != null) { //the styles can only be identical to memoized styles that are still current
+			if(styles == memoizedStyles.outerStyles) {
+				if(memoizedStyles.outerStyleString == null) {
+					memoizedStyles.outerStyleString = getDepictContext().getCSSStyleString(styles, memoizedStyles.orientation);
+				}
+				return memoizedStyles.outerStyleString;
+			}
+			if(styles == memoizedStyles.bodyStyles) {
+				if(memoizedStyles.bodyStyleString == null) {
+					memoizedStyles.bodyStyleString = getDepictContext().getCSSStyleString(styles, memoizedStyles.orientation);
+				}
+				return memoizedStyles.bodyStyleString;
+			}
 		}
+		return getDepictContext().getCSSStyleString(styles, getDepictedObject().getComponentOrientation());
 	}
 
 	/**
@@ -1025,45 +1322,6 @@ protected void componentPropertyChange(final PropertyChangeEvent propertyChangeE
 		}
 	*/
 
-	/**
-	 * Determines if this view can be partially updated.
-	 * @param context Guise context information.
-	 * @param component The controlled component.
-	 * @return true if this part of this view can be updated without rendering the view from scratch.
-	 * @throws IOException if there is an error rendering the component.
-	 */
-	/*TODO del if can't be salvaged
-		protected boolean isPartiallyUpdateable(final GC context, final C component) throws IOException
-		{
-			final Set<String> modifiedProperties=getModifiedProperties();	//get the modified properties
-				//TODO change to isOnlyStyleModified() or something
-			return !modifiedProperties.contains(GENERAL_COMPONENT_PROPERTY)	//if a general modification did not occur
-					&& modifiedProperties.size()==1	//and if only one property was modified
-					&& (modifiedProperties.contains(Displayable.DISPLAYED_PROPERTY) || modifiedProperties.contains(Component.VISIBLE_PROPERTY));	//and that one property was the "displayed" or "visible" property
-		}
-	*/
-
-	/**
-	 * Updates a part of the view, based upon the modified properties.
-	 * @param context Guise context information.
-	 * @param component The controlled component.
-	 * @throws IOException if there is an error rendering the component.
-	 */
-	/*TODO del if can't be salvaged
-		protected void updatePartial(final GC context, final C component) throws IOException
-		{
-				//TODO fix for non-style attributes
-			context.writeElementBegin(null, "attribute");	//<attribute> TODO decide on namespace; use constant
-			context.writeAttribute(null, "id", component.getID());	//id="componentID"	//TODO use constant
-			context.writeAttribute(null, "name", ATTRIBUTE_STYLE);	//name="style"	//TODO use constant
-			final Map<String, Object> styles=getOuterStyles(context, component);	//write the component's outer styles
-			if(styles!=null) {	//if there are styles
-				context.writeAttribute(null, "value", CSSUtilities.toString(styles));	//construct the style and write the attribute value						
-			}
-			context.writeElementEnd(null, "attribute");	//</attribute> TODO decide on namespace; use constant
-		}
-	*/
-
 	/**
 	 * Initializes the axis and direction style ID arrays for quick lookup.
 	 * @see #AXIS_STYLE_IDS
@@ -1111,4 +1369,117 @@ protected void updatePartial(final GC context, final C component) throws IOExcep
 		}
 	}
 
+	/**
+	 * The styles and style IDs computed for the component, along with the state on which they depend. The instance is replaced rather than cleared when the
+	 * styles are invalidated, so a depiction in progress never sees styles computed from different state.
+	 * @author Garret Wilson
+	 */
+	private static class MemoizedStyles {
+
+		/** The component orientation when the styles were computed. */
+		private final Orientation orientation;
+
+		/** The session theme URI when the styles were computed. */
+		private final URI themeURI;
+
+		/** The unmodifiable outer styles, or <code>null</code> if they have not yet been computed. */
+		private Map<String, Object> outerStyles = null;
+
+		/** The CSS string of the outer styles, or <code>null</code> if it has not yet been computed. */
+		private String outerStyleString = null;
+
+		/** The unmodifiable body styles, or <code>null</code> if they have not yet been computed. */
+		private Map<String, Object> bodyStyles = null;
+
+		/** The CSS string of the body styles, or <code>null</code> if it has not yet been computed. */
+		private String bodyStyleString = null;
+
+		/** The prefix, suffix, and decorated class and component style IDs of each decoration, in that order; a component uses too few decorations to need a map. */
+		private final List<Object> decoratedStyleIDs = new ArrayList<Object>(6);
+
+		/**
+		 * Constructor.
+		 * @param orientation The component orientation when the styles are computed.
+		 * @param themeURI The session theme URI when the styles are computed, or <code>null</code> if there is no theme.
+		 */
+		public MemoizedStyles(final Orientation orientation, final URI themeURI) {
+			this.orientation = requireNonNull(orientation);
+			this.themeURI = themeURI;
+		}
+
+		/**
+		 * Retrieves the class and component style IDs decorated with the given prefix and suffix.
+		 * @param prefix The prefix, or <code>null</code> if there is no prefix.
+		 * @param suffix The suffix, or <code>null</code> if there is no suffix.
+		 * @return The decorated style IDs, or <code>null</code> if they have not yet been decorated with the given prefix and suffix.
+		 */
+		public String[] getDecoratedStyleIDs(final String prefix, final String suffix) {
+			for(int i = 0; i < decoratedStyleIDs.size(); i += 3) {
+				if(Objects.equals(decoratedStyleIDs.get(i), prefix) && Objects.equals(decoratedStyleIDs.get(i + 1), suffix)) {
+					return (String[])decoratedStyleIDs.get(i + 2);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Memoizes the class and component style IDs decorated with the given prefix and suffix.
+		 * @param prefix The prefix, or <code>null</code> if there is no prefix.
+		 * @param suffix The suffix, or <code>null</code> if there is no suffix.
+		 * @param styleIDs The decorated style IDs.
+		 */
+		public void putDecoratedStyleIDs(final String prefix, final String suffix, final String[] styleIDs) {
+			decoratedStyleIDs.add(prefix);
+			decoratedStyleIDs.add(suffix);
+			decoratedStyleIDs.add(styleIDs);
+		}
+	}
+
+	/**
+	 * A depiction of the component and its descendants, along with the state on which the depiction depends.
+	 * @author Garret Wilson
+	 */
+	private static class CachedDepiction {
+
+		/** The depicted fragment. */
+		private final DepictFragment fragment;
+
+		/** The count of modifications to the component and its descendants when the depiction began. */
+		private final long modificationCount;
+
+		/** The session locale at the time of depiction. */
+		private final Locale locale;
+
+		/** The session theme URI at the time of depiction. */
+		private final URI themeURI;
+
+		/** The session principal at the time of depiction, or <code>null</code> if there was no principal. */
+		private final Principal principal;
+
+		/**
+		 * Constructor.
+		 * @param fragment The depicted fragment.
+		 * @param modificationCount The count of modifications to the component and its descendants when the depiction began.
+		 * @param session The session in which the component was depicted.
+		 */
+		public CachedDepiction(final DepictFragment fragment, final long modificationCount, final GuiseSession session) {
+			this.fragment = requireNonNull(fragment);
+			this.modificationCount = modificationCount;
+			this.locale = session.getLocale();
+			this.themeURI = session.getThemeURI();
+			this.principal = session.getPrincipal();
+		}
+
+		/**
+		 * Determines whether the cached depiction is still the depiction of the component.
+		 * @param modificationCount The current count of modifications to the component and its descendants.
+		 * @param session The session in which the component is being depicted.
+		 * @return <code>true</code> if neither the component nor the session state on which the depiction depends have changed.
+		 */
+		public boolean isCurrent(final long modificationCount, final GuiseSession session) {
+			return this.modificationCount == modificationCount && locale.equals(session.getLocale()) && Objects.equals(themeURI, session.getThemeURI())
+					&& Objects.equals(principal, session.getPrincipal());
+		}
+	}
+
 }
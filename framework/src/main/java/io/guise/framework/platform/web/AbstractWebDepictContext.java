@@ -28,6 +28,7 @@
 import io.guise.framework.component.layout.Orientation;
 import io.guise.framework.geometry.*;
 import io.guise.framework.platform.AbstractXHTMLDepictContext;
+import io.guise.framework.platform.DepictBuffers;
 import io.guise.framework.platform.web.WebPlatform;
 import io.guise.framework.platform.web.facebook.Facebook;
 import io.guise.framework.style.*;
@@ -65,6 +66,17 @@ public boolean isQuirksMode() {
 		return false;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation always returns <code>false</code>.
+	 * </p>
+	 */
+	@Override
+	public boolean isAnonymous() {
+		return false;
+	}
+
 	@Override
 	public WebPlatform getPlatform() {
 		return (WebPlatform)super.getPlatform();
@@ -78,7 +90,19 @@ public WebPlatform getPlatform() {
 	 * @throws IOException If there was an I/O error loading a needed resource.
 	 */
 	public AbstractWebDepictContext(final GuiseSession session, final Destination destination) throws IOException {
-		super(session, destination); //construct the parent class
+		this(session, destination, new DepictBuffers()); //construct the class with new buffers
+	}
+
+	/**
+	 * Guise session and depict buffers constructor.
+	 * @param session The Guise user session of which this context is a part.
+	 * @param destination The destination with which this context is associated.
+	 * @param depictBuffers The empty scratch buffers in which to collect the depiction, which may be reused once this context is no longer used.
+	 * @throws NullPointerException if the given session, destination, and/or depict buffers is null.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 */
+	public AbstractWebDepictContext(final GuiseSession session, final Destination destination, final DepictBuffers depictBuffers) throws IOException {
+		super(session, destination, depictBuffers); //construct the parent class
 		getXMLNamespacePrefixManager().registerNamespacePrefix(GUISE_ML_NAMESPACE_URI.toString(), GUISE_ML_NAMESPACE_PREFIX); //map the Guise namespace to the Guise prefix
 		getXMLNamespacePrefixManager().registerNamespacePrefix(OpenGraph.NAMESPACE_URI.toString(), OpenGraph.NAMESPACE_PREFIX); //map the Open Graph namespace to the Open Graph prefix
 		getXMLNamespacePrefixManager().registerNamespacePrefix(Facebook.NAMESPACE_URI.toString(), Facebook.NAMESPACE_PREFIX); //map the Facebook namespace to the Facebook prefix
@@ -86,7 +110,8 @@ public AbstractWebDepictContext(final GuiseSession session, final Destination de
 
 	@Override
 	public String getCSSStyleString(final Map<String, Object> styles, final Orientation orientation) {
-		final StringBuilder stringBuilder = new StringBuilder(); //create a new string builder for style
+		final StringBuilder stringBuilder = getDepictBuffers().getStyleStringBuilder(); //assemble the style in a scratch buffer
+		stringBuilder.setLength(0);
 		for(final Map.Entry<String, Object> entry : styles.entrySet()) { //for each style entry
 			String property = entry.getKey(); //get the property
 			Object value = entry.getValue(); //get the value
@@ -52,6 +52,31 @@ public Queue<WebPlatformMessage> getSendMessageQueue() {
 		return (Queue<WebPlatformMessage>)super.getSendMessageQueue();
 	}
 
+	/** The maximum number of pages, such as browser tabs, for which a depiction is retained; the least recently used retained depiction is discarded. */
+	public static final int MAX_RETAINED_DEPICTION_PAGE_COUNT = 8;
+
+	/** The depictions last sent to the pages of the client, keyed to page tokens and ordered from least to most recently used. */
+	private final Map<String, RetainedWebDepiction> retainedDepictions = synchronizedMap(
+			new LinkedHashMap<String, RetainedWebDepiction>(MAX_RETAINED_DEPICTION_PAGE_COUNT * 2, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, RetainedWebDepiction> eldest) {
+					return size() > MAX_RETAINED_DEPICTION_PAGE_COUNT;
+				}
+			});
+
+	@Override
+	public RetainedWebDepiction getRetainedDepiction(final String pageToken) {
+		return retainedDepictions.computeIfAbsent(requireNonNull(pageToken), token -> new RetainedWebDepiction());
+	}
+
+	/** The index of live components by depict ID and depict name. */
+	private final WebComponentIndex componentIndex = new WebComponentIndex(this);
+
+	@Override
+	public WebComponentIndex getComponentIndex() {
+		return componentIndex;
+	}
+
 	/** The map of poll intervals requested for depicted objects. */
 	private final Map<DepictedObject, Integer> requestedPollIntervalMap = synchronizedMap(new HashMap<DepictedObject, Integer>());
 
@@ -117,7 +142,17 @@ public boolean discontinuePollInterval(final DepictedObject depictedObject) {
 	 * @throws NullPointerException if the given application is <code>null</code>.
 	 */
 	public AbstractWebPlatform(final GuiseApplication application) {
-		super(application); //construct the parent class
+		this(application, new DepictorRegistry());
+	}
+
+	/**
+	 * Application and depictor registry constructor.
+	 * @param application The Guise application running on this platform.
+	 * @param depictorRegistry The registrations of depictors for depicted object types, which should be sealed if shared with other platforms.
+	 * @throws NullPointerException if the given application and/or depictor registry is <code>null</code>.
+	 */
+	public AbstractWebPlatform(final GuiseApplication application, final DepictorRegistry depictorRegistry) {
+		super(application, depictorRegistry); //construct the parent class
 		this.environment = new DefaultEnvironment(); //create a new environment
 		//TODO del; don't copy application environment properties; currently this exposes application-level passwords; this information needs to be removed from the application environment, though		environment.setProperties(application.getEnvironment().getProperties());	//copy the application environment to the platform environment
 		//TODO create some sort of configuration that gets loaded on this platform
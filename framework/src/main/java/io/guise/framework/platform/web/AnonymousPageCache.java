@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform.web;
+
+import static com.globalmentor.java.Conditions.*;
+import static com.globalmentor.java.Objects.*;
+import static com.globalmentor.servlet.http.HTTPServlets.*;
+import static java.util.Arrays.*;
+import static java.util.Objects.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.globalmentor.net.ContentType;
+
+import io.guise.framework.ComponentDestination;
+
+/**
+ * An application-wide cache of the depictions of anonymous component destinations, shared among all visitors that do not yet have a session.
+ * <p>
+ * A page is cached for each combination of requested URI (including any query, and therefore any bookmark), accepted languages, and user agent, as these
+ * determine the locale and the user agent-specific details of a depiction made for a new session. A cached page is discarded once it is older than the
+ * time-to-live, and once the cache holds its maximum number of pages, the least recently used page is discarded to make room for another.
+ * </p>
+ * <p>
+ * Two requests missing the same page at the same time will both depict the page; the last depiction made is the one cached.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ * @author Garret Wilson
+ * @see ComponentDestination#isAnonymous()
+ */
+public class AnonymousPageCache {
+
+	/** The default maximum number of pages cached. */
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	/** The default time a page is cached before being depicted again. */
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+	/** The maximum number of pages cached. */
+	private final int maxSize;
+
+	/** @return The maximum number of pages cached. */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/** The time a page is cached before being depicted again. */
+	private final Duration timeToLive;
+
+	/** @return The time a page is cached before being depicted again. */
+	public Duration getTimeToLive() {
+		return timeToLive;
+	}
+
+	/** The time a page is cached before being depicted again, in nanoseconds. */
+	private final long timeToLiveNanos;
+
+	/** The cached pages, keyed to the requests they satisfy, in order of access; guarded by the map itself. */
+	private final LinkedHashMap<Key, Page> pages;
+
+	/** The number of requests satisfied by a cached page. */
+	private final LongAdder hitCount = new LongAdder();
+
+	/** @return The number of requests satisfied by a cached page. */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/** The number of requests for which no current page was cached. */
+	private final LongAdder missCount = new LongAdder();
+
+	/** @return The number of requests for which no current page was cached. */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/** Default constructor using the default maximum size and time-to-live. */
+	public AnonymousPageCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Full constructor.
+	 * @param maxSize The maximum number of pages cached.
+	 * @param timeToLive The time a page is cached before being depicted again.
+	 * @throws NullPointerException if the given time-to-live is <code>null</code>.
+	 * @throws IllegalArgumentException if the given maximum size is not positive, or the given time-to-live is negative.
+	 */
+	public AnonymousPageCache(final int maxSize, final Duration timeToLive) {
+		checkArgument(maxSize > 0, "Maximum size %d is not positive.", maxSize);
+		checkArgument(!timeToLive.isNegative(), "Time-to-live %s is negative.", timeToLive);
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		pages = new LinkedHashMap<Key, Page>(16, 0.75f, true) { //keep the pages in access order
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, Page> eldest) {
+				return size() > AnonymousPageCache.this.maxSize; //discard the least recently used page if there are too many
+			}
+		};
+	}
+
+	/**
+	 * Retrieves the page cached for the given request, if it is still current.
+	 * @param httpRequest The HTTP request for the page.
+	 * @return The page cached for the request, or <code>null</code> if no current page is cached for the request.
+	 */
+	public Page get(final HttpServletRequest httpRequest) {
+		final Key key = new Key(httpRequest);
+		final Page page;
+		synchronized(pages) {
+			Page cachedPage = pages.get(key);
+			if(cachedPage != null && System.nanoTime() - cachedPage.createdNanos > timeToLiveNanos) { //if the page has expired, get rid of it
+				pages.remove(key);
+				cachedPage = null;
+			}
+			page = cachedPage;
+		}
+		(page != null ? hitCount : missCount).increment();
+		return page;
+	}
+
+	/**
+	 * Caches a page for the given request, replacing any page already cached for the request.
+	 * @param httpRequest The HTTP request for the page.
+	 * @param page The page satisfying the request.
+	 * @throws NullPointerException if the given page is <code>null</code>.
+	 */
+	public void put(final HttpServletRequest httpRequest, final Page page) {
+		final Key key = new Key(httpRequest);
+		requireNonNull(page, "Page cannot be null.");
+		synchronized(pages) {
+			pages.put(key, page);
+		}
+	}
+
+	/** Discards all cached pages. */
+	public void clear() {
+		synchronized(pages) {
+			pages.clear();
+		}
+	}
+
+	/**
+	 * The identification of the requests that may be satisfied by the same page.
+	 * @author Garret Wilson
+	 */
+	private static class Key {
+
+		/** The full requested URI, including any query. */
+		private final URI requestURI;
+
+		/** The languages accepted by the user agent, in order of preference. */
+		private final List<Locale> acceptedLanguages;
+
+		/** The name of the user agent, or <code>null</code> if the user agent is not known. */
+		private final String userAgentName;
+
+		/** The version of the user agent, or <code>null</code> if the version is not known. */
+		private final String userAgentVersion;
+
+		/** The hash code, calculated once. */
+		private final int hashCode;
+
+		/**
+		 * HTTP request constructor.
+		 * @param httpRequest The HTTP request for the page.
+		 */
+		public Key(final HttpServletRequest httpRequest) {
+			requestURI = getRequestURI(httpRequest);
+			acceptedLanguages = asList(getAcceptedLanguages(httpRequest));
+			final Map<String, Object> userAgentProperties = getUserAgentProperties(httpRequest);
+			userAgentName = asInstance(userAgentProperties.get(USER_AGENT_NAME_PROPERTY), String.class).orElse(null);
+			userAgentVersion = asInstance(userAgentProperties.get(USER_AGENT_VERSION_PROPERTY), String.class).orElse(null);
+			hashCode = Objects.hash(requestURI, acceptedLanguages, userAgentName, userAgentVersion);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object object) {
+			if(this == object) {
+				return true;
+			}
+			if(!(object instanceof Key)) {
+				return false;
+			}
+			final Key key = (Key)object;
+			return requestURI.equals(key.requestURI) && acceptedLanguages.equals(key.acceptedLanguages) && Objects.equals(userAgentName, key.userAgentName)
+					&& Objects.equals(userAgentVersion, key.userAgentVersion);
+		}
+	}
+
+	/**
+	 * A depicted page.
+	 * <p>
+	 * This class is immutable.
+	 * </p>
+	 * @author Garret Wilson
+	 */
+	public static final class Page {
+
+		/** The content type of the page. */
+		private final ContentType contentType;
+
+		/** @return The content type of the page. */
+		public ContentType getContentType() {
+			return contentType;
+		}
+
+		/** The locale in which the page was depicted. */
+		private final Locale locale;
+
+		/** @return The locale in which the page was depicted. */
+		public Locale getLocale() {
+			return locale;
+		}
+
+		/** The depicted text of the page. */
+		private final String text;
+
+		/** @return The depicted text of the page. */
+		public String getText() {
+			return text;
+		}
+
+		/** The time the page was created, in nanoseconds of {@link System#nanoTime()}. */
+		private final long createdNanos = System.nanoTime();
+
+		/**
+		 * Constructor.
+		 * @param contentType The content type of the page.
+		 * @param locale The locale in which the page was depicted.
+		 * @param text The depicted text of the page.
+		 * @throws NullPointerException if the given content type, locale, and/or text is <code>null</code>.
+		 */
+		public Page(final ContentType contentType, final Locale locale, final String text) {
+			this.contentType = requireNonNull(contentType, "Content type cannot be null.");
+			this.locale = requireNonNull(locale, "Locale cannot be null.");
+			this.text = requireNonNull(text, "Text cannot be null.");
+		}
+	}
+
+}
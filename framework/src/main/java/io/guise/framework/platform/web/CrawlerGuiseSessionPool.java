@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform.web;
+
+import static com.globalmentor.java.Conditions.*;
+import static com.globalmentor.net.URIs.*;
+import static com.globalmentor.servlet.Servlets.*;
+import static com.globalmentor.servlet.http.HTTPServlets.*;
+import static java.util.Arrays.*;
+import static java.util.Objects.*;
+
+import java.net.URI;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletRequest;
+
+import io.guise.framework.*;
+
+/**
+ * A pool of throwaway Guise sessions for serving web crawlers that do not maintain sessions. Each request from such a crawler leases a session of its own for
+ * the duration of the request, so that crawler requests are serviced concurrently rather than contending for a single shared session. No HTTP session is
+ * created for a crawler, so crawler sessions never appear in the HTTP session registry.
+ * <p>
+ * When a lease is released, the session is returned to the pool unless the pool already holds {@link #getMaxIdleCount()} idle sessions or the session has
+ * already served {@link #getMaxUseCount()} requests, in which case the session is destroyed. Crawler state therefore never accumulates in a session for long,
+ * and the number of idle sessions held is bounded; when all pooled sessions are leased, additional sessions are created as needed.
+ * </p>
+ * @author Garret Wilson
+ * @see HTTPServletGuiseSessionManager#isUnsessionedCrawler(HttpServletRequest)
+ */
+public class CrawlerGuiseSessionPool {
+
+	/** The default maximum number of requests a session serves before it is destroyed. */
+	public static final int DEFAULT_MAX_USE_COUNT = 100;
+
+	/** The Guise container that owns the sessions. */
+	private final HTTPServletGuiseContainer guiseContainer;
+
+	/** The Guise application that owns the sessions. */
+	private final GuiseApplication guiseApplication;
+
+	/** @return The Guise application that owns the sessions. */
+	public GuiseApplication getGuiseApplication() {
+		return guiseApplication;
+	}
+
+	/** The maximum number of idle sessions kept in the pool. */
+	private final int maxIdleCount;
+
+	/** @return The maximum number of idle sessions kept in the pool. */
+	public int getMaxIdleCount() {
+		return maxIdleCount;
+	}
+
+	/** The maximum number of requests a session serves before it is destroyed. */
+	private final int maxUseCount;
+
+	/** @return The maximum number of requests a session serves before it is destroyed. */
+	public int getMaxUseCount() {
+		return maxUseCount;
+	}
+
+	/** The idle sessions, most recently used first. */
+	private final BlockingDeque<PooledSession> idleSessions;
+
+	/** Whether the pool has been cleared and no longer accepts sessions. */
+	private volatile boolean cleared = false;
+
+	/**
+	 * Container and application constructor. One idle session is kept for each available processor.
+	 * @param guiseContainer The Guise container that owns the sessions.
+	 * @param guiseApplication The Guise application that owns the sessions.
+	 * @throws NullPointerException if the given container and/or application is <code>null</code>.
+	 */
+	public CrawlerGuiseSessionPool(final HTTPServletGuiseContainer guiseContainer, final GuiseApplication guiseApplication) {
+		this(guiseContainer, guiseApplication, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_USE_COUNT);
+	}
+
+	/**
+	 * Full constructor.
+	 * @param guiseContainer The Guise container that owns the sessions.
+	 * @param guiseApplication The Guise application that owns the sessions.
+	 * @param maxIdleCount The maximum number of idle sessions kept in the pool.
+	 * @param maxUseCount The maximum number of requests a session serves before it is destroyed.
+	 * @throws NullPointerException if the given container and/or application is <code>null</code>.
+	 * @throws IllegalArgumentException if the given maximum idle count is negative or the given maximum use count is not positive.
+	 */
+	public CrawlerGuiseSessionPool(final HTTPServletGuiseContainer guiseContainer, final GuiseApplication guiseApplication, final int maxIdleCount,
+			final int maxUseCount) {
+		this.guiseContainer = requireNonNull(guiseContainer, "Guise container cannot be null.");
+		this.guiseApplication = requireNonNull(guiseApplication, "Guise application cannot be null.");
+		checkArgument(maxIdleCount >= 0, "Maximum idle count %d is negative.", maxIdleCount);
+		checkArgument(maxUseCount > 0, "Maximum use count %d is not positive.", maxUseCount);
+		this.maxIdleCount = maxIdleCount;
+		this.maxUseCount = maxUseCount;
+		idleSessions = new LinkedBlockingDeque<PooledSession>(Math.max(maxIdleCount, 1));
+	}
+
+	/**
+	 * Leases a session for servicing the given request, creating one if no idle session is available. The session's locale and depiction root URI are updated
+	 * to match the request. The lease must be released when the request has been serviced.
+	 * @param httpRequest The HTTP request from the crawler.
+	 * @return A lease of a session for the request.
+	 * @throws IllegalStateException if the pool has been cleared.
+	 */
+	public Lease lease(final HttpServletRequest httpRequest) {
+		if(cleared) {
+			throw new IllegalStateException("Crawler session pool has been cleared.");
+		}
+		PooledSession pooledSession = idleSessions.pollFirst(); //reuse the most recently used session, which is most likely to have the destination components already created
+		if(pooledSession == null) {
+			pooledSession = new PooledSession(guiseContainer.createCrawlerGuiseSession(guiseApplication, httpRequest));
+		}
+		final GuiseSession guiseSession = pooledSession.getGuiseSession();
+		guiseSession.requestLocale(asList(getAcceptedLanguages(httpRequest))); //each crawler may ask for a different language
+		guiseSession.setDepictionRootURI(getPlainURI(resolve(URI.create(httpRequest.getRequestURL().toString()), ROOT_PATH)));
+		return new Lease(pooledSession);
+	}
+
+	/**
+	 * Returns a session to the pool after use, or destroys it if it has served enough requests or the pool is full.
+	 * @param pooledSession The session being returned.
+	 */
+	protected void release(final PooledSession pooledSession) {
+		if(!cleared && pooledSession.incrementUseCount() < maxUseCount && maxIdleCount > 0 && idleSessions.offerFirst(pooledSession)) {
+			if(cleared) { //if the pool was cleared while we were returning the session, make sure the session doesn't linger
+				clear();
+			}
+			return;
+		}
+		remove(pooledSession.getGuiseSession());
+	}
+
+	/** Clears the pool, destroying all idle sessions. Sessions currently leased will be destroyed when they are released. */
+	public void clear() {
+		cleared = true;
+		PooledSession pooledSession;
+		while((pooledSession = idleSessions.pollFirst()) != null) {
+			remove(pooledSession.getGuiseSession());
+		}
+	}
+
+	/**
+	 * Destroys a session. Destruction takes place asynchronously, so that a session may be released from within the work of another session.
+	 * @param guiseSession The session to destroy.
+	 * @see HTTPServletGuiseContainer#removeCrawlerGuiseSession(GuiseSession)
+	 */
+	protected void remove(final GuiseSession guiseSession) {
+		guiseContainer.removeCrawlerGuiseSession(guiseSession);
+	}
+
+	/**
+	 * A session in the pool, along with the number of requests it has served.
+	 * @author Garret Wilson
+	 */
+	protected static class PooledSession {
+
+		/** The Guise session. */
+		private final GuiseSession guiseSession;
+
+		/** @return The Guise session. */
+		public GuiseSession getGuiseSession() {
+			return guiseSession;
+		}
+
+		/** The number of requests the session has served; only accessed by the lease holder. */
+		private int useCount = 0;
+
+		/**
+		 * Session constructor.
+		 * @param guiseSession The Guise session.
+		 */
+		public PooledSession(final GuiseSession guiseSession) {
+			this.guiseSession = requireNonNull(guiseSession);
+		}
+
+		/**
+		 * Records that the session has served another request.
+		 * @return The number of requests the session has now served.
+		 */
+		public int incrementUseCount() {
+			return ++useCount;
+		}
+
+	}
+
+	/**
+	 * The lease of a session for servicing a single request.
+	 * @author Garret Wilson
+	 */
+	public class Lease {
+
+		/** The leased session. */
+		private final PooledSession pooledSession;
+
+		/** Whether the lease has been released. */
+		private final AtomicBoolean released = new AtomicBoolean(false);
+
+		/**
+		 * Pooled session constructor.
+		 * @param pooledSession The leased session.
+		 */
+		protected Lease(final PooledSession pooledSession) {
+			this.pooledSession = requireNonNull(pooledSession);
+		}
+
+		/** @return The leased Guise session. */
+		public GuiseSession getGuiseSession() {
+			return pooledSession.getGuiseSession();
+		}
+
+		/** Returns the session to the pool. Releasing a lease more than once has no effect. */
+		public void release() {
+			if(released.compareAndSet(false, true)) {
+				CrawlerGuiseSessionPool.this.release(pooledSession);
+			}
+		}
+
+	}
+
+}
@@ -22,15 +22,21 @@
 import java.net.*;
 import java.nio.charset.Charset;
 import java.security.Principal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.nio.charset.StandardCharsets.*;
 import static java.util.Collections.*;
 import static java.util.Objects.*;
+import static java.util.concurrent.TimeUnit.*;
 
 import javax.servlet.*;
 import javax.servlet.http.*;
+import javax.websocket.DeploymentException;
+import javax.websocket.server.ServerContainer;
 import javax.xml.parsers.*;
 
 import com.globalmentor.collections.CollectionMap;
@@ -73,7 +79,6 @@
 import static com.globalmentor.io.Files.*;
 import static com.globalmentor.java.Enums.*;
 import static com.globalmentor.java.Objects.*;
-import static com.globalmentor.java.Threads.*;
 import static com.globalmentor.net.URIs.*;
 import static com.globalmentor.net.HTTP.*;
 import static com.globalmentor.servlet.Servlets.*;
@@ -98,6 +103,49 @@
  * For all {@link ResourceReadDestination}s, this servlet recognizes a query parameter named {@value #GUISE_CONTENT_DISPOSITION_URI_QUERY_PARAMETER} specifying
  * the content disposition of the content to return; the value is the serialize version of a {@link ContentDispositionType} value.
  * </p>
+ * <p>
+ * If the servlet is deployed with asynchronous support enabled, requests for Guise destinations, including AJAX requests, uploads, and resource reads, are
+ * serviced asynchronously using the application's {@link GuiseSessionExecutor}, and the container thread is released as soon as the work is submitted.
+ * </p>
+ * <p>
+ * With asynchronous support the client is also told to replace fixed-interval polling with a push channel: an AJAX request marked with the
+ * {@value #PUSH_REQUEST_HEADER} header is held open until the session platform reports a change, and is then answered with the usual AJAX response.
+ * </p>
+ * <p>
+ * If {@link #WEB_SOCKET_INIT_PARAMETER} is enabled and the container supports JSR 356, a {@link GuiseWebSocketEndpoint} is deployed at
+ * {@link #WEB_SOCKET_PATH} relative to the servlet, and each page is told to carry its AJAX requests and responses over a WebSocket. The page continues to
+ * use HTTP until the WebSocket is open, and falls back to HTTP if the WebSocket closes.
+ * </p>
+ * <p>
+ * Requests for component destinations, over HTTP or a WebSocket, must be admitted by the application's {@link GuiseAdmissionController} before events are
+ * dispatched and components depicted. Polls and push requests, as well as AJAX requests marked with the {@value #BACKGROUND_REQUEST_HEADER} header, are
+ * admitted only if there is capacity; other requests may wait briefly for a turn. A request that is not admitted is answered with
+ * {@link HttpServletResponse#SC_SERVICE_UNAVAILABLE} and a {@value #RETRY_AFTER_HEADER} header. Resources in reserved paths, resource destinations, and
+ * uploads are not subject to admission control.
+ * </p>
+ * <p>
+ * A GET request without a session for an anonymous component destination, as indicated by {@link ComponentDestination#isAnonymous()}, is answered from the
+ * servlet's {@link AnonymousPageCache} without creating a session. A page not yet cached is depicted using a throwaway session created for the purpose, so the
+ * page is the same as that a new session would depict. The page defers contacting the server until the user interacts with it; the session then created
+ * depicts the destination again before its first events are dispatched, so that the components of the new session correspond to those of the page. A
+ * destination whose page refers to the session that depicted it, as with an upload destination identifying the session, is not shared, and each visitor
+ * receives a session as usual.
+ * </p>
+ * <p>
+ * The page of a component destination requested by a non-AJAX GET is sent with an entity tag derived from the state of the session and the modification counts
+ * of its frames, and may be kept by the user agent as long as it is revalidated. A refresh or a back/forward navigation to a page that has not changed is
+ * answered with {@link HttpServletResponse#SC_NOT_MODIFIED}, without depicting the page again.
+ * </p>
+ * <p>
+ * Guise assets bundled in the Guise distributable, such as the Guise JavaScript and theme stylesheets, are served from the bounded {@link GuiseAssetCache},
+ * compressed once when loaded and identified by strong entity tags derived from their content, so that conditional requests are answered with
+ * {@link HttpServletResponse#SC_NOT_MODIFIED}.
+ * </p>
+ * <p>
+ * The depicted text of component destinations, as well as the text of anonymous pages, is encoded directly into the response by the servlet's
+ * {@link ResponseEncoder}, using pooled buffers and compressors. Text shorter than the compression threshold is sent without compression, as compressing it
+ * would cost more than it would save.
+ * </p>
  * This servlet supports the following initialization parameters in addition to those in {@link BaseHTTPServlet}:
  * <dl>
  * <dt>{@link Servlets#DATA_DIRECTORY_INIT_PARAMETER}</dt>
@@ -112,6 +160,30 @@
  * <dd>Whether HTTP communication is logged.</dd>
  * <dt>{@link #PROFILE_INIT_PARAMETER}</dt>
  * <dd>Whether profiling should occur; should be "true" or "false".</dd>
+ * <dt>{@link #SESSION_EXECUTOR_POOL_SIZE_INIT_PARAMETER}</dt>
+ * <dd>The number of pooled threads for executing work in the context of Guise sessions; if not present, a new thread is created for each request.</dd>
+ * <dt>{@link #SESSION_MAILBOX_INIT_PARAMETER}</dt>
+ * <dd>Whether event dispatch and depiction for each Guise session should be serialized through a per-session mailbox rather than by locking; should be "true"
+ * or "false". Work is pooled, using one thread per available processor unless a pool size is specified.</dd>
+ * <dt>{@link #WEB_SOCKET_INIT_PARAMETER}</dt>
+ * <dd>Whether pages should communicate with the server over a WebSocket when the container supports it; should be "true" or "false".</dd>
+ * <dt>{@link #ADMISSION_CONCURRENCY_INIT_PARAMETER}</dt>
+ * <dd>The maximum number of requests for which events are dispatched and components depicted concurrently across all sessions; if not present, no limit is
+ * imposed.</dd>
+ * <dt>{@link #ADMISSION_QUEUE_LENGTH_INIT_PARAMETER}</dt>
+ * <dd>The maximum number of requests waiting for admission once the concurrency limit is reached; defaults to the concurrency limit.</dd>
+ * <dt>{@link #ADMISSION_MAX_WAIT_INIT_PARAMETER}</dt>
+ * <dd>The maximum time, in milliseconds, a request waits for admission before being rejected.</dd>
+ * <dt>{@link #RETAINED_DEPICTION_INIT_PARAMETER}</dt>
+ * <dd>Whether the depiction last sent to each page is retained so that AJAX responses need only contain patch operations for what changed; should be "true" or
+ * "false". A depiction is retained separately for each page, such as each browser tab, identified by the page token guise.js sends with each request.</dd>
+ * <dt>{@link #ANONYMOUS_PAGE_CACHE_SIZE_INIT_PARAMETER}</dt>
+ * <dd>The maximum number of anonymous pages cached; defaults to {@link AnonymousPageCache#DEFAULT_MAX_SIZE}.</dd>
+ * <dt>{@link #ANONYMOUS_PAGE_CACHE_TIME_TO_LIVE_INIT_PARAMETER}</dt>
+ * <dd>The time, in milliseconds, an anonymous page is cached before being depicted again; defaults to {@link AnonymousPageCache#DEFAULT_TIME_TO_LIVE}.</dd>
+ * <dt>{@link #COMPRESSION_THRESHOLD_INIT_PARAMETER}</dt>
+ * <dd>The minimum number of characters of depicted text for a response to be compressed; defaults to
+ * {@link ResponseEncoder#DEFAULT_COMPRESSION_THRESHOLD}.</dd>
  * </dl>
  * <p>
  * For example, the following Guise servlet context might define a data directory:
@@ -124,6 +196,61 @@ public class GuiseHTTPServlet extends DefaultHTTPServlet {
 	/** The init parameter, "applicationClass", used to specify the Guise application to create. */
 	public static final String APPLICATION_CLASS_INIT_PARAMETER = "applicationClass";
 
+	/**
+	 * The init parameter, "sessionExecutorPoolSize", used to specify the number of pooled threads for executing work in the context of Guise sessions.
+	 * @see PooledGuiseSessionExecutor
+	 */
+	public static final String SESSION_EXECUTOR_POOL_SIZE_INIT_PARAMETER = "sessionExecutorPoolSize";
+
+	/**
+	 * The init parameter, "sessionMailbox", used to specify whether exclusive work for each Guise session should be serialized through a per-session mailbox.
+	 * @see MailboxGuiseSessionExecutor
+	 */
+	public static final String SESSION_MAILBOX_INIT_PARAMETER = "sessionMailbox";
+
+	/**
+	 * The init parameter, "webSocket", used to specify whether pages should communicate with the server over a WebSocket.
+	 * @see GuiseWebSocketEndpoint
+	 */
+	public static final String WEB_SOCKET_INIT_PARAMETER = "webSocket";
+
+	/**
+	 * The init parameter, "admissionConcurrency", used to specify the maximum number of requests for which events are dispatched and components depicted
+	 * concurrently.
+	 * @see GuiseAdmissionController
+	 */
+	public static final String ADMISSION_CONCURRENCY_INIT_PARAMETER = "admissionConcurrency";
+
+	/** The init parameter, "admissionQueueLength", used to specify the maximum number of requests waiting for admission. */
+	public static final String ADMISSION_QUEUE_LENGTH_INIT_PARAMETER = "admissionQueueLength";
+
+	/** The init parameter, "admissionMaxWait", used to specify the maximum time in milliseconds a request waits for admission. */
+	public static final String ADMISSION_MAX_WAIT_INIT_PARAMETER = "admissionMaxWait";
+
+	/**
+	 * The init parameter, "retainedDepiction", used to specify whether AJAX responses should be patched against the depiction last sent.
+	 * @see RetainedWebDepiction
+	 */
+	public static final String RETAINED_DEPICTION_INIT_PARAMETER = "retainedDepiction";
+
+	/**
+	 * The init parameter, "anonymousPageCacheSize", used to specify the maximum number of anonymous pages cached.
+	 * @see AnonymousPageCache
+	 */
+	public static final String ANONYMOUS_PAGE_CACHE_SIZE_INIT_PARAMETER = "anonymousPageCacheSize";
+
+	/** The init parameter, "anonymousPageCacheTimeToLive", used to specify the time in milliseconds an anonymous page is cached. */
+	public static final String ANONYMOUS_PAGE_CACHE_TIME_TO_LIVE_INIT_PARAMETER = "anonymousPageCacheTimeToLive";
+
+	/**
+	 * The init parameter, "compressionThreshold", used to specify the minimum number of characters of depicted text for a response to be compressed.
+	 * @see ResponseEncoder
+	 */
+	public static final String COMPRESSION_THRESHOLD_INIT_PARAMETER = "compressionThreshold";
+
+	/** The path, relative to the servlet, at which the WebSocket endpoint is deployed. */
+	public static final URIPath WEB_SOCKET_PATH = GuiseApplication.GUISE_RESERVED_BASE_PATH.resolve("websocket");
+
 	/** The init parameter prefix, "guise-environment:", used to indicate a Guise environment property. */
 	public static final String GUISE_ENVIRONMENT_INIT_PARAMETER_PREFIX = "guise-environment:";
 
@@ -243,6 +370,110 @@ public void initialize(ServletConfig servletConfig) throws ServletException, Ill
 			Log.error(exception);
 			throw new ServletException("Error initializing Guise application: " + exception.getMessage(), exception);
 		}
+		if(Boolean.parseBoolean(servletConfig.getInitParameter(WEB_SOCKET_INIT_PARAMETER))) { //if pages should use WebSockets
+			deployWebSocketEndpoint(servletConfig);
+		}
+		retainedDepiction = Boolean.parseBoolean(servletConfig.getInitParameter(RETAINED_DEPICTION_INIT_PARAMETER));
+		final String anonymousPageCacheSizeInitParameter = servletConfig.getInitParameter(ANONYMOUS_PAGE_CACHE_SIZE_INIT_PARAMETER);
+		final String anonymousPageCacheTimeToLiveInitParameter = servletConfig.getInitParameter(ANONYMOUS_PAGE_CACHE_TIME_TO_LIVE_INIT_PARAMETER);
+		try {
+			anonymousPageCache = new AnonymousPageCache(
+					anonymousPageCacheSizeInitParameter != null ? Integer.parseInt(anonymousPageCacheSizeInitParameter.trim()) : AnonymousPageCache.DEFAULT_MAX_SIZE,
+					anonymousPageCacheTimeToLiveInitParameter != null ? Duration.ofMillis(Long.parseLong(anonymousPageCacheTimeToLiveInitParameter.trim()))
+							: AnonymousPageCache.DEFAULT_TIME_TO_LIVE);
+		} catch(final IllegalArgumentException illegalArgumentException) { //NumberFormatException is a subclass of IllegalArgumentException
+			throw new ServletException("Invalid anonymous page cache init parameter value.", illegalArgumentException);
+		}
+		final String compressionThresholdInitParameter = servletConfig.getInitParameter(COMPRESSION_THRESHOLD_INIT_PARAMETER);
+		if(compressionThresholdInitParameter != null) {
+			try {
+				responseEncoder = new ResponseEncoder(Integer.parseInt(compressionThresholdInitParameter.trim()));
+			} catch(final IllegalArgumentException illegalArgumentException) { //NumberFormatException is a subclass of IllegalArgumentException
+				throw new ServletException("Invalid compression threshold init parameter value.", illegalArgumentException);
+			}
+		}
+	}
+
+	/** The encoder of depicted text into responses. */
+	private ResponseEncoder responseEncoder = new ResponseEncoder();
+
+	/**
+	 * Returns the encoder used to write depicted text to responses, compressing it as appropriate.
+	 * @return The response encoder.
+	 */
+	public ResponseEncoder getResponseEncoder() {
+		return responseEncoder;
+	}
+
+	/** The cache of the pages of anonymous component destinations. */
+	private AnonymousPageCache anonymousPageCache = new AnonymousPageCache();
+
+	/**
+	 * Returns the cache of the pages of anonymous component destinations, shared by all visitors without sessions.
+	 * @return The anonymous page cache.
+	 * @see ComponentDestination#isAnonymous()
+	 */
+	public AnonymousPageCache getAnonymousPageCache() {
+		return anonymousPageCache;
+	}
+
+	/** The anonymous component destinations found to depict session-specific information, which are therefore never shared among visitors. */
+	private final Set<Destination> sessionSpecificDestinations = ConcurrentHashMap.newKeySet();
+
+	/** Whether AJAX responses are patched against the depiction last sent to each page. */
+	private boolean retainedDepiction = false;
+
+	/**
+	 * Indicates whether AJAX responses are patched against the depiction last sent to each page.
+	 * @return <code>true</code> if each session platform retains the depiction sent to its page.
+	 * @see #RETAINED_DEPICTION_INIT_PARAMETER
+	 */
+	protected boolean isRetainedDepiction() {
+		return retainedDepiction;
+	}
+
+	/** The path of the deployed WebSocket endpoint relative to the servlet context, or <code>null</code> if no WebSocket endpoint is deployed. */
+	private String webSocketEndpointPath = null;
+
+	/**
+	 * Deploys a {@link GuiseWebSocketEndpoint} at {@link #WEB_SOCKET_PATH} relative to the servlet mapping. If the container does not support JSR 356 or the
+	 * endpoint cannot be deployed, a warning is logged and pages will communicate over HTTP alone.
+	 * @param servletConfig The servlet configuration.
+	 */
+	protected void deployWebSocketEndpoint(final ServletConfig servletConfig) {
+		final ServletContext servletContext = servletConfig.getServletContext();
+		final Object serverContainer = servletContext.getAttribute(ServerContainer.class.getName()); //JSR 356 requires the server container to be stored under its class name
+		if(!(serverContainer instanceof ServerContainer)) {
+			Log.warn("Container does not support WebSockets; Guise pages will communicate using HTTP.");
+			return;
+		}
+		final ServletRegistration servletRegistration = servletContext.getServletRegistration(servletConfig.getServletName());
+		final String servletPath = servletRegistration != null ? servletRegistration.getMappings().stream().filter(mapping -> mapping.endsWith("/*")).findFirst()
+				.map(mapping -> mapping.substring(0, mapping.length() - "/*".length())).orElse("") : ""; //the WebSocket path must be relative to the servlet path
+		final String endpointPath = servletPath + PATH_SEPARATOR + WEB_SOCKET_PATH;
+		try {
+			((ServerContainer)serverContainer).addEndpoint(GuiseWebSocketEndpoint.createEndpointConfig(this, endpointPath));
+			webSocketEndpointPath = endpointPath;
+			Log.info("Deployed Guise WebSocket endpoint at", endpointPath);
+		} catch(final DeploymentException | IllegalStateException exception) { //the container may refuse endpoints once it has started handling WebSockets
+			Log.warn("Unable to deploy Guise WebSocket endpoint; Guise pages will communicate using HTTP.", exception);
+		}
+	}
+
+	/**
+	 * Determines the URI of the WebSocket a page should open to communicate with the server.
+	 * @param guiseRequest The Guise request from the page, which must have been received over HTTP.
+	 * @return The WebSocket URI, identifying the requesting page, or empty if no WebSocket endpoint is deployed.
+	 */
+	protected Optional<URI> findWebSocketURI(final HTTPServletGuiseRequest guiseRequest) {
+		final String webSocketEndpointPath = this.webSocketEndpointPath;
+		if(webSocketEndpointPath == null) {
+			return Optional.empty();
+		}
+		final URI endpointHTTPURI = guiseRequest.getDepictURI().resolve(guiseRequest.getHTTPServletRequest().getContextPath() + webSocketEndpointPath); //e.g. http://example.com/context/~guise/websocket
+		final String webSocketScheme = HTTPS_URI_SCHEME.equalsIgnoreCase(endpointHTTPURI.getScheme()) ? "wss" : "ws";
+		final URI endpointURI = URI.create(webSocketScheme + ":" + endpointHTTPURI.getRawSchemeSpecificPart());
+		return Optional.of(appendQueryParameter(endpointURI, GuiseWebSocketEndpoint.PAGE_URI_QUERY_PARAMETER, guiseRequest.getRequestURI().toString()));
 	}
 
 	/**
@@ -271,6 +502,36 @@ protected AbstractGuiseApplication initGuiseApplication(final ServletConfig serv
 			throw new ServletException("web.xml missing Guise application class init parameter \"" + APPLICATION_CLASS_INIT_PARAMETER + "\".");
 		}
 		//TODO del when WebPlatform works		guiseApplication.installComponentKit(new XHTMLComponentKit());	//create and install an XHTML controller kit
+		final String sessionExecutorPoolSizeInitParameter = servletConfig.getInitParameter(SESSION_EXECUTOR_POOL_SIZE_INIT_PARAMETER); //see if session work should be pooled
+		final boolean sessionMailbox = Boolean.parseBoolean(servletConfig.getInitParameter(SESSION_MAILBOX_INIT_PARAMETER)); //see if session work should be serialized using mailboxes
+		if(sessionExecutorPoolSizeInitParameter != null || sessionMailbox) {
+			final int sessionExecutorPoolSize;
+			try {
+				sessionExecutorPoolSize = sessionExecutorPoolSizeInitParameter != null ? Integer.parseInt(sessionExecutorPoolSizeInitParameter.trim())
+						: Runtime.getRuntime().availableProcessors();
+				guiseApplication.setSessionExecutor(
+						sessionMailbox ? new MailboxGuiseSessionExecutor(sessionExecutorPoolSize) : new PooledGuiseSessionExecutor(sessionExecutorPoolSize));
+			} catch(final IllegalArgumentException illegalArgumentException) { //NumberFormatException is a subclass of IllegalArgumentException
+				throw new ServletException("Invalid " + SESSION_EXECUTOR_POOL_SIZE_INIT_PARAMETER + " init parameter value \"" + sessionExecutorPoolSizeInitParameter
+						+ "\".", illegalArgumentException);
+			}
+		}
+		final String admissionConcurrencyInitParameter = servletConfig.getInitParameter(ADMISSION_CONCURRENCY_INIT_PARAMETER); //see if concurrent work should be limited
+		if(admissionConcurrencyInitParameter != null) {
+			final String admissionQueueLengthInitParameter = servletConfig.getInitParameter(ADMISSION_QUEUE_LENGTH_INIT_PARAMETER);
+			final String admissionMaxWaitInitParameter = servletConfig.getInitParameter(ADMISSION_MAX_WAIT_INIT_PARAMETER);
+			try {
+				final int admissionConcurrency = Integer.parseInt(admissionConcurrencyInitParameter.trim());
+				final int admissionQueueLength = admissionQueueLengthInitParameter != null ? Integer.parseInt(admissionQueueLengthInitParameter.trim())
+						: admissionConcurrency;
+				final Duration admissionMaxWait = admissionMaxWaitInitParameter != null ? Duration.ofMillis(Long.parseLong(admissionMaxWaitInitParameter.trim()))
+						: GuiseAdmissionController.DEFAULT_MAX_WAIT;
+				guiseApplication.setAdmissionController(
+						new GuiseAdmissionController(admissionConcurrency, admissionQueueLength, admissionMaxWait, GuiseAdmissionController.DEFAULT_RETRY_AFTER));
+			} catch(final IllegalArgumentException illegalArgumentException) { //NumberFormatException is a subclass of IllegalArgumentException
+				throw new ServletException("Invalid admission control init parameter value.", illegalArgumentException);
+			}
+		}
 		//install configured environment properties
 		final Environment environment = guiseApplication.getEnvironment(); //get the application environment
 		final Enumeration<String> initParameterNames = (Enumeration<String>)servletContext.getInitParameterNames(); //get all the init parameter names from the servlet context, allowing all init parameters to be retrieved, even those stored externally
@@ -368,14 +629,59 @@ public void initialize(final HttpServletRequest request) throws ServletException
 		*/
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version releases any crawler session leased for the request once the request has been serviced, waiting for asynchronous processing to complete if
+	 * necessary.
+	 * </p>
+	 * @see HTTPServletGuiseSessionManager#releaseCrawlerSession(HttpServletRequest)
+	 */
+	@Override
+	protected void service(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+		try {
+			super.service(request, response);
+		} finally {
+			if(request.isAsyncStarted()) { //if the request is still being serviced, release the crawler session when it's done
+				request.getAsyncContext().addListener(new AsyncListener() {
+
+					@Override
+					public void onStartAsync(final AsyncEvent asyncEvent) {
+					}
+
+					@Override
+					public void onComplete(final AsyncEvent asyncEvent) {
+						HTTPServletGuiseSessionManager.releaseCrawlerSession(request);
+					}
+
+					@Override
+					public void onTimeout(final AsyncEvent asyncEvent) {
+					}
+
+					@Override
+					public void onError(final AsyncEvent asyncEvent) {
+						HTTPServletGuiseSessionManager.releaseCrawlerSession(request);
+					}
+
+				});
+			} else {
+				HTTPServletGuiseSessionManager.releaseCrawlerSession(request);
+			}
+		}
+	}
+
 	//TODO fix HEAD method servicing, probably by overriding serveResource()
 
 	@Override
 	public void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+		rethrowAsyncException(request); //if asynchronous processing failed, let the exception be handled normally
 		final HTTPServletGuiseContainer guiseContainer = getGuiseContainer(); //get the Guise container
 		final GuiseApplication guiseApplication = getGuiseApplication(); //get the Guise application
 		final HTTPServletGuiseRequest guiseRequest = new HTTPServletGuiseRequest(request, /*TODO del response, */guiseContainer, guiseApplication); //get Guise request information
 		if(guiseRequest.isRequestPathReserved()) { //if this is a request for a Guise reserved path (e.g. a public resource or a temporary resource)
+			if(serveGuiseAsset(guiseRequest, response)) { //serve bundled Guise assets from the asset cache
+				return;
+			}
 			super.doGet(request, response); //go ahead and retrieve the resource immediately
 			return; //don't try to see if there is a navigation path for this path
 		}
@@ -383,6 +689,12 @@ public void doGet(final HttpServletRequest request, final HttpServletResponse re
 		final Destination destination = guiseApplication.getDestination(guiseRequest.getNavigationPath()).orElse(null); //try to get a destination associated with the requested path TODO improve use of Optional
 		if(destination != null) { //if we have a destination associated with the requested path
 			Log.trace("found destination:", destination);
+			if(destination instanceof ComponentDestination && ((ComponentDestination)destination).isAnonymous() && isAnonymousRequest(guiseRequest)
+					&& !sessionSpecificDestinations.contains(destination)) { //if a shared page can be served, don't create a session
+				if(serviceAnonymousComponentDestinationRequest(guiseRequest, response, guiseContainer, guiseApplication, (ComponentDestination)destination)) {
+					return;
+				}
+			}
 			final GuiseSession guiseSession = HTTPServletGuiseSessionManager.getGuiseSession(guiseContainer, guiseApplication, request); //retrieve the Guise session for this container and request
 			//make sure the environment has the WebTrends ID
 			final Environment environment = guiseSession.getPlatform().getEnvironment(); //get the session's environment
@@ -407,33 +719,72 @@ public void doGet(final HttpServletRequest request, final HttpServletResponse re
 					redirect(guiseRequest, guiseApplication, newPath.toURI(), bookmark, true); //redirect the user agent to the preferred path
 				}
 				Log.trace("ready to delegate to super");
-				super.doGet(request, response); //let the default functionality take over, which will take care of accessing the resource destination by creating a specialized access resource
+				if(request.isAsyncSupported()) { //if we can, stream the resource without tying up the container thread
+					serviceAsync(request, guiseSession, false, () -> {
+						try {
+							super.doGet(request, response); //let the default functionality take over, which will take care of accessing the resource destination by creating a specialized access resource
+						} catch(final IOException | ServletException exception) { //if an exception is thrown
+							throw new UndeclaredThrowableException(exception); //let it pass to the servlet when the request is redispatched
+						}
+					});
+				} else {
+					super.doGet(request, response); //let the default functionality take over, which will take care of accessing the resource destination by creating a specialized access resource
+				}
 				return; //don't service the Guise request normally
 			}
 
-			final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getThreadGroup(guiseSession); //get the thread group for this session
-			try {
-				call(guiseSessionThreadGroup, new Runnable() { //call the method in a new thread inside the thread group
+			final Runnable serviceGuiseRequestRunnable = new Runnable() { //service the request in the context of the session
 
-					@Override
-					public void run() {
+				@Override
+				public void run() {
+					try {
+						if(guiseApplication.isDebug()) {
+							//TODO fix										Probe.startStackProbe(); //TODO testing
+						}
 						try {
+							serviceGuiseRequest(guiseRequest, response, guiseContainer, guiseApplication, guiseSession, destination); //service the Guise request to the given destination
+						} finally {
 							if(guiseApplication.isDebug()) {
-								//TODO fix										Probe.startStackProbe(); //TODO testing
-							}
-							try {
-								serviceGuiseRequest(guiseRequest, response, guiseContainer, guiseApplication, guiseSession, destination); //service the Guise request to the given destination
-							} finally {
-								if(guiseApplication.isDebug()) {
-									//TODO fix											Probe.stopStackProbe(); //TODO testing
-								}
+								//TODO fix											Probe.stopStackProbe(); //TODO testing
 							}
-						} catch(final IOException ioException) { //if an exception is thrown
-							throw new UndeclaredThrowableException(ioException); //let it pass to the calling thread
 						}
+					} catch(final IOException ioException) { //if an exception is thrown
+						throw new UndeclaredThrowableException(ioException); //let it pass to the calling thread
 					}
+				}
 
-				});
+			};
+			final boolean isPush = destination instanceof ComponentDestination && guiseRequest.isAJAX() && Boolean.parseBoolean(request.getHeader(PUSH_REQUEST_HEADER)); //see if this is a push request
+			final GuiseAdmissionController admissionController = guiseApplication.getAdmissionController();
+			final GuiseAdmissionController.Priority admissionPriority = isPush || (guiseRequest.isAJAX() && Boolean.parseBoolean(request.getHeader(BACKGROUND_REQUEST_HEADER)))
+					? GuiseAdmissionController.Priority.BACKGROUND
+					: GuiseAdmissionController.Priority.INTERACTIVE;
+			if(request.isAsyncSupported()) { //if we can, release the container thread while the request is serviced; component destinations are serviced entirely as exclusive work
+				if(destination instanceof ComponentDestination) { //component destinations must be admitted before they are serviced
+					final CompletableFuture<Void> ready = isPush //if this is a push request, wait for something to push
+							? guiseSession.getPlatform().awaitChange().copy().completeOnTimeout(null, PUSH_TIMEOUT, MILLISECONDS) //don't time out the shared change future
+							: CompletableFuture.completedFuture(null);
+					final CompletableFuture<GuiseAdmissionController.Admission> admitted = ready.thenCompose(r -> admissionController.admit(admissionPriority));
+					serviceAsync(request, guiseSession, true, admitted, serviceGuiseRequestRunnable)
+							.whenComplete((result, throwable) -> admitted.thenAccept(GuiseAdmissionController.Admission::release)); //release any admission, whether or not the work succeeded
+				} else {
+					serviceAsync(request, guiseSession, false, serviceGuiseRequestRunnable);
+				}
+				return;
+			}
+			final GuiseAdmissionController.Admission admission;
+			if(destination instanceof ComponentDestination) { //component destinations must be admitted before they are serviced
+				try {
+					admission = admissionController.acquire(admissionPriority);
+				} catch(final GuiseAdmissionController.RejectedAdmissionException rejectedAdmissionException) {
+					sendServiceUnavailable(response, rejectedAdmissionException);
+					return;
+				}
+			} else {
+				admission = null;
+			}
+			try {
+				guiseApplication.getSessionExecutor().call(guiseSession, serviceGuiseRequestRunnable); //call the method in the context of the session
 			} catch(final UndeclaredThrowableException undeclaredThrowableException) { //if an exception was thrown
 				final Throwable cause = undeclaredThrowableException.getCause(); //see what exception was thrown
 				if(cause instanceof ResourceNotFoundException) { //if a ResourceNotFoundException was thrown
@@ -443,6 +794,10 @@ public void run() {
 				} else { //we don't expect any other types of exceptions
 					throw new AssertionError(cause);
 				}
+			} finally {
+				if(admission != null) {
+					admission.release();
+				}
 			}
 		} else { //if there is no Guise destination for the requested path
 			super.doGet(request, response); //let the default functionality take over
@@ -451,6 +806,7 @@ public void run() {
 
 	@Override
 	public void doPut(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+		rethrowAsyncException(request); //if asynchronous processing failed, let the exception be handled normally
 		final HTTPServletGuiseContainer guiseContainer = getGuiseContainer(); //get the Guise container
 		final GuiseApplication guiseApplication = getGuiseApplication(); //get the Guise application
 		final HTTPServletGuiseRequest guiseRequest = new HTTPServletGuiseRequest(request, /*TODO del response, */guiseContainer, guiseApplication); //get Guise request information
@@ -463,21 +819,25 @@ public void doPut(final HttpServletRequest request, final HttpServletResponse re
 		}
 		Log.trace("found resource write destination:", destination);
 		final GuiseSession guiseSession = HTTPServletGuiseSessionManager.getGuiseSession(guiseContainer, guiseApplication, request); //retrieve the Guise session for this container and request
-		final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getThreadGroup(guiseSession); //get the thread group for this session
-		try {
-			call(guiseSessionThreadGroup, new Runnable() { //call the method in a new thread inside the thread group
+		final Runnable serviceRunnable = new Runnable() { //service the request in the context of the session
 
-				@Override
-				public void run() {
-					try {
-						serviceGuiseResourceWriteDestinationRequest(guiseRequest, response, guiseContainer, guiseApplication, guiseSession,
-								(ResourceWriteDestination)destination, request.getInputStream(), null);
-					} catch(final IOException ioException) { //if an exception is thrown
-						throw new UndeclaredThrowableException(ioException); //let it pass to the calling thread
-					}
+			@Override
+			public void run() {
+				try {
+					serviceGuiseResourceWriteDestinationRequest(guiseRequest, response, guiseContainer, guiseApplication, guiseSession,
+							(ResourceWriteDestination)destination, request.getInputStream(), null);
+				} catch(final IOException ioException) { //if an exception is thrown
+					throw new UndeclaredThrowableException(ioException); //let it pass to the calling thread
 				}
+			}
 
-			});
+		};
+		if(request.isAsyncSupported()) { //if we can, release the container thread while the content is uploaded
+			serviceAsync(request, guiseSession, false, serviceRunnable);
+			return;
+		}
+		try {
+			guiseApplication.getSessionExecutor().call(guiseSession, serviceRunnable); //call the method in the context of the session
 		} catch(final UndeclaredThrowableException undeclaredThrowableException) { //if an exception was thrown
 			final Throwable cause = undeclaredThrowableException.getCause(); //see what exception was thrown
 			if(cause instanceof ResourceNotFoundException) { //if a ResourceNotFoundException was thrown
@@ -490,6 +850,363 @@ public void run() {
 		}
 	}
 
+	/**
+	 * The request header, "X-Guise-Push", indicating that an AJAX request to a component destination is a push request, the response to which should be delayed
+	 * until there are updates for the platform or until the {@link #PUSH_TIMEOUT} elapses.
+	 * @see WebPlatform.PollCommand#PUSH
+	 */
+	public static final String PUSH_REQUEST_HEADER = "X-Guise-Push";
+
+	/** The maximum time, in milliseconds, to hold a push request open before responding, to keep intermediaries from dropping the connection. */
+	public static final long PUSH_TIMEOUT = 25 * 1000;
+
+	/**
+	 * The request header, "X-Guise-Background", indicating that an AJAX request to a component destination was made by the page on its own, such as a poll,
+	 * rather than on behalf of the user; such requests are not queued for admission.
+	 * @see GuiseAdmissionController.Priority#BACKGROUND
+	 */
+	public static final String BACKGROUND_REQUEST_HEADER = "X-Guise-Background";
+
+	/** The response header, "Retry-After", indicating the number of seconds after which a request that was not admitted should be retried. */
+	public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+	/** The response header, "ETag", indicating the entity tag of the representation sent. */
+	public static final String ETAG_HEADER = "ETag";
+
+	/** The request header, "If-None-Match", listing the entity tags of the representations the user agent already has. */
+	public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+	/**
+	 * Responds that a request was not admitted, indicating when it should be retried.
+	 * @param response The HTTP response.
+	 * @param rejectedAdmissionException The rejection of the request.
+	 * @throws IOException if there is an error sending the response.
+	 */
+	protected void sendServiceUnavailable(final HttpServletResponse response, final GuiseAdmissionController.RejectedAdmissionException rejectedAdmissionException)
+			throws IOException {
+		final Duration retryAfter = rejectedAdmissionException.getRetryAfter();
+		response.setHeader(RETRY_AFTER_HEADER, Long.toString(Math.max(1, retryAfter.plusMillis(999).getSeconds()))); //round up to whole seconds
+		response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+	}
+
+	/** The request attribute for passing a failure during asynchronous processing back to the servlet when the request is redispatched. */
+	private static final String ASYNC_EXCEPTION_REQUEST_ATTRIBUTE = GuiseHTTPServlet.class.getName() + ".asyncException";
+
+	/**
+	 * Puts the request into asynchronous mode and submits the given runnable to the session executor, returning without waiting for the runnable to complete. The
+	 * response is completed when the runnable finishes. If the runnable fails, the request is redispatched to this servlet so that the failure can be reported to
+	 * the client as if it had occurred synchronously; see {@link #rethrowAsyncException(HttpServletRequest)}.
+	 * @param request The HTTP request, which must support asynchronous processing.
+	 * @param guiseSession The Guise session.
+	 * @param exclusive <code>true</code> if the runnable should be called as exclusive work for the session.
+	 * @param runnable The runnable servicing the request; any {@link IOException} or {@link ServletException} should be wrapped in an
+	 *          {@link UndeclaredThrowableException}.
+	 * @see GuiseSessionExecutor#submit(GuiseSession, Runnable)
+	 * @see GuiseSessionExecutor#submitExclusive(GuiseSession, Runnable)
+	 */
+	protected CompletionStage<Void> serviceAsync(final HttpServletRequest request, final GuiseSession guiseSession, final boolean exclusive,
+			final Runnable runnable) {
+		return serviceAsync(request, guiseSession, exclusive, CompletableFuture.completedFuture(null), runnable);
+	}
+
+	/**
+	 * Puts the request into asynchronous mode and, once the given stage has completed, submits the given runnable to the session executor. This method returns
+	 * without waiting for the stage or the runnable to complete. The response is completed when the runnable finishes. If the runnable fails, the request is
+	 * redispatched to this servlet so that the failure can be reported to the client as if it had occurred synchronously; see
+	 * {@link #rethrowAsyncException(HttpServletRequest)}. If the response has already been committed, the failure can no longer be reported; it is logged and
+	 * the response is completed.
+	 * @param request The HTTP request, which must support asynchronous processing.
+	 * @param guiseSession The Guise session.
+	 * @param exclusive <code>true</code> if the runnable should be called as exclusive work for the session.
+	 * @param readyStage The stage the completion of which indicates that the runnable should be submitted.
+	 * @param runnable The runnable servicing the request; any {@link IOException} or {@link ServletException} should be wrapped in an
+	 *          {@link UndeclaredThrowableException}.
+	 * @return A stage that completes after the response has been completed or redispatched.
+	 * @see GuiseSessionExecutor#submit(GuiseSession, Runnable)
+	 * @see GuiseSessionExecutor#submitExclusive(GuiseSession, Runnable)
+	 * @see #sendServiceUnavailable(HttpServletResponse, GuiseAdmissionController.RejectedAdmissionException)
+	 */
+	protected CompletionStage<Void> serviceAsync(final HttpServletRequest request, final GuiseSession guiseSession, final boolean exclusive,
+			final CompletionStage<?> readyStage, final Runnable runnable) {
+		final AsyncContext asyncContext = request.startAsync();
+		asyncContext.setTimeout(0); //don't time out long uploads, downloads, or push requests; the work will finish on its own
+		final GuiseSessionExecutor sessionExecutor = guiseSession.getApplication().getSessionExecutor();
+		return readyStage.thenCompose(ready -> exclusive ? sessionExecutor.submitExclusive(guiseSession, runnable) : sessionExecutor.submit(guiseSession, runnable))
+				.whenComplete((result, throwable) -> {
+					final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+					if(throwable == null) {
+						asyncContext.complete();
+					} else if(cause instanceof GuiseAdmissionController.RejectedAdmissionException) { //if the request was never admitted, there's nothing to report but that
+						try {
+							sendServiceUnavailable((HttpServletResponse)asyncContext.getResponse(), (GuiseAdmissionController.RejectedAdmissionException)cause);
+						} catch(final IOException ioException) { //the client has probably gone away
+							Log.debug("Error rejecting request.", ioException);
+						} finally {
+							asyncContext.complete();
+						}
+					} else if(asyncContext.getResponse().isCommitted()) { //if part of the response has already been sent, there's no way to report the problem to the client
+						Log.warn("Error servicing request after response was committed.", cause);
+						asyncContext.complete();
+					} else { //this includes failure to submit the work
+						asyncContext.getRequest().setAttribute(ASYNC_EXCEPTION_REQUEST_ATTRIBUTE, throwable);
+						asyncContext.dispatch(); //report the problem from the servlet
+					}
+				});
+	}
+
+	/**
+	 * Rethrows any exception that occurred during asynchronous processing of the request, if the request has been redispatched as a result.
+	 * {@link ResourceNotFoundException}s are converted to equivalent HTTP exceptions.
+	 * @param request The HTTP request.
+	 * @throws IOException if an I/O exception occurred during asynchronous processing.
+	 * @throws ServletException if a servlet exception occurred during asynchronous processing.
+	 * @see #serviceAsync(HttpServletRequest, GuiseSession, boolean, Runnable)
+	 */
+	protected void rethrowAsyncException(final HttpServletRequest request) throws IOException, ServletException {
+		if(request.getDispatcherType() != DispatcherType.ASYNC) {
+			return;
+		}
+		Throwable throwable = (Throwable)request.getAttribute(ASYNC_EXCEPTION_REQUEST_ATTRIBUTE);
+		if(throwable == null) {
+			return;
+		}
+		request.removeAttribute(ASYNC_EXCEPTION_REQUEST_ATTRIBUTE);
+		while((throwable instanceof CompletionException || throwable instanceof UndeclaredThrowableException) && throwable.getCause() != null) { //unwrap the original exception
+			throwable = throwable.getCause();
+		}
+		if(throwable instanceof ResourceNotFoundException) { //if a ResourceNotFoundException was thrown
+			throw HTTPException.createHTTPException((ResourceIOException)throwable); //pass back an equivalent HTTP exception
+		} else if(throwable instanceof IOException) {
+			throw (IOException)throwable;
+		} else if(throwable instanceof ServletException) {
+			throw (ServletException)throwable;
+		} else if(throwable instanceof RuntimeException) {
+			throw (RuntimeException)throwable;
+		} else if(throwable instanceof Error) {
+			throw (Error)throwable;
+		} else { //we don't expect any other types of exceptions
+			throw new AssertionError(throwable);
+		}
+	}
+
+	/**
+	 * Verifies that a destination exists at the requested path and that access to it is authorized, redirecting if the destination prefers another path. The
+	 * existence of a resource write destination is only verified for GET requests.
+	 * @param guiseRequest Guise request information.
+	 * @param guiseApplication The Guise application.
+	 * @param guiseSession The Guise session.
+	 * @param destination The Guise session destination being accessed.
+	 * @throws HTTPRedirectException if the destination prefers another path.
+	 * @throws HTTPNotFoundException if the destination does not exist.
+	 * @throws HTTPForbiddenException if access to the destination is not authorized.
+	 * @throws IOException if there is an error verifying the destination.
+	 */
+	private void verifyDestination(final HTTPServletGuiseRequest guiseRequest, final GuiseApplication guiseApplication, final GuiseSession guiseSession,
+			final Destination destination) throws IOException {
+		final URIPath path = guiseRequest.getNavigationPath(); //get the path
+		final Bookmark bookmark = guiseRequest.getBookmark(); //get the bookmark, if any
+		final URI referrerURI = guiseRequest.getReferrerURI(); //get the referrer URI, if any
+		if(GET_METHOD.equals(guiseRequest.getHTTPServletRequest().getMethod()) || !(destination instanceof ResourceWriteDestination)) { //verify that the destination exists (doing this with AJAX requests would be too costly; we can assume that AJAX requests are for existing destinations) (but don't check if this is a POST to a ResourceWriteDestination, which probably won't exist; TODO clarify exist() semantics for ResourceWriteDestinations)
+			final URIPath newPath = destination.getPath(guiseSession, path, bookmark, referrerURI); //see if we should use another path
+			if(!newPath.equals(path)) { //if we should use another path
+				redirect(guiseRequest, guiseApplication, newPath.toURI(), bookmark, true); //redirect the user agent to the preferred path
+			}
+			if(!destination.exists(guiseSession, path, bookmark, referrerURI)) { //if this destination doesn't exist
+				throw new HTTPNotFoundException("Path does not exist at Guise destination: " + path);
+			}
+		}
+		if(!destination.isAuthorized(guiseSession, path, bookmark, referrerURI)) { //if this destination isn't authorized
+			throw new HTTPForbiddenException("Path is not authorized at Guise destination: " + path);
+		}
+	}
+
+	/**
+	 * Determines whether a request may be answered with a page shared among visitors without sessions: a non-AJAX GET request that neither identifies an
+	 * existing session nor is accompanied by an HTTP session.
+	 * @param guiseRequest Guise request information.
+	 * @return <code>true</code> if the request may be answered with an anonymous page.
+	 * @see ComponentDestination#isAnonymous()
+	 */
+	protected boolean isAnonymousRequest(final HTTPServletGuiseRequest guiseRequest) {
+		final HttpServletRequest request = guiseRequest.getHTTPServletRequest();
+		return !guiseRequest.isAJAX() && GET_METHOD.equals(request.getMethod()) && request.getParameter(GUISE_SESSION_UUID_URI_QUERY_PARAMETER) == null
+				&& request.getSession(false) == null;
+	}
+
+	/**
+	 * Services a request for an anonymous component destination from a visitor without a session, answering with the page cached for the request. If no page is
+	 * cached, the page is depicted and cached first, subject to admission control. No session is created for the visitor. If the page turns out to depict
+	 * information specific to the session used to depict it, such as a URI identifying the session, the page is not shared; the request is not serviced, and the
+	 * destination is no longer considered for anonymous depiction.
+	 * @param guiseRequest Guise request information.
+	 * @param response The HTTP response.
+	 * @param guiseContainer The Guise container.
+	 * @param guiseApplication The Guise application.
+	 * @param componentDestination The anonymous component destination being accessed.
+	 * @return <code>true</code> if the request was serviced, or <code>false</code> if the request must be serviced using a session for the visitor.
+	 * @throws IOException if there is an error depicting or writing the page.
+	 * @see #getAnonymousPageCache()
+	 */
+	protected boolean serviceAnonymousComponentDestinationRequest(final HTTPServletGuiseRequest guiseRequest, final HttpServletResponse response,
+			final HTTPServletGuiseContainer guiseContainer, final GuiseApplication guiseApplication, final ComponentDestination componentDestination)
+			throws IOException {
+		final HttpServletRequest request = guiseRequest.getHTTPServletRequest();
+		final AnonymousPageCache anonymousPageCache = getAnonymousPageCache();
+		AnonymousPageCache.Page page = anonymousPageCache.get(request);
+		if(page == null) { //if there is no current page for this request, depict one
+			final GuiseAdmissionController.Admission admission;
+			try {
+				admission = guiseApplication.getAdmissionController().acquire(GuiseAdmissionController.Priority.INTERACTIVE);
+			} catch(final GuiseAdmissionController.RejectedAdmissionException rejectedAdmissionException) {
+				sendServiceUnavailable(response, rejectedAdmissionException);
+				return true;
+			}
+			try {
+				page = depictAnonymousPage(guiseRequest, guiseContainer, guiseApplication, componentDestination).orElse(null);
+			} finally {
+				admission.release();
+			}
+			if(page == null) { //if the page can't be shared, the visitor needs a session of its own
+				Log.warn("Anonymous destination", componentDestination.getPath(), "depicts session-specific information; serving it with a session for each visitor.");
+				sessionSpecificDestinations.add(componentDestination);
+				return false;
+			}
+			anonymousPageCache.put(request, page);
+		}
+		setNoCache(request, response); //make sure the response is not cached, as the visitor will receive a session-specific page once a session is created
+		response.setContentType(page.getContentType().toString());
+		setContentLanguage(response, page.getLocale());
+		getResponseEncoder().write(request, response, page.getText());
+		return true;
+	}
+
+	/**
+	 * Serves a Guise asset bundled in the Guise distributable, if the request is for one, from the Guise asset cache. The asset is sent precompressed if the user
+	 * agent accepts gzip or deflate, and a strong entity tag is sent for the chosen encoding so that a later request with a matching
+	 * {@value #IF_NONE_MATCH_HEADER} header is answered with {@link HttpServletResponse#SC_NOT_MODIFIED} and no content. Temporary assets are not served by
+	 * this method.
+	 * @param guiseRequest Guise request information.
+	 * @param response The HTTP response.
+	 * @return <code>true</code> if the request was for a Guise asset and has been answered, or <code>false</code> if the request should be serviced normally.
+	 * @throws IOException if there is an error loading the asset or writing the response.
+	 * @see Guise#getCachedAsset(String)
+	 */
+	protected boolean serveGuiseAsset(final HTTPServletGuiseRequest guiseRequest, final HttpServletResponse response) throws IOException {
+		final String pathString = guiseRequest.getNavigationPath().normalize().toString();
+		final String assetsBasePathString = GuiseApplication.GUISE_ASSETS_BASE_PATH.toString();
+		if(!pathString.startsWith(assetsBasePathString) || pathString.startsWith(GuiseApplication.GUISE_ASSETS_TEMP_BASE_PATH.toString())) { //temporary assets are not bundled
+			return false;
+		}
+		final GuiseAssetCache.Asset asset = Guise.getInstance().getCachedAsset(Guise.GUISE_ASSETS_BASE_KEY + pathString.substring(assetsBasePathString.length()));
+		if(asset == null) { //if there is no such asset, let the request be serviced normally
+			return false;
+		}
+		final HttpServletRequest request = guiseRequest.getHTTPServletRequest();
+		String contentCoding = null; //find the best encoding the user agent accepts
+		byte[] bytes = asset.getBytes();
+		for(final String acceptableContentCoding : new String[] {GuiseAssetCache.GZIP_CONTENT_CODING, GuiseAssetCache.DEFLATE_CONTENT_CODING}) {
+			final byte[] encodedBytes = asset.getBytes(acceptableContentCoding);
+			if(encodedBytes != null && ResponseEncoder.isContentCodingAccepted(request, acceptableContentCoding)) {
+				contentCoding = acceptableContentCoding;
+				bytes = encodedBytes;
+				break;
+			}
+		}
+		final String entityTag = asset.getEntityTag(contentCoding);
+		response.addHeader("Vary", "Accept-Encoding"); //the encoding, and therefore the entity tag, depends on the request
+		response.setHeader(ETAG_HEADER, entityTag);
+		if(matchesEntityTag(request.getHeader(IF_NONE_MATCH_HEADER), entityTag)) { //if the user agent already has this encoding of the asset
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		final String mimeType = getServletContext().getMimeType(pathString);
+		if(mimeType != null) {
+			response.setContentType(mimeType);
+		}
+		if(contentCoding != null) {
+			response.setHeader("Content-Encoding", contentCoding);
+		}
+		response.setContentLength(bytes.length);
+		final OutputStream outputStream = response.getOutputStream();
+		outputStream.write(bytes);
+		outputStream.close();
+		return true;
+	}
+
+	/**
+	 * Determines whether an {@value #IF_NONE_MATCH_HEADER} header value matches the given entity tag, using the weak comparison required for that header.
+	 * @param ifNoneMatch The value of the {@value #IF_NONE_MATCH_HEADER} header, or <code>null</code> if there is no such header.
+	 * @param entityTag The current strong entity tag, including quotes.
+	 * @return <code>true</code> if the header lists the entity tag or is the "*" wildcard.
+	 */
+	protected static boolean matchesEntityTag(final String ifNoneMatch, final String entityTag) {
+		if(ifNoneMatch == null) {
+			return false;
+		}
+		for(String listedEntityTag : ifNoneMatch.split(",")) {
+			listedEntityTag = listedEntityTag.trim();
+			if(listedEntityTag.equals("*")) {
+				return true;
+			}
+			if(listedEntityTag.startsWith("W/")) { //weak comparison ignores the weakness indicator
+				listedEntityTag = listedEntityTag.substring(2);
+			}
+			if(listedEntityTag.equals(entityTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Depicts the page of an anonymous component destination using a throwaway session created just as one would be created for the visitor, so that the page,
+	 * including the depict IDs of its components, is the same as that depicted by the session the visitor will receive upon interacting with the page. The
+	 * session is destroyed once the page has been depicted. A page that refers to the throwaway session, such as by a URI carrying the
+	 * {@value WebPlatform#GUISE_SESSION_UUID_URI_QUERY_PARAMETER} query parameter, would not work for any visitor and is not returned.
+	 * @param guiseRequest Guise request information.
+	 * @param guiseContainer The Guise container.
+	 * @param guiseApplication The Guise application.
+	 * @param componentDestination The anonymous component destination being accessed.
+	 * @return The depicted page, which will not be present if the page depicts information specific to the session used to depict it.
+	 * @throws IOException if there is an error depicting the page, including an {@link HTTPException} if the destination redirects, does not exist, or is not
+	 *           authorized.
+	 */
+	protected Optional<AnonymousPageCache.Page> depictAnonymousPage(final HTTPServletGuiseRequest guiseRequest, final HTTPServletGuiseContainer guiseContainer,
+			final GuiseApplication guiseApplication, final ComponentDestination componentDestination) throws IOException {
+		final HttpServletRequest request = guiseRequest.getHTTPServletRequest();
+		final GuiseSession guiseSession = guiseContainer.createCrawlerGuiseSession(guiseApplication, request); //create a session without an HTTP session
+		try {
+			guiseSession.requestLocale(Arrays.asList(getAcceptedLanguages(request))); //choose the locale a new session would choose
+			guiseSession.setDepictionRootURI(getPlainURI(resolve(URI.create(request.getRequestURL().toString()), ROOT_PATH)));
+			final AtomicReference<String> text = new AtomicReference<String>();
+			try {
+				guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> {
+					try {
+						verifyDestination(guiseRequest, guiseApplication, guiseSession, componentDestination);
+						text.set(serviceGuiseComponentDestinationRequest(guiseRequest, null, guiseContainer, guiseApplication, guiseSession, componentDestination, true)); //depict the page without sending it
+					} catch(final IOException ioException) { //if an exception is thrown
+						throw new UndeclaredThrowableException(ioException); //let it pass to the calling thread
+					}
+				});
+			} catch(final UndeclaredThrowableException undeclaredThrowableException) { //if an exception was thrown
+				final Throwable cause = undeclaredThrowableException.getCause(); //see what exception was thrown
+				if(cause instanceof IOException) { //if an IOException was thrown
+					throw ((IOException)cause); //pass it on
+				} else { //we don't expect any other types of exceptions
+					throw new AssertionError(cause);
+				}
+			}
+			final ContentType contentType = ContentType.of(HTML_CONTENT_TYPE.getPrimaryType(), HTML_CONTENT_TYPE.getSubType(),
+					ContentType.Parameter.of(ContentType.CHARSET_PARAMETER, UTF_8.name())); //the application frame is always depicted as HTML, and depictions without a response are in UTF-8
+			if(text.get().contains(guiseSession.getUUID().toString())) { //if the page identifies the throwaway session, it can't be shared
+				return Optional.empty();
+			}
+			return Optional.of(new AnonymousPageCache.Page(contentType, guiseSession.getLocale(), text.get()));
+		} finally {
+			guiseContainer.removeCrawlerGuiseSession(guiseSession); //the page is all we needed from the session
+		}
+	}
+
 	/**
 	 * Services a Guise request. If this is a request for a Guise component destination, a Guise context will be assigned to the Guise session while the request
 	 * is processed.
@@ -523,21 +1240,25 @@ private void serviceGuiseRequest(final HTTPServletGuiseRequest guiseRequest, fin
 				URIPath navigationPath=URIPath.of(rawPathInfo.substring(1));	//remove the beginning slash to get the navigation path from the path info
 		*/
 		if(!guiseRequest.isAJAX()) { //if this is not an AJAX request, verify existence and permissions
-			if(GET_METHOD.equals(requestMethod) || !(destination instanceof ResourceWriteDestination)) { //if this is not an AJAX request, verify that the destination exists (doing this with AJAX requests would be too costly; we can assume that AJAX requests are for existing destinations) (but don't check if this is a POST to a ResourceWriteDestination, which probably won't exist; TODO clarify exist() semantics for ResourceWriteDestinations)
-				final URIPath newPath = destination.getPath(guiseSession, path, bookmark, referrerURI); //see if we should use another path
-				if(!newPath.equals(path)) { //if we should use another path
-					redirect(guiseRequest, guiseApplication, newPath.toURI(), bookmark, true); //redirect the user agent to the preferred path
-				}
-				if(!destination.exists(guiseSession, path, bookmark, referrerURI)) { //if this destination doesn't exist
-					throw new HTTPNotFoundException("Path does not exist at Guise destination: " + path);
-				}
-			}
-			if(!destination.isAuthorized(guiseSession, path, bookmark, referrerURI)) { //if this destination isn't authorized
-				throw new HTTPForbiddenException("Path is not authorized at Guise destination: " + path);
-			}
+			verifyDestination(guiseRequest, guiseApplication, guiseSession, destination);
 		}
 		if(destination instanceof ComponentDestination) { //if we have a component destination associated with the requested path
-			serviceGuiseComponentDestinationRequest(guiseRequest, response, guiseContainer, guiseApplication, guiseSession, (ComponentDestination)destination); //service the request for the component destination TODO eventually maybe create an HTTPServletComponentDestination and pass everything there
+			try {
+				guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //event dispatch and depiction must not overlap other exclusive work for the session
+					try {
+						serviceGuiseComponentDestinationRequest(guiseRequest, response, guiseContainer, guiseApplication, guiseSession, (ComponentDestination)destination, false); //service the request for the component destination TODO eventually maybe create an HTTPServletComponentDestination and pass everything there
+					} catch(final IOException ioException) { //if an exception is thrown
+						throw new UndeclaredThrowableException(ioException); //let it pass to the calling thread
+					}
+				});
+			} catch(final UndeclaredThrowableException undeclaredThrowableException) { //if an exception was thrown
+				final Throwable cause = undeclaredThrowableException.getCause(); //see what exception was thrown
+				if(cause instanceof IOException) { //if an IOException was thrown
+					throw ((IOException)cause); //pass it on
+				} else { //we don't expect any other types of exceptions
+					throw new AssertionError(cause);
+				}
+			}
 		} else if(destination instanceof ResourceWriteDestination) { //if we should be writing to this destination TODO refactor this to use serviceGuiseResourceWriteDestinationRequest()
 			if(ServletFileUpload.isMultipartContent(guiseRequest.getHTTPServletRequest())) { //if the request is multipart content, as we expect
 				final ResourceWriteDestination resourceWriteDestination = (ResourceWriteDestination)destination; //get the destination for writing the resource
@@ -568,9 +1289,9 @@ private void serviceGuiseRequest(final HTTPServletGuiseRequest guiseRequest, fin
 								if(progressComponent != null && !progressComponents.contains(progressComponent)) { //if there is a transfer component and this is the first transfer for this component
 									progressComponents.add(progressComponent); //add this progress component to our set of progress components so we can send finish events to them later
 									//Log.trace("sending progress with no task for starting");
-									synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+									guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 										progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, null, TaskState.INCOMPLETE, 0)); //indicate to the component that progress is starting for all transfers
-									}
+									});
 								}
 								final UrfObject resourceDescription = new UrfObject(); //create a new resource description
 								final String itemContentTypeString = fileItemStream.getContentType(); //get the item content type, if any
@@ -591,11 +1312,11 @@ private void serviceGuiseRequest(final HTTPServletGuiseRequest guiseRequest, fin
 											@Override
 											public void progressed(ProgressEvent progressEvent) { //when progress has been made
 												//Log.trace("delta: ", progressEvent.getDelta(), "progress:", progressEvent.getValue());
-												synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+												guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 													if(progressComponent != null) { //if there is a progress component
 														progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, name, TaskState.INCOMPLETE, progressEvent.getValue())); //indicate to the component that progress is starting for this file
 													}
-												}
+												});
 											}
 
 										};
@@ -603,9 +1324,9 @@ public void progressed(ProgressEvent progressEvent) { //when progress has been m
 												resourceWriteDestination.getOutputStream(resourceDescription, guiseSession, path, bookmark, referrerURI)); //get an output stream to the destination; don't buffer the output stream (our copy method essentially does this) so that progress events will be accurate
 										try {
 											if(progressComponent != null) { //if we know the component that wants to know progress
-												synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+												guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 													progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, name, TaskState.INCOMPLETE, 0)); //indicate to the component that progress is starting for this file
-												}
+												});
 											}
 											progressOutputStream.addProgressListener(progressListener); //start listening for progress events from the output stream
 											IOStreams.copy(inputStream, progressOutputStream); //copy the uploaded file to the destination
@@ -615,9 +1336,9 @@ public void progressed(ProgressEvent progressEvent) { //when progress has been m
 											progressOutputStream.close(); //always close the output stream
 										}
 										if(progressComponent != null) { //if we know the component that wants to know progress (send the progress event after the output stream is closed, because the output stream may buffer contents)
-											synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+											guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 												progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, name, TaskState.COMPLETE, 0)); //indicate to the component that progress is finished for this file
-											}
+											});
 										}
 									} finally {
 										inputStream.close(); //always close the input stream
@@ -629,9 +1350,9 @@ public void progressed(ProgressEvent progressEvent) { //when progress has been m
 						}
 					}
 					for(final Component progressComponent : progressComponents) { //for each component that was notified of progress
-						synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+						guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 							progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, null, TaskState.COMPLETE, 0)); //indicate to the component that progress is finished for all transfers
-						}
+						});
 					}
 				} catch(final FileUploadException fileUploadException) { //if there was an upload exception
 					//TODO do something interesting with the error so that the ResourceCollectControl will learn of it
@@ -693,11 +1414,11 @@ private void serviceGuiseResourceWriteDestinationRequest(final HTTPServletGuiseR
 			@Override
 			public void progressed(ProgressEvent progressEvent) { //when progress has been made
 				//Log.trace("delta: ", progressEvent.getDelta(), "progress:", progressEvent.getValue());
-				synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+				guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 					if(progressComponent != null) { //if there is a progress component
 						progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, name, TaskState.INCOMPLETE, progressEvent.getValue())); //indicate to the component that progress is starting for this file
 					}
-				}
+				});
 			}
 
 		};
@@ -707,9 +1428,9 @@ public void progressed(ProgressEvent progressEvent) { //when progress has been m
 		}
 		try {
 			if(progressComponent != null) { //if we know the component that wants to know progress
-				synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+				guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 					progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, name, TaskState.INCOMPLETE, 0)); //indicate to the component that progress is starting for this file
-				}
+				});
 			}
 			if(outputStream instanceof ProgressOutputStream) {
 				((ProgressOutputStream)outputStream).addProgressListener(progressListener); //start listening for progress events from the output stream
@@ -723,27 +1444,44 @@ public void progressed(ProgressEvent progressEvent) { //when progress has been m
 			outputStream.close(); //always close the output stream
 		}
 		if(progressComponent != null) { //if we know the component that wants to know progress (send the progress event after the output stream is closed, because the output stream may buffer contents)
-			synchronized(guiseSession) { //don't allow other session contexts to be active while we dispatch the event
+			guiseApplication.getSessionExecutor().callExclusive(guiseSession, () -> { //don't allow other exclusive session work to be active while we dispatch the event
 				progressComponent.processEvent(new WebProgressDepictEvent(progressComponent, name, TaskState.COMPLETE, 0)); //indicate to the component that progress is finished for this file
-			}
+			});
 		}
 	}
 
 	/**
-	 * Services a Guise request meant for a component destination. A Guise context is assigned to the Guise session while the request is processed.
+	 * Services a Guise request meant for a component destination. A Guise context is assigned to the Guise session while the request is processed. This method
+	 * must be called as exclusive work for the session using {@link GuiseSessionExecutor#callExclusive(GuiseSession, Runnable)}.
+	 * <p>
+	 * All the events of a request are dispatched before any components are depicted, so that however many events are batched in an AJAX request, the dirty
+	 * components are determined once and sent back in a single patch.
+	 * </p>
+	 * <p>
+	 * If there is no HTTP response, the request must be an AJAX request that did not arrive over HTTP, or an anonymous depiction; in that case cookies are not
+	 * synchronized and the depiction is only returned.
+	 * </p>
+	 * <p>
+	 * If an AJAX request for an anonymous destination arrives for a session that has not yet depicted the destination, the session was created for a visitor
+	 * interacting with an anonymous page. The destination is first depicted just as it was depicted anonymously, without sending the depiction, so that the
+	 * events of the request refer to the components of the session.
+	 * </p>
 	 * @param request The HTTP request.
-	 * @param response The HTTP response.
+	 * @param response The HTTP response, or <code>null</code> if the request did not arrive over HTTP.
 	 * @param guiseContainer The Guise container.
 	 * @param guiseApplication The Guise application.
 	 * @param guiseSession The Guise session.
 	 * @param componentDestination The Guise component destination being accessed.
+	 * @param anonymous Whether the depiction is anonymous, to be shared among visitors that do not yet have a session.
 	 * @param requestURI The URI requested.
 	 * @param navigationPath The navigation path relative to the application base path.
+	 * @return The depicted content if there is no HTTP response; for an AJAX request, the content of the response document. If there is an HTTP response, the
+	 *         content is written directly to the response and <code>null</code> is returned.
 	 * @throws IOException if there is an error reading or writing data.
 	 */
-	private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServletRequest request, */final HTTPServletGuiseRequest guiseRequest,
+	private String serviceGuiseComponentDestinationRequest(/*TODO del final HttpServletRequest request, */final HTTPServletGuiseRequest guiseRequest,
 			final HttpServletResponse response, final HTTPServletGuiseContainer guiseContainer, final GuiseApplication guiseApplication,
-			final GuiseSession guiseSession, final ComponentDestination componentDestination/*TODO del , final URI requestURI, final URIPath navigationPath*/)
+			final GuiseSession guiseSession, final ComponentDestination componentDestination, final boolean anonymous/*TODO del , final URI requestURI, final URIPath navigationPath*/)
 			throws IOException {
 		final HTTPServletWebPlatform guisePlatform = (HTTPServletWebPlatform)guiseSession.getPlatform(); //get the web platform
 		/*TODO del
@@ -752,12 +1490,13 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 		*/
 		final boolean isAJAX = guiseRequest.isAJAX(); //see if this is a Guise AJAX request
 		//this is a non-AJAX Guise POST if there is an XHTML action input ID field TODO add a better field; stop using a view
-		final boolean isGuisePOST = POST_METHOD.equals(guiseRequest.getHTTPServletRequest().getMethod())
+		final boolean isGuisePOST = !isAJAX && POST_METHOD.equals(guiseRequest.getHTTPServletRequest().getMethod())
 				&& guiseRequest.getHTTPServletRequest().getParameter(WebApplicationFrameDepictor.getActionInputID(guiseSession.getApplicationFrame())) != null;
-		final HTTPServletWebDepictContext depictContext = new HTTPServletWebDepictContext(guiseRequest, response, guiseSession, componentDestination); //create a new Guise context
+		final DepictBuffers depictBuffers = guisePlatform.acquireDepictBuffers(); //reuse the buffers of the last depiction of the session if we can
+		final HTTPServletWebDepictContext depictContext = new HTTPServletWebDepictContext(guiseRequest, response, guiseSession, componentDestination, anonymous,
+				depictBuffers); //create a new Guise context
 		depictContext.registerDataAttributeNamespaceURI(GUISE_ML_NAMESPACE_URI); //use HTML5 data attributes for the Guise namespace
 		//Log.trace("setting context");
-		guisePlatform.getDepictLock().lock(); //get the platform depict lock TODO surely reconsider this
 		guisePlatform.setDepictContext(depictContext); //set the depict context for this platform
 		try {
 			/*TODO del modal navigation
@@ -780,6 +1519,13 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 			final Component destinationComponent = guiseSession.getDestinationComponent(componentDestination); //get the component bound to the requested destination
 			assert destinationComponent != null : "No component found, even though we found a valid destination.";
 			final ApplicationFrame applicationFrame = guiseSession.getApplicationFrame(); //get the application frame
+			if(isAJAX && componentDestination.isAnonymous() && applicationFrame.getContent() != destinationComponent) { //if this session was just created for a visitor interacting with an anonymous page, catch up with the page
+				applicationFrame.setContent(destinationComponent); //place the component in the application frame, as was done when the page was depicted
+				guiseSession.setNavigation(navigationPath, navigationBookmark, null); //the original referrer is no longer known
+				applicationFrame.updateTheme();
+				applicationFrame.depict(); //depict the page as it was depicted anonymously, so that the components have the same depict IDs as in the page
+				depictContext.clearDepictText(); //the page already has this depiction
+			}
 			//TODO del Log.trace("ready to get request events");
 			final List<GuiseEvent> requestEvents = getRequestEvents(guiseRequest, guiseSession, depictContext); //get all events from the request
 			Log.trace("got control events");
@@ -791,7 +1537,9 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 			} else { //if this is not an AJAX request
 				//TODO del Log.trace("this is not AJAX, with method:", request.getMethod(), "content type", contentType, "guise POST?", isGuisePOST);
 				applicationFrame.setContent(destinationComponent); //place the component in the application frame
-				setNoCache(guiseRequest.getHTTPServletRequest(), response); //make sure the response is not cached TODO should we do this for AJAX responses as well?
+				if(response != null) {
+					setNoCache(guiseRequest.getHTTPServletRequest(), response); //make sure the response is not cached TODO should we do this for AJAX responses as well?
+				}
 				/*TODO del
 								final String referrer=getReferer(request);	//get the request referrer, if any
 								final URI referrerURI=referrer!=null ? getPlainURI(URI.create(referrer)) : null;	//get a plain URI version of the referrer, if there is a referrer
@@ -825,7 +1573,9 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 				guiseSession.setNavigation(navigationPath, navigationBookmark, referrerURI); //set the session navigation with the navigation bookmark, firing any navigation events if appropriate
 			}
 			final Set<Frame> removedFrames = new HashSet<Frame>(); //create a set of frames so that we can know which ones were removed TODO testing
-			Collections.addAll(removedFrames, guiseSession.getApplicationFrame().getChildFrames().iterator()); //get all the current frames; we'll determine which ones were removed, later TODO improve all this
+			if(isAJAX) { //removed frames are only reported in AJAX responses
+				Collections.addAll(removedFrames, guiseSession.getApplicationFrame().getChildFrames().iterator()); //get all the current frames; we'll determine which ones were removed, later TODO improve all this
+			}
 			boolean isNavigating = false; //we'll check this later to see if we're navigating so we won't have to update all the components
 			for(final GuiseEvent requestEvent : requestEvents) { //for each request event
 				final Set<Component> requestedComponents = new HashSet<Component>(); //create a set of component that were identified in the request
@@ -848,7 +1598,7 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 									final String parameterName = parameterListMapEntry.getKey(); //get the parameter name
 
 									if(parameterName.equals(WebApplicationFrameDepictor.getActionInputID(applicationFrame)) && parameterListMapEntry.getValue().size() > 0) { //if this parameter is for an action
-										final Component actionComponent = AbstractComponent.getComponentByID(applicationFrame,
+										final Component actionComponent = guisePlatform.getComponentIndex().getComponentByDepictID(applicationFrame,
 												guisePlatform.getDepictID(parameterListMapEntry.getValue().get(0).toString())); //get an action component
 										if(actionComponent != null) { //if we found an action component
 											requestedComponents.add(actionComponent); //add it to the list of requested components
@@ -856,7 +1606,7 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 									} else { //if this parameter is not a special action parameter
 										//TODO don't re-update nested components (less important for controls, which don't have nested components)
 										//TODO del Log.trace("looking for component with name", parameterName);
-										getComponentsByDepictName(applicationFrame, parameterName, requestedComponents); //get all components with depictions using the given name
+										guisePlatform.getComponentIndex().getComponentsByDepictName(applicationFrame, parameterName, requestedComponents); //get all components with depictions using the given name
 										//TODO del; test new method; tidy; comment							getControlsByName(guiseContext, navigationPanel, parameterName, requestedComponents);	//get all components identified by this name
 									}
 								}
@@ -1012,6 +1762,11 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 							final Queue<WebPlatformMessage> sendMessageQueue = platform.getSendMessageQueue(); //get the queue for sending messages
 							sendMessageQueue.add(new WebCommandMessage<PollCommand>(PollCommand.POLL_INTERVAL,
 									new NameValuePair<String, Object>(PollCommand.INTERVAL_PROPERTY, Integer.valueOf(pollInterval)))); //send a poll command to the platform with the new interval
+							if(guiseRequest.getHTTPServletRequest().isAsyncSupported()) { //if we can hold push requests open without tying up container threads
+								sendMessageQueue.add(new WebCommandMessage<PollCommand>(PollCommand.PUSH)); //tell the platform to open a push channel rather than polling
+							}
+							findWebSocketURI(guiseRequest).ifPresent(webSocketURI -> sendMessageQueue.add(new WebCommandMessage<PollCommand>(PollCommand.WEB_SOCKET,
+									new NameValuePair<String, Object>(PollCommand.URI_PROPERTY, webSocketURI.toString())))); //tell the platform to move communication to a WebSocket, if available
 						}
 						if(!requestedComponents.isEmpty()) { //if components were requested
 							for(final Component component : requestedComponents) { //for each requested component
@@ -1114,6 +1869,9 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 				}
 
 				if(isAJAX && !isNavigating && requestEvent instanceof WebInitializeEvent) { //if this is an AJAX initialization event (if we're navigating, there's no need to initialize this page) TODO maybe just dirty all the frames so this happens automatically
+					if(depictContext.getRetainedDepiction() != null) {
+						depictContext.getRetainedDepiction().clear(); //the page was just loaded, so nothing it has was retained
+					}
 					//close all the flyover frames to get rid of stuck flyover frames, such as those left from refreshing the page during flyover TODO fix; this is a workaround to keep refreshing the page from leaving stuck flyover frames; maybe do something better
 					final Iterator<Frame> flyoverFrameIterator = guiseSession.getApplicationFrame().getChildFrames().iterator(); //get an iterator to all the frames
 					while(flyoverFrameIterator.hasNext()) { //while there are more frames
@@ -1142,11 +1900,14 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 			}
 
 			//TODO move this to the bottom of the processing, as cookies only need to be updated before they go back
-			synchronizeCookies(guiseRequest.getHTTPServletRequest(), response, guiseSession); //synchronize the cookies going out in the response; do this before anything is written back to the client
+			if(response != null) { //cookies can only be synchronized in an HTTP response
+				synchronizeCookies(guiseRequest.getHTTPServletRequest(), response, guiseSession); //synchronize the cookies going out in the response; do this before anything is written back to the client
+			}
 
 			if(!isNavigating) { //we'll only update the views if we're not navigating (if we're navigating, we're changing pages, anyway)
+				guisePlatform.clearChange(); //everything changed up to this point will be depicted, so any waiting push request need only be woken for later changes
 				if(isAJAX) { //if this is an AJAX request
-					final Collection<Component> dirtyComponents = AbstractComponent.getDirtyComponents(guiseSession.getApplicationFrame()); //get all dirty components
+					final Collection<Component> dirtyComponents = AbstractComponent.getDirtyComponents(guiseSession.getApplicationFrame(), guisePlatform); //get the top-most dirty components from those registered as dirty, without walking the entire hierarchy
 
 					Collections.removeAll(removedFrames, guiseSession.getApplicationFrame().getChildFrames().iterator()); //remove all the ending frames, leaving us the frames that were removed TODO improve all this
 					//TODO fix					dirtyComponents.addAll(frames);	//add all the frames that were removed
@@ -1166,15 +1927,30 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 							depictContext.writeElementBegin(XHTML_NAMESPACE_URI, "patch"); //<xhtml:patch>	//TODO use a constant TODO don't use the XHTML namespace if we can help it
 							depictContext.writeAttribute(null, ATTRIBUTE_XMLNS.getLocalName(), XHTML_NAMESPACE_URI.toString()); //xmlns="http://www.w3.org/1999/xhtml"; note that we pass the wrong namespace to get the effectively correct prefix
 							depictContext.writeAttribute(XMLNS_NAMESPACE_URI, GUISE_ML_NAMESPACE_PREFIX, GUISE_ML_NAMESPACE_URI.toString()); //xmlns:guise="https://guise.io/framework/id/ml#"
+							final RetainedWebDepiction retainedDepiction = depictContext.getRetainedDepiction();
+							if(retainedDepiction != null) { //let the page apply patches in the order they were depicted, whatever channel they arrive on
+								if(!depictContext.isRetainedDepictionReset()) {
+									depictContext.writeAttribute(null, PATCH_ATTRIBUTE_BASE, Long.toString(retainedDepiction.getSequence()));
+								}
+								depictContext.writeAttribute(null, PATCH_ATTRIBUTE_SEQUENCE, Long.toString(retainedDepiction.nextSequence()));
+								depictContext.setRetainedDepiction(retainedDepiction, false); //any further patches are based on this one
+							}
 							for(final Component dirtyComponent : dirtyComponents) { //for each component affected by this update cycle
 								//TODO fix							if(dirtyComponent.isVisible())	//if the component is visible
 								//TODO fix							else	//if the component is not visible, remove the component's elements
 								dirtyComponent.updateTheme(); //make sure a theme has been applied to this component
-								dirtyComponent.depict(); //tell the component to update its view
+								final int depictIndex = depictContext.getDepictStringBuilder().length(); //note where the depiction of this component begins
+								((WebComponentDepictor<?>)dirtyComponent.getDepictor()).depictChanges(); //tell the component to update its view, patching only what changed if possible
+								if(retainedDepiction != null) { //if we know what the page already has, send only the differences
+									depictContext.replaceDepictText(depictIndex, retainedDepiction.patch(depictContext.getDepictStringBuilder().substring(depictIndex)));
+								}
 							}
 							depictContext.writeElementEnd(XHTML_NAMESPACE_URI, "patch"); //</xhtml:patch>
 						}
 						for(final Frame frame : removedFrames) { //for each removed frame
+							if(depictContext.getRetainedDepiction() != null) {
+								depictContext.getRetainedDepiction().remove(guisePlatform.getDepictIDString(frame.getDepictID()));
+							}
 							depictContext.writeElementBegin(XHTML_NAMESPACE_URI, "remove"); //<xhtml:remove>	//TODO use a constant TODO don't use the XHTML namespace if we can help it
 							depictContext.writeAttribute(XMLNS_NAMESPACE_URI, GUISE_ML_NAMESPACE_PREFIX, GUISE_ML_NAMESPACE_URI.toString()); //xmlns:guise="https://guise.io/framework/id/ml#"
 							depictContext.writeAttribute(null, "id", guisePlatform.getDepictIDString(frame.getDepictID())); //TODO fix
@@ -1213,27 +1989,103 @@ private void serviceGuiseComponentDestinationRequest(/*TODO del final HttpServle
 					}
 				} else { //if this is not an AJAX request
 					applicationFrame.updateTheme(); //make sure a theme has been applied to the application frame
+					final String pageEntityTag = response != null && !anonymous ? getPageEntityTag(guiseRequest, guiseSession) : null; //see if the page can be validated
+					if(pageEntityTag != null) {
+						response.setHeader("Cache-Control", "private, no-cache"); //let the user agent keep the page, but only show it again after revalidating it
+						response.setHeader(ETAG_HEADER, pageEntityTag);
+						if(matchesEntityTag(guiseRequest.getHTTPServletRequest().getHeader(IF_NONE_MATCH_HEADER), pageEntityTag)) { //if the user agent already has this page, don't depict it again
+							response.setStatus(HttpServletResponse.SC_NOT_MODIFIED); //the retained depiction still reflects the page
+							return null;
+						}
+					}
 					applicationFrame.depict(); //tell the application frame to update its view
 				}
 			}
 
-			String text = depictContext.getDepictText(); //get the text to output
+			if(response == null) { //if we aren't responding over HTTP, return the text to output
+				return depictContext.getDepictText();
+			}
 			if(isAJAX) { //if this is an AJAX request
 				depictContext.setOutputContentType(XML.CONTENT_TYPE); //switch to the "text/xml" content type TODO verify UTF-8 in a consistent, elegant way
-				text = "<response>" + text + "</response>"; //wrap the text in a response element
-			}
-			//			Log.debug("response length:", text.length());
-			//			Log.debug("response text:", text);
-			final byte[] bytes = text.getBytes(UTF_8); //write the content we collected in the context as series of bytes encoded in UTF-8
-			final OutputStream outputStream = getCompressedOutputStream(guiseRequest.getHTTPServletRequest(), response); //get a compressed output stream, if possible
-			outputStream.write(bytes); //write the bytes
-			outputStream.close(); //close the output stream, finishing writing the compressed contents (don't put this in a finally block, as it will attempt to write more data and raise another exception)
+			}
+			final HttpServletRequest request = guiseRequest.getHTTPServletRequest();
+			final StringBuilder depictStringBuilder = depictContext.getDepictStringBuilder(); //encode the content we collected in the context directly into the response, without making copies of it
+			if(isAJAX) {
+				getResponseEncoder().write(request, response, "<response>", depictStringBuilder, "</response>"); //wrap the text in a response element
+			} else {
+				getResponseEncoder().write(request, response, depictStringBuilder);
+			}
+			return null;
 		} finally {
 			guisePlatform.setDepictContext(null); //remove the depict context from this platform
-			guisePlatform.getDepictLock().unlock(); //always release the platform depict lock
+			guisePlatform.releaseDepictBuffers(depictBuffers); //the depicted text has been written or copied, so the buffers can be used for the next depiction
 		}
 	}
 
+	/**
+	 * Determines a validator for the page of a component destination about to be depicted in response to a non-AJAX GET request, without depicting it. The
+	 * entity tag is a hash of the session identity, the requested URI, the session locale, theme, and principal, and the modification counts of the application
+	 * frame and its child frames, which change whenever anything in the frames changes; if none of these has changed since the page was last depicted, neither
+	 * has the page.
+	 * @param guiseRequest Guise request information.
+	 * @param guiseSession The Guise session.
+	 * @return The strong entity tag of the page, including quotes, or <code>null</code> if the page cannot be validated.
+	 * @see AbstractComponentDepictor#getModificationCount()
+	 */
+	protected String getPageEntityTag(final HTTPServletGuiseRequest guiseRequest, final GuiseSession guiseSession) {
+		final HttpServletRequest request = guiseRequest.getHTTPServletRequest();
+		if(!GET_METHOD.equals(request.getMethod())) { //a POST is never answered from the user agent's cache
+			return null;
+		}
+		final DepictHasher depictHasher = DefaultDepictHasher.INSTANCE;
+		long hash = depictHasher.newHash();
+		final UUID sessionUUID = guiseSession.getUUID(); //a page depicted by another session has different depict IDs, even if nothing else differs
+		hash = depictHasher.hash(hash, sessionUUID.getMostSignificantBits());
+		hash = depictHasher.hash(hash, sessionUUID.getLeastSignificantBits());
+		hash = depictHasher.hash(hash, guiseRequest.getRequestURI().toString());
+		hash = depictHasher.hash(hash, guiseSession.getLocale().toLanguageTag());
+		hash = depictHasher.hash(hash, String.valueOf(guiseSession.getThemeURI()));
+		final Principal principal = guiseSession.getPrincipal();
+		hash = depictHasher.hash(hash, principal != null ? principal.getName() : "");
+		final ApplicationFrame applicationFrame = guiseSession.getApplicationFrame();
+		final List<Frame> frames = new ArrayList<Frame>();
+		frames.add(applicationFrame);
+		Collections.addAll(frames, applicationFrame.getChildFrames().iterator());
+		for(final Frame frame : frames) {
+			final Depictor<?> depictor = frame.getDepictor();
+			if(!(depictor instanceof AbstractComponentDepictor)) { //if we can't tell whether the frame was modified, the page can't be validated
+				return null;
+			}
+			hash = depictHasher.hash(hash, frame.getDepictID());
+			hash = depictHasher.hash(hash, ((AbstractComponentDepictor<?>)depictor).getModificationCount());
+		}
+		return '"' + depictHasher.encode(hash) + '"';
+	}
+
+	/**
+	 * Services a Guise AJAX request received from a page over a WebSocket, in the same way an AJAX request received over HTTP would be serviced. This method
+	 * must be called as exclusive work for the session using {@link GuiseSessionExecutor#callExclusive(GuiseSession, Runnable)} or
+	 * {@link GuiseSessionExecutor#submitExclusive(GuiseSession, Runnable)}.
+	 * @param guiseSession The Guise session.
+	 * @param pageURI The full depict URI of the page that sent the request, including any query.
+	 * @param requestText The text of the Guise AJAX request document.
+	 * @return The text of the Guise AJAX response document, or empty if there is nothing to send to the page.
+	 * @throws IllegalArgumentException if the page URI does not identify a component destination of the session application.
+	 * @throws IOException if there is an error reading the request or depicting the response.
+	 * @see GuiseWebSocketEndpoint
+	 */
+	protected Optional<String> serviceGuiseWebSocketRequest(final GuiseSession guiseSession, final URI pageURI, final String requestText) throws IOException {
+		final GuiseApplication guiseApplication = guiseSession.getApplication();
+		final HTTPServletGuiseRequest guiseRequest = new HTTPServletGuiseRequest(pageURI, guiseApplication, requestText);
+		final Destination destination = guiseApplication.getDestination(guiseRequest.getNavigationPath()).orElse(null);
+		if(!(destination instanceof ComponentDestination)) {
+			throw new IllegalArgumentException("Page " + pageURI + " is not a Guise component destination.");
+		}
+		final String depictText = serviceGuiseComponentDestinationRequest(guiseRequest, null, getGuiseContainer(), guiseApplication, guiseSession,
+				(ComponentDestination)destination, false);
+		return depictText.isEmpty() ? Optional.empty() : Optional.of("<response>" + depictText + "</response>"); //wrap the text in a response element, just as for HTTP
+	}
+
 	/**
 	 * Processes a redirect from a redirect destination. This method will unconditionally throw an exception. Under normal circumstances, an
 	 * {@link HTTPRedirectException} will be thrown.
@@ -1487,7 +2339,23 @@ protected List<GuiseEvent> getRequestEvents(/*TODO del final HttpServletRequest
 			try {
 				final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance(); //create a document builder factory TODO create a shared document builder factory, maybe---but make sure it is used by only one thread
 				final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder(); //create a new document builder
-				final Document document = documentBuilder.parse(guiseRequest.getHTTPServletRequest().getInputStream()); //read the document from the request
+				final Document document = documentBuilder.parse(guiseRequest.getInputStream()); //read the document from the request
+				final String pageToken = document.getDocumentElement().getAttribute(REQUEST_ATTRIBUTE_PAGE); //see which page instance sent the request
+				if(isRetainedDepiction() && !pageToken.isEmpty() && depictContext instanceof HTTPServletWebDepictContext) { //find out what the page already has
+					final RetainedWebDepiction retainedDepiction = platform.getRetainedDepiction(pageToken);
+					final String pageSequence = document.getDocumentElement().getAttribute(REQUEST_ATTRIBUTE_SEQUENCE);
+					boolean reset = false; //a push made on behalf of the page doesn't know which patches the page has applied, but the page applies them in order
+					if(!pageSequence.isEmpty()) {
+						long sequence;
+						try {
+							sequence = Long.parseLong(pageSequence);
+						} catch(final NumberFormatException numberFormatException) { //if we can't tell what the page has, start over
+							sequence = -1;
+						}
+						reset = !retainedDepiction.synchronize(sequence);
+					}
+					((HTTPServletWebDepictContext)depictContext).setRetainedDepiction(retainedDepiction, reset);
+				}
 				//Log.trace("request XML:", XMLUtilities.toString(document));
 				final List<Node> eventNodes = (List<Node>)XPath.evaluatePathExpression(document, AJAX_REQUEST_EVENTS_WILDCARD_XPATH_EXPRESSION); //get all the events
 				for(final Node eventNode : eventNodes) { //for each event node
@@ -1525,7 +2393,13 @@ protected List<GuiseEvent> getRequestEvents(/*TODO del final HttpServletRequest
 											final Object propertyValue = JSON.parseValue(propertyElement.getTextContent()); //get the value of the property
 											properties.put(propertyName, propertyValue); //add this property name and value to the event
 										}
-										requestEventList.add(new WebChangeDepictEvent(depictedObject, properties)); //create and add a change event to the list
+										final WebChangeDepictEvent changeEvent = new WebChangeDepictEvent(depictedObject, properties); //create a change event
+										final int lastEventIndex = requestEventList.size() - 1;
+										if(lastEventIndex >= 0 && isSupersededBy(requestEventList.get(lastEventIndex), changeEvent)) { //if this change replaces the change just before it (e.g. successive slider positions)
+											requestEventList.set(lastEventIndex, changeEvent); //only dispatch the latest change
+										} else {
+											requestEventList.add(changeEvent); //add the change event to the list
+										}
 									}
 								}
 							}
@@ -1553,6 +2427,10 @@ protected List<GuiseEvent> getRequestEvents(/*TODO del final HttpServletRequest
 							}
 								break;
 							case INIT: {
+								if(guiseRequest.getHTTPServletRequest() == null) { //initialization is logged using HTTP request information, so it is only accepted over HTTP
+									Log.warn("Ignoring Guise AJAX initialization event not received over HTTP.");
+									break;
+								}
 								final String hour = eventElement.getAttribute("hour");
 								final String utcOffset = eventElement.getAttribute("utcOffset");
 								final String utcOffset01 = eventElement.getAttribute("utcOffset01");
@@ -1758,6 +2636,22 @@ protected List<GuiseEvent> getRequestEvents(/*TODO del final HttpServletRequest
 		return requestEventList; //return the list of control events
 	}
 
+	/**
+	 * Determines whether a request event is made redundant by a change event that immediately follows it. This is the case if the event is itself a change to
+	 * the same depicted object, and all its properties are changed again by the following change event.
+	 * @param event The earlier request event.
+	 * @param changeEvent The change event immediately following the earlier event.
+	 * @return <code>true</code> if the earlier event need not be dispatched.
+	 */
+	protected static boolean isSupersededBy(final GuiseEvent event, final WebChangeDepictEvent changeEvent) {
+		if(!(event instanceof WebChangeDepictEvent)) {
+			return false;
+		}
+		final WebChangeDepictEvent earlierChangeEvent = (WebChangeDepictEvent)event;
+		return earlierChangeEvent.getDepictedObject() == changeEvent.getDepictedObject()
+				&& changeEvent.getProperties().keySet().containsAll(earlierChangeEvent.getProperties().keySet());
+	}
+
 	/**
 	 * Begins modal navigation based upon modal navigation information.
 	 * @param guiseApplication The Guise application.
@@ -1951,9 +2845,8 @@ protected boolean exists(final HttpServletRequest request, final URI resourceURI
 						final URI referrerURI=referrer!=null ? getPlainURI(URI.create(referrer)) : null;	//get a plain URI version of the referrer, if there is a referrer
 			*/
 			final ObjectHolder<Boolean> resourceExistsHolder = new ObjectHolder<Boolean>(); //create an object holder to receive the existence result
-			final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getThreadGroup(guiseSession); //get the thread group for this session
 			try {
-				call(guiseSessionThreadGroup, new Runnable() { //call the method in a new thread inside the thread group
+				guiseApplication.getSessionExecutor().call(guiseSession, new Runnable() { //call the method in the context of the session
 
 					@Override
 					public void run() {
@@ -2018,9 +2911,8 @@ protected HTTPServletResource getResource(final HttpServletRequest request, fina
 								final URI referrerURI=referrer!=null ? getPlainURI(URI.create(referrer)) : null;	//get a plain URI version of the referrer, if there is a referrer
 				*/
 				final ObjectHolder<UrfResourceDescription> destinationResourceDescriptionHolder = new ObjectHolder<>(); //create an object holder to receive the result of asking for the resource description
-				final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getThreadGroup(guiseSession); //get the thread group for this session
 				try {
-					call(guiseSessionThreadGroup, new Runnable() { //call the method in a new thread inside the thread group
+					guiseApplication.getSessionExecutor().call(guiseSession, new Runnable() { //call the method in the context of the session
 
 						@Override
 						public void run() {
@@ -2151,9 +3043,8 @@ protected class DestinationResource extends AbstractDescriptionResource {
 		@Override
 		public InputStream getInputStream(final HttpServletRequest request) throws IOException {
 			final ObjectHolder<InputStream> inputStreamHolder = new ObjectHolder<InputStream>(); //create an object holder to receive the result of asking for the input stream
-			final GuiseSessionThreadGroup guiseSessionThreadGroup = Guise.getInstance().getThreadGroup(guiseSession); //get the thread group for this session
 			try {
-				call(guiseSessionThreadGroup, new Runnable() { //call the method in a new thread inside the thread group
+				guiseApplication.getSessionExecutor().call(guiseSession, new Runnable() { //call the method in the context of the session
 
 					@Override
 					public void run() {
@@ -0,0 +1,389 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform.web;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.net.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpSession;
+import javax.websocket.*;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.server.*;
+
+import com.globalmentor.log.Log;
+
+import io.guise.framework.*;
+
+/**
+ * A JSR 356 WebSocket endpoint carrying Guise AJAX requests and responses for a single page. Each text message received is a Guise AJAX request document,
+ * identical to the body of an AJAX HTTP request, and is answered with a text message containing the Guise AJAX response document, if there is anything to
+ * send. In addition, whenever the session platform reports a change the endpoint depicts the changes and sends them without waiting for a request.
+ * <p>
+ * The Guise session is resolved once when the WebSocket is opened, using the HTTP session of the handshake request; the handshake must come from the same
+ * origin as the page. The page is identified by the {@value #PAGE_URI_QUERY_PARAMETER} query parameter. The Guise session must already exist, and the page
+ * must already have been initialized over HTTP; initialization events are not accepted over the WebSocket, and cookies are not synchronized.
+ * </p>
+ * <p>
+ * Each request, as well as each push of changes, must be admitted by the application's {@link GuiseAdmissionController}. If a request from the page is not
+ * admitted, the WebSocket is closed with {@link CloseCodes#TRY_AGAIN_LATER} and the page falls back to HTTP. Pushes are admitted as background work, as they
+ * are over HTTP; a push that is not admitted is tried again later, leaving the WebSocket open.
+ * </p>
+ * <p>
+ * Responses are sent asynchronously in the order in which they were depicted, after the session's exclusive work has finished, so that a slow page never
+ * holds up the session.
+ * </p>
+ * @author Garret Wilson
+ * @see GuiseHTTPServlet#WEB_SOCKET_INIT_PARAMETER
+ * @see GuiseHTTPServlet#serviceGuiseWebSocketRequest(GuiseSession, URI, String)
+ */
+public class GuiseWebSocketEndpoint extends Endpoint {
+
+	/** The query parameter of the WebSocket URI identifying the full URI of the page, including any query. */
+	public static final String PAGE_URI_QUERY_PARAMETER = "uri";
+
+	/**
+	 * The query parameter of the WebSocket URI identifying the page instance, so that changes pushed to the page can be patched against the depiction retained
+	 * for the page.
+	 * @see WebPlatform#REQUEST_ATTRIBUTE_PAGE
+	 */
+	public static final String PAGE_TOKEN_QUERY_PARAMETER = "page";
+
+	/** The pattern a page token must match to be used in a push request. */
+	private static final Pattern PAGE_TOKEN_PATTERN = Pattern.compile("[\\w-]{1,64}");
+
+	/** The maximum size in characters of a request message; AJAX requests may carry the entire contents of text controls. */
+	public static final int MAX_REQUEST_MESSAGE_SIZE = 1 << 20;
+
+	/** The request sent to the servlet to depict changes when no request has been received. */
+	private static final String PUSH_REQUEST_TEXT = "<request><events></events></request>";
+
+	/** The user property under which the configurator stores the HTTP session of the handshake request. */
+	private static final String HTTP_SESSION_USER_PROPERTY = HttpSession.class.getName();
+
+	/** The servlet servicing the Guise requests. */
+	private final GuiseHTTPServlet servlet;
+
+	/** @return The servlet servicing the Guise requests. */
+	protected GuiseHTTPServlet getServlet() {
+		return servlet;
+	}
+
+	/**
+	 * Servlet constructor.
+	 * @param servlet The servlet servicing the Guise requests.
+	 * @throws NullPointerException if the given servlet is <code>null</code>.
+	 */
+	public GuiseWebSocketEndpoint(final GuiseHTTPServlet servlet) {
+		this.servlet = requireNonNull(servlet, "Servlet cannot be null.");
+	}
+
+	/**
+	 * Creates a configuration for deploying endpoints for the given servlet.
+	 * @param servlet The servlet servicing the Guise requests.
+	 * @param path The path of the endpoint relative to the servlet context.
+	 * @return A configuration for deploying the endpoint.
+	 */
+	public static ServerEndpointConfig createEndpointConfig(final GuiseHTTPServlet servlet, final String path) {
+		return ServerEndpointConfig.Builder.create(GuiseWebSocketEndpoint.class, path).configurator(new Configurator(servlet)).build();
+	}
+
+	@Override
+	public void onOpen(final Session session, final EndpointConfig config) {
+		final HttpSession httpSession = (HttpSession)config.getUserProperties().get(HTTP_SESSION_USER_PROPERTY);
+		final GuiseSession guiseSession = httpSession != null
+				? getServlet().getGuiseContainer().findGuiseSession(getServlet().getGuiseApplication(), httpSession).orElse(null)
+				: null;
+		if(guiseSession == null) {
+			close(session, new CloseReason(CloseCodes.CANNOT_ACCEPT, "No Guise session."));
+			return;
+		}
+		final List<String> pageURIStrings = session.getRequestParameterMap().get(PAGE_URI_QUERY_PARAMETER);
+		final URI pageURI;
+		try {
+			pageURI = pageURIStrings != null && !pageURIStrings.isEmpty() ? new URI(pageURIStrings.get(0)) : null;
+		} catch(final URISyntaxException uriSyntaxException) {
+			close(session, new CloseReason(CloseCodes.CANNOT_ACCEPT, "Invalid page URI."));
+			return;
+		}
+		if(pageURI == null) {
+			close(session, new CloseReason(CloseCodes.CANNOT_ACCEPT, "No page URI."));
+			return;
+		}
+		final List<String> pageTokens = session.getRequestParameterMap().get(PAGE_TOKEN_QUERY_PARAMETER);
+		final String pageToken = pageTokens != null && !pageTokens.isEmpty() && PAGE_TOKEN_PATTERN.matcher(pageTokens.get(0)).matches() ? pageTokens.get(0) : null;
+		session.setMaxTextMessageBufferSize(MAX_REQUEST_MESSAGE_SIZE);
+		final Connection connection = new Connection(session, guiseSession, pageURI, pageToken);
+		session.addMessageHandler(String.class, connection::service);
+		connection.awaitChange();
+	}
+
+	@Override
+	public void onError(final Session session, final Throwable throwable) {
+		Log.debug("Guise WebSocket error.", throwable);
+	}
+
+	/**
+	 * Closes a WebSocket, ignoring any errors.
+	 * @param session The WebSocket session to close.
+	 * @param closeReason The reason for closing the WebSocket.
+	 */
+	protected static void close(final Session session, final CloseReason closeReason) {
+		try {
+			session.close(closeReason);
+		} catch(final IOException ioException) { //there's nothing more to do if we can't close the connection
+			Log.debug("Error closing Guise WebSocket.", ioException);
+		}
+	}
+
+	/**
+	 * The connection of a single page over a single WebSocket.
+	 * @author Garret Wilson
+	 */
+	protected class Connection {
+
+		/** The WebSocket session. */
+		private final Session session;
+
+		/** The Guise session of the page. */
+		private final GuiseSession guiseSession;
+
+		/** The full depict URI of the page, including any query. */
+		private final URI pageURI;
+
+		/** The request sent to the servlet on behalf of the page to depict changes when no request has been received. */
+		private final String pushRequestText;
+
+		/**
+		 * Constructor.
+		 * @param session The WebSocket session.
+		 * @param guiseSession The Guise session of the page.
+		 * @param pageURI The full depict URI of the page, including any query.
+		 * @param pageToken The token identifying the page instance, or <code>null</code> if the page did not identify itself.
+		 */
+		public Connection(final Session session, final GuiseSession guiseSession, final URI pageURI, final String pageToken) {
+			this.session = requireNonNull(session);
+			this.guiseSession = requireNonNull(guiseSession);
+			this.pageURI = requireNonNull(pageURI);
+			pushRequestText = pageToken != null ? "<request " + WebPlatform.REQUEST_ATTRIBUTE_PAGE + "=\"" + pageToken + "\"><events></events></request>"
+					: PUSH_REQUEST_TEXT; //the page token has been checked to contain nothing that needs escaping
+		}
+
+		/** The response messages waiting to be sent to the page, in the order in which they were depicted; guarded by the queue itself. */
+		private final Queue<String> outgoingMessages = new ArrayDeque<String>();
+
+		/** Whether a message is being sent to the page; guarded by the outgoing message queue. */
+		private boolean sending = false;
+
+		/**
+		 * Services a request received from the page. The request is submitted as exclusive work for the session, so messages are serviced in the order received.
+		 * If the request is not admitted, the WebSocket is closed and the page will send its requests over HTTP.
+		 * @param requestText The text of the Guise AJAX request document.
+		 */
+		public void service(final String requestText) {
+			submit(requestText, GuiseAdmissionController.Priority.INTERACTIVE).exceptionally(throwable -> {
+				final Throwable cause = getCause(throwable);
+				if(cause instanceof GuiseAdmissionController.RejectedAdmissionException) {
+					close(session, new CloseReason(CloseCodes.TRY_AGAIN_LATER, "Guise application is busy."));
+				} else {
+					Log.warn("Error servicing Guise WebSocket request.", cause);
+				}
+				return null;
+			});
+		}
+
+		/**
+		 * Waits for the session platform to report a change and then sends the changes to the page, repeating as long as the WebSocket is open. Pushes are made
+		 * on the page's behalf, so they are admitted as background work; if a push is not admitted, the changes remain pending and are pushed once the application
+		 * is no longer busy.
+		 */
+		public void awaitChange() {
+			guiseSession.getPlatform().awaitChange()
+					.thenCompose(ready -> session.isOpen() ? submit(pushRequestText, GuiseAdmissionController.Priority.BACKGROUND) : CompletableFuture.completedFuture(null))
+					.whenComplete((result, throwable) -> {
+						if(!session.isOpen()) { //if the page is no longer listening, there's nothing more to push
+							return;
+						}
+						final Throwable cause = getCause(throwable);
+						if(cause instanceof GuiseAdmissionController.RejectedAdmissionException) { //if the application is busy, the change hasn't been cleared; wait before trying again
+							final Duration retryAfter = ((GuiseAdmissionController.RejectedAdmissionException)cause).getRetryAfter();
+							CompletableFuture.delayedExecutor(retryAfter.toMillis(), TimeUnit.MILLISECONDS).execute(this::awaitChange);
+						} else { //wait for the next change
+							if(cause != null) {
+								Log.warn("Error pushing Guise changes over WebSocket.", cause);
+							}
+							awaitChange();
+						}
+					});
+		}
+
+		/**
+		 * Submits a request to be serviced as exclusive work for the session once it has been admitted, queuing any response to be sent to the page. The response
+		 * is queued from within the exclusive work so that responses are sent to the page in the order in which they were depicted, but it is sent afterwards so
+		 * that the session is not held while waiting on the network. If the request cannot be serviced, the WebSocket is closed and the page will fall back to
+		 * HTTP.
+		 * @param requestText The text of the Guise AJAX request document.
+		 * @param priority The priority with which the request is to be admitted.
+		 * @return A future that will be completed when the request has been serviced, or completed exceptionally with a
+		 *         {@link GuiseAdmissionController.RejectedAdmissionException} if the request was not admitted.
+		 */
+		protected CompletableFuture<Void> submit(final String requestText, final GuiseAdmissionController.Priority priority) {
+			return guiseSession.getApplication().getAdmissionController().admit(priority)
+					.thenCompose(admission -> submitAdmitted(requestText).whenComplete((result, throwable) -> admission.release()));
+		}
+
+		/**
+		 * Submits an admitted request to be serviced as exclusive work for the session, queuing any response to be sent to the page.
+		 * @param requestText The text of the Guise AJAX request document.
+		 * @return A future that will be completed when the request has been serviced.
+		 * @see #submit(String, GuiseAdmissionController.Priority)
+		 */
+		private CompletableFuture<Void> submitAdmitted(final String requestText) {
+			try {
+				return guiseSession.getApplication().getSessionExecutor().submitExclusive(guiseSession, () -> {
+					if(!session.isOpen()) { //if the page went away while the request was waiting, there's nobody to respond to
+						return;
+					}
+					try {
+						getServlet().serviceGuiseWebSocketRequest(guiseSession, pageURI, requestText).ifPresent(this::send);
+					} catch(final IOException | RuntimeException exception) {
+						Log.warn("Error servicing Guise WebSocket request; closing WebSocket.", exception);
+						close(session, new CloseReason(CloseCodes.UNEXPECTED_CONDITION, "Error servicing Guise request."));
+					}
+				});
+			} catch(final IllegalStateException illegalStateException) { //if the Guise session has ended or the executor is no longer accepting work
+				close(session, new CloseReason(CloseCodes.GOING_AWAY, "Guise session is no longer available."));
+				return CompletableFuture.completedFuture(null);
+			}
+		}
+
+		/**
+		 * Queues a message to be sent to the page after any messages already queued. Messages are sent asynchronously, one at a time.
+		 * @param text The text of the message to send.
+		 */
+		protected void send(final String text) {
+			synchronized(outgoingMessages) {
+				outgoingMessages.add(text);
+				if(sending) { //the message will be sent when those before it have been sent
+					return;
+				}
+				sending = true;
+			}
+			sendNext();
+		}
+
+		/** Sends the next queued message to the page, if any, continuing with the following message once it has been sent. */
+		private void sendNext() {
+			final String text;
+			synchronized(outgoingMessages) {
+				text = outgoingMessages.poll();
+				if(text == null) {
+					sending = false;
+					return;
+				}
+			}
+			session.getAsyncRemote().sendText(text, sendResult -> {
+				if(sendResult.isOK()) {
+					sendNext();
+				} else { //if we can't reach the page, the page will fall back to HTTP
+					Log.debug("Error sending Guise WebSocket message; closing WebSocket.", sendResult.getException());
+					synchronized(outgoingMessages) {
+						outgoingMessages.clear();
+						sending = false;
+					}
+					close(session, new CloseReason(CloseCodes.UNEXPECTED_CONDITION, "Error sending Guise response."));
+				}
+			});
+		}
+
+	}
+
+	/**
+	 * Determines the cause of a failure reported by a completion stage.
+	 * @param throwable The throwable reported by the completion stage, or <code>null</code> if there was no failure.
+	 * @return The underlying cause of the failure, or <code>null</code> if there was no failure.
+	 */
+	private static Throwable getCause(final Throwable throwable) {
+		return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+	}
+
+	/**
+	 * Configures WebSocket endpoints for a Guise servlet, creating endpoints for the servlet and recording the HTTP session of each handshake request.
+	 * @implNote This implementation relies on the container providing each WebSocket with its own copy of the user properties of the endpoint configuration, as
+	 *           Apache Tomcat does.
+	 * @author Garret Wilson
+	 */
+	protected static class Configurator extends ServerEndpointConfig.Configurator {
+
+		/** The servlet servicing the Guise requests. */
+		private final GuiseHTTPServlet servlet;
+
+		/**
+		 * Servlet constructor.
+		 * @param servlet The servlet servicing the Guise requests.
+		 * @throws NullPointerException if the given servlet is <code>null</code>.
+		 */
+		public Configurator(final GuiseHTTPServlet servlet) {
+			this.servlet = requireNonNull(servlet, "Servlet cannot be null.");
+		}
+
+		@Override
+		public <T> T getEndpointInstance(final Class<T> endpointClass) throws InstantiationException {
+			return endpointClass.cast(new GuiseWebSocketEndpoint(servlet));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * This implementation records the HTTP session, if any, so that the Guise session can be found when the WebSocket is opened. To prevent other sites from
+		 * opening a WebSocket using the cookies of the user, the HTTP session is only recorded if the handshake comes from the same origin as the page.
+		 * </p>
+		 */
+		@Override
+		public void modifyHandshake(final ServerEndpointConfig config, final HandshakeRequest request, final HandshakeResponse response) {
+			final Object httpSession = request.getHttpSession();
+			if(httpSession != null && isSameOrigin(request)) {
+				config.getUserProperties().put(HTTP_SESSION_USER_PROPERTY, httpSession);
+			}
+		}
+
+		/**
+		 * Determines whether a handshake request comes from the same origin as the host being contacted.
+		 * @param request The handshake request.
+		 * @return <code>true</code> if the origin of the request has the same authority as the requested host.
+		 */
+		protected static boolean isSameOrigin(final HandshakeRequest request) {
+			final Map<String, List<String>> headers = request.getHeaders();
+			final List<String> origins = headers.get("Origin");
+			final List<String> hosts = headers.get("Host");
+			if(origins == null || origins.isEmpty() || hosts == null || hosts.isEmpty()) {
+				return false;
+			}
+			try {
+				return hosts.get(0).equalsIgnoreCase(new URI(origins.get(0)).getRawAuthority());
+			} catch(final URISyntaxException uriSyntaxException) {
+				return false;
+			}
+		}
+	}
+
+}
@@ -24,15 +24,11 @@
 import java.net.*;
 import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.*;
 
 import javax.servlet.*;
 import javax.servlet.http.*;
 
-import com.globalmentor.collections.DecoratorReadWriteLockCollectionMap;
-import com.globalmentor.collections.DecoratorReadWriteLockMap;
-import com.globalmentor.collections.HashSetHashMap;
-import com.globalmentor.collections.ReadWriteLockCollectionMap;
-import com.globalmentor.collections.ReadWriteLockMap;
 import com.globalmentor.log.Log;
 import com.globalmentor.model.AbstractProxyHashObject;
 import com.globalmentor.net.URIPath;
@@ -114,28 +110,144 @@ protected void installApplication(final AbstractGuiseApplication application, fi
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * This version is provided to expose the method to the servlet.
+	 * This version is provided to expose the method to the servlet. Idle crawler sessions of the application are removed, and the application is not uninstalled
+	 * until all sessions being removed in the background have been destroyed, as the application can no longer destroy sessions once it has been uninstalled.
 	 * </p>
+	 * @see #removeGuiseSessionLater(GuiseSession)
 	 */
 	@Override
 	protected void uninstallApplication(final AbstractGuiseApplication application) {
+		final CrawlerGuiseSessionPool crawlerSessionPool = crawlerSessionPoolMap.remove(application);
+		if(crawlerSessionPool != null) {
+			crawlerSessionPool.clear();
+		}
+		awaitGuiseSessionRemovals(); //destroy the sessions while the application can still destroy sessions
 		super.uninstallApplication(application); //delegate to the parent class
 	}
 
+	/** The pools of throwaway sessions for serving unsessioned web crawlers, keyed to Guise applications. */
+	private final Map<GuiseApplication, CrawlerGuiseSessionPool> crawlerSessionPoolMap = new ConcurrentHashMap<GuiseApplication, CrawlerGuiseSessionPool>();
+
 	/**
-	 * The read/write lock map of Guise sessions keyed to Guise applications and HTTP sessions (as a single HTTP session may be used across different Guise
-	 * applications within one container).
+	 * Retrieves the pool of sessions for serving unsessioned web crawlers of the given application, creating the pool if necessary.
+	 * @param guiseApplication The Guise application that owns the sessions.
+	 * @return The crawler session pool of the application.
+	 * @see HTTPServletGuiseSessionManager#isUnsessionedCrawler(HttpServletRequest)
 	 */
-	private final ReadWriteLockMap<GuiseApplicationHTTPSessionKey, GuiseSession> httpSessionGuiseApplicationGuiseSessionMap = new DecoratorReadWriteLockMap<GuiseApplicationHTTPSessionKey, GuiseSession>(
-			new HashMap<GuiseApplicationHTTPSessionKey, GuiseSession>());
+	protected CrawlerGuiseSessionPool getCrawlerSessionPool(final GuiseApplication guiseApplication) {
+		return crawlerSessionPoolMap.computeIfAbsent(guiseApplication, application -> new CrawlerGuiseSessionPool(this, application));
+	}
+
+	/**
+	 * Creates and adds a Guise session for serving unsessioned web crawlers. The session is not associated with any HTTP session. This method should only be
+	 * called by a crawler session pool, or by the servlet for depicting an anonymous page.
+	 * @param guiseApplication The Guise application that will own the Guise session.
+	 * @param httpRequest The first HTTP request the Guise session will serve.
+	 * @return The new Guise session.
+	 * @see CrawlerGuiseSessionPool
+	 * @see GuiseHTTPServlet#depictAnonymousPage(HTTPServletGuiseRequest, HTTPServletGuiseContainer, GuiseApplication, io.guise.framework.ComponentDestination)
+	 */
+	protected GuiseSession createCrawlerGuiseSession(final GuiseApplication guiseApplication, final HttpServletRequest httpRequest) {
+		final GuiseSession guiseSession = guiseApplication.createSession(new HTTPServletWebPlatform(guiseApplication, null, httpRequest)); //ask the application to create a new Guise session for a platform without an HTTP session
+		Log.debug("Adding crawler Guise session", guiseSession);
+		addGuiseSession(guiseSession); //add and initialize the Guise session
+		return guiseSession;
+	}
+
+	/**
+	 * Removes and destroys a Guise session created for serving unsessioned web crawlers. Destruction takes place asynchronously, so that a session may be
+	 * removed from within the work of another session. This method should only be called by a crawler session pool, or by the servlet for depicting an
+	 * anonymous page.
+	 * @param guiseSession The Guise session to remove.
+	 * @return A future that will be completed when the session has been removed.
+	 * @see CrawlerGuiseSessionPool
+	 * @see #removeGuiseSessionLater(GuiseSession)
+	 */
+	protected CompletableFuture<Void> removeCrawlerGuiseSession(final GuiseSession guiseSession) {
+		Log.debug("Removing crawler Guise session", guiseSession);
+		return removeGuiseSessionLater(guiseSession); //remove the Guise session in the background
+	}
 
 	/**
-	 * The read/write lock set map of Guise sessions associated with a single HTTP session (as there may be several Guise sessions in this container using the
-	 * same HTTP session. This set map is only accessed when a Guise session is being added or removed, so its locks should not slow down normal HTTP requests.
-	 * The sets within the map are not thread-safe, so all access to iterables of values should be performed after retrieving a read lock.
+	 * The concurrent map of Guise sessions keyed to Guise applications and HTTP sessions (as a single HTTP session may be used across different Guise
+	 * applications within one container). Lookups do not lock, so that requests of existing sessions never wait on the creation or removal of other sessions.
 	 */
-	private final ReadWriteLockCollectionMap<HttpSession, GuiseSession, Set<GuiseSession>> httpSessionGuiseSessionSetMap = new DecoratorReadWriteLockCollectionMap<HttpSession, GuiseSession, Set<GuiseSession>>(
-			new HashSetHashMap<HttpSession, GuiseSession>());
+	private final Map<GuiseApplicationHTTPSessionKey, GuiseSession> httpSessionGuiseApplicationGuiseSessionMap = new ConcurrentHashMap<GuiseApplicationHTTPSessionKey, GuiseSession>();
+
+	/**
+	 * The concurrent map of the sets of Guise sessions associated with a single HTTP session (as there may be several Guise sessions in this container using the
+	 * same HTTP session). This map is only accessed when a Guise session is being added or removed. The sets within the map are concurrent sets.
+	 */
+	private final Map<HttpSession, Set<GuiseSession>> httpSessionGuiseSessionSetMap = new ConcurrentHashMap<HttpSession, Set<GuiseSession>>();
+
+	/** The number of locks guarding Guise session creation; a power of two. */
+	private static final int SESSION_CREATION_LOCK_COUNT = 64;
+
+	/**
+	 * The locks guarding Guise session creation, striped by session key so that a session is only created once for each HTTP session and application, without
+	 * making the creation of sessions for unrelated HTTP sessions wait on each other.
+	 */
+	private final Object[] sessionCreationLocks = new Object[SESSION_CREATION_LOCK_COUNT];
+
+	{
+		for(int i = 0; i < sessionCreationLocks.length; ++i) {
+			sessionCreationLocks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Returns the lock guarding the creation of the Guise session with the given key.
+	 * @param sessionKey The key of the Guise session being created.
+	 * @return The lock to hold while creating the session.
+	 */
+	private Object getSessionCreationLock(final GuiseApplicationHTTPSessionKey sessionKey) {
+		final int hash = sessionKey.hashCode();
+		return sessionCreationLocks[(hash ^ (hash >>> 16)) & (SESSION_CREATION_LOCK_COUNT - 1)];
+	}
+
+	/**
+	 * The executor that destroys removed Guise sessions, so that tearing down sessions never holds up the thread that removed them. A single daemon thread is
+	 * used, which exits when there are no sessions to destroy, so that a mass expiry of sessions cannot take over threads needed for servicing requests.
+	 */
+	private static final ThreadPoolExecutor sessionTeardownExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			runnable -> {
+				final Thread thread = new Thread(runnable, "Guise Session Teardown");
+				thread.setDaemon(true); //don't keep the JVM running for session teardown
+				return thread;
+			});
+
+	static {
+		sessionTeardownExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/** The removals of Guise sessions of this container that have been requested but have not yet completed. */
+	private final Set<CompletableFuture<Void>> pendingGuiseSessionRemovals = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Removes and destroys a Guise session asynchronously using the session teardown executor. This allows a session to be removed from a thread that is
+	 * servicing a request, or from within the work of another session, without waiting for the session to be destroyed.
+	 * @param guiseSession The Guise session to remove.
+	 * @return A future that will be completed when the session has been removed.
+	 * @see #removeGuiseSession(GuiseSession)
+	 */
+	protected CompletableFuture<Void> removeGuiseSessionLater(final GuiseSession guiseSession) {
+		final CompletableFuture<Void> removal = CompletableFuture.runAsync(() -> removeGuiseSession(guiseSession), sessionTeardownExecutor)
+				.exceptionally(throwable -> {
+					Log.warn("Error removing Guise session", guiseSession, throwable);
+					return null;
+				});
+		pendingGuiseSessionRemovals.add(removal);
+		removal.whenComplete((result, throwable) -> pendingGuiseSessionRemovals.remove(removal)); //if the removal is already complete, this happens immediately, after it was added
+		return removal;
+	}
+
+	/**
+	 * Waits for all removals of Guise sessions requested so far to complete.
+	 * @see #removeGuiseSessionLater(GuiseSession)
+	 */
+	protected void awaitGuiseSessionRemovals() {
+		CompletableFuture.allOf(pendingGuiseSessionRemovals.toArray(new CompletableFuture<?>[0])).join(); //removal errors have already been logged
+	}
 
 	/**
 	 * Retrieves a Guise session for the given HTTP session. A Guise session will be created if none is currently associated with the given HTTP session. When a
@@ -149,35 +261,38 @@ protected void uninstallApplication(final AbstractGuiseApplication application)
 	 */
 	protected GuiseSession getGuiseSession(final GuiseApplication guiseApplication, final HttpServletRequest httpRequest, final HttpSession httpSession) {
 		final GuiseApplicationHTTPSessionKey sessionKey = new GuiseApplicationHTTPSessionKey(guiseApplication, httpSession); //create a key for looking up a Guise session based upon the Guise application and the HTTP session
-		final boolean isNewGuiseSession; //we'll determine whether we're creating a new Guise session
 		GuiseSession guiseSession = httpSessionGuiseApplicationGuiseSessionMap.get(sessionKey); //get the Guise session associated with the Guise application and HTTP session, if there is one
 		if(guiseSession == null) { //if there is no such Guise session
-			httpSessionGuiseApplicationGuiseSessionMap.writeLock().lock(); //get a write lock to the map
-			try {
+			synchronized(getSessionCreationLock(sessionKey)) { //only wait on requests creating a session with the same key, or one sharing its lock
 				guiseSession = httpSessionGuiseApplicationGuiseSessionMap.get(sessionKey); //try to get the Guise session again, just in case one has just been created for this application and HTTP session
-				isNewGuiseSession = guiseSession == null; //if there is still no Guise session associated with the given HTTP session and Guise application, we'll create a Guise session
-				if(isNewGuiseSession) { //if we should create a new Guise session
+				if(guiseSession == null) { //if there is still no Guise session associated with the given HTTP session and Guise application, create a Guise session
 					guiseSession = guiseApplication.createSession(new HTTPServletWebPlatform(guiseApplication, httpSession, httpRequest)); //ask the application to create a new Guise session for the given platform
 					Log.info("Adding Guise session", guiseSession, "associated with HTTP sesssion", httpSession.getId());
 					addGuiseSession(guiseSession); //add and initialize the Guise session
 					final Locale[] clientAcceptedLanguages = getAcceptedLanguages(httpRequest); //get all languages accepted by the client
 					guiseSession.requestLocale(asList(clientAcceptedLanguages)); //ask the Guise session to change to one of the accepted locales, if the application supports one
-					httpSessionGuiseApplicationGuiseSessionMap.put(sessionKey, guiseSession); //associate the Guise session with the Guise application and HTTP session
+					httpSessionGuiseSessionSetMap.computeIfAbsent(httpSession, session -> ConcurrentHashMap.newKeySet()).add(guiseSession); //indicate that this Guise session is for this HTTP session, so that when the HTTP session expires we'll know which Guise sessions went with it
+					httpSessionGuiseApplicationGuiseSessionMap.put(sessionKey, guiseSession); //publish the fully initialized Guise session for the Guise application and HTTP session
 				}
-			} finally {
-				httpSessionGuiseApplicationGuiseSessionMap.writeLock().unlock(); //always release the write lock
 			}
-		} else { //if we already have a Guise session
-			isNewGuiseSession = false; //indicate that we didn't create a new Guise session
-		}
-		if(isNewGuiseSession) { //if we created a new Guise session, associate the Guise application with the new Guise session so that when the HTTP session expires we'll know which Guise sessions went with it (it is important to do this outside the synchronized block, because there are nested synchronizations when the HTTP session expires, but that won't happen until later so there's no need to synchronize now)		
-			httpSessionGuiseSessionSetMap.addItem(httpSession, guiseSession); //indicate that this Guise session is for this HTTP session
 		}
 		final URI requestDepictionURI = URI.create(httpRequest.getRequestURL().toString()); //get the depiction URI of the current request
 		guiseSession.setDepictionRootURI(getPlainURI(resolve(requestDepictionURI, ROOT_PATH))); //update the depiction plain root URI to the root of the URL specified by the request, in case the session is created from a different URL
 		return guiseSession; //return the Guise session
 	}
 
+	/**
+	 * Looks up the existing Guise session of the given application for the given HTTP session. Unlike
+	 * {@link #getGuiseSession(GuiseApplication, HttpServletRequest, HttpSession)}, no Guise session is created if there is none, so this method may be used
+	 * outside of an HTTP request, for example when a WebSocket is opened.
+	 * @param guiseApplication The Guise application that owns the Guise session.
+	 * @param httpSession The HTTP session with which the Guise session is associated.
+	 * @return The Guise session associated with the provided HTTP session, if there is one.
+	 */
+	protected Optional<GuiseSession> findGuiseSession(final GuiseApplication guiseApplication, final HttpSession httpSession) {
+		return Optional.ofNullable(httpSessionGuiseApplicationGuiseSessionMap.get(new GuiseApplicationHTTPSessionKey(guiseApplication, httpSession)));
+	}
+
 	/*TODO bring back logging after testing log out-of-memory error
 					try
 					{
@@ -232,25 +347,25 @@ protected GuiseSession getGuiseSession(final GuiseApplication guiseApplication,
 	/**
 	 * Removes the Guise sessions for the given HTTP session. This method can only be accessed by classes in the same package. This method should only be called
 	 * by HTTP Guise session manager.
+	 * The Guise sessions are no longer available once this method returns, but they are destroyed asynchronously, so that mass session expiry neither holds up
+	 * the thread expiring the HTTP sessions nor contends with requests.
 	 * @param httpSession The HTTP session which should be removed along with its corresponding Guise session.
 	 * @return The set of Guise sessions previously associated with the HTTP session.
+	 * @see #removeGuiseSessionLater(GuiseSession)
 	 * @see HTTPServletGuiseSessionManager
 	 */
 	protected Set<GuiseSession> removeGuiseSessions(final HttpSession httpSession) {
-		final Set<GuiseSession> guiseSessions; //we'll find all Guise sessions associated with the HTTP session
-		synchronized(httpSessionGuiseApplicationGuiseSessionMap) { //because it might be possible for a new HTTP request to revive the HTTP session and repopulate the HTTP session/Guise application->Guise session map, lock access to the map until we remove all the relevant entries
-			guiseSessions = httpSessionGuiseSessionSetMap.remove(httpSession); //in one synchronized motion, remove and retrieve any Guise sessions associated with this HTTP session
-			if(guiseSessions == null) { //if there is no set of Guise sessions, there's nothing for us to do here
-				return emptySet(); //indicate that there were no Guise sessions
-			}
-			for(final GuiseSession guiseSession : guiseSessions) { //look at all Guise sessions associated with this HTTP session
-				final GuiseApplicationHTTPSessionKey sessionKey = new GuiseApplicationHTTPSessionKey(guiseSession.getApplication(), httpSession); //create a key for looking up a Guise session based upon the Guise application and the HTTP session
-				httpSessionGuiseApplicationGuiseSessionMap.remove(sessionKey); //remove the HTTP session and Guise session association
-			}
+		final Set<GuiseSession> guiseSessions = httpSessionGuiseSessionSetMap.remove(httpSession); //in one atomic motion, remove and retrieve any Guise sessions associated with this HTTP session
+		if(guiseSessions == null) { //if there is no set of Guise sessions, there's nothing for us to do here
+			return emptySet(); //indicate that there were no Guise sessions
+		}
+		for(final GuiseSession guiseSession : guiseSessions) { //look at all Guise sessions associated with this HTTP session
+			final GuiseApplicationHTTPSessionKey sessionKey = new GuiseApplicationHTTPSessionKey(guiseSession.getApplication(), httpSession); //create a key for looking up a Guise session based upon the Guise application and the HTTP session
+			httpSessionGuiseApplicationGuiseSessionMap.remove(sessionKey, guiseSession); //remove the HTTP session and Guise session association
 		}
 		for(final GuiseSession guiseSession : guiseSessions) { //now that we've updated the relevant maps related to the HTTP session, we can uninitialize the Guise sessions at our leisure without blocking new HTTP requests
 			Log.info("Removing Guise session", guiseSession, "associated with HTTP sesssion", httpSession.getId());
-			removeGuiseSession(guiseSession); //remove the Guise session
+			removeGuiseSessionLater(guiseSession); //destroy the Guise session in the background
 		}
 		return guiseSessions; //return the Guise sessions
 	}
@@ -16,7 +16,7 @@
 
 package io.guise.framework.platform.web;
 
-import java.io.IOException;
+import java.io.*;
 import java.net.URI;
 
 import static java.util.Objects.*;
@@ -26,23 +26,26 @@
 import com.globalmentor.log.Log;
 import com.globalmentor.net.ContentType;
 import com.globalmentor.net.URIPath;
+import com.globalmentor.servlet.http.HTTPServlets;
 
 import io.guise.framework.*;
 
 import static com.globalmentor.net.URIs.*;
 import static com.globalmentor.servlet.http.HTTPServlets.*;
+import static java.nio.charset.StandardCharsets.*;
 import static io.guise.framework.platform.web.WebPlatform.*;
 
 /**
- * Information about the Guise request of an HTTP servlet.
+ * Information about the Guise request of an HTTP servlet. A Guise AJAX request may also arrive outside of an HTTP request, such as a message received over a
+ * WebSocket; such a request has no HTTP servlet request.
  * @author Garret Wilson
  */
 public class HTTPServletGuiseRequest {
 
-	/** The HTTP servlet request. */
+	/** The HTTP servlet request, or <code>null</code> if the request did not arrive over HTTP. */
 	private final HttpServletRequest httpServletRequest;
 
-	/** @return The HTTP servlet request. */
+	/** @return The HTTP servlet request, or <code>null</code> if the request did not arrive over HTTP. */
 	public HttpServletRequest getHTTPServletRequest() {
 		return httpServletRequest;
 	}
@@ -53,6 +56,27 @@ public HttpServletRequest getHTTPServletRequest() {
 	/** @return The HTTP servlet response. */
 	//TODO del		public HttpServletResponse getHTTPServletResponse() {return httpServletResponse;}
 
+	/** The content of a request that did not arrive over HTTP, or <code>null</code> if the content should be read from the HTTP servlet request. */
+	private final byte[] content;
+
+	/**
+	 * Returns an input stream to the content of the request. For an HTTP request, this is the input stream of the HTTP servlet request, and may only be
+	 * retrieved once.
+	 * @return An input stream to the content of the request.
+	 * @throws IOException if there is an error retrieving the input stream.
+	 */
+	public InputStream getInputStream() throws IOException {
+		return httpServletRequest != null ? httpServletRequest.getInputStream() : new ByteArrayInputStream(content);
+	}
+
+	/** The full requested depict URI, including any query. */
+	private final URI requestURI;
+
+	/** @return The full requested depict URI, including any query. */
+	public URI getRequestURI() {
+		return requestURI;
+	}
+
 	/** The requested plain depict URI. */
 	private final URI depictURI;
 
@@ -140,6 +164,8 @@ public HTTPServletGuiseRequest(final HttpServletRequest request, /*TODO del fina
 			final GuiseApplication guiseApplication) throws IOException {
 		this.httpServletRequest = requireNonNull(request, "HTTP servlet request cannot be null.");
 		//TODO del		this.httpServletResponse=requireNonNull(response, "HTTP servlet request cannot be null.");
+		content = null; //the content will be read from the HTTP servlet request
+		requestURI = HTTPServlets.getRequestURI(request); //get the full request URI, including the query
 		depictURI = URI.create(request.getRequestURL().toString()); //get the URI of the current request
 		final String queryString = request.getQueryString(); //get the query string from the request
 		bookmark = queryString != null && queryString.length() > 0 ? new Bookmark(String.valueOf(QUERY_SEPARATOR) + queryString) : null; //create a bookmark if there is a query string (Tomcat 5.5.16 returns an empty string for no query, even though the Java Servlet specification 2.4 says that it should return null; this is fixed in Tomcat 6)
@@ -159,6 +185,28 @@ public HTTPServletGuiseRequest(final HttpServletRequest request, /*TODO del fina
 		ajax = requestContentType != null && GUISE_AJAX_REQUEST_CONTENT_TYPE.hasBaseType(requestContentType); //see if this is a Guise AJAX request
 	}
 
+	/**
+	 * Creates a Guise AJAX request that did not arrive over HTTP, such as a message received over a WebSocket.
+	 * @param requestURI The full depict URI of the page for which the request was made, including any query.
+	 * @param guiseApplication The Guise application.
+	 * @param ajaxRequestText The text of the Guise AJAX request document.
+	 * @throws NullPointerException if the given request URI, application, and/or request text is <code>null</code>.
+	 */
+	public HTTPServletGuiseRequest(final URI requestURI, final GuiseApplication guiseApplication, final String ajaxRequestText) {
+		this.httpServletRequest = null; //there is no HTTP request
+		this.content = ajaxRequestText.getBytes(UTF_8);
+		this.requestURI = requireNonNull(requestURI, "Request URI cannot be null.");
+		depictURI = getPlainURI(requestURI); //remove the query and fragment, if any
+		final String rawQuery = requestURI.getRawQuery(); //get the query of the page URI
+		bookmark = rawQuery != null && rawQuery.length() > 0 ? new Bookmark(String.valueOf(QUERY_SEPARATOR) + rawQuery) : null; //create a bookmark if there is a query string
+		Log.debug("servicing Guise request with request URI:", depictURI, "bookmark:", bookmark);
+		referrerURI = null; //there is no referrer
+		navigationPath = guiseApplication.getNavigationPath(depictURI); //get the logical version of the the path
+		requestPathReserved = navigationPath.toString().startsWith(GuiseApplication.GUISE_RESERVED_BASE_PATH.toString()); //reserved paths will not be serviced as components, but note them anyway
+		requestContentType = GUISE_AJAX_REQUEST_CONTENT_TYPE; //the content is always a Guise AJAX request
+		ajax = true;
+	}
+
 	@Override
 	public String toString() {
 		return getDepictURI().toString() + " (" + getNavigationPath() + ") " + getBookmark();
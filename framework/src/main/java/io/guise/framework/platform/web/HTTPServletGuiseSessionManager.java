@@ -18,8 +18,7 @@
 package io.guise.framework.platform.web;
 
 import java.util.*;
-
-import static java.util.Collections.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.*;
 
@@ -36,15 +35,50 @@
  * A HTTP request may override any HTTP session identified by the request by exlicitly identifying the Guise session UUID using the
  * {@link WebPlatform#GUISE_SESSION_UUID_URI_QUERY_PARAMETER} parameter.
  * </p>
+ * <p>
+ * Requests from web crawlers that do not maintain sessions, as determined by {@link #isUnsessionedCrawler(HttpServletRequest)}, are not given an HTTP session
+ * at all; they are instead serviced using a session leased from the application's {@link CrawlerGuiseSessionPool}.
+ * </p>
  * @author Garret Wilson
  * @see HTTPServletGuiseContainer
  */
 public class HTTPServletGuiseSessionManager implements HttpSessionListener {
 
-	/** The synchronized map of Guise containers keyed to HTTP sessions. */
-	private static final Map<HttpSession, HTTPServletGuiseContainer> guiseContainerMap = synchronizedMap(new HashMap<HttpSession, HTTPServletGuiseContainer>());
+	/** The concurrent map of Guise containers keyed to HTTP sessions. */
+	private static final Map<HttpSession, HTTPServletGuiseContainer> guiseContainerMap = new ConcurrentHashMap<HttpSession, HTTPServletGuiseContainer>();
 
-	private static HttpSession spiderSession = null; //TODO fix to be separate for each application; testing
+	/** The request attribute holding the lease of the crawler session servicing an unsessioned crawler request. */
+	private static final String CRAWLER_SESSION_LEASE_REQUEST_ATTRIBUTE = HTTPServletGuiseSessionManager.class.getName() + ".crawlerSessionLease";
+
+	/**
+	 * Releases the crawler session, if any, leased for servicing the given request. This method must be called when the request has been completely serviced,
+	 * and may safely be called more than once.
+	 * @param httpRequest The HTTP request.
+	 * @see CrawlerGuiseSessionPool.Lease#release()
+	 */
+	protected static void releaseCrawlerSession(final HttpServletRequest httpRequest) {
+		final CrawlerGuiseSessionPool.Lease crawlerSessionLease = (CrawlerGuiseSessionPool.Lease)httpRequest.getAttribute(CRAWLER_SESSION_LEASE_REQUEST_ATTRIBUTE);
+		if(crawlerSessionLease != null) {
+			httpRequest.removeAttribute(CRAWLER_SESSION_LEASE_REQUEST_ATTRIBUTE);
+			crawlerSessionLease.release();
+		}
+	}
+
+	/**
+	 * Determines whether an HTTP request comes from a web crawler that does not maintain sessions, and that has not otherwise identified a session. Such
+	 * requests are recognized by the user agent names in {@link com.globalmentor.servlet.http.HTTPServlets#UNSESSIONED_SPIDER_USER_AGENT_NAMES}.
+	 * @param httpRequest The HTTP request.
+	 * @return <code>true</code> if the request should be serviced without an HTTP session.
+	 * @see CrawlerGuiseSessionPool
+	 */
+	protected static boolean isUnsessionedCrawler(final HttpServletRequest httpRequest) {
+		if(httpRequest.getParameter(WebPlatform.GUISE_SESSION_UUID_URI_QUERY_PARAMETER) != null || httpRequest.getSession(false) != null) { //if the request identifies a session, use it
+			return false;
+		}
+		final Map<String, Object> userAgentProperties = getUserAgentProperties(httpRequest); //get user agent-related properties TODO have the method cache these in the request
+		final String userAgentName = asInstance(userAgentProperties.get(USER_AGENT_NAME_PROPERTY), String.class).orElse(null); //get the user agent name
+		return UNSESSIONED_SPIDER_USER_AGENT_NAMES.contains(userAgentName); //see if the user agent is a spider that does not support sessions
+	}
 
 	/**
 	 * Retrieves a session for the given HTTP request, creating a session if necessary. If a {@link WebPlatform#GUISE_SESSION_UUID_URI_QUERY_PARAMETER} parameter
@@ -66,6 +100,10 @@ protected static GuiseSession getGuiseSession(final HTTPServletGuiseContainer gu
 	 * Retrieves a session for the given HTTP request. If a {@link WebPlatform#GUISE_SESSION_UUID_URI_QUERY_PARAMETER} parameter is present in the HTTP request,
 	 * it will be used to directly look up a Guise session, ignoring any identified HTTP session. If there is no Guise session matching a specified UUID, the
 	 * Guise session will be retrieved normally.
+	 * <p>
+	 * For an unsessioned crawler, a session is leased from the application's crawler session pool the first time a session is requested, and the same session is
+	 * returned for the rest of the request; the servlet must call {@link #releaseCrawlerSession(HttpServletRequest)} when the request is finished.
+	 * </p>
 	 * @param guiseContainer The Guise container that owns the application.
 	 * @param guiseApplication The application to install to own the created session..
 	 * @param httpRequest The HTTP request with which the Guise session is to be associated.
@@ -85,36 +123,23 @@ protected static GuiseSession getGuiseSession(final HTTPServletGuiseContainer gu
 				return guiseSession; //return the session we found
 			}
 		}
+		final CrawlerGuiseSessionPool.Lease crawlerSessionLease = (CrawlerGuiseSessionPool.Lease)httpRequest.getAttribute(CRAWLER_SESSION_LEASE_REQUEST_ATTRIBUTE); //see if we already leased a session for this request
+		if(crawlerSessionLease != null) {
+			return crawlerSessionLease.getGuiseSession();
+		}
+		if(isUnsessionedCrawler(httpRequest)) { //crawlers get a throwaway session of their own rather than an HTTP session
+			if(!createSession) {
+				return null;
+			}
+			final CrawlerGuiseSessionPool.Lease newCrawlerSessionLease = guiseContainer.getCrawlerSessionPool(guiseApplication).lease(httpRequest);
+			httpRequest.setAttribute(CRAWLER_SESSION_LEASE_REQUEST_ATTRIBUTE, newCrawlerSessionLease); //use the same session for the rest of the request
+			return newCrawlerSessionLease.getGuiseSession();
+		}
 		//TODO del Log.trace("requested session ID: ", httpRequest.getRequestedSessionId());
 		HttpSession httpSession = httpRequest.getSession(false); //get the current HTTP session from the HTTP request, if there is a session
 		if(httpSession == null) { //if there is no session yet for this request, we'll create one
-			final Map<String, Object> userAgentProperties = getUserAgentProperties(httpRequest); //get user agent-related properties TODO have the method cache these in the request
-			final String userAgentName = asInstance(userAgentProperties.get(USER_AGENT_NAME_PROPERTY), String.class).orElse(null); //get the user agent name
-			final boolean isSpider = UNSESSIONED_SPIDER_USER_AGENT_NAMES.contains(userAgentName); //see if the user agent is a spider that does not support sessions
-			boolean useSpiderSession = isSpider && spiderSession != null; //we'll use the spider session if the user agent is a spider and we have a spider session
-			if(useSpiderSession) { //even if the user agent is a spider, make sure the spider session is valid
-				try {
-					if((System.currentTimeMillis() - spiderSession.getLastAccessedTime()) / 1000 > spiderSession.getMaxInactiveInterval() - 2) //if the existing spider session is almost expired 
-					{
-						useSpiderSession = false; //don't use the spider session
-					}
-				} catch(final IllegalStateException illegalStateException) { //if the spider session is already invalidated (the servlet API seems to allow no way to check this explicitly for arbitrary sessions) 
-					useSpiderSession = false;
-				}
-			}
-			if(useSpiderSession) { //if this is a spider and we have a spider session
-				//TODO del Debug.info("using spider session for user agent name", userAgentName);
-				httpSession = spiderSession; //use the spider session
-			} else { //if this isn't a spider, we have no existing spider session, or the existing spider session is almost expired, create a session
-				//TODO del Debug.info("creating session for user agent name", userAgentName);
-				httpSession = httpRequest.getSession(true); //create a new HTTP session for the HTTP request
-				//TODO is there a race condition here? could two requests requesting the same session happen concurrently?
-				guiseContainerMap.put(httpSession, guiseContainer); //store our Guise container so we'll know with which container this session is associated (this servlet may serve many Guise applications in many Guise containers in the web application)
-				if(isSpider) { //if we just created a session for a spider
-					//TODO del Debug.info("storing this session as a spider session");
-					spiderSession = httpSession; //store the spider session for future sharing
-				}
-			}
+			httpSession = httpRequest.getSession(true); //create a new HTTP session for the HTTP request
+			guiseContainerMap.putIfAbsent(httpSession, guiseContainer); //store our Guise container so we'll know with which container this session is associated (this servlet may serve many Guise applications in many Guise containers in the web application)
 		}
 		return guiseContainer.getGuiseSession(guiseApplication, httpRequest, httpSession); //ask the Guise application for a Guise session corresponding to the HTTP session
 	}
@@ -133,19 +158,18 @@ public void sessionCreated(final HttpSessionEvent httpSessionEvent) {
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * This implementation removes the corresponding Guise session.
+	 * This implementation removes the corresponding Guise sessions. No lock is held while doing so, and the Guise sessions are destroyed in the background, so
+	 * that the expiry of many HTTP sessions at once does not hold up requests of other sessions.
 	 * </p>
+	 * @see HTTPServletGuiseContainer#removeGuiseSessions(HttpSession)
 	 */
 	@Override
 	public void sessionDestroyed(final HttpSessionEvent httpSessionEvent) {
-		synchronized(guiseContainerMap) { //don't allow anyone to modify our map of applications while we access it
-			final HttpSession httpSession = httpSessionEvent.getSession(); //get the HTTP session just invalidated
-			final HTTPServletGuiseContainer guiseContainer = guiseContainerMap.get(httpSession); //see if we have a Guise container associated with this HTTP request
-			if(guiseContainer != null) { //if we know the Guise container associated with this HTTP request
-				guiseContainerMap.remove(httpSession); //remove the association between this HTTP session and the container
-				final Set<GuiseSession> guiseSessions = guiseContainer.removeGuiseSessions(httpSession); //remove the Guise sessions associated with the HTTP session in the application
-				assert !guiseSessions.isEmpty() : "Guise container associated with HTTP session unexpectedly did not have any associated Guise sessions.";
-			}
+		final HttpSession httpSession = httpSessionEvent.getSession(); //get the HTTP session just invalidated
+		final HTTPServletGuiseContainer guiseContainer = guiseContainerMap.remove(httpSession); //remove the association between this HTTP session and its Guise container, if any
+		if(guiseContainer != null) { //if we know the Guise container associated with this HTTP request
+			final Set<GuiseSession> guiseSessions = guiseContainer.removeGuiseSessions(httpSession); //remove the Guise sessions associated with the HTTP session in the application
+			assert !guiseSessions.isEmpty() : "Guise container associated with HTTP session unexpectedly did not have any associated Guise sessions.";
 		}
 	}
 }
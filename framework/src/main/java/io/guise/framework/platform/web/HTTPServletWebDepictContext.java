@@ -31,6 +31,7 @@
 
 import io.guise.framework.Destination;
 import io.guise.framework.GuiseSession;
+import io.guise.framework.platform.DepictBuffers;
 
 import static io.guise.framework.platform.web.WebPlatform.*;
 import static java.nio.charset.StandardCharsets.*;
@@ -38,7 +39,8 @@
 /**
  * A web depict context of an HTTP servlet.
  * <p>
- * The output stream defaults to <code>text/plain</code> encoded in <code>UTF-8</code>.
+ * The output stream defaults to <code>text/plain</code> encoded in <code>UTF-8</code>. If there is no HTTP servlet response, as when depicting the response to
+ * a Guise request received over a WebSocket, the output is always encoded in <code>UTF-8</code>.
  * </p>
  * @author Garret Wilson
  */
@@ -52,10 +54,10 @@ protected HTTPServletGuiseRequest getGuiseRequest() {
 		return guiseRequest;
 	}
 
-	/** The HTTP servlet response. */
+	/** The HTTP servlet response, or <code>null</code> if the depiction is not being sent in an HTTP response. */
 	private final HttpServletResponse response;
 
-	/** @return The HTTP servlet response. */
+	/** @return The HTTP servlet response, or <code>null</code> if the depiction is not being sent in an HTTP response. */
 	protected HttpServletResponse getResponse() {
 		return response;
 	}
@@ -68,6 +70,40 @@ public URI getDepictionURI() {
 		return depictURI;
 	}
 
+	/** Whether the depiction is anonymous. */
+	private final boolean anonymous;
+
+	@Override
+	public boolean isAnonymous() {
+		return anonymous;
+	}
+
+	/** The depiction retained for the page receiving this depiction, or <code>null</code> if the depiction is not patched against what the page has. */
+	private RetainedWebDepiction retainedDepiction = null;
+
+	/** @return The depiction retained for the page receiving this depiction, or <code>null</code> if the depiction is not patched against what the page has. */
+	public RetainedWebDepiction getRetainedDepiction() {
+		return retainedDepiction;
+	}
+
+	/** Whether the page must apply the depiction regardless of the patches it has already applied, because the retained depiction was discarded. */
+	private boolean retainedDepictionReset = false;
+
+	/** @return Whether the page must apply the depiction regardless of the patches it has already applied, because the retained depiction was discarded. */
+	public boolean isRetainedDepictionReset() {
+		return retainedDepictionReset;
+	}
+
+	/**
+	 * Sets the depiction retained for the page receiving this depiction.
+	 * @param retainedDepiction The depiction retained for the page, or <code>null</code> if the depiction should not be patched against what the page has.
+	 * @param reset Whether the retained depiction was discarded, so that the page must apply the depiction regardless of the patches it has already applied.
+	 */
+	public void setRetainedDepiction(final RetainedWebDepiction retainedDepiction, final boolean reset) {
+		this.retainedDepiction = retainedDepiction;
+		this.retainedDepictionReset = reset;
+	}
+
 	/** The current content type of the output. */
 	private ContentType outputContentType = ContentType.of(ContentType.TEXT_PRIMARY_TYPE, Text.PLAIN_SUBTYPE); //default to text/plain
 
@@ -90,7 +126,7 @@ protected QualifiedName getContentHashAttributeQualifiedName() {
 	/**
 	 * Constructor.
 	 * @param guiseRequest Guise request information.
-	 * @param response The HTTP servlet response.
+	 * @param response The HTTP servlet response, or <code>null</code> if the depiction is not being sent in an HTTP response.
 	 * @param session The Guise user session of which this context is a part.
 	 * @param destination The destination with which this context is associated.
 	 * @throws NullPointerException if the given Guise request, session, and/or destination is <code>null</code>.
@@ -98,11 +134,45 @@ protected QualifiedName getContentHashAttributeQualifiedName() {
 	 */
 	public HTTPServletWebDepictContext(final HTTPServletGuiseRequest guiseRequest, final HttpServletResponse response, final GuiseSession session,
 			final Destination destination) throws IOException {
-		super(session, destination); //construct the parent class
+		this(guiseRequest, response, session, destination, false); //the depiction is for the session alone
+	}
+
+	/**
+	 * Anonymous constructor.
+	 * @param guiseRequest Guise request information.
+	 * @param response The HTTP servlet response, or <code>null</code> if the depiction is not being sent in an HTTP response.
+	 * @param session The Guise user session of which this context is a part.
+	 * @param destination The destination with which this context is associated.
+	 * @param anonymous Whether the depiction is anonymous, to be shared among visitors that do not yet have a session.
+	 * @throws NullPointerException if the given Guise request, session, and/or destination is <code>null</code>.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 * @see #isAnonymous()
+	 */
+	public HTTPServletWebDepictContext(final HTTPServletGuiseRequest guiseRequest, final HttpServletResponse response, final GuiseSession session,
+			final Destination destination, final boolean anonymous) throws IOException {
+		this(guiseRequest, response, session, destination, anonymous, new DepictBuffers()); //collect the depiction in new buffers
+	}
+
+	/**
+	 * Full constructor.
+	 * @param guiseRequest Guise request information.
+	 * @param response The HTTP servlet response, or <code>null</code> if the depiction is not being sent in an HTTP response.
+	 * @param session The Guise user session of which this context is a part.
+	 * @param destination The destination with which this context is associated.
+	 * @param anonymous Whether the depiction is anonymous, to be shared among visitors that do not yet have a session.
+	 * @param depictBuffers The empty scratch buffers in which to collect the depiction, which may be reused once this context is no longer used.
+	 * @throws NullPointerException if the given Guise request, session, destination, and/or depict buffers is <code>null</code>.
+	 * @throws IOException If there was an I/O error loading a needed resource.
+	 * @see #isAnonymous()
+	 */
+	public HTTPServletWebDepictContext(final HTTPServletGuiseRequest guiseRequest, final HttpServletResponse response, final GuiseSession session,
+			final Destination destination, final boolean anonymous, final DepictBuffers depictBuffers) throws IOException {
+		super(session, destination, depictBuffers); //construct the parent class
 		this.guiseRequest = requireNonNull(guiseRequest, "Guise request cannot be null.");
-		this.response = requireNonNull(response, "Response cannot be null.");
+		this.response = response;
+		this.anonymous = anonymous;
 		//TODO decide if we want this to include parameters or not		this.navigationURI=URI.create(request.getRequestURL().toString());	//create the absolute navigation URI from the HTTP requested URL
-		this.depictURI = HTTPServlets.getRequestURI(guiseRequest.getHTTPServletRequest()); //get the depiction URI, containing any query
+		this.depictURI = guiseRequest.getRequestURI(); //get the depiction URI, containing any query
 		/*TODO del if not needed
 				final String referrer=getReferer(request);	//get the request referrer, if any
 				referrerURI=referrer!=null ? getPlainURI(URI.create(referrer)) : null;	//get a plain URI version of the referrer, if there is a referrer
@@ -116,13 +186,16 @@ public HTTPServletWebDepictContext(final HTTPServletGuiseRequest guiseRequest, f
 		setHashAttributesGenerated(true); //always generate hash attributes
 		final ContentType defaultContentType = ContentType.of(outputContentType.getPrimaryType(), outputContentType.getSubType(),
 				ContentType.Parameter.of(ContentType.CHARSET_PARAMETER, UTF_8.name())); //default to text/plain encoded in UTF-8
-		response.setContentType(defaultContentType.toString()); //initialize the default content type and encoding
-		HTTPServlets.setContentLanguage(response, session.getLocale()); //set the response content language
+		if(response != null) {
+			response.setContentType(defaultContentType.toString()); //initialize the default content type and encoding
+			HTTPServlets.setContentLanguage(response, session.getLocale()); //set the response content language
+		}
 	}
 
 	@Override
 	public Charset getOutputCharset() {
-		return Charset.forName(getResponse().getCharacterEncoding()); //return the character encoding indicated by the HTTP servlet response
+		final HttpServletResponse response = getResponse();
+		return response != null ? Charset.forName(response.getCharacterEncoding()) : UTF_8; //return the character encoding indicated by the HTTP servlet response, if any
 	}
 
 	@Override
@@ -141,7 +214,10 @@ public void setOutputContentType(final ContentType contentType) {
 		//TODO change to really just replace one parameter, instead of removing all others
 		this.outputContentType = ContentType.of(contentType.getPrimaryType(), contentType.getSubType(),
 				ContentType.Parameter.of(ContentType.CHARSET_PARAMETER, getOutputCharset().name()));
-		getResponse().setContentType(this.outputContentType.toString()); //set the content type of the response, including the current character set
+		final HttpServletResponse response = getResponse();
+		if(response != null) {
+			response.setContentType(this.outputContentType.toString()); //set the content type of the response, including the current character set
+		}
 	}
 
 }
@@ -18,6 +18,8 @@
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.util.Arrays.*;
 import static java.util.Collections.*;
@@ -52,10 +54,10 @@
  */
 public class HTTPServletWebPlatform extends AbstractWebPlatform implements WebPlatform {
 
-	/** The HTTP servlet session with which this platform is associated. */
+	/** The HTTP servlet session with which this platform is associated, or <code>null</code> if the platform serves web crawlers without sessions. */
 	private final HttpSession httpSession;
 
-	/** @return The HTTP servlet session with which this platform is associated. */
+	/** @return The HTTP servlet session with which this platform is associated, or <code>null</code> if the platform serves web crawlers without sessions. */
 	public HttpSession getHTTPSession() {
 		return httpSession;
 	}
@@ -85,16 +87,73 @@ void setJavaScriptProduct(final Product product) {
 		javascriptProduct = product;
 	}
 
+	/** The depictors of web platform objects, sealed and shared among all HTTP servlet web platforms. */
+	private static final DepictorRegistry DEPICTOR_REGISTRY = createDepictorRegistry();
+
+	/** @return A new registry of the depictors of web platform objects. */
+	private static DepictorRegistry createDepictorRegistry() {
+		final DepictorRegistry depictorRegistry = new DepictorRegistry();
+		//audio
+		depictorRegistry.register(Audio.class, WebAudioDepictor.class);
+		//file upload
+		depictorRegistry.register(PlatformFileCollector.class, DefaultWebPlatformFileCollectorDepictor.class); //this depictor supports Flash/Google Gears		
+		//components
+		depictorRegistry.register(AccordionMenu.class, WebAccordionMenuDepictor.class);
+		depictorRegistry.register(ApplicationFrame.class, WebApplicationFrameDepictor.class);
+		//TODO fix custom button		registerView(Button.class, XHTMLButtonView.class);
+		//TODO fix		registerView(ButtonControl.class, XHTMLCustomButtonView.class);
+		depictorRegistry.register(BooleanSelectToolButton.class, WebToolButtonDepictor.class);
+		depictorRegistry.register(ButtonControl.class, WebButtonDepictor.class);
+		depictorRegistry.register(CardPanel.class, WebCardPanelDepictor.class);
+		depictorRegistry.register(CheckControl.class, WebCheckControlDepictor.class);
+		depictorRegistry.register(DropMenu.class, WebDropMenuDepictor.class);
+		depictorRegistry.register(Flash.class, WebFlashDepictor.class);
+		depictorRegistry.register(Frame.class, WebFrameDepictor.class);
+		depictorRegistry.register(GroupPanel.class, WebFieldsetDepictor.class);
+		depictorRegistry.register(Heading.class, WebHeadingDepictor.class);
+		depictorRegistry.register(HeadingLink.class, WebHeadingLinkDepictor.class);
+		depictorRegistry.register(ImageComponent.class, WebImageDepictor.class);
+		depictorRegistry.register(ImageActionControl.class, WebImageActionControlDepictor.class);
+		depictorRegistry.register(ImageBooleanSelectActionControl.class, WebImageBooleanSelectActionControlViewer.class);
+		depictorRegistry.register(LabelComponent.class, WebLabelDepictor.class);
+		depictorRegistry.register(LayoutComponent.class, WebLayoutComponentDepictor.class);
+		depictorRegistry.register(ListControl.class, WebSelectDepictor.class);
+		depictorRegistry.register(LinkControl.class, WebLinkDepictor.class);
+		depictorRegistry.register(Message.class, WebMessageDepictor.class);
+		depictorRegistry.register(Panel.class, WebPanelDepictor.class);
+		depictorRegistry.register(Picture.class, WebPictureDepictor.class);
+		depictorRegistry.register(ResourceCollectControl.class, WebResourceCollectDepictor.class);
+		depictorRegistry.register(ResourceImportControl.class, WebFileInputDepictor.class);
+		depictorRegistry.register(ScrollControl.class, WebScrollControlDepictor.class);
+		depictorRegistry.register(SelectLinkControl.class, WebSelectLinkDepictor.class);
+		depictorRegistry.register(SelectableLabel.class, WebSelectableLabelDepictor.class);
+		depictorRegistry.register(SliderControl.class, WebSliderDepictor.class);
+		depictorRegistry.register(TabbedPanel.class, WebTabbedPanelDepictor.class);
+		depictorRegistry.register(TabContainerControl.class, WebTabDepictor.class);
+		depictorRegistry.register(TabControl.class, WebTabDepictor.class);
+		depictorRegistry.register(Table.class, WebTableDepictor.class);
+		depictorRegistry.register(TextBox.class, WebTextBoxDepictor.class);
+		depictorRegistry.register(TextControl.class, WebTextControlDepictor.class);
+		depictorRegistry.register(ToolButton.class, WebToolButtonDepictor.class);
+		depictorRegistry.register(TreeControl.class, WebTreeControlDepictor.class);
+		depictorRegistry.register(ValueSelectLink.class, WebValueSelectLinkDepictor.class);
+		//Facebook
+		depictorRegistry.register(LikeButton.class, WebIFrameLikeButtonDepictor.class);
+		return depictorRegistry.seal(); //platforms registering depictors of their own will not affect other platforms
+	}
+
 	/**
 	 * Application and request constructor. This implementation updates the environment from the initial request cookies
 	 * @param application The Guise application running on this platform.
-	 * @param httpSession The HTTP servlet session with which this platform is associated.
+	 * @param httpSession The HTTP servlet session with which this platform is associated, or <code>null</code> if the platform serves web crawlers without
+	 *          sessions.
 	 * @param httpRequest The HTTP servlet request.
-	 * @throws NullPointerException if the given application, HTTP session, and/or HTTP request is <code>null</code>.
+	 * @throws NullPointerException if the given application and/or HTTP request is <code>null</code>.
+	 * @see CrawlerGuiseSessionPool
 	 */
 	public HTTPServletWebPlatform(final GuiseApplication application, final HttpSession httpSession, final HttpServletRequest httpRequest) {
-		super(application); //construct the parent class
-		this.httpSession = requireNonNull(httpSession, "HTTP session cannot be null.");
+		super(application, DEPICTOR_REGISTRY); //construct the parent class, sharing the depictor registrations rather than making them for every session
+		this.httpSession = httpSession;
 		//update the client
 		final String userAgentID = getUserAgent(httpRequest); //get the user agent identification, if any
 		final Map<String, Object> userAgentProperties = getUserAgentProperties(httpRequest); //get other information about the user agent from the request
@@ -120,53 +179,6 @@ public HTTPServletWebPlatform(final GuiseApplication application, final HttpSess
 				}
 			}
 		}
-		//register depictors
-		//audio
-		registerDepictorClass(Audio.class, WebAudioDepictor.class);
-		//file upload
-		registerDepictorClass(PlatformFileCollector.class, DefaultWebPlatformFileCollectorDepictor.class); //this depictor supports Flash/Google Gears		
-		//components
-		registerDepictorClass(AccordionMenu.class, WebAccordionMenuDepictor.class);
-		registerDepictorClass(ApplicationFrame.class, WebApplicationFrameDepictor.class);
-		//TODO fix custom button		registerView(Button.class, XHTMLButtonView.class);
-		//TODO fix		registerView(ButtonControl.class, XHTMLCustomButtonView.class);
-		registerDepictorClass(BooleanSelectToolButton.class, WebToolButtonDepictor.class);
-		registerDepictorClass(ButtonControl.class, WebButtonDepictor.class);
-		registerDepictorClass(CardPanel.class, WebCardPanelDepictor.class);
-		registerDepictorClass(CheckControl.class, WebCheckControlDepictor.class);
-		registerDepictorClass(DropMenu.class, WebDropMenuDepictor.class);
-		registerDepictorClass(Flash.class, WebFlashDepictor.class);
-		registerDepictorClass(Frame.class, WebFrameDepictor.class);
-		registerDepictorClass(GroupPanel.class, WebFieldsetDepictor.class);
-		registerDepictorClass(Heading.class, WebHeadingDepictor.class);
-		registerDepictorClass(HeadingLink.class, WebHeadingLinkDepictor.class);
-		registerDepictorClass(ImageComponent.class, WebImageDepictor.class);
-		registerDepictorClass(ImageActionControl.class, WebImageActionControlDepictor.class);
-		registerDepictorClass(ImageBooleanSelectActionControl.class, WebImageBooleanSelectActionControlViewer.class);
-		registerDepictorClass(LabelComponent.class, WebLabelDepictor.class);
-		registerDepictorClass(LayoutComponent.class, WebLayoutComponentDepictor.class);
-		registerDepictorClass(ListControl.class, WebSelectDepictor.class);
-		registerDepictorClass(LinkControl.class, WebLinkDepictor.class);
-		registerDepictorClass(Message.class, WebMessageDepictor.class);
-		registerDepictorClass(Panel.class, WebPanelDepictor.class);
-		registerDepictorClass(Picture.class, WebPictureDepictor.class);
-		registerDepictorClass(ResourceCollectControl.class, WebResourceCollectDepictor.class);
-		registerDepictorClass(ResourceImportControl.class, WebFileInputDepictor.class);
-		registerDepictorClass(ScrollControl.class, WebScrollControlDepictor.class);
-		registerDepictorClass(SelectLinkControl.class, WebSelectLinkDepictor.class);
-		registerDepictorClass(SelectableLabel.class, WebSelectableLabelDepictor.class);
-		registerDepictorClass(SliderControl.class, WebSliderDepictor.class);
-		registerDepictorClass(TabbedPanel.class, WebTabbedPanelDepictor.class);
-		registerDepictorClass(TabContainerControl.class, WebTabDepictor.class);
-		registerDepictorClass(TabControl.class, WebTabDepictor.class);
-		registerDepictorClass(Table.class, WebTableDepictor.class);
-		registerDepictorClass(TextBox.class, WebTextBoxDepictor.class);
-		registerDepictorClass(TextControl.class, WebTextControlDepictor.class);
-		registerDepictorClass(ToolButton.class, WebToolButtonDepictor.class);
-		registerDepictorClass(TreeControl.class, WebTreeControlDepictor.class);
-		registerDepictorClass(ValueSelectLink.class, WebValueSelectLinkDepictor.class);
-		//Facebook
-		registerDepictorClass(LikeButton.class, WebIFrameLikeButtonDepictor.class);
 	}
 
 	/** The current depict context. */
@@ -193,6 +205,55 @@ public WebDepictContext getDepictContext() {
 		return depictContext; //return the depict context
 	}
 
+	/** The number of depict buffers allocated because no buffers were available for reuse, across all sessions. */
+	private static final LongAdder depictBuffersAllocatedCount = new LongAdder();
+
+	/** @return The number of depict buffers allocated because no buffers were available for reuse, across all sessions. */
+	public static long getDepictBuffersAllocatedCount() {
+		return depictBuffersAllocatedCount.sum();
+	}
+
+	/** The number of times depict buffers were reused by a later depict context, across all sessions. */
+	private static final LongAdder depictBuffersReusedCount = new LongAdder();
+
+	/** @return The number of times depict buffers were reused by a later depict context, across all sessions. */
+	public static long getDepictBuffersReusedCount() {
+		return depictBuffersReusedCount.sum();
+	}
+
+	/** The depict buffers released by the last depict context of the session, or <code>null</code> if there are none available for reuse. */
+	private final AtomicReference<DepictBuffers> releasedDepictBuffers = new AtomicReference<DepictBuffers>();
+
+	/**
+	 * Acquires empty buffers in which a new depict context of this session may collect its depiction, reusing the buffers of the last depict context if they are
+	 * available. This method has package access so that the depict context can be created when necessary by the appropriate platform classes.
+	 * @return Empty depict buffers for the exclusive use of a new depict context.
+	 * @see #releaseDepictBuffers(DepictBuffers)
+	 */
+	DepictBuffers acquireDepictBuffers() {
+		final DepictBuffers depictBuffers = releasedDepictBuffers.getAndSet(null); //no other depict context can acquire the same buffers
+		if(depictBuffers != null) {
+			depictBuffersReusedCount.increment();
+			return depictBuffers;
+		}
+		depictBuffersAllocatedCount.increment();
+		return new DepictBuffers();
+	}
+
+	/**
+	 * Releases the buffers of a depict context that is no longer used, so that they may be reused by the next depict context of this session. Buffers that have
+	 * grown too large to be worth retaining are discarded. This method has package access so that the depict context can be discarded when necessary by the
+	 * appropriate platform classes.
+	 * @param depictBuffers The buffers of a depict context that will no longer be used.
+	 * @see #acquireDepictBuffers()
+	 * @see DepictBuffers#reset()
+	 */
+	void releaseDepictBuffers(final DepictBuffers depictBuffers) {
+		if(depictBuffers.reset()) {
+			releasedDepictBuffers.set(depictBuffers); //the session only depicts one context at a time, so at most one set of buffers is worth keeping
+		}
+	}
+
 	private PlatformFileCollector fileReferenceList = null; //TODO finish; comment
 
 	@Override
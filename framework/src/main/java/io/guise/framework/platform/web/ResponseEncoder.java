@@ -0,0 +1,314 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform.web;
+
+import static com.globalmentor.java.Conditions.*;
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.*;
+
+import javax.servlet.http.*;
+
+/**
+ * Encodes text responses in UTF-8 directly into an HTTP response, compressing them using gzip if the user agent accepts it and the text is long enough to
+ * warrant it.
+ * <p>
+ * Characters are encoded a buffer at a time straight from the text, which may be a {@link StringBuilder}, so that neither a string nor a byte array of the
+ * entire response is ever created. Each response borrows a set of buffers, along with a character encoder and a compressor, from a pool; these are returned
+ * to the pool when the response has been written, so that once the pool is warm, writing a response allocates next to nothing and no native compressor
+ * resources are created. Pooled buffers are heap buffers, as a servlet output stream only accepts byte arrays.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ * @author Garret Wilson
+ */
+public class ResponseEncoder {
+
+	/** The default minimum number of characters of text for the response to be compressed. */
+	public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+	/** The default size of each buffer, in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+	/** The name of the gzip content coding. */
+	private static final String GZIP_CONTENT_CODING = "gzip";
+
+	/** The gzip header, with no file name or modification time. */
+	private static final byte[] GZIP_HEADER = {(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff};
+
+	/** The minimum number of characters of text for the response to be compressed. */
+	private final int compressionThreshold;
+
+	/** @return The minimum number of characters of text for the response to be compressed. */
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	/** The size of each buffer, in bytes. */
+	private final int bufferSize;
+
+	/** The idle encoders. */
+	private final BlockingQueue<Encoder> encoders;
+
+	/** The number of responses written using pooled encoders. */
+	private final LongAdder pooledCount = new LongAdder();
+
+	/** @return The number of responses written using pooled encoders. */
+	public long getPooledCount() {
+		return pooledCount.sum();
+	}
+
+	/** The number of responses for which new encoders, with their buffers and compressors, were allocated. */
+	private final LongAdder allocatedCount = new LongAdder();
+
+	/** @return The number of responses for which new encoders, with their buffers and compressors, were allocated. */
+	public long getAllocatedCount() {
+		return allocatedCount.sum();
+	}
+
+	/** Default constructor with a default compression threshold and buffer size, pooling encoders for twice the number of available processors. */
+	public ResponseEncoder() {
+		this(DEFAULT_COMPRESSION_THRESHOLD);
+	}
+
+	/**
+	 * Compression threshold constructor with a default buffer size, pooling encoders for twice the number of available processors.
+	 * @param compressionThreshold The minimum number of characters of text for the response to be compressed.
+	 * @throws IllegalArgumentException if the given compression threshold is negative.
+	 */
+	public ResponseEncoder(final int compressionThreshold) {
+		this(compressionThreshold, DEFAULT_BUFFER_SIZE, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Full constructor.
+	 * @param compressionThreshold The minimum number of characters of text for the response to be compressed.
+	 * @param bufferSize The size of each buffer, in bytes.
+	 * @param maxPoolSize The maximum number of idle encoders kept in the pool.
+	 * @throws IllegalArgumentException if the given compression threshold or maximum pool size is negative, or the given buffer size is not positive.
+	 */
+	public ResponseEncoder(final int compressionThreshold, final int bufferSize, final int maxPoolSize) {
+		checkArgument(compressionThreshold >= 0, "Compression threshold %d is negative.", compressionThreshold);
+		checkArgument(bufferSize > 0, "Buffer size %d is not positive.", bufferSize);
+		checkArgument(maxPoolSize >= 0, "Maximum pool size %d is negative.", maxPoolSize);
+		this.compressionThreshold = compressionThreshold;
+		this.bufferSize = bufferSize;
+		encoders = new ArrayBlockingQueue<Encoder>(Math.max(maxPoolSize, 1));
+	}
+
+	/**
+	 * Determines whether the given request accepts the given content coding with a non-zero quality, either explicitly or through a wildcard.
+	 * @param request The HTTP request.
+	 * @param contentCoding The lowercase name of the content coding, such as "gzip".
+	 * @return <code>true</code> if a response to the request may be encoded using the given content coding.
+	 */
+	public static boolean isContentCodingAccepted(final HttpServletRequest request, final String contentCoding) {
+		final String acceptEncoding = request.getHeader("Accept-Encoding");
+		if(acceptEncoding == null) {
+			return false;
+		}
+		for(final String coding : acceptEncoding.split(",")) {
+			final String[] codingParameters = coding.split(";");
+			final String codingName = codingParameters[0].trim().toLowerCase(Locale.ROOT);
+			if(codingName.equals(contentCoding) || codingName.equals("*")) {
+				for(int i = 1; i < codingParameters.length; ++i) { //make sure the content coding wasn't explicitly refused using q=0
+					final String parameter = codingParameters[i].trim();
+					if(parameter.startsWith("q=")) {
+						try {
+							if(Double.parseDouble(parameter.substring(2).trim()) == 0) {
+								return false;
+							}
+						} catch(final NumberFormatException numberFormatException) { //ignore a malformed quality, as would most servers
+						}
+					}
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the given text, in order, to the response as UTF-8, compressing it if appropriate. The output stream of the response is closed when the text has
+	 * been written. The content type of the response should already have been set.
+	 * @param request The HTTP request.
+	 * @param response The HTTP response.
+	 * @param texts The sequences of characters to write.
+	 * @throws IOException if there is an error writing the response.
+	 */
+	public void write(final HttpServletRequest request, final HttpServletResponse response, final CharSequence... texts) throws IOException {
+		long length = 0;
+		for(final CharSequence text : texts) {
+			length += text.length();
+		}
+		final boolean compress = length >= compressionThreshold && isContentCodingAccepted(request, GZIP_CONTENT_CODING);
+		response.addHeader("Vary", "Accept-Encoding"); //whether the response is compressed depends on the request
+		if(compress) {
+			response.setHeader("Content-Encoding", GZIP_CONTENT_CODING);
+		}
+		Encoder encoder = encoders.poll();
+		if(encoder != null) {
+			pooledCount.increment();
+		} else {
+			encoder = new Encoder(bufferSize);
+			allocatedCount.increment();
+		}
+		try {
+			final OutputStream outputStream = response.getOutputStream();
+			encoder.write(outputStream, compress, texts);
+			outputStream.close();
+		} finally {
+			encoder.reset();
+			if(!encoders.offer(encoder)) { //if the pool is full, release the native resources of the compressor right away
+				encoder.end();
+			}
+		}
+	}
+
+	/**
+	 * A reusable character encoder and compressor, along with their buffers. Used by a single response at a time.
+	 * @author Garret Wilson
+	 */
+	private static class Encoder {
+
+		/** The UTF-8 character encoder. */
+		private final CharsetEncoder charsetEncoder = UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		/** The buffer of encoded bytes, which are the input to the compressor. */
+		private final ByteBuffer encodedBuffer;
+
+		/** The buffer of compressed bytes. */
+		private final byte[] compressedBytes;
+
+		/** The compressor, producing raw deflate data for wrapping in gzip. */
+		private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		/** The checksum of the uncompressed bytes, for the gzip trailer. */
+		private final CRC32 crc32 = new CRC32();
+
+		/**
+		 * Buffer size constructor.
+		 * @param bufferSize The size of each buffer, in bytes.
+		 */
+		public Encoder(final int bufferSize) {
+			encodedBuffer = ByteBuffer.allocate(Math.max(bufferSize, (int)Math.ceil(charsetEncoder.maxBytesPerChar()))); //make sure at least one character fits
+			compressedBytes = new byte[bufferSize];
+		}
+
+		/**
+		 * Encodes and writes the given text.
+		 * @param outputStream The output stream to which to write.
+		 * @param compress Whether the text should be compressed using gzip.
+		 * @param texts The sequences of characters to write.
+		 * @throws IOException if there is an error writing the text.
+		 */
+		public void write(final OutputStream outputStream, final boolean compress, final CharSequence... texts) throws IOException {
+			if(compress) {
+				outputStream.write(GZIP_HEADER);
+			}
+			long byteCount = 0;
+			for(int i = 0; i < texts.length; ++i) {
+				final CharBuffer charBuffer = CharBuffer.wrap(texts[i]); //read the characters in place, without copying them
+				final boolean endOfInput = i == texts.length - 1;
+				CoderResult coderResult;
+				do {
+					coderResult = charsetEncoder.encode(charBuffer, encodedBuffer, endOfInput);
+					if(coderResult.isOverflow() || !charBuffer.hasRemaining()) { //if the buffer is full, or there is nothing more to encode from this text
+						byteCount += flushEncodedBuffer(outputStream, compress);
+					}
+				} while(coderResult.isOverflow());
+			}
+			while(charsetEncoder.flush(encodedBuffer).isOverflow()) { //UTF-8 has no state to flush, but follow the encoder protocol
+				byteCount += flushEncodedBuffer(outputStream, compress);
+			}
+			byteCount += flushEncodedBuffer(outputStream, compress);
+			if(compress) {
+				deflater.finish();
+				while(!deflater.finished()) {
+					final int count = deflater.deflate(compressedBytes);
+					outputStream.write(compressedBytes, 0, count);
+				}
+				writeIntLE(outputStream, (int)crc32.getValue());
+				writeIntLE(outputStream, (int)byteCount); //the size modulo 2^32
+			}
+		}
+
+		/**
+		 * Writes the bytes encoded so far, compressing them if requested, and clears the encoded buffer.
+		 * @param outputStream The output stream to which to write.
+		 * @param compress Whether the bytes should be compressed.
+		 * @return The number of encoded bytes written.
+		 * @throws IOException if there is an error writing the bytes.
+		 */
+		private int flushEncodedBuffer(final OutputStream outputStream, final boolean compress) throws IOException {
+			encodedBuffer.flip();
+			final int count = encodedBuffer.remaining();
+			if(count > 0) {
+				if(compress) {
+					crc32.update(encodedBuffer.array(), encodedBuffer.arrayOffset() + encodedBuffer.position(), count);
+					deflater.setInput(encodedBuffer.array(), encodedBuffer.arrayOffset() + encodedBuffer.position(), count);
+					while(!deflater.needsInput()) { //compress all the input before the buffer is reused
+						final int compressedCount = deflater.deflate(compressedBytes);
+						if(compressedCount > 0) {
+							outputStream.write(compressedBytes, 0, compressedCount);
+						}
+					}
+				} else {
+					outputStream.write(encodedBuffer.array(), encodedBuffer.arrayOffset() + encodedBuffer.position(), count);
+				}
+			}
+			encodedBuffer.clear();
+			return count;
+		}
+
+		/**
+		 * Writes a 32-bit integer in little-endian order, as used by the gzip trailer.
+		 * @param outputStream The output stream to which to write.
+		 * @param value The value to write.
+		 * @throws IOException if there is an error writing the value.
+		 */
+		private static void writeIntLE(final OutputStream outputStream, final int value) throws IOException {
+			outputStream.write(value);
+			outputStream.write(value >>> 8);
+			outputStream.write(value >>> 16);
+			outputStream.write(value >>> 24);
+		}
+
+		/** Resets the encoder for use with another response. */
+		public void reset() {
+			charsetEncoder.reset();
+			encodedBuffer.clear();
+			deflater.reset();
+			crc32.reset();
+		}
+
+		/** Releases the native resources of the compressor. The encoder may no longer be used. */
+		public void end() {
+			deflater.end();
+		}
+
+	}
+
+}
@@ -0,0 +1,813 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform.web;
+
+import static com.globalmentor.html.spec.HTML.*;
+import static com.globalmentor.java.Conditions.*;
+import static io.guise.framework.platform.web.WebPlatform.*;
+
+import java.util.*;
+
+import com.globalmentor.log.Log;
+
+/**
+ * The depiction of components last sent to a web client, retained so that later depictions of the same components can be sent as patch operations that
+ * change only what is different, rather than as entire element hierarchies for the client to synchronize.
+ * <p>
+ * Each depiction of a component is given to {@link #patch(String)}. If an element with the same ID was sent before, the elements are compared and only the
+ * differences are returned, as {@value WebPlatform#PATCH_OPERATION_ATTRIBUTE}, {@value WebPlatform#PATCH_OPERATION_INSERT} and
+ * {@value WebPlatform#PATCH_OPERATION_REMOVE} operations; otherwise the element is returned unchanged. Differences that cannot be expressed as patch
+ * operations, such as changed text or the insertion of an element with no ID, are sent as the new depiction of the nearest element with an ID, which the client
+ * synchronizes as usual. In either case the new depiction is retained in place of the old one.
+ * </p>
+ * <p>
+ * Patches are computed against what was last sent, so the retained depiction must be cleared whenever the client receives a depiction by other means, such as
+ * when the page is loaded. A retained depiction only reflects a single client page; each page of a session has its own retained depiction, identified by a
+ * page token the page sends with each request.
+ * </p>
+ * <p>
+ * Because the responses to a page may travel over several channels, such as HTTP and a WebSocket, they may not arrive in the order in which they were
+ * depicted. Each depiction patched against the retained depiction is therefore given the next sequence number, and is sent along with the sequence number of
+ * the depiction it was patched against, so that the page can apply the patches in order. The page reports the sequence number of the last depiction it
+ * applied, which allows the retained depiction to be discarded using {@link #synchronize(long)} if the page turns out to have something else.
+ * </p>
+ * <p>
+ * This class is not thread safe; it should only be accessed by the thread depicting the session.
+ * </p>
+ * @author Garret Wilson
+ */
+public class RetainedWebDepiction {
+
+	/** The name of the depicted attribute containing the hash of the element attributes. */
+	private static final String ATTRIBUTE_HASH_ATTRIBUTE_NAME = "data-" + GUISE_ML_NAMESPACE_PREFIX + "-" + ATTRIBUTE_ATTRIBUTE_HASH;
+
+	/** The name of the depicted attribute containing the hash of the element content. */
+	private static final String CONTENT_HASH_ATTRIBUTE_NAME = "data-" + GUISE_ML_NAMESPACE_PREFIX + "-" + ATTRIBUTE_CONTENT_HASH;
+
+	/** The name of the depicted attribute indicating the type of patching that should occur. */
+	private static final String PATCH_TYPE_ATTRIBUTE_NAME = "data-" + GUISE_ML_NAMESPACE_PREFIX + "-" + ATTRIBUTE_PATCH_TYPE;
+
+	/** The names of elements that are never patched in place, because the client synchronizes their state specially. */
+	private static final Set<String> UNPATCHABLE_ELEMENT_NAMES = Set.of(ELEMENT_BUTTON, "frame", ELEMENT_IMG, ELEMENT_INPUT, "optgroup", ELEMENT_OPTION,
+			ELEMENT_SCRIPT, ELEMENT_SELECT, ELEMENT_TEXTAREA);
+
+	/** The names of elements the content of which is text that is not parsed for markup. */
+	private static final Set<String> RAW_TEXT_ELEMENT_NAMES = Set.of(ELEMENT_SCRIPT, "style");
+
+	/** The retained elements that have IDs, keyed to their IDs. */
+	private final Map<String, Element> elementsByID = new HashMap<String, Element>();
+
+	/** The sequence number of the last depiction patched against the retained depiction. */
+	private long sequence = 0;
+
+	/** @return The sequence number of the last depiction patched against the retained depiction. */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Assigns a sequence number to a new depiction to be patched against the retained depiction.
+	 * @return The sequence number of the new depiction.
+	 * @see #getSequence()
+	 */
+	public long nextSequence() {
+		return ++sequence;
+	}
+
+	/**
+	 * Makes sure the retained depiction can still be used for a page that reports having applied the depiction with the given sequence number. A page that has
+	 * not yet received the latest depictions will apply them in order, but a page that reports a depiction that was never sent, or that reports not knowing what
+	 * it has, can no longer be patched; the retained depiction is discarded, and its sequence continues beyond any the page may have seen.
+	 * @param pageSequence The sequence number of the last depiction the page applied, or <code>-1</code> if the page no longer knows what it has.
+	 * @return <code>true</code> if later depictions may be patched against the retained depiction, or <code>false</code> if the retained depiction was
+	 *         discarded so that the next depiction must be applied by the page regardless of what it has already applied.
+	 */
+	public boolean synchronize(final long pageSequence) {
+		if(pageSequence >= 0 && pageSequence <= sequence) {
+			return true;
+		}
+		clear();
+		sequence = Math.max(sequence, pageSequence);
+		return false;
+	}
+
+	/** Discards the entire retained depiction, for example because the client has loaded the page again. */
+	public void clear() {
+		elementsByID.clear();
+	}
+
+	/**
+	 * Discards the retained depiction of an element that has been removed from the client, along with the rest of the depiction of which it is a part.
+	 * @param id The ID of the element that was removed.
+	 */
+	public void remove(final String id) {
+		final Element element = elementsByID.get(id);
+		if(element != null) {
+			unindex(element.getRoot());
+		}
+	}
+
+	/**
+	 * Determines the text to send in place of the given depiction, and retains the depiction for comparison with later depictions. Elements with IDs that were
+	 * depicted before are replaced with patch operations for their differences, while other elements are returned unchanged. Attribute patch operations in the
+	 * depiction are applied to the retained depiction and returned unchanged.
+	 * <p>
+	 * If the depiction cannot be parsed, the entire retained depiction is discarded and the depiction is returned unchanged.
+	 * </p>
+	 * @param text The serialized depiction of one or more elements, along with any patch operations.
+	 * @return The text to send in place of the depiction.
+	 */
+	public CharSequence patch(final String text) {
+		final List<Object> nodes;
+		try {
+			nodes = new Parser(text).parse();
+		} catch(final IllegalArgumentException illegalArgumentException) { //if we don't understand the depiction, we can't know what the client will have
+			Log.warn("Unable to retain depiction:", illegalArgumentException.getMessage());
+			clear();
+			return text;
+		}
+		final StringBuilder patchText = new StringBuilder();
+		for(final Object node : nodes) {
+			if(!(node instanceof Element)) { //ignore formatting between elements
+				continue;
+			}
+			final Element element = (Element)node;
+			final String id = element.getID();
+			if(element.getName().equals(PATCH_OPERATION_ATTRIBUTE)) { //if this is already a patch operation, keep our copy up to date
+				applyAttribute(element);
+			} else if(id != null) {
+				final Element oldElement = elementsByID.get(id);
+				if(oldElement != null && oldElement.getName().equals(element.getName())) { //if this element was depicted before, send only what changed
+					patchIdentifiedElement(oldElement, element, text, patchText);
+					replace(oldElement, element);
+					continue;
+				}
+				index(element); //we'll send the entire element, which the client will synchronize
+			}
+			patchText.append(text, element.beginIndex, element.endIndex);
+		}
+		return patchText;
+	}
+
+	/**
+	 * Applies an attribute patch operation to the retained depiction.
+	 * @param operation The element representing the attribute patch operation.
+	 * @see WebPlatform#PATCH_OPERATION_ATTRIBUTE
+	 */
+	private void applyAttribute(final Element operation) {
+		final String id = operation.getID();
+		final String name = operation.getAttributes().get(PATCH_OPERATION_ATTRIBUTE_NAME);
+		final Element element = id != null ? elementsByID.get(id) : null;
+		if(element != null && name != null) {
+			final String value = operation.getAttributes().get(PATCH_OPERATION_ATTRIBUTE_VALUE); //the value is still encoded, just as it would be in the element
+			if(value != null) {
+				element.getAttributes().put(name, value);
+			} else {
+				element.getAttributes().remove(name);
+			}
+			element.getAttributes().remove(ATTRIBUTE_HASH_ATTRIBUTE_NAME); //the client discards the attribute hash as well
+			element.invalidateAncestorContent();
+		}
+	}
+
+	/**
+	 * Appends patch operations to change an element with an ID that was sent before into its new depiction. If the changes cannot be expressed as patch
+	 * operations, the entire new depiction is appended instead.
+	 * @param oldElement The element as it was last sent.
+	 * @param element The new depiction of the element.
+	 * @param text The text of the new depiction.
+	 * @param patchText The string builder to which patch text should be appended.
+	 */
+	private void patchIdentifiedElement(final Element oldElement, final Element element, final String text, final StringBuilder patchText) {
+		final int patchIndex = patchText.length();
+		if(!patchElement(oldElement, element, text, patchText)) { //if we couldn't patch the element, send it all for synchronization
+			patchText.setLength(patchIndex);
+			patchText.append(text, element.beginIndex, element.endIndex);
+		}
+	}
+
+	/**
+	 * Appends patch operations to change an element into its new depiction. Attributes can only be patched for elements with IDs.
+	 * @param oldElement The element as it was last sent.
+	 * @param element The new depiction of the element, with the same name as the old element.
+	 * @param text The text of the new depiction.
+	 * @param patchText The string builder to which patch text should be appended.
+	 * @return <code>true</code> if the changes were expressed as patch operations, or <code>false</code> if the element must be sent in its entirety.
+	 */
+	private boolean patchElement(final Element oldElement, final Element element, final String text, final StringBuilder patchText) {
+		if(!oldElement.isPatchable() || !element.isPatchable()) {
+			return false;
+		}
+		final String id = element.getID();
+		if(id != null) {
+			patchAttributes(id, oldElement, element, patchText);
+		} else if(!getUnhashedAttributes(oldElement).equals(getUnhashedAttributes(element))) { //attribute operations need an ID
+			return false;
+		}
+		final String contentHash = element.getAttributes().get(CONTENT_HASH_ATTRIBUTE_NAME);
+		if(contentHash != null && contentHash.equals(oldElement.getAttributes().get(CONTENT_HASH_ATTRIBUTE_NAME))) { //if the content hasn't changed, there's no need to look at it
+			return true;
+		}
+		return patchContent(oldElement, element, text, patchText);
+	}
+
+	/**
+	 * Appends attribute patch operations for each attribute of an element that was added, changed, or removed. Hash attributes are ignored.
+	 * @param id The ID of the element.
+	 * @param oldElement The element as it was last sent.
+	 * @param element The new depiction of the element.
+	 * @param patchText The string builder to which patch text should be appended.
+	 */
+	private static void patchAttributes(final String id, final Element oldElement, final Element element, final StringBuilder patchText) {
+		final Map<String, String> oldAttributes = getUnhashedAttributes(oldElement);
+		final Map<String, String> attributes = getUnhashedAttributes(element);
+		for(final Map.Entry<String, String> attribute : attributes.entrySet()) {
+			if(!attribute.getValue().equals(oldAttributes.get(attribute.getKey()))) {
+				appendAttributeOperation(patchText, id, attribute.getKey(), attribute.getValue());
+			}
+		}
+		for(final String oldAttributeName : oldAttributes.keySet()) {
+			if(!attributes.containsKey(oldAttributeName)) {
+				appendAttributeOperation(patchText, id, oldAttributeName, null);
+			}
+		}
+	}
+
+	/**
+	 * Returns the attributes of an element other than the hash attributes.
+	 * @param element The element the attributes of which to return.
+	 * @return The attributes of the element, not including the hash attributes.
+	 */
+	private static Map<String, String> getUnhashedAttributes(final Element element) {
+		final Map<String, String> attributes = element.getAttributes();
+		if(!attributes.containsKey(ATTRIBUTE_HASH_ATTRIBUTE_NAME) && !attributes.containsKey(CONTENT_HASH_ATTRIBUTE_NAME)) {
+			return attributes;
+		}
+		final Map<String, String> unhashedAttributes = new LinkedHashMap<String, String>(attributes);
+		unhashedAttributes.remove(ATTRIBUTE_HASH_ATTRIBUTE_NAME);
+		unhashedAttributes.remove(CONTENT_HASH_ATTRIBUTE_NAME);
+		return unhashedAttributes;
+	}
+
+	/**
+	 * Appends patch operations to change the content of an element into its new content. Child elements with IDs that were removed or inserted are removed or
+	 * inserted, along with any formatting whitespace before them, and the children that remain are patched in turn. The remaining children must otherwise be the
+	 * same.
+	 * @param oldElement The element as it was last sent.
+	 * @param element The new depiction of the element.
+	 * @param text The text of the new depiction.
+	 * @param patchText The string builder to which patch text should be appended.
+	 * @return <code>true</code> if the changes were expressed as patch operations, or <code>false</code> if the element must be sent in its entirety.
+	 */
+	private boolean patchContent(final Element oldElement, final Element element, final String text, final StringBuilder patchText) {
+		final List<Unit> oldUnits = getUnits(oldElement);
+		final List<Unit> units = getUnits(element);
+		final Set<String> oldIDs = getIDs(oldUnits);
+		final Set<String> ids = getIDs(units);
+		final List<Unit> keptOldUnits = new ArrayList<Unit>(oldUnits.size());
+		for(final Unit oldUnit : oldUnits) {
+			final String oldID = oldUnit.getID();
+			if(oldID != null && !ids.contains(oldID)) { //if an element with an ID is no longer present, remove it
+				appendRemoveOperation(patchText, oldID);
+			} else {
+				keptOldUnits.add(oldUnit);
+			}
+		}
+		final int unitCount = units.size();
+		final boolean[] inserted = new boolean[unitCount];
+		int keptUnitCount = 0;
+		for(int i = 0; i < unitCount; ++i) {
+			final String id = units.get(i).getID();
+			inserted[i] = id != null && !oldIDs.contains(id);
+			if(!inserted[i]) {
+				keptUnitCount++;
+			}
+		}
+		if(keptUnitCount != keptOldUnits.size()) { //if there are other differences, such as inserted children without IDs, we can't express them as operations
+			return false;
+		}
+		for(int i = 0; i < unitCount; ++i) { //insert each run of new elements next to a neighbor with an ID, or at the end of the parent
+			if(!inserted[i]) {
+				continue;
+			}
+			int end = i + 1;
+			while(end < unitCount && inserted[end]) {
+				end++;
+			}
+			final String previousID = i > 0 ? units.get(i - 1).getID() : null;
+			final String nextID = end < unitCount ? units.get(end).getID() : null;
+			final String parentID = end == unitCount ? element.getID() : null;
+			if(previousID != null) {
+				appendInsertOperationBegin(patchText, PATCH_OPERATION_INSERT_AFTER, previousID);
+			} else if(nextID != null) {
+				appendInsertOperationBegin(patchText, PATCH_OPERATION_INSERT_BEFORE, nextID);
+			} else if(parentID != null) {
+				appendInsertOperationBegin(patchText, PATCH_OPERATION_INSERT_PARENT, parentID);
+			} else { //there's nothing to identify where the elements should go
+				return false;
+			}
+			for(; i < end; ++i) {
+				final Unit unit = units.get(i);
+				if(unit.whitespace != null) {
+					patchText.append(unit.whitespace);
+				}
+				final Element insertedElement = (Element)unit.node;
+				patchText.append(text, insertedElement.beginIndex, insertedElement.endIndex);
+			}
+			appendOperationEnd(patchText, PATCH_OPERATION_INSERT);
+		}
+		final Iterator<Unit> keptOldUnitIterator = keptOldUnits.iterator();
+		for(int i = 0; i < unitCount; ++i) { //patch the children that remain
+			if(inserted[i]) {
+				continue;
+			}
+			final Unit unit = units.get(i);
+			final Unit oldUnit = keptOldUnitIterator.next();
+			if(!Objects.equals(oldUnit.whitespace, unit.whitespace)) {
+				return false;
+			}
+			if(unit.node instanceof Element && oldUnit.node instanceof Element) {
+				final Element childElement = (Element)unit.node;
+				final Element oldChildElement = (Element)oldUnit.node;
+				if(!childElement.getName().equals(oldChildElement.getName()) || !Objects.equals(childElement.getID(), oldChildElement.getID())) {
+					return false;
+				}
+				if(childElement.getID() != null) { //an element with an ID can always be sent for synchronization by itself
+					patchIdentifiedElement(oldChildElement, childElement, text, patchText);
+				} else if(!patchElement(oldChildElement, childElement, text, patchText)) {
+					return false;
+				}
+			} else if(!unit.node.equals(oldUnit.node)) { //text must be the same
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Groups the children of an element into units, each formed by an element along with any whitespace immediately before it, or by a single other child.
+	 * @param element The element the children of which to group.
+	 * @return The units of the element's children.
+	 */
+	private static List<Unit> getUnits(final Element element) {
+		final List<Object> children = element.getChildren();
+		final int childCount = children.size();
+		final List<Unit> units = new ArrayList<Unit>(childCount);
+		for(int i = 0; i < childCount; ++i) {
+			final Object child = children.get(i);
+			if(child instanceof String && i + 1 < childCount && children.get(i + 1) instanceof Element && isWhitespace((String)child)) {
+				units.add(new Unit((String)child, children.get(++i)));
+			} else {
+				units.add(new Unit(null, child));
+			}
+		}
+		return units;
+	}
+
+	/**
+	 * Returns the IDs of the elements of the given units.
+	 * @param units The units to examine.
+	 * @return The IDs of the unit elements that have IDs.
+	 */
+	private static Set<String> getIDs(final List<Unit> units) {
+		final Set<String> ids = new HashSet<String>();
+		for(final Unit unit : units) {
+			final String id = unit.getID();
+			if(id != null) {
+				ids.add(id);
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Determines whether the given text is formatting whitespace.
+	 * @param text The text to check.
+	 * @return <code>true</code> if the text consists only of spaces, tabs, and line breaks.
+	 */
+	private static boolean isWhitespace(final String text) {
+		for(int i = text.length() - 1; i >= 0; --i) {
+			switch(text.charAt(i)) {
+				case ' ':
+				case '\t':
+				case '\r':
+				case '\n':
+					break;
+				default:
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Appends an attribute patch operation.
+	 * @param patchText The string builder to which the operation should be appended.
+	 * @param id The ID of the element to patch.
+	 * @param name The name of the attribute to set or remove.
+	 * @param value The encoded value of the attribute, or <code>null</code> if the attribute should be removed.
+	 * @see WebPlatform#PATCH_OPERATION_ATTRIBUTE
+	 */
+	private static void appendAttributeOperation(final StringBuilder patchText, final String id, final String name, final String value) {
+		patchText.append('<').append(PATCH_OPERATION_ATTRIBUTE);
+		appendAttribute(patchText, ATTRIBUTE_ID, id);
+		appendAttribute(patchText, PATCH_OPERATION_ATTRIBUTE_NAME, name);
+		if(value != null) {
+			appendAttribute(patchText, PATCH_OPERATION_ATTRIBUTE_VALUE, value);
+		}
+		patchText.append("/>");
+	}
+
+	/**
+	 * Appends a remove patch operation.
+	 * @param patchText The string builder to which the operation should be appended.
+	 * @param id The ID of the element to remove.
+	 * @see WebPlatform#PATCH_OPERATION_REMOVE
+	 */
+	private static void appendRemoveOperation(final StringBuilder patchText, final String id) {
+		patchText.append('<').append(PATCH_OPERATION_REMOVE);
+		appendAttribute(patchText, ATTRIBUTE_ID, id);
+		patchText.append("/>");
+	}
+
+	/**
+	 * Appends the beginning of an insert patch operation. The content to insert and the end of the operation must follow.
+	 * @param patchText The string builder to which the operation should be appended.
+	 * @param position The name of the attribute indicating where the content should be inserted.
+	 * @param id The ID of the element relative to which the content should be inserted.
+	 * @see WebPlatform#PATCH_OPERATION_INSERT
+	 */
+	private static void appendInsertOperationBegin(final StringBuilder patchText, final String position, final String id) {
+		patchText.append('<').append(PATCH_OPERATION_INSERT);
+		appendAttribute(patchText, position, id);
+		patchText.append('>');
+	}
+
+	/**
+	 * Appends the end of a patch operation that has content.
+	 * @param patchText The string builder to which the operation end should be appended.
+	 * @param operation The name of the operation.
+	 */
+	private static void appendOperationEnd(final StringBuilder patchText, final String operation) {
+		patchText.append("</").append(operation).append('>');
+	}
+
+	/**
+	 * Appends an attribute to a patch operation.
+	 * @param patchText The string builder to which the attribute should be appended.
+	 * @param name The name of the attribute.
+	 * @param value The encoded value of the attribute.
+	 */
+	private static void appendAttribute(final StringBuilder patchText, final String name, final String value) {
+		patchText.append(' ').append(name).append("=\"").append(value).append('"');
+	}
+
+	/**
+	 * Replaces a retained element with its new depiction.
+	 * @param oldElement The element as it was last sent.
+	 * @param element The new depiction of the element.
+	 */
+	private void replace(final Element oldElement, final Element element) {
+		unindex(oldElement);
+		final Element parent = oldElement.parent;
+		if(parent != null) {
+			final List<Object> siblings = parent.getChildren();
+			siblings.set(siblings.indexOf(oldElement), element); //elements are only equal to themselves
+			element.parent = parent;
+			element.invalidateAncestorContent();
+		}
+		index(element);
+	}
+
+	/**
+	 * Retains the elements with IDs in the given element hierarchy. If an element with the same ID is retained elsewhere, for example because a component has
+	 * moved, the entire depiction containing that element is discarded.
+	 * @param element The root of the element hierarchy to retain.
+	 */
+	private void index(final Element element) {
+		final Element root = element.getRoot();
+		final List<Element> identifiedElements = element.getIdentifiedElements(new ArrayList<Element>());
+		for(final Element identifiedElement : identifiedElements) {
+			final Element existingElement = elementsByID.get(identifiedElement.getID());
+			if(existingElement != null && existingElement != identifiedElement) {
+				final Element existingRoot = existingElement.getRoot();
+				unindex(existingRoot);
+				if(existingRoot == root) { //if we discarded the depiction this element is part of, there is nothing left to retain
+					return;
+				}
+			}
+		}
+		for(final Element identifiedElement : identifiedElements) {
+			elementsByID.put(identifiedElement.getID(), identifiedElement);
+		}
+	}
+
+	/**
+	 * Discards the elements with IDs in the given element hierarchy.
+	 * @param element The root of the element hierarchy to discard.
+	 */
+	private void unindex(final Element element) {
+		for(final Element identifiedElement : element.getIdentifiedElements(new ArrayList<Element>())) {
+			elementsByID.remove(identifiedElement.getID(), identifiedElement);
+		}
+	}
+
+	/**
+	 * A retained element. Attribute values and text are kept as they were serialized, without decoding.
+	 * @author Garret Wilson
+	 */
+	private static class Element {
+
+		/** The qualified name of the element. */
+		private final String name;
+
+		/** @return The qualified name of the element. */
+		public String getName() {
+			return name;
+		}
+
+		/** The encoded attribute values, keyed to the attribute names, in the order they were serialized. */
+		private final Map<String, String> attributes = new LinkedHashMap<String, String>();
+
+		/** @return The encoded attribute values, keyed to the attribute names, in the order they were serialized. */
+		public Map<String, String> getAttributes() {
+			return attributes;
+		}
+
+		/** The children of the element, each either an {@link Element} or the {@link String} text of some other node. */
+		private final List<Object> children = new ArrayList<Object>();
+
+		/** @return The children of the element, each either an {@link Element} or the {@link String} text of some other node. */
+		public List<Object> getChildren() {
+			return children;
+		}
+
+		/** The parent element, or <code>null</code> if this is the root of a depiction. */
+		private Element parent = null;
+
+		/** The index of the element in the text from which it was parsed; only valid while patching that text. */
+		private int beginIndex;
+
+		/** The index after the element in the text from which it was parsed; only valid while patching that text. */
+		private int endIndex;
+
+		/**
+		 * Name constructor.
+		 * @param name The qualified name of the element.
+		 */
+		public Element(final String name) {
+			this.name = name;
+		}
+
+		/** @return The ID of the element, or <code>null</code> if the element has no ID. */
+		public String getID() {
+			return attributes.get(ATTRIBUTE_ID);
+		}
+
+		/** @return The root of the depiction of which this element is a part. */
+		public Element getRoot() {
+			Element root = this;
+			while(root.parent != null) {
+				root = root.parent;
+			}
+			return root;
+		}
+
+		/** @return Whether the client can be told to patch this element in place. */
+		public boolean isPatchable() {
+			return !UNPATCHABLE_ELEMENT_NAMES.contains(name) && !attributes.containsKey(PATCH_TYPE_ATTRIBUTE_NAME);
+		}
+
+		/** Removes the content hash from each ancestor element, as the client does when part of an element changes. */
+		public void invalidateAncestorContent() {
+			for(Element ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+				ancestor.attributes.remove(CONTENT_HASH_ATTRIBUTE_NAME);
+			}
+		}
+
+		/**
+		 * Collects this element and its descendant elements that have IDs.
+		 * @param identifiedElements The list to which elements with IDs should be added.
+		 * @return The given list.
+		 */
+		public List<Element> getIdentifiedElements(final List<Element> identifiedElements) {
+			if(getID() != null) {
+				identifiedElements.add(this);
+			}
+			for(final Object child : children) {
+				if(child instanceof Element) {
+					((Element)child).getIdentifiedElements(identifiedElements);
+				}
+			}
+			return identifiedElements;
+		}
+
+	}
+
+	/**
+	 * A child of an element as seen when comparing content: an element along with any formatting whitespace immediately before it, or a single other child.
+	 * @author Garret Wilson
+	 */
+	private static class Unit {
+
+		/** The whitespace before the element, or <code>null</code> if there is none. */
+		private final String whitespace;
+
+		/** The child element or text. */
+		private final Object node;
+
+		/**
+		 * Constructor.
+		 * @param whitespace The whitespace before the element, or <code>null</code> if there is none.
+		 * @param node The child element or text.
+		 */
+		public Unit(final String whitespace, final Object node) {
+			this.whitespace = whitespace;
+			this.node = node;
+		}
+
+		/** @return The ID of the unit element, or <code>null</code> if the unit is not an element with an ID. */
+		public String getID() {
+			return node instanceof Element ? ((Element)node).getID() : null;
+		}
+
+	}
+
+	/**
+	 * Parses depicted text into elements and the text of other nodes. Only the well-formed serialization produced by the depict context is supported.
+	 * @author Garret Wilson
+	 */
+	private static class Parser {
+
+		/** The text being parsed. */
+		private final String text;
+
+		/** The current parsing index. */
+		private int index = 0;
+
+		/**
+		 * Text constructor.
+		 * @param text The text to parse.
+		 */
+		public Parser(final String text) {
+			this.text = text;
+		}
+
+		/**
+		 * Parses the text.
+		 * @return The top-level nodes, each either an {@link Element} or the {@link String} text of some other node.
+		 * @throws IllegalArgumentException if the text is not well-formed.
+		 */
+		public List<Object> parse() {
+			final List<Object> nodes = new ArrayList<Object>();
+			final int length = text.length();
+			Element parent = null; //the element currently open
+			while(index < length) {
+				final int beginIndex = index;
+				if(text.charAt(index) != '<') { //text
+					index = text.indexOf('<', index);
+					if(index < 0) {
+						index = length;
+					}
+					addChild(nodes, parent, text.substring(beginIndex, index));
+				} else if(text.startsWith("<!--", index)) { //comment
+					addChild(nodes, parent, text.substring(beginIndex, skipPast("-->")));
+				} else if(text.startsWith("<![CDATA[", index)) { //CDATA section
+					addChild(nodes, parent, text.substring(beginIndex, skipPast("]]>")));
+				} else if(text.startsWith("<?", index)) { //processing instruction
+					addChild(nodes, parent, text.substring(beginIndex, skipPast("?>")));
+				} else if(text.startsWith("<!", index)) { //document type declaration
+					addChild(nodes, parent, text.substring(beginIndex, skipPast(">")));
+				} else if(text.startsWith("</", index)) { //end tag
+					final String name = text.substring(beginIndex + 2, skipPast(">") - 1).trim();
+					checkArgument(parent != null && parent.getName().equals(name), "Unexpected end tag %s.", name);
+					parent.endIndex = index;
+					parent = parent.parent;
+				} else { //start tag
+					final Element element = parseStartTag();
+					addChild(nodes, parent, element);
+					if(text.startsWith("/>", index - 2)) { //empty element
+						element.endIndex = index;
+					} else {
+						parent = element;
+						if(RAW_TEXT_ELEMENT_NAMES.contains(element.getName())) { //the content of raw text elements isn't markup
+							final int endTagIndex = text.indexOf("</" + element.getName(), index);
+							checkArgument(endTagIndex >= 0, "Missing end tag %s.", element.getName());
+							if(endTagIndex > index) {
+								element.getChildren().add(text.substring(index, endTagIndex));
+							}
+							index = endTagIndex;
+						}
+					}
+				}
+			}
+			checkArgument(parent == null, "Missing end tag %s.", parent != null ? parent.getName() : null);
+			return nodes;
+		}
+
+		/**
+		 * Adds a node to its parent, or to the top-level nodes if there is no parent.
+		 * @param nodes The top-level nodes.
+		 * @param parent The parent element, or <code>null</code> if the node is a top-level node.
+		 * @param node The element or text to add.
+		 */
+		private static void addChild(final List<Object> nodes, final Element parent, final Object node) {
+			if(parent != null) {
+				parent.getChildren().add(node);
+				if(node instanceof Element) {
+					((Element)node).parent = parent;
+				}
+			} else {
+				nodes.add(node);
+			}
+		}
+
+		/**
+		 * Parses a start tag beginning at the current index, leaving the index after the tag.
+		 * @return The element the start tag begins.
+		 * @throws IllegalArgumentException if the start tag is not well-formed.
+		 */
+		private Element parseStartTag() {
+			final int beginIndex = index++;
+			final Element element = new Element(text.substring(index, skipName()));
+			element.beginIndex = beginIndex;
+			while(true) {
+				skipWhitespace();
+				checkArgument(index < text.length(), "Unterminated start tag %s.", element.getName());
+				if(text.charAt(index) == '>') {
+					index++;
+					return element;
+				}
+				if(text.startsWith("/>", index)) {
+					index += 2;
+					return element;
+				}
+				final String attributeName = text.substring(index, skipName());
+				checkArgument(!attributeName.isEmpty(), "Invalid start tag %s.", element.getName());
+				skipWhitespace();
+				checkArgument(index < text.length() && text.charAt(index) == '=', "Attribute %s has no value.", attributeName);
+				index++;
+				skipWhitespace();
+				checkArgument(index < text.length(), "Attribute %s has no value.", attributeName);
+				final char quote = text.charAt(index);
+				checkArgument(quote == '"' || quote == '\'', "Attribute %s value is not quoted.", attributeName);
+				final int valueEndIndex = text.indexOf(quote, index + 1);
+				checkArgument(valueEndIndex >= 0, "Attribute %s value is not terminated.", attributeName);
+				element.getAttributes().put(attributeName, text.substring(index + 1, valueEndIndex));
+				index = valueEndIndex + 1;
+			}
+		}
+
+		/**
+		 * Skips past the next occurrence of the given delimiter.
+		 * @param delimiter The delimiter to find.
+		 * @return The new index, immediately after the delimiter.
+		 * @throws IllegalArgumentException if the delimiter does not occur.
+		 */
+		private int skipPast(final String delimiter) {
+			final int delimiterIndex = text.indexOf(delimiter, index);
+			checkArgument(delimiterIndex >= 0, "Missing %s.", delimiter);
+			return index = delimiterIndex + delimiter.length();
+		}
+
+		/**
+		 * Skips the characters of a name.
+		 * @return The new index, immediately after the name.
+		 */
+		private int skipName() {
+			final int length = text.length();
+			while(index < length) {
+				final char c = text.charAt(index);
+				if(c == '>' || c == '/' || c == '=' || Character.isWhitespace(c)) {
+					break;
+				}
+				index++;
+			}
+			return index;
+		}
+
+		/** Skips any whitespace. */
+		private void skipWhitespace() {
+			final int length = text.length();
+			while(index < length && Character.isWhitespace(text.charAt(index))) {
+				index++;
+			}
+		}
+
+	}
+
+}
@@ -152,6 +152,9 @@ protected void depictBegin() throws IOException {
 		depictContext.writeAttribute(null, HTML.ATTRIBUTE_LANG, getLanguageTag(locale)); //lang="locale"
 		final Orientation componentOrientation = component.getComponentOrientation(); //get the orientation used by the frame
 		writeDirectionAttribute(componentOrientation, componentOrientation.getFlow(Axis.X)); //always write the direction for the <xhtml:html> element
+		if(depictContext.isAnonymous()) { //if this page will be shared by visitors without sessions, keep the page from creating a session until the user interacts
+			depictContext.writeAttribute(GUISE_ML_NAMESPACE_URI, ELEMENT_HTML_ATTRIBUTE_ANONYMOUS, Boolean.TRUE.toString()); //guise:anonymous="true"
+		}
 		depictContext.write('\n');
 		//<xhtml:head>
 		depictContext.writeElementBegin(XHTML_NAMESPACE_URI, ELEMENT_HEAD); //<xhtml:head>
@@ -478,7 +481,7 @@ protected void depictEnd() throws IOException {
 		depictContext.writeElementEnd(XHTML_NAMESPACE_URI, ELEMENT_IFRAME); //</xhtml:iframe>
 		//<xhtml:script> (internal)
 		//this script sets up the body length property 
-		final int bodyLength = depictContext.getDepictStringBuilder().length(); //get the length of the body
+		final int bodyLength = depictContext.getDepictStringBuilder().length(); //get the length of the page so far, which is mostly the body
 		depictContext.write("\t");
 		depictContext.writeElementBegin(XHTML_NAMESPACE_URI, ELEMENT_SCRIPT, false); //<xhtml:script> (explicitly don't create an empty <xhtml:script> element, otherwise IE wouldn't recognize it)
 		depictContext.writeAttribute(null, ELEMENT_SCRIPT_ATTRIBUTE_TYPE, JAVASCRIPT_OBSOLETE_CONTENT_TYPE.toString()); //type="text/javascript"
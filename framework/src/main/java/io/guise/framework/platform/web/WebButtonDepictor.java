@@ -17,6 +17,7 @@
 package io.guise.framework.platform.web;
 
 import java.io.*;
+import java.util.HashMap;
 import java.util.Map;
 
 import io.guise.framework.GuiseSession;
@@ -71,7 +72,7 @@ public WebButtonDepictor() {
 	protected Map<String, Object> getBodyStyles() {
 		final C component = getDepictedObject(); //get the depicted component
 		final GuiseSession session = getSession(); //get the Guise session
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		if(component instanceof SelectActionControl && ((SelectActionControl)component).isSelected()) { //if this is a select action control that is selected
 			for(final Side side : CSS_SIDES) { //for each side
 			//TODO del when works				styles.put(CSS_PROPERTY_BORDER_X_WIDTH_TEMPLATE.apply(getSerializationName(side)), Extent.ZERO_EXTENT1);	//set the border to zero
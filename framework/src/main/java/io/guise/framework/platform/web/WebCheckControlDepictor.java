@@ -63,13 +63,7 @@ protected long getMutualExclusionGroupID(final MutualExclusionPolicyModelGroup m
 	 * @see MutualExclusionPolicyModelGroup
 	 */
 	protected static boolean isMutualExclusion(final CheckControl checkControl) {
-		//TODO important: change to a method of mutual exclusion determination that works for nested value models, such as are used with value prototypes
-		for(final PropertyChangeListener valueChangeListener : checkControl.getPropertyChangeListeners(ValueModel.VALUE_PROPERTY)) { //examine all objects listening for value changes
-			if(valueChangeListener instanceof MutualExclusionPolicyModelGroup) { //if these models are all part of a mutual exclusion group i.e. radio button-style functionality)
-				return true; //this is a mutual exclusion check control
-			}
-		}
-		return false; //there is no mutual exclusion policy group creating mutual exclusion
+		return checkControl.getMutualExclusionGroup() != null;
 	}
 
 	/**
@@ -82,16 +76,30 @@ protected static boolean isMutualExclusion(final CheckControl checkControl) {
 	 */
 	protected String getCheckControlName(final CheckControl checkControl) {
 		final WebPlatform platform = getPlatform(); //get the platform
-		//TODO important: change to a method of mutual exclusion determination that works for nested value models, such as are used with value prototypes
-		for(final PropertyChangeListener valueChangeListener : checkControl.getPropertyChangeListeners(ValueModel.VALUE_PROPERTY)) { //examine all objects listening for value changes
-			if(valueChangeListener instanceof MutualExclusionPolicyModelGroup) { //if these models are all part of a mutual exclusion group i.e. radio button-style functionality)
-				final MutualExclusionPolicyModelGroup mutualExclusionModelGroup = (MutualExclusionPolicyModelGroup)valueChangeListener; //cast the listener to a mutual exclusion group
-				return platform.getDepictIDString(getMutualExclusionGroupID(mutualExclusionModelGroup)); //return the string form of the ID of this group
-			}
+		final MutualExclusionPolicyModelGroup mutualExclusionModelGroup = checkControl.getMutualExclusionGroup();
+		if(mutualExclusionModelGroup != null) { //if this control is part of a mutual exclusion group i.e. radio button-style functionality)
+			return platform.getDepictIDString(getMutualExclusionGroupID(mutualExclusionModelGroup)); //return the string form of the ID of this group
 		}
 		return platform.getDepictIDString(checkControl.getDepictID()); //return the component ID if there is no special group name needed
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This version re-indexes the component in the platform's component index if the control joins or leaves a mutual exclusion group, as its depict name
+	 * changes.
+	 * </p>
+	 * @see CheckControl#MUTUAL_EXCLUSION_GROUP_PROPERTY
+	 * @see WebPlatform#getComponentIndex()
+	 */
+	@Override
+	protected void depictedObjectPropertyChange(final PropertyChangeEvent propertyChangeEvent) {
+		super.depictedObjectPropertyChange(propertyChangeEvent); //do the default property change functionality
+		if(propertyChangeEvent.getSource() == getDepictedObject() && CheckControl.MUTUAL_EXCLUSION_GROUP_PROPERTY.equals(propertyChangeEvent.getPropertyName())) {
+			getPlatform().getComponentIndex().reindex(getDepictedObject());
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -100,7 +108,7 @@ protected String getCheckControlName(final CheckControl checkControl) {
 	 */
 	@Override
 	protected Map<String, Object> getOuterStyles() {
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		outerStyles.putAll(getBodyStyles()); //add the styles for the body
 		return outerStyles; //return the combined styles		
 	}
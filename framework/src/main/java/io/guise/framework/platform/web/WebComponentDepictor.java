@@ -16,6 +16,8 @@
 
 package io.guise.framework.platform.web;
 
+import java.io.IOException;
+
 import io.guise.framework.component.Component;
 import io.guise.framework.platform.ComponentDepictor;
 
@@ -32,4 +34,12 @@
 	 * @return An identifier appropriate for the name attribute of the component's XHTML element.
 	 */
 	public String getDepictName();
+
+	/**
+	 * Depicts the changes to the component since it was last depicted. If only properties that can be patched in place on the client have changed, such as the
+	 * visibility of the component, only patch operations for those changes are depicted; otherwise the component is depicted in its entirety as with
+	 * {@link #depict()}. In either case the depiction will be marked as updated.
+	 * @throws IOException if there is an error updating the depiction.
+	 */
+	public void depictChanges() throws IOException;
 }
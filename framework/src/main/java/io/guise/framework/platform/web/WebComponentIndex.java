@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.framework.platform.web;
+
+import static java.util.Objects.*;
+
+import java.util.*;
+
+import io.guise.framework.component.*;
+import io.guise.framework.event.*;
+import io.guise.framework.platform.DepictedObject;
+
+/**
+ * An index of the live components in a component hierarchy, allowing components to be found by depict ID and by depict name without searching the hierarchy.
+ * <p>
+ * The index listens to the root component for child components being added and removed anywhere in the hierarchy, as composite components refire these
+ * events to their parents. A component is indexed under the depict name it has when it is added to the hierarchy. A depictor the depict name of which may
+ * change after the component is added, such as that of a check control joining a mutual exclusion group, must call {@link #reindex(Component)} when the name
+ * changes. As a safeguard, every component found under a depict name is checked against its current depict name and re-indexed if it has changed. A depict
+ * name not in the index is never resolved by searching the hierarchy, so request parameters that don't name components cost no more than a lookup.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ * @author Garret Wilson
+ * @see WebComponentDepictor#getDepictName()
+ */
+public class WebComponentIndex {
+
+	/** The platform on which the components are depicted. */
+	private final WebPlatform platform;
+
+	/** The root of the indexed component hierarchy, or <code>null</code> if no hierarchy has yet been indexed. */
+	private CompositeComponent rootComponent = null;
+
+	/** The depict names under which the live components are indexed, keyed to the components. */
+	private final Map<Component, String> componentDepictNames = new HashMap<Component, String>();
+
+	/** The live components, keyed to the depict names under which they are indexed. */
+	private final Map<String, Set<Component>> depictNameComponents = new HashMap<String, Set<Component>>();
+
+	/** The listener that updates the index as components are added to and removed from the hierarchy. */
+	private final CompositeComponentListener indexListener = new CompositeComponentListener() {
+
+		@Override
+		public void childComponentAdded(final ComponentEvent childComponentEvent) {
+			synchronized(WebComponentIndex.this) {
+				index(childComponentEvent.getComponent()); //index the added component and its descendants
+			}
+		}
+
+		@Override
+		public void childComponentRemoved(final ComponentEvent childComponentEvent) {
+			synchronized(WebComponentIndex.this) {
+				unindex(childComponentEvent.getComponent()); //remove the component and its descendants from the index
+			}
+		}
+
+	};
+
+	/**
+	 * Platform constructor.
+	 * @param platform The platform on which the components are depicted.
+	 * @throws NullPointerException if the given platform is <code>null</code>.
+	 */
+	public WebComponentIndex(final WebPlatform platform) {
+		this.platform = requireNonNull(platform, "Platform cannot be null.");
+	}
+
+	/**
+	 * Ensures that the given component hierarchy is the one indexed. If another hierarchy was being indexed, it is no longer indexed.
+	 * @param rootComponent The root of the component hierarchy to index.
+	 */
+	protected synchronized void setRootComponent(final CompositeComponent rootComponent) {
+		if(this.rootComponent != requireNonNull(rootComponent, "Root component cannot be null.")) { //if the root component is changing
+			if(this.rootComponent != null) { //if we were indexing another hierarchy
+				this.rootComponent.removeCompositeComponentListener(indexListener); //stop listening to the old hierarchy
+				componentDepictNames.clear();
+				depictNameComponents.clear();
+			}
+			this.rootComponent = rootComponent;
+			rootComponent.addCompositeComponentListener(indexListener); //listen for components being added and removed anywhere in the hierarchy
+			index(rootComponent); //index the entire hierarchy as it currently exists
+		}
+	}
+
+	/**
+	 * Retrieves the live component in the given hierarchy with the given depict ID.
+	 * @param rootComponent The root of the component hierarchy.
+	 * @param depictID The depict ID of the component.
+	 * @return The component in the given hierarchy with the given depict ID, or <code>null</code> if there is no such component in the hierarchy.
+	 * @see io.guise.framework.platform.Platform#getDepictedObject(long)
+	 */
+	public synchronized Component getComponentByDepictID(final CompositeComponent rootComponent, final long depictID) {
+		setRootComponent(rootComponent);
+		final DepictedObject depictedObject = platform.getDepictedObject(depictID); //look up the object directly from the platform
+		return depictedObject instanceof Component && componentDepictNames.containsKey(depictedObject) ? (Component)depictedObject : null; //only return live components
+	}
+
+	/**
+	 * Retrieves all live components in the given hierarchy, including the root component, that have a given depict name.
+	 * @param rootComponent The root of the component hierarchy.
+	 * @param depictName The name for which to check.
+	 * @param componentSet The set of components collecting the components with the given depict name.
+	 * @throws NullPointerException if the given depict name is <code>null</code>.
+	 */
+	public synchronized void getComponentsByDepictName(final CompositeComponent rootComponent, final String depictName, final Set<Component> componentSet) {
+		setRootComponent(rootComponent);
+		final Set<Component> components = depictNameComponents.get(requireNonNull(depictName, "Depict name cannot be null."));
+		if(components != null) { //if components are indexed under this name
+			for(final Component component : new ArrayList<Component>(components)) { //look at a copy of the components, as stale components will be re-indexed
+				if(depictName.equals(getDepictName(component))) { //if the component still has the given name
+					componentSet.add(component);
+				} else { //if the component's depict name has changed without the index being told
+					indexComponent(component); //re-index the component under its current name
+				}
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes a component under its current depict name. This method must be called by a depictor when the depict name of its component changes. A component
+	 * not in the indexed hierarchy is ignored.
+	 * @param component The component the depict name of which may have changed.
+	 * @see WebComponentDepictor#getDepictName()
+	 */
+	public synchronized void reindex(final Component component) {
+		if(componentDepictNames.containsKey(requireNonNull(component, "Component cannot be null."))) { //only live components are indexed
+			indexComponent(component);
+		}
+	}
+
+	/**
+	 * Indexes the given component and all its descendants.
+	 * @param component The component to index.
+	 */
+	private void index(final Component component) {
+		indexComponent(component);
+		if(component instanceof CompositeComponent) { //if this is a composite component
+			for(final Component childComponent : ((CompositeComponent)component).getChildComponents()) { //index each child branch
+				index(childComponent);
+			}
+		}
+	}
+
+	/**
+	 * Indexes a single component under its current depict name, removing any previous indexing of the component.
+	 * @param component The component to index.
+	 */
+	private void indexComponent(final Component component) {
+		final String depictName = getDepictName(component);
+		final String oldDepictName = componentDepictNames.put(component, depictName);
+		if(!Objects.equals(oldDepictName, depictName)) { //if the component is not already indexed under this name
+			if(oldDepictName != null) {
+				removeDepictNameComponent(oldDepictName, component);
+			}
+			if(depictName != null) {
+				depictNameComponents.computeIfAbsent(depictName, name -> new HashSet<Component>()).add(component);
+			}
+		}
+	}
+
+	/**
+	 * Removes the given component and all its descendants from the index.
+	 * @param component The component to remove from the index.
+	 */
+	private void unindex(final Component component) {
+		final String depictName = componentDepictNames.remove(component);
+		if(depictName != null) {
+			removeDepictNameComponent(depictName, component);
+		}
+		if(component instanceof CompositeComponent) { //if this is a composite component
+			for(final Component childComponent : ((CompositeComponent)component).getChildComponents()) { //remove each child branch
+				unindex(childComponent);
+			}
+		}
+	}
+
+	/**
+	 * Removes a component from the components indexed under a depict name.
+	 * @param depictName The depict name under which the component is indexed.
+	 * @param component The component to remove.
+	 */
+	private void removeDepictNameComponent(final String depictName, final Component component) {
+		final Set<Component> components = depictNameComponents.get(depictName);
+		if(components != null && components.remove(component) && components.isEmpty()) {
+			depictNameComponents.remove(depictName); //don't keep around empty sets
+		}
+	}
+
+	/**
+	 * Determines the current depict name of a component.
+	 * @param component The component for which a depict name should be determined.
+	 * @return The depict name of the component, or <code>null</code> if the component has no depict name.
+	 * @see WebComponentDepictor#getDepictName()
+	 */
+	private static String getDepictName(final Component component) {
+		return ((WebComponentDepictor<?>)component.getDepictor()).getDepictName();
+	}
+
+}
@@ -39,6 +39,14 @@ public interface WebDepictContext extends XHTMLDepictContext {
 	/** @return Whether quirks mode is being used. */
 	public boolean isQuirksMode();
 
+	/**
+	 * Indicates whether the depiction is anonymous: made for a new session only so that it may be shared among visitors that do not yet have a session. The page
+	 * of an anonymous depiction should not communicate with the server until the user interacts with it.
+	 * @return Whether the depiction is anonymous.
+	 * @see io.guise.framework.ComponentDestination#isAnonymous()
+	 */
+	public boolean isAnonymous();
+
 	/**
 	 * Returns a string representation of the provided style declarations. This method performs special processing on the following properties, including
 	 * generating user-agent-specific styles to allow proper display on certain browsers:
@@ -68,7 +68,7 @@ public WebDropMenuDepictor() {
 	 * @see AbstractWebComponentDepictor#getBodyStyles()
 	 */
 	protected Map<String, Object> getOuterStyles() { //TODO eventually switch to pure AJAX menus
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		final CompositeComponent parent = getDepictedObject().getParent(); //get the component parent
 		if(parent instanceof Menu) { //if this menu isn't a root menu (warning: giving the root menu relative positioning will cause submenu items to disappear on IE6/7 when the modal layer is turned on)
 			outerStyles.put(CSS_PROP_POSITION, CSS_POSITION_RELATIVE); //use position:relative to make the main part of the menu the containing block for absolute child positioning
@@ -85,7 +85,7 @@ protected Map<String, Object> getOuterStyles() { //TODO eventually switch to pur
 	 */
 	@Override
 	protected Map<String, Object> getBodyStyles() {
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		final C component = getDepictedObject(); //get the component
 		final CompositeComponent parent = component.getParent(); //get the component parent
 		if(parent instanceof Menu) { //if this menu isn't a root menu
@@ -76,7 +76,7 @@ public void uninstalled(final C component) {
 	 * @see AbstractWebComponentDepictor#getBodyStyles()
 	 */
 	protected Map<String, Object> getOuterStyles() { //TODO decide if this technique is the best for the container views
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		outerStyles.putAll(getBodyStyles()); //add the styles for the body
 		return outerStyles; //return the combined styles		
 	}
@@ -137,7 +137,7 @@ protected Map<String, Object> getOuterStyles() {
 	 */
 	@Override
 	protected Map<String, Object> getBodyStyles() {
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		final WebDepictContext depictContext = getDepictContext(); //get the depict context
 		final C component = getDepictedObject(); //get the component
 		final Orientation orientation = component.getComponentOrientation(); //get this component's orientation
@@ -19,6 +19,7 @@
 import java.beans.PropertyChangeEvent;
 import java.io.IOException;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.Map;
 
 import com.globalmentor.html.spec.HTML;
@@ -106,7 +107,7 @@ public WebImageDepictor() {
 	 */
 	@Override
 	protected Map<String, Object> getBodyStyles() {
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		final C component = getDepictedObject(); //get the component
 		final Orientation orientation = component.getComponentOrientation(); //get this component's orientation
 		if((orientation.getAxis(Flow.LINE) == Axis.X ? component.getLineExtent() : component.getPageExtent()) == null) { //if there is no preferred width and this image is within a fixed layout, set the maximum width of the image to keep large images from forcing a column width to be very large
@@ -17,6 +17,7 @@
 package io.guise.framework.platform.web;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 import io.guise.framework.component.*;
@@ -45,7 +46,7 @@ public WebLayoutComponentDepictor() {
 	 */
 	@Override
 	protected Map<String, Object> getOuterStyles() { //TODO decide if this technique is the best for the container views
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		outerStyles.putAll(getBodyStyles()); //add the styles for the body
 		return outerStyles; //return the combined styles		
 	}
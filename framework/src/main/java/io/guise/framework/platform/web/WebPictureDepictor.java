@@ -48,7 +48,7 @@ public WebPictureDepictor() {
 	 */
 	@Override
 	protected Map<String, Object> getBodyStyles() {
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		final double opacity = getDepictedObject().getImageOpacity(); //get the image opacity
 		if(opacity < 1.0) { //if the opacity isn't 100% TODO combine with component opacity
 			styles.put(CSS_PROP_OPACITY, Double.valueOf(opacity)); //indicate the opacity
@@ -96,9 +96,44 @@ public enum HTMLEditor {
 	 */
 	public static final String ATTRIBUTE_PATCH_TYPE_TEMP = "temp";
 
+	//html
+	/** The Guise html attribute indicating that the page was depicted anonymously and should not contact the server until the user interacts with it. */
+	public static final String ELEMENT_HTML_ATTRIBUTE_ANONYMOUS = "anonymous";
+
 	/** The HTML class attribute indicating content. */
 	public static final String ATTRIBUTE_CLASS_CONTENT = "content";
 
+	//patch operations, which change part of an existing element rather than replacing the element hierarchy
+	/** The patch operation that sets or removes a single attribute of the element identified by the operation's <code>id</code> attribute. */
+	public static final String PATCH_OPERATION_ATTRIBUTE = "attribute";
+	/** The patch operation attribute indicating the name of the attribute to set or remove. */
+	public static final String PATCH_OPERATION_ATTRIBUTE_NAME = "name";
+	/** The patch operation attribute indicating the new value of the attribute; if not present, the attribute is removed. */
+	public static final String PATCH_OPERATION_ATTRIBUTE_VALUE = "value";
+	/** The patch operation that inserts its content next to or within an existing element. */
+	public static final String PATCH_OPERATION_INSERT = "insert";
+	/** The patch operation attribute indicating the ID of the element after which the content should be inserted. */
+	public static final String PATCH_OPERATION_INSERT_AFTER = "after";
+	/** The patch operation attribute indicating the ID of the element before which the content should be inserted, along with any whitespace before it. */
+	public static final String PATCH_OPERATION_INSERT_BEFORE = "before";
+	/** The patch operation attribute indicating the ID of the element to the end of which the content should be added. */
+	public static final String PATCH_OPERATION_INSERT_PARENT = "parent";
+	/** The patch operation that removes the element identified by the operation's <code>id</code> attribute, along with any whitespace before it. */
+	public static final String PATCH_OPERATION_REMOVE = "remove";
+
+	//retained depiction sequencing
+	/** The AJAX request attribute containing the token identifying the page instance that sent the request. */
+	public static final String REQUEST_ATTRIBUTE_PAGE = "page";
+	/** The AJAX request attribute containing the sequence number of the last patch the page applied, or <code>-1</code> if the page no longer knows. */
+	public static final String REQUEST_ATTRIBUTE_SEQUENCE = "sequence";
+	/** The patch attribute containing the sequence number of the patch, if it was patched against the depiction retained for the page. */
+	public static final String PATCH_ATTRIBUTE_SEQUENCE = "sequence";
+	/**
+	 * The patch attribute containing the sequence number of the patch that must be applied before this one; if not present, the patch replaces what it contains
+	 * and may be applied regardless of earlier patches.
+	 */
+	public static final String PATCH_ATTRIBUTE_BASE = "base";
+
 	/** The path of the blank MP3 file, relative to the application. */
 	public static final URIPath BLANK_MP3_PATH = GuiseApplication.GUISE_ASSETS_AUDIO_PATH.resolve("blank.mp3");
 
@@ -149,10 +184,26 @@ public enum PollCommand implements WebPlatformCommand {
 		/**
 		 * The command to set the polling interval. parameters: <code>{{@value #INTERVAL_PROPERTY}:"<var>interval</var>"}</code>
 		 */
-		POLL_INTERVAL;
+		POLL_INTERVAL,
+
+		/**
+		 * The command to open a push channel, over which the server responds to a held poll request as soon as there are updates. Polling is suspended while the
+		 * push channel is open, and resumes if the push channel fails. parameters: none
+		 */
+		PUSH,
+
+		/**
+		 * The command to open a WebSocket, over which requests and responses are carried instead of HTTP and updates are sent as soon as they occur. Polling and
+		 * any push channel are suspended while the WebSocket is open, and resume if the WebSocket closes. parameters:
+		 * <code>{{@value #URI_PROPERTY}:"<var>uri</var>"}</code>
+		 */
+		WEB_SOCKET;
 
 		/** The property for specifying the poll interval in milliseconds. */
 		public static final String INTERVAL_PROPERTY = "interval";
+
+		/** The property for specifying the URI of the WebSocket to open. */
+		public static final String URI_PROPERTY = "uri";
 	}
 
 	/**
@@ -174,6 +225,18 @@ public enum PollCommand implements WebPlatformCommand {
 	/** @return The user agent client, such as a browser, used to access Guise on this platform. */
 	public WebUserAgentProduct getClientProduct();
 
+	/**
+	 * Retrieves the depiction last sent to a page of the client, retained for sending later depictions as patch operations. A new, empty retained depiction is
+	 * created if none is retained for the page; the platform may discard the retained depictions of pages it has not heard from recently.
+	 * @param pageToken The token identifying the page instance.
+	 * @return The depiction retained for the identified page.
+	 * @throws NullPointerException if the given page token is <code>null</code>.
+	 */
+	public RetainedWebDepiction getRetainedDepiction(final String pageToken);
+
+	/** @return The index of live components by depict ID and depict name, used for routing requests to components. */
+	public WebComponentIndex getComponentIndex();
+
 	/**
 	 * Retrieves information and functionality related to the current depiction.
 	 * @return A context for the current depiction.
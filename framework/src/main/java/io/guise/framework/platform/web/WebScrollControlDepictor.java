@@ -16,6 +16,7 @@
 
 package io.guise.framework.platform.web;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import io.guise.framework.component.*;
@@ -47,7 +48,7 @@ public WebScrollControlDepictor() {
 	 */
 	@Override
 	protected Map<String, Object> getOuterStyles() {
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		outerStyles.putAll(getBodyStyles()); //add the styles for the body
 		outerStyles.put(CSS_PROP_OVERFLOW, CSS_OVERFLOW_AUTO); //set overflow: auto TODO allow this to be customized by the component
 		return outerStyles; //return the combined styles		
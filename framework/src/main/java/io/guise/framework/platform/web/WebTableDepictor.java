@@ -53,7 +53,7 @@ public WebTableDepictor() {
 	 */
 	@Override
 	protected Map<String, Object> getOuterStyles() {
-		final Map<String, Object> outerStyles = super.getOuterStyles(); //get the default outer styles
+		final Map<String, Object> outerStyles = new HashMap<String, Object>(super.getOuterStyles()); //get a copy of the default outer styles
 		outerStyles.putAll(getBodyStyles()); //add the styles for the body
 		return outerStyles; //return the combined styles		
 	}
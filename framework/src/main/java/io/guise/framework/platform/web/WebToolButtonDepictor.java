@@ -16,6 +16,7 @@
 
 package io.guise.framework.platform.web;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import io.guise.framework.GuiseSession;
@@ -52,7 +53,7 @@ public WebToolButtonDepictor() {
 	protected Map<String, Object> getBodyStyles() {
 		final C component = getDepictedObject(); //get the depicted component
 		final GuiseSession session = getSession(); //get the Guise session
-		final Map<String, Object> styles = super.getBodyStyles(); //get the default body styles
+		final Map<String, Object> styles = new HashMap<String, Object>(super.getBodyStyles()); //get a copy of the default body styles
 		if(component.isRollover()) { //if the component is in a rollover state
 			for(final Side side : CSS_SIDES) { //for each side
 				styles.put(CSS_PROPERTY_BORDER_X_STYLE_TEMPLATE.apply(getSerializationName(side)), CSS_VALUE_AUTO); //set the border width to auto
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020 GlobalMentor, Inc. <http://www.globalmentor.com/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.guise.catalina.startup;
+
+import static java.util.Objects.*;
+
+import java.util.Map;
+
+import javax.annotation.*;
+
+import org.apache.catalina.*;
+
+/**
+ * Utilities for deploying Guise applications in an embedded Tomcat {@link Context}, for example for development or load testing.
+ * @implNote The Guise framework classes are referred to by name so that this module does not depend on the Guise framework; they must be available to the
+ *           context class loader when the context is started.
+ * @author Garret Wilson
+ */
+public class GuiseContexts {
+
+	/** The name of the Guise servlet class. */
+	public static final String GUISE_HTTP_SERVLET_CLASS_NAME = "io.guise.framework.platform.web.GuiseHTTPServlet";
+
+	/** The name of the listener class that manages Guise sessions. */
+	public static final String GUISE_SESSION_MANAGER_CLASS_NAME = "io.guise.framework.platform.web.HTTPServletGuiseSessionManager";
+
+	/** The name of the Guise servlet init parameter indicating the Guise application class. */
+	public static final String APPLICATION_CLASS_INIT_PARAMETER = "applicationClass";
+
+	/**
+	 * Adds a Guise servlet serving all paths of the given context, along with the Guise session manager. The servlet is configured to support asynchronous
+	 * processing, so that requests for Guise destinations do not tie up container threads while they are serviced.
+	 * @param context The context to which the Guise application should be added.
+	 * @param servletName The name of the servlet to add.
+	 * @param applicationClassName The name of the Guise application class.
+	 * @param initParameters Additional Guise servlet init parameters, such as <code>sessionExecutorPoolSize</code>.
+	 * @return The wrapper of the added servlet.
+	 */
+	public static Wrapper addGuiseServlet(@Nonnull final Context context, @Nonnull final String servletName, @Nonnull final String applicationClassName,
+			@Nonnull final Map<String, String> initParameters) {
+		context.addApplicationListener(GUISE_SESSION_MANAGER_CLASS_NAME);
+		final Wrapper guiseServlet = context.createWrapper();
+		guiseServlet.setName(requireNonNull(servletName));
+		guiseServlet.setServletClass(GUISE_HTTP_SERVLET_CLASS_NAME);
+		guiseServlet.addInitParameter(APPLICATION_CLASS_INIT_PARAMETER, requireNonNull(applicationClassName));
+		initParameters.forEach(guiseServlet::addInitParameter);
+		guiseServlet.setAsyncSupported(true);
+		guiseServlet.setLoadOnStartup(1);
+		context.addChild(guiseServlet);
+		context.addServletMappingDecoded("/*", servletName);
+		return guiseServlet;
+	}
+
+}